@@ -1,18 +1,23 @@
 package com.campito.backend.config;
 
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
 
+import com.campito.backend.service.agentAI.AgenteToolExecutor;
 import com.campito.backend.service.agentAI.AgenteToolsService;
 
 import java.util.Map;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 
 /**
  * Configuración de Spring AI para el Agente IA.
  * Registra funciones (tools) que el LLM puede llamar vía Function Calling.
+ * Cada función se ejecuta a través de {@link AgenteToolExecutor} (executor acotado, timeout
+ * por tool y contexto de seguridad tomado del {@link ToolContext}).
  * Solo se activa si se configura agente.ia.enabled=true
  */
 @Configuration
@@ -39,16 +44,42 @@ public class AgenteAIConfig {
      * Record para parámetros que requieren el ID de una tarjeta de crédito
      */
     public record TarjetaIdRequest(Long tarjetaId) {}
+
+    /**
+     * ChatClient compartido por todas las conversaciones. Es inmutable y thread-safe; armarlo
+     * en cada request repetía la configuración sin aportar nada. Las conexiones HTTP las
+     * administra {@link ClienteHttpLlmConfig}.
+     */
+    @Bean
+    public ChatClient agenteChatClient(ChatClient.Builder chatClientBuilder) {
+        return chatClientBuilder.build();
+    }
     
     @Bean
     @Description("Obtiene el estado financiero completo de un espacio de trabajo: saldo total, " +
                  "gastos mensuales, ingresos, deuda pendiente, flujo de 12 meses y distribución " +
                  "de gastos por categoría. Útil para responder preguntas como '¿cuál es mi saldo?' " +
                  "o '¿cuánto gasté este mes?'")
-    public Function<WorkspaceRequest, Map<String, Object>> obtenerDashboardFinanciero(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Map<String, Object>> obtenerDashboardFinanciero(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
+    ) {
+        return (request, toolContext) -> toolExecutor.ejecutar("obtenerDashboardFinanciero", toolContext,
+            () -> toolsService.obtenerDashboardFinanciero(request.workspaceId()));
+    }
+    
+    @Bean
+    @Description("Obtiene un resumen financiero compacto y precalculado del espacio de trabajo: " +
+                 "saldos por cuenta, totales por mes y motivo de los últimos meses (gastos, ingresos y " +
+                 "compras con crédito), principales comercios/contactos y cuotas pendientes por tarjeta. " +
+                 "Preferir esta herramienta para análisis generales, comparaciones entre meses o " +
+                 "preguntas como '¿en qué gasto más?' antes de combinar varias herramientas.")
+    public BiFunction<WorkspaceRequest, ToolContext, String> obtenerResumenFinanciero(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.obtenerDashboardFinanciero(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("obtenerResumenFinanciero", toolContext,
+            () -> toolsService.obtenerResumenFinanciero(request.workspaceId()));
     }
     
     @Bean
@@ -59,26 +90,30 @@ public class AgenteAIConfig {
                  "Sin filtros devuelve las últimas 20 transacciones. " +
                  "Útil para consultas como 'gastos de supermercado en enero', " +
                  "'transacciones de este año' o 'pagos a Juan Pérez'.")
-    public Function<BuscarTransaccionesRequest, Object> buscarTransacciones(
-        AgenteToolsService toolsService
+    public BiFunction<BuscarTransaccionesRequest, ToolContext, Object> buscarTransacciones(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.buscarTransacciones(
-            request.workspaceId(),
-            request.mes(),
-            request.anio(),
-            request.motivo(),
-            request.contacto()
-        );
+        return (request, toolContext) -> toolExecutor.ejecutar("buscarTransacciones", toolContext,
+            () -> toolsService.buscarTransacciones(
+                request.workspaceId(),
+                request.mes(),
+                request.anio(),
+                request.motivo(),
+                request.contacto()
+            ));
     }
     
     @Bean
     @Description("Lista todas las tarjetas de crédito registradas en el espacio de trabajo " +
                  "con su número, banco emisor, red de pago (Visa/Mastercard), día de cierre " +
                  "y día de vencimiento de pago. Útil para conocer qué tarjetas tiene el usuario.")
-    public Function<WorkspaceRequest, Object> listarTarjetasCredito(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarTarjetasCredito(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarTarjetasCredito(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarTarjetasCredito", toolContext,
+            () -> toolsService.listarTarjetasCredito(request.workspaceId()));
     }
     
     @Bean
@@ -86,80 +121,96 @@ public class AgenteAIConfig {
                  "ABIERTO (período de compra), CERRADO (esperando pago), PAGADO (completamente pagado), " +
                  "PAGADO_PARCIAL (pago parcial). Incluye monto total del resumen y fecha de vencimiento. " +
                  "Útil para preguntas sobre deudas de tarjetas o cuánto hay que pagar.")
-    public Function<WorkspaceRequest, Object> listarResumenesTarjetas(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarResumenesTarjetas(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarResumenesTarjetas(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarResumenesTarjetas", toolContext,
+            () -> toolsService.listarResumenesTarjetas(request.workspaceId()));
     }
     
     @Bean
     @Description("Lista las cuentas bancarias del espacio de trabajo con su nombre, " +
                  "entidad financiera y saldo actual. Útil para consultar saldos de cuentas específicas " +
                  "o conocer cuántas cuentas hay disponibles.")
-    public Function<WorkspaceRequest, Object> listarCuentasBancarias(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarCuentasBancarias(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarCuentasBancarias(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarCuentasBancarias", toolContext,
+            () -> toolsService.listarCuentasBancarias(request.workspaceId()));
     }
     
     @Bean
     @Description("Lista todas las categorías o motivos de gastos/ingresos registrados en el espacio " +
                  "(ej: Supermercado, Alquiler, Salario, Transporte, etc.). Útil para saber qué " +
                  "categorías existen antes de buscar transacciones por motivo.")
-    public Function<WorkspaceRequest, Object> listarMotivosTransacciones(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarMotivosTransacciones(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarMotivosTransacciones(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarMotivosTransacciones", toolContext,
+            () -> toolsService.listarMotivosTransacciones(request.workspaceId()));
     }
 
     @Bean
     @Description("Lista todas las compras realizadas con tarjetas de crédito en el espacio de trabajo, " +
                  "incluyendo las completamente pagadas. Muestra descripción, monto total, número de cuotas " +
                  "pagadas/totales y tarjeta asociada. Útil para ver el historial completo de compras en cuotas.")
-    public Function<WorkspaceRequest, Object> buscarTodasComprasCredito(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> buscarTodasComprasCredito(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.buscarTodasComprasCredito(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("buscarTodasComprasCredito", toolContext,
+            () -> toolsService.buscarTodasComprasCredito(request.workspaceId()));
     }
 
     @Bean
     @Description("Lista únicamente las compras a crédito que aún tienen cuotas pendientes de pago " +
                  "en el espacio de trabajo. Útil para responder '¿qué compras en cuotas me faltan pagar?' " +
                  "o calcular la deuda total en cuotas activas.")
-    public Function<WorkspaceRequest, Object> listarComprasCreditoPendientes(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarComprasCreditoPendientes(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarComprasCreditoPendientes(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarComprasCreditoPendientes", toolContext,
+            () -> toolsService.listarComprasCreditoPendientes(request.workspaceId()));
     }
 
     @Bean
     @Description("Lista las cuotas del período actual de una tarjeta de crédito específica, incluyendo " +
                  "monto, número de cuota, estado (pagada/pendiente) y fecha. " +
                  "IMPORTANTE: Primero llamar a listarTarjetasCredito para obtener el ID (tarjetaId) de la tarjeta.")
-    public Function<TarjetaIdRequest, Object> listarCuotasPorTarjeta(
-        AgenteToolsService toolsService
+    public BiFunction<TarjetaIdRequest, ToolContext, Object> listarCuotasPorTarjeta(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarCuotasPorTarjeta(request.tarjetaId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarCuotasPorTarjeta", toolContext,
+            () -> toolsService.listarCuotasPorTarjeta(request.tarjetaId()));
     }
 
     @Bean
     @Description("Lista el historial completo de resúmenes mensuales de una tarjeta de crédito específica, " +
                  "ordenados del más reciente al más antiguo. Útil para ver la evolución de gastos de una tarjeta " +
                  "en particular. IMPORTANTE: Primero llamar a listarTarjetasCredito para obtener el ID (tarjetaId).")
-    public Function<TarjetaIdRequest, Object> listarResumenesPorTarjeta(
-        AgenteToolsService toolsService
+    public BiFunction<TarjetaIdRequest, ToolContext, Object> listarResumenesPorTarjeta(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarResumenesPorTarjeta(request.tarjetaId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarResumenesPorTarjeta", toolContext,
+            () -> toolsService.listarResumenesPorTarjeta(request.tarjetaId()));
     }
 
     @Bean
     @Description("Lista los contactos de transferencia registrados en el espacio de trabajo " +
                  "(personas o entidades a las que se les transfiere dinero), con nombre, alias o CBU/CVU. " +
                  "Útil para identificar destinatarios frecuentes de transferencias.")
-    public Function<WorkspaceRequest, Object> listarContactosTransaccion(
-        AgenteToolsService toolsService
+    public BiFunction<WorkspaceRequest, ToolContext, Object> listarContactosTransaccion(
+        AgenteToolsService toolsService,
+        AgenteToolExecutor toolExecutor
     ) {
-        return request -> toolsService.listarContactosTransaccion(request.workspaceId());
+        return (request, toolContext) -> toolExecutor.ejecutar("listarContactosTransaccion", toolContext,
+            () -> toolsService.listarContactosTransaccion(request.workspaceId()));
     }
 
 }
@@ -0,0 +1,174 @@
+package com.campito.backend.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Configuración de la capa de ejecución asíncrona para listeners de eventos
+ * y para las tools del agente IA.
+ *
+ * <p>Los métodos {@code @Async("eventosTaskExecutor")} se ejecutan sobre un pool
+ * de virtual threads con concurrencia y cola acotadas:</p>
+ * <ul>
+ *   <li><b>max-concurrency</b>: cantidad máxima de tareas simultáneas. Debe ser menor
+ *       al tamaño del pool de Hikari para que una ráfaga de notificaciones no deje
+ *       sin conexiones a los requests HTTP.</li>
+ *   <li><b>queue-capacity</b>: tareas en espera. Acota la memoria ante ráfagas del scheduler.</li>
+ *   <li><b>saturation-policy</b>: qué hacer con la cola llena.
+ *       {@code BLOQUEAR} frena al publicador hasta {@code offer-timeout-ms} (backpressure) y
+ *       luego rechaza; {@code DESCARTAR} rechaza inmediatamente.</li>
+ * </ul>
+ *
+ * <p>El executor se instrumenta con {@link ExecutorServiceMetrics} (tareas en cola, activas,
+ * completadas, tiempo de espera y de ejecución) y un contador propio de rechazos.</p>
+ *
+ * <p>Las tools del agente IA usan un executor aparte ({@code agenteToolsExecutor}) con la misma
+ * forma, pero que rechaza de inmediato con la cola llena: quien espera es el pipeline del LLM.
+ * Las tools pedidas en un mismo turno se despachan desde {@code agenteToolsFanoutExecutor}
+ * (un virtual thread por tool, sin límite propio): esos hilos solo esperan su lugar en
+ * {@code agenteToolsExecutor}, que sigue acotando las consultas a la base.</p>
+ */
+@Configuration
+public class AsyncConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    public static final String EVENTOS_EXECUTOR = "eventosTaskExecutor";
+    public static final String AGENTE_TOOLS_EXECUTOR = "agenteToolsExecutor";
+    public static final String AGENTE_TOOLS_FANOUT_EXECUTOR = "agenteToolsFanoutExecutor";
+
+    /**
+     * Políticas disponibles cuando la cola del executor está llena.
+     */
+    public enum PoliticaSaturacion {
+        BLOQUEAR,
+        DESCARTAR
+    }
+
+    @Value("${eventos.async.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${eventos.async.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${eventos.async.saturation-policy:BLOQUEAR}")
+    private PoliticaSaturacion saturationPolicy;
+
+    @Value("${eventos.async.offer-timeout-ms:2000}")
+    private long offerTimeoutMs;
+
+    @Value("${agente.tools.executor.max-concurrency:2}")
+    private int toolsMaxConcurrency;
+
+    @Value("${agente.tools.executor.queue-capacity:50}")
+    private int toolsQueueCapacity;
+
+    /**
+     * Executor acotado sobre virtual threads para los listeners de eventos de dominio.
+     * Al cerrar el contexto se invoca {@code close()}, que espera a que terminen
+     * las tareas ya encoladas antes de finalizar.
+     */
+    @Bean(name = EVENTOS_EXECUTOR, destroyMethod = "close")
+    public ExecutorService eventosTaskExecutor(MeterRegistry meterRegistry) {
+        Counter rechazos = Counter.builder(MetricsConfig.MetricNames.ASYNC_EVENTOS_RECHAZADOS)
+                .description("Tareas de eventos rechazadas por saturación del executor asíncrono")
+                .tag("politica", saturationPolicy.name())
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrency,
+                maxConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("eventos-", 0).factory(),
+                new SaturacionHandler(saturationPolicy, offerTimeoutMs, rechazos));
+        executor.allowCoreThreadTimeOut(true);
+
+        logger.info("Executor de eventos configurado: concurrencia={}, cola={}, política={}",
+                maxConcurrency, queueCapacity, saturationPolicy);
+
+        // 📊 MÉTRICA: executor.queued, executor.active, executor.completed, executor (latencia) y executor.idle (espera en cola)
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "eventos", Tag.of("tipo", "listeners"));
+    }
+
+    /**
+     * Executor acotado sobre virtual threads para las tools del agente IA (consultas JPA bloqueantes).
+     * Con la cola llena rechaza la tarea; {@code AgenteToolExecutor} registra el rechazo.
+     */
+    @Bean(name = AGENTE_TOOLS_EXECUTOR, destroyMethod = "close")
+    public ExecutorService agenteToolsExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                toolsMaxConcurrency,
+                toolsMaxConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(toolsQueueCapacity),
+                Thread.ofVirtual().name("agente-tools-", 0).factory(),
+                new AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        logger.info("Executor de tools del agente configurado: concurrencia={}, cola={}",
+                toolsMaxConcurrency, toolsQueueCapacity);
+
+        // 📊 MÉTRICA: executor.queued, executor.active, executor.completed, executor (latencia) y executor.idle (espera en cola)
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "agente-tools", Tag.of("tipo", "tools"));
+    }
+
+    /**
+     * Un virtual thread por tool de un turno del agente. No necesita cola ni límite: cada
+     * hilo delega la consulta en {@link #agenteToolsExecutor} y espera su resultado.
+     */
+    @Bean(name = AGENTE_TOOLS_FANOUT_EXECUTOR, destroyMethod = "close")
+    public ExecutorService agenteToolsFanoutExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agente-fanout-", 0).factory());
+    }
+
+    /**
+     * Handler de saturación: aplica backpressure o descarte y registra cada rechazo.
+     */
+    private static final class SaturacionHandler implements RejectedExecutionHandler {
+
+        private final PoliticaSaturacion politica;
+        private final long offerTimeoutMs;
+        private final Counter rechazos;
+
+        private SaturacionHandler(PoliticaSaturacion politica, long offerTimeoutMs, Counter rechazos) {
+            this.politica = politica;
+            this.offerTimeoutMs = offerTimeoutMs;
+            this.rechazos = rechazos;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable tarea, ThreadPoolExecutor executor) {
+            if (politica == PoliticaSaturacion.BLOQUEAR && !executor.isShutdown()) {
+                try {
+                    if (executor.getQueue().offer(tarea, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            rechazos.increment();
+            logger.warn("Executor de eventos saturado (activas={}, en cola={}). Tarea rechazada.",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new RejectedExecutionException("Executor de eventos saturado");
+        }
+    }
+}
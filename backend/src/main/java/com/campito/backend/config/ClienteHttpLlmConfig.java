@@ -0,0 +1,175 @@
+package com.campito.backend.config;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Cliente HTTP hacia el proveedor del LLM (Groq, API compatible con OpenAI).
+ *
+ * <p>Spring AI arma su {@code RestClient} (chat bloqueante) y su {@code WebClient} (stream)
+ * con los builders de Spring Boot. Esta configuración les da a ambos el mismo
+ * {@link HttpClient} de Reactor Netty, con un pool de conexiones propio:</p>
+ * <ul>
+ *   <li><b>max-conexiones / max-pendientes</b>: conexiones abiertas hacia el proveedor y
+ *       pedidos esperando una. El límite real de llamadas lo pone {@code GobernadorConcurrenciaLlm};
+ *       el pool solo tiene que acompañarlo.</li>
+ *   <li><b>max-inactividad-ms / max-vida-ms</b>: keep-alive. Una conexión inactiva se cierra
+ *       antes de que lo haga el proveedor (evita reutilizar conexiones ya cerradas del otro
+ *       lado) y ninguna vive indefinidamente (rota entre nodos del balanceador).</li>
+ *   <li><b>http2</b>: con {@code https} se negocia HTTP/2 por ALPN, con HTTP/1.1 como alternativa.
+ *       Con HTTP/2 los streams concurrentes comparten conexión.</li>
+ *   <li><b>connect-timeout-ms / read-timeout-ms</b>: el de lectura es el máximo sin recibir
+ *       datos; en streaming se cuenta entre fragmentos, no sobre la respuesta completa.</li>
+ * </ul>
+ *
+ * <p>El pool publica sus métricas en Micrometer ({@code reactor.netty.connection.provider.*},
+ * tag {@code name} = {@link MetricsConfig.MetricNames#POOL_LLM}) junto con las del cliente
+ * ({@code reactor.netty.http.client.*}: conexión, TLS y tiempo de respuesta).</p>
+ *
+ * <p>Al arrancar se abre una conexión contra {@code /v1/models} (sin costo de tokens) para que
+ * el primer usuario no pague DNS, TCP y TLS.</p>
+ *
+ * <p>La aplicación no usa otros {@code RestClient}/{@code WebClient}: los customizers afectan
+ * solo a los clientes de Spring AI.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "agente.ia.enabled", havingValue = "true", matchIfMissing = false)
+public class ClienteHttpLlmConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteHttpLlmConfig.class);
+
+    @Value("${spring.ai.openai.base-url}")
+    private String baseUrl;
+
+    @Value("${spring.ai.openai.api-key}")
+    private String apiKey;
+
+    @Value("${agente.llm.http.max-conexiones:32}")
+    private int maxConexiones;
+
+    @Value("${agente.llm.http.max-pendientes:200}")
+    private int maxPendientes;
+
+    @Value("${agente.llm.http.max-inactividad-ms:45000}")
+    private long maxInactividadMs;
+
+    @Value("${agente.llm.http.max-vida-ms:300000}")
+    private long maxVidaMs;
+
+    @Value("${agente.llm.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${agente.llm.http.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${agente.llm.http.http2:true}")
+    private boolean http2;
+
+    @Value("${agente.llm.http.calentamiento:true}")
+    private boolean calentamiento;
+
+    /**
+     * Pool de conexiones exclusivo del LLM. Las conexiones inactivas se desalojan en segundo
+     * plano, no solo al pedir una.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider llmConnectionProvider() {
+        return ConnectionProvider.builder(MetricsConfig.MetricNames.POOL_LLM)
+                .maxConnections(maxConexiones)
+                .pendingAcquireMaxCount(maxPendientes)
+                // Esperar una conexión libre cuenta como parte del tiempo de conexión
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxInactividadMs))
+                .maxLifeTime(Duration.ofMillis(maxVidaMs))
+                .evictInBackground(Duration.ofSeconds(30))
+                // 📊 MÉTRICA: reactor.netty.connection.provider.* (total, activas, inactivas, pendientes)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient llmHttpClient(ConnectionProvider llmConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(llmConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                // 📊 MÉTRICA: reactor.netty.http.client.* (conexión, TLS, respuesta). URI fija: sin riesgo de cardinalidad
+                .metrics(true, Function.identity());
+
+        // HTTP/2 requiere TLS (ALPN): contra un endpoint http (p. ej. el LLM simulado de los tests) queda HTTP/1.1
+        boolean usarHttp2 = http2 && baseUrl.startsWith("https");
+        if (usarHttp2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        logger.info("Cliente HTTP del LLM configurado: conexiones={}, pendientes={}, inactividad={}ms, vida={}ms, "
+                + "connect={}ms, lectura={}ms, http2={}", maxConexiones, maxPendientes, maxInactividadMs, maxVidaMs,
+                connectTimeoutMs, readTimeoutMs, usarHttp2);
+        return httpClient;
+    }
+
+    /**
+     * Conector del {@code WebClient.Builder} de Spring Boot (stream). Al declararlo, Boot no
+     * crea el suyo y lo aplica a los builders.
+     */
+    @Bean
+    public ClientHttpConnector llmClientHttpConnector(HttpClient llmHttpClient) {
+        return new ReactorClientHttpConnector(llmHttpClient);
+    }
+
+    /**
+     * Request factory del {@code RestClient.Builder} de Spring Boot (chat bloqueante).
+     */
+    @Bean
+    public RestClientCustomizer llmRestClientCustomizer(HttpClient llmHttpClient) {
+        return builder -> builder.requestFactory(new ReactorClientHttpRequestFactory(llmHttpClient));
+    }
+
+    /**
+     * Abre una conexión al proveedor cuando la aplicación está lista, sin bloquear el arranque.
+     * Un fallo solo se registra: el primer request abrirá la conexión como antes.
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> llmCalentamiento(HttpClient llmHttpClient) {
+        return evento -> {
+            if (!calentamiento) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            // Carga event loop, resolver DNS y contexto TLS; luego abre una conexión y la devuelve al pool
+            llmHttpClient.warmup()
+                    .then(llmHttpClient
+                            .headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + apiKey))
+                            .get()
+                            .uri(baseUrl + "/v1/models")
+                            .responseSingle((respuesta, cuerpo) -> cuerpo.asString()
+                                    .then(Mono.just(respuesta.status().code()))))
+                    .timeout(Duration.ofMillis(connectTimeoutMs + readTimeoutMs))
+                    .subscribe(
+                            status -> logger.info("Conexión al LLM precalentada en {} ms (HTTP {})",
+                                    (System.nanoTime() - inicio) / 1_000_000, status),
+                            error -> logger.warn("No se pudo precalentar la conexión al LLM: {}", error.getMessage()));
+        };
+    }
+}
@@ -50,6 +50,42 @@ public class MetricsConfig {
         public static final String NOTIFICACIONES_ENVIADAS = "negocio.notificaciones.enviadas";
         public static final String NOTIFICACIONES_LEIDAS = "negocio.notificaciones.leidas";
         public static final String SSE_CONEXIONES_ACTIVAS = "negocio.sse.conexiones.activas";
+        /** DistributionSummary: profundidad de la cola de una conexión SSE al encolar un evento. */
+        public static final String SSE_COLA_PROFUNDIDAD = "negocio.sse.cola.profundidad";
+        /** Gauge: eventos encolados y aún no enviados, sumando todas las conexiones SSE. */
+        public static final String SSE_COLA_PENDIENTES = "negocio.sse.cola.pendientes";
+        /** Counter: eventos SSE descartados. Tags: motivo=[cola_llena|conexion_cerrada|duplicado] */
+        public static final String SSE_EVENTOS_DESCARTADOS = "negocio.sse.eventos.descartados";
+        /** Counter: eventos reenviados al reconectar con Last-Event-ID o para completar huecos entre nodos. Tags: origen=[buffer|base_datos|hueco] */
+        public static final String SSE_EVENTOS_REENVIADOS = "negocio.sse.eventos.reenviados";
+        /** Gauge: usuarios con buffer de reenvío SSE en memoria. */
+        public static final String SSE_REENVIO_USUARIOS = "negocio.sse.reenvio.usuarios";
+        /** DistributionSummary: notificaciones persistidas por lote desde el outbox. */
+        public static final String NOTIFICACIONES_LOTE_TAMANIO = "negocio.notificaciones.lote.tamanio";
+        /** Timer: lag entre la escritura en el outbox y la entrega de la notificación. */
+        public static final String NOTIFICACIONES_OUTBOX_LAG = "negocio.notificaciones.outbox.lag";
+        /** Gauge: filas pendientes en el outbox (actualizado en cada sondeo). */
+        public static final String NOTIFICACIONES_OUTBOX_PENDIENTES = "negocio.notificaciones.outbox.pendientes";
+        /** Gauge: antigüedad en segundos de la fila pendiente más vieja del outbox. */
+        public static final String NOTIFICACIONES_OUTBOX_ANTIGUEDAD = "negocio.notificaciones.outbox.antiguedad";
+        /** Counter: entregas fallidas del outbox. Tags: resultado=[reintento|fallido] */
+        public static final String NOTIFICACIONES_OUTBOX_ERRORES = "negocio.notificaciones.outbox.errores";
+        /** Counter: notificaciones señalizadas por otros nodos (pg_notify) y entregadas a emitters locales. */
+        public static final String NOTIFICACIONES_CLUSTER_RECIBIDAS = "negocio.notificaciones.cluster.recibidas";
+        /** Caché Caffeine: nombre (tag cache) de los contadores de no leídas por usuario. */
+        public static final String CACHE_NO_LEIDAS = "notificaciones-no-leidas";
+        /** Caché Caffeine: nombre (tag cache) de los tokens JWT ya verificados. */
+        public static final String CACHE_JWT = "jwt-verificados";
+        /** Caché Caffeine: nombre (tag cache) de los principales usados por el filtro JWT. */
+        public static final String CACHE_PRINCIPALES = "usuarios-autenticados";
+        /** Caché Caffeine: nombre (tag cache) del índice usuario → espacios de trabajo y rol. */
+        public static final String CACHE_MEMBRESIAS = "membresias-espacios";
+        
+        // Rate limiting de la API
+        /** Counter: requests rechazadas con 429 (tag nivel: general, costoso, agente). */
+        public static final String RATE_LIMIT_RECHAZOS = "infra.rate-limit.rechazos";
+        /** Caché Caffeine: nombre (tag cache) del almacén de token buckets por cliente. */
+        public static final String CACHE_RATE_LIMIT = "rate-limit-buckets";
         
         // Espacios de Trabajo (Multi-tenancy)
         public static final String ESPACIOS_ACTIVOS = "negocio.espacios.activos";
@@ -61,12 +97,68 @@ public class MetricsConfig {
         public static final String AGENTE_HISTORIAL_TIMER = "negocio.agente.historial.tiempo";
         
         // Agente IA - Operaciones en tiempo real
-        /** Counter: requests al LLM. Tags: tipo=[chat|stream], resultado=[exitoso|error] */
+        /** Counter: requests al LLM. Tags: tipo=[chat|stream], resultado=[exitoso|error|iniciado|cancelado|cache] */
         public static final String AGENTE_REQUESTS = "negocio.agente.requests";
-        /** Counter: tokens consumidos en respuestas no-streaming del LLM. */
+        /** Counter: tokens consumidos en respuestas del LLM (en stream, estimados si no hay metadata de uso). Tags: tipo=[chat|stream] */
         public static final String AGENTE_TOKENS_CONSUMIDOS = "negocio.agente.tokens.consumidos";
-        /** Timer: latencia de respuesta del LLM en modo chat (bloqueante). */
+        /** Timer: latencia de respuesta del LLM (en stream, duración total). Tags: tipo=[chat|stream] */
         public static final String AGENTE_LATENCIA = "negocio.agente.latencia";
+        /** Timer: tiempo hasta el primer token del stream del LLM (time-to-first-token). */
+        public static final String AGENTE_STREAM_PRIMER_TOKEN = "negocio.agente.stream.primer-token";
+        /** Timer: intervalo entre tokens consecutivos del stream del LLM. */
+        public static final String AGENTE_STREAM_ENTRE_TOKENS = "negocio.agente.stream.entre-tokens";
+        /** Counter: invocaciones de tools. Tags: tool, cache=[hit|miss] */
+        public static final String AGENTE_TOOLS_INVOCACIONES = "negocio.agente.tools.invocaciones";
+        /** Timer: latencia de ejecución de cada tool (solo misses). Tags: tool */
+        public static final String AGENTE_TOOLS_LATENCIA = "negocio.agente.tools.latencia";
+        /** Timer: latencia ahorrada por cada resultado servido desde caché. Tags: tool */
+        public static final String AGENTE_TOOLS_CACHE_AHORRO = "negocio.agente.tools.cache.ahorro";
+        /** Caché Caffeine: nombre (tag cache) de los resultados de tools por espacio y versión de datos. */
+        public static final String CACHE_AGENTE_TOOLS = "agente-tools";
+        /** Timer: espera en cola del executor antes de ejecutar cada tool. Tags: tool */
+        public static final String AGENTE_TOOLS_ESPERA = "negocio.agente.tools.espera";
+        /** Timer: ejecución de cada tool en el executor (incluye la caché). Tags: tool */
+        public static final String AGENTE_TOOLS_EJECUCION = "negocio.agente.tools.ejecucion";
+        /** Counter: tools que no terminaron. Tags: tool, motivo=[timeout|rechazada] */
+        public static final String AGENTE_TOOLS_FALLIDAS = "negocio.agente.tools.fallidas";
+        /** DistributionSummary: tools pedidas por el LLM en un mismo turno (fan-out). */
+        public static final String AGENTE_TOOLS_FANOUT = "negocio.agente.tools.fanout";
+        /** Timer: duración de un turno de tools, desde el despacho hasta el último resultado. Tags: modo=[serie|paralelo] */
+        public static final String AGENTE_TOOLS_TURNO = "negocio.agente.tools.turno";
+        /** DistributionSummary: tokens de prompt estimados por request. Tags: etapa=[original|compactado] */
+        public static final String AGENTE_PROMPT_TOKENS = "negocio.agente.prompt.tokens";
+        /** Counter: tokens de prompt estimados ahorrados al compactar el historial de conversación. */
+        public static final String AGENTE_PROMPT_TOKENS_AHORRADOS = "negocio.agente.prompt.tokens.ahorrados";
+        /** Caché Caffeine: nombre (tag cache) de las líneas de resumen del historial por mensaje. */
+        public static final String CACHE_AGENTE_RESUMEN = "agente-resumen-historial";
+        /** DistributionSummary: filas de auditoría del agente persistidas por lote. */
+        public static final String AGENTE_AUDITORIA_LOTE_TAMANIO = "negocio.agente.auditoria.lote.tamanio";
+        /** Gauge: filas de auditoría del agente en el buffer, pendientes de persistir. */
+        public static final String AGENTE_AUDITORIA_PENDIENTES = "negocio.agente.auditoria.pendientes";
+        /** Counter: filas de auditoría del agente descartadas. Tags: motivo=[cola_llena|error] */
+        public static final String AGENTE_AUDITORIA_DESCARTADAS = "negocio.agente.auditoria.descartadas";
+        /** DistributionSummary: tokens estimados del resumen financiero precalculado por espacio. */
+        public static final String AGENTE_SNAPSHOT_TOKENS = "negocio.agente.snapshot.tokens";
+        /** Caché Caffeine: nombre (tag cache) de las respuestas completas del agente por pregunta. */
+        public static final String CACHE_AGENTE_RESPUESTAS = "agente-respuestas";
+        /** Counter: tokens de respuesta estimados servidos desde la caché de respuestas del agente. */
+        public static final String AGENTE_RESPUESTAS_CACHE_TOKENS_AHORRADOS = "negocio.agente.respuestas.cache.tokens.ahorrados";
+        /** Gauge: llamadas al LLM esperando lugar en el gobernador de concurrencia del nodo. */
+        public static final String AGENTE_LLM_COLA = "negocio.agente.llm.cola";
+        /** Gauge: llamadas al LLM en curso en el nodo. */
+        public static final String AGENTE_LLM_EN_VUELO = "negocio.agente.llm.en-vuelo";
+        /** Gauge: límite adaptativo (AIMD) de llamadas concurrentes al LLM. */
+        public static final String AGENTE_LLM_LIMITE = "negocio.agente.llm.limite";
+        /** Timer: espera en cola antes de llamar al LLM. */
+        public static final String AGENTE_LLM_ESPERA = "negocio.agente.llm.espera";
+        /** Counter: llamadas al LLM rechazadas por saturación. Tags: motivo=[cola_llena|timeout] */
+        public static final String AGENTE_LLM_RECHAZADAS = "negocio.agente.llm.rechazadas";
+        /** Pool de conexiones HTTP al LLM: tag name de reactor.netty.connection.provider.* (total, activas, inactivas, pendientes). */
+        public static final String POOL_LLM = "llm";
+
+        // Infraestructura - Ejecución asíncrona de eventos
+        /** Counter: tareas rechazadas por saturación del executor de eventos. Tags: politica=[BLOQUEAR|DESCARTAR] */
+        public static final String ASYNC_EVENTOS_RECHAZADOS = "infra.async.eventos.rechazados";
     }
 
     /**
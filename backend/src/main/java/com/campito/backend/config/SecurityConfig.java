@@ -2,6 +2,7 @@ package com.campito.backend.config;
 
 import com.campito.backend.security.JwtAuthenticationFilter;
 import com.campito.backend.security.OAuth2AuthenticationSuccessHandler;
+import com.campito.backend.security.RateLimitFilter;
 import com.campito.backend.service.CustomOidcUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -34,6 +35,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Autowired
     private OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
 
@@ -57,6 +61,9 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList(frontendUrl));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Headers de rate limit visibles para el frontend (para frenar antes del 429)
+        configuration.setExposedHeaders(Arrays.asList(
+            "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset", "Retry-After"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -127,6 +134,8 @@ public class SecurityConfig {
             )
             // Agregar el filtro JWT antes del filtro de autenticación de Spring
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Rate limiting de /api/** (después del JWT para limitar por usuario y no solo por IP)
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
             // Para endpoints /api/** retornar 401 en vez de redirigir a OAuth2.
             // Esto evita que EventSource (SSE) reciba un redirect a Google cuando
             // el JWT no es reconocido, lo que causaría un error de CORS.
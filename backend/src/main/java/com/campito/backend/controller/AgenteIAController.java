@@ -2,10 +2,9 @@ package com.campito.backend.controller;
 
 import com.campito.backend.dto.AgenteChatRequestDTO;
 import com.campito.backend.dto.AgenteChatResponseDTO;
-import com.campito.backend.exception.RateLimitExceededException;
+import com.campito.backend.security.RateLimitService;
 import com.campito.backend.service.SecurityService;
 import com.campito.backend.service.agentAI.AgenteIAService;
-import com.campito.backend.service.agentAI.RateLimitService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -47,7 +46,7 @@ public class AgenteIAController {
      * Envía un mensaje al agente IA y recibe respuesta completa.
      * El agente puede llamar a funciones (tools) para obtener datos actualizados.
      * 
-     * Rate limit: 60 mensajes por minuto con burst capacity de 10.
+     * Rate limit: 60 mensajes por minuto con burst capacity de 10 (aplicado por RateLimitFilter).
      * 
      * @param request Mensaje del usuario con contexto del workspace
      * @return Respuesta del agente con metadata
@@ -70,13 +69,6 @@ public class AgenteIAController {
         
         log.info("Usuario {} enviando mensaje al agente en workspace {}", userId, request.workspaceId());
         
-        // Validar rate limit
-        if (!rateLimitService.allowRequest(userId)) {
-            throw new RateLimitExceededException(
-                "Has excedido el límite de mensajes al asistente. Por favor, espera un momento antes de continuar."
-            );
-        }
-        
         // Procesar mensaje
         AgenteChatResponseDTO response = agenteIAService.chat(request);
         
@@ -111,13 +103,6 @@ public class AgenteIAController {
         
         log.info("Usuario {} iniciando chat stream en workspace {}", userId, workspaceId);
         
-        // Validar rate limit
-        if (!rateLimitService.allowRequest(userId)) {
-            return Flux.error(new RateLimitExceededException(
-                "Has excedido el límite de mensajes al asistente."
-            ));
-        }
-        
         // Crear request y procesar con streaming
         AgenteChatRequestDTO request = new AgenteChatRequestDTO(message, workspaceId, null);
         
@@ -178,7 +163,8 @@ public class AgenteIAController {
     )
     public ResponseEntity<RateLimitStatusDTO> getRateLimitStatus() {
         UUID userId = securityService.getAuthenticatedUserId();
-        long tokensRemaining = rateLimitService.getAvailableTokens(userId);
+        long tokensRemaining = rateLimitService.disponibles(
+            RateLimitService.NivelRateLimit.AGENTE, RateLimitService.clienteUsuario(userId));
         
         return ResponseEntity.ok(new RateLimitStatusDTO(tokensRemaining));
     }
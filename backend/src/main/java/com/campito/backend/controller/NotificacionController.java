@@ -1,6 +1,7 @@
 package com.campito.backend.controller;
 
 import com.campito.backend.dto.NotificacionDTOResponse;
+import com.campito.backend.dto.NotificacionPaginaDTOResponse;
 import com.campito.backend.model.TipoNotificacion;
 import com.campito.backend.service.NotificacionService;
 import com.campito.backend.service.SecurityService;
@@ -56,6 +57,32 @@ public class NotificacionController {
         return ResponseEntity.ok(notificaciones);
     }
     
+    /**
+     * Obtiene una página de la bandeja del usuario autenticado.
+     * 
+     * @param cursor Cursor opaco devuelto por la página anterior
+     * @param size Tamaño de página (1 a 100)
+     * @param soloNoLeidas Si es true, solo devuelve notificaciones no leídas
+     * @return Página de notificaciones con el cursor de la siguiente
+     */
+    @Operation(
+        summary = "Obtener bandeja paginada",
+        description = "Obtiene las notificaciones del usuario autenticado paginadas por cursor, ordenadas por fecha de creación descendente."
+    )
+    @ApiResponse(responseCode = "200", description = "Página obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Cursor o tamaño de página inválido")
+    @ApiResponse(responseCode = "401", description = "Usuario no autenticado")
+    @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    @GetMapping("/bandeja")
+    public ResponseEntity<NotificacionPaginaDTOResponse> obtenerBandeja(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(defaultValue = "false") Boolean soloNoLeidas) {
+        UUID idUsuario = securityService.getAuthenticatedUserId();
+
+        return ResponseEntity.ok(notificacionService.obtenerBandeja(idUsuario, cursor, size, soloNoLeidas));
+    }
+    
     /**
      * Cuenta las notificaciones no leídas del usuario autenticado.
      * 
@@ -149,6 +176,12 @@ public class NotificacionController {
     /**
      * Endpoint SSE para recibir notificaciones en tiempo real.
      * 
+     * Si el cliente informa el último evento recibido (header {@code Last-Event-ID} en la
+     * reconexión automática del navegador, o parámetro {@code lastEventId} cuando el
+     * frontend recrea el EventSource), se reenvían solo las notificaciones perdidas.
+     * 
+     * @param lastEventIdHeader Último id de evento (secuencia por usuario) recibido (reconexión nativa de EventSource)
+     * @param lastEventIdParam Último id de evento (secuencia por usuario) recibido (reconexión manual del frontend)
      * @return Emitter SSE configurado
      */
     @Operation(
@@ -159,10 +192,14 @@ public class NotificacionController {
     @ApiResponse(responseCode = "401", description = "Usuario no autenticado")
     @ApiResponse(responseCode = "500", description = "Error al establecer la conexión SSE")
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamNotificaciones() {
+    public SseEmitter streamNotificaciones(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam
+    ) {
         UUID idUsuario = securityService.getAuthenticatedUserId();
 
-        return sseEmitterService.crearEmitter(idUsuario);
+        Long ultimaSecuenciaRecibida = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return sseEmitterService.crearEmitter(idUsuario, ultimaSecuenciaRecibida);
     }
     
     /**
@@ -1,6 +1,7 @@
 package com.campito.backend.dao;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -34,4 +35,8 @@ public interface CompraCreditoRepository extends JpaRepository<CompraCredito, Lo
         Pageable pageable);
     
     boolean existsByTarjeta_Id(Long idTarjeta);
+
+    // Proyección del espacio de trabajo para validar ownership sin cargar la entidad
+    @Query("SELECT c.espacioTrabajo.id FROM CompraCredito c WHERE c.id = :id")
+    Optional<UUID> findIdEspacioTrabajoById(Long id);
 }
@@ -5,6 +5,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.campito.backend.model.CuentaBancaria;
@@ -18,4 +19,8 @@ public interface CuentaBancariaRepository extends JpaRepository<CuentaBancaria,
     List<CuentaBancaria> findByEspacioTrabajo_IdOrderByFechaModificacionDesc(UUID idEspacioTrabajo);
     
     Optional<CuentaBancaria> findFirstByNombreAndEspacioTrabajo_Id(String nombre, UUID idEspacioTrabajo);
+
+    // Proyección del espacio de trabajo para validar ownership sin cargar la entidad
+    @Query("SELECT c.espacioTrabajo.id FROM CuentaBancaria c WHERE c.id = :id")
+    Optional<UUID> findIdEspacioTrabajoById(Long id);
 }
@@ -9,7 +9,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.campito.backend.dto.CuotasPendientesTarjetaDTO;
 import com.campito.backend.dto.DistribucionGastoDTO;
+import com.campito.backend.dto.SaldoCuentaDTO;
+import com.campito.backend.dto.TopComercioDTO;
+import com.campito.backend.dto.TotalMotivoMesDTO;
 import com.campito.backend.model.Transaccion;
 
 @Repository
@@ -44,4 +48,73 @@ public interface DashboardRepository extends JpaRepository<Transaccion, Long> {
     List<DistribucionGastoDTO> findDistribucionComprasCredito(@Param("idEspacio") UUID idEspacio,
             @Param("fechaLimite") LocalDate fechaLimite);
 
+    // Snapshot financiero del agente IA: agregados compactos en lugar de listas de entidades
+
+    @Query(value = """
+            SELECT m.mes, m.motivo, m.tipo, SUM(m.monto) AS total, COUNT(*) AS cantidad
+            FROM (
+                SELECT to_char(t.fecha, 'YYYY-MM') AS mes, mt.motivo, CAST(t.tipo AS VARCHAR) AS tipo, t.monto
+                FROM transacciones t
+                JOIN motivos_transaccion mt ON t.motivo_transaccion_id = mt.id
+                WHERE t.espacio_trabajo_id = :idEspacio
+                  AND t.fecha >= :fechaLimite
+                UNION ALL
+                SELECT to_char(cc.fecha_compra, 'YYYY-MM'), mt.motivo, 'CREDITO', cc.monto_total
+                FROM compras_credito cc
+                JOIN motivos_transaccion mt ON cc.motivo_transaccion_id = mt.id
+                WHERE cc.espacio_trabajo_id = :idEspacio
+                  AND cc.fecha_compra >= :fechaLimite
+            ) m
+            GROUP BY m.mes, m.motivo, m.tipo
+            ORDER BY m.mes DESC, m.tipo, SUM(m.monto) DESC
+            """, nativeQuery = true)
+    List<TotalMotivoMesDTO> findTotalesPorMotivoYMes(@Param("idEspacio") UUID idEspacio,
+            @Param("fechaLimite") LocalDate fechaLimite);
+
+    @Query(value = """
+            SELECT c.nombre, SUM(x.monto) AS total, COUNT(*) AS cantidad
+            FROM (
+                SELECT t.contacto_transferencia_id AS id_contacto, t.monto
+                FROM transacciones t
+                WHERE t.espacio_trabajo_id = :idEspacio
+                  AND t.tipo = 'GASTO'
+                  AND t.fecha >= :fechaLimite
+                  AND t.contacto_transferencia_id IS NOT NULL
+                UNION ALL
+                SELECT cc.comercio_id, cc.monto_total
+                FROM compras_credito cc
+                WHERE cc.espacio_trabajo_id = :idEspacio
+                  AND cc.fecha_compra >= :fechaLimite
+                  AND cc.comercio_id IS NOT NULL
+            ) x
+            JOIN contactos_transferencia c ON c.id = x.id_contacto
+            GROUP BY c.id, c.nombre
+            ORDER BY SUM(x.monto) DESC
+            LIMIT :limite
+            """, nativeQuery = true)
+    List<TopComercioDTO> findTopComercios(@Param("idEspacio") UUID idEspacio,
+            @Param("fechaLimite") LocalDate fechaLimite, @Param("limite") int limite);
+
+    @Query(value = """
+            SELECT ta.entidad_financiera AS entidad, ta.red_de_pago AS red, ta.numero_tarjeta AS numero,
+                   COUNT(cu.id) AS cuotas, SUM(cu.monto_cuota) AS total,
+                   to_char(MIN(cu.fecha_vencimiento), 'YYYY-MM-DD') AS vencimiento
+            FROM cuotas_credito cu
+            JOIN compras_credito cc ON cu.compra_credito_id = cc.id
+            JOIN tarjetas ta ON cc.tarjeta_id = ta.id
+            WHERE cc.espacio_trabajo_id = :idEspacio
+              AND cu.pagada = false
+            GROUP BY ta.id, ta.entidad_financiera, ta.red_de_pago, ta.numero_tarjeta
+            ORDER BY SUM(cu.monto_cuota) DESC
+            """, nativeQuery = true)
+    List<CuotasPendientesTarjetaDTO> findCuotasPendientesPorTarjeta(@Param("idEspacio") UUID idEspacio);
+
+    @Query(value = """
+            SELECT cb.nombre, cb.entidad_financiera AS entidad, cb.saldo_actual AS saldo
+            FROM cuentas_bancarias cb
+            WHERE cb.id_espacio_trabajo = :idEspacio
+            ORDER BY cb.saldo_actual DESC
+            """, nativeQuery = true)
+    List<SaldoCuentaDTO> findSaldosPorCuenta(@Param("idEspacio") UUID idEspacio);
+
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.campito.backend.dao;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.campito.backend.model.Descuento;
@@ -18,4 +20,8 @@ public interface DescuentoRepository extends JpaRepository<Descuento, Long> {
      * @return Lista de descuentos del espacio de trabajo, ordenados por día
      */
     List<Descuento> findByEspacioTrabajo_IdOrderByDiaAsc(UUID idEspacioTrabajo);
+
+    // Proyección del espacio de trabajo para validar ownership sin cargar la entidad
+    @Query("SELECT d.espacioTrabajo.id FROM Descuento d WHERE d.id = :id")
+    Optional<UUID> findIdEspacioTrabajoById(Long id);
 }
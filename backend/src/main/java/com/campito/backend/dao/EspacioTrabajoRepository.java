@@ -5,8 +5,10 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.campito.backend.dto.MembresiaEspacioDTO;
 import com.campito.backend.model.EspacioTrabajo;
 
 @Repository
@@ -21,4 +23,12 @@ public interface EspacioTrabajoRepository extends JpaRepository<EspacioTrabajo,
     
     // Método para verificar si un usuario tiene acceso a un espacio de trabajo
     boolean existsByIdAndUsuariosParticipantes_Id(UUID espacioId, UUID userId);
+
+    // Membresías de un usuario (espacio y su administrador) para el índice en memoria de SecurityService
+    @Query("""
+            SELECT new com.campito.backend.dto.MembresiaEspacioDTO(e.id, e.usuarioAdmin.id)
+            FROM EspacioTrabajo e JOIN e.usuariosParticipantes u
+            WHERE u.id = :idUsuario
+            """)
+    List<MembresiaEspacioDTO> buscarMembresias(UUID idUsuario);
 }
@@ -0,0 +1,73 @@
+package com.campito.backend.dao;
+
+import com.campito.backend.model.EstadoOutbox;
+import com.campito.backend.model.NotificacionOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificacionOutboxRepository extends JpaRepository<NotificacionOutbox, Long> {
+
+    /**
+     * Bloquea un lote de filas pendientes cuyo próximo intento ya venció.
+     * SKIP LOCKED permite que varias instancias (o ejecuciones solapadas del relay)
+     * tomen lotes disjuntos sin esperarse entre sí.
+     *
+     * @param ahora Fecha actual
+     * @param limite Tamaño máximo del lote
+     * @return Filas bloqueadas hasta el fin de la transacción
+     */
+    @Query(value = """
+            SELECT * FROM notificaciones_outbox
+            WHERE estado = 'PENDIENTE' AND proximo_intento <= :ahora
+            ORDER BY id
+            LIMIT :limite
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificacionOutbox> bloquearPendientes(LocalDateTime ahora, int limite);
+
+    /**
+     * Bloquea una fila puntual si sigue pendiente (reintento individual tras fallar un lote).
+     *
+     * @param id ID de la fila
+     * @return La fila bloqueada, o vacío si ya fue tomada o procesada
+     */
+    @Query(value = """
+            SELECT * FROM notificaciones_outbox
+            WHERE id = :id AND estado = 'PENDIENTE'
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<NotificacionOutbox> bloquearPendientePorId(Long id);
+
+    /**
+     * Cuenta las filas en un estado dado (gauge de pendientes).
+     *
+     * @param estado Estado a contar
+     * @return Cantidad de filas
+     */
+    long countByEstado(EstadoOutbox estado);
+
+    /**
+     * Fecha de creación de la fila pendiente más antigua (lag del relay).
+     *
+     * @return Fecha más antigua, o null si no hay pendientes
+     */
+    @Query("SELECT MIN(o.fechaCreacion) FROM NotificacionOutbox o WHERE o.estado = com.campito.backend.model.EstadoOutbox.PENDIENTE")
+    LocalDateTime fechaPendienteMasAntigua();
+
+    /**
+     * Elimina filas ya procesadas anteriores a la fecha límite.
+     *
+     * @param fechaLimite Fecha límite
+     * @return Cantidad de filas eliminadas
+     */
+    @Modifying
+    @Query("DELETE FROM NotificacionOutbox o WHERE o.estado = com.campito.backend.model.EstadoOutbox.PROCESADO AND o.fechaProcesado < :fechaLimite")
+    int eliminarProcesadosAntiguos(LocalDateTime fechaLimite);
+}
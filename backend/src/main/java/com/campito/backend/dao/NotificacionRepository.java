@@ -1,6 +1,8 @@
 package com.campito.backend.dao;
 
+import com.campito.backend.dto.NotificacionDTOResponse;
 import com.campito.backend.model.Notificacion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -30,6 +33,88 @@ public interface NotificacionRepository extends JpaRepository<Notificacion, Long
      */
     List<Notificacion> findTop50ByUsuarioIdOrderByFechaCreacionDesc(UUID idUsuario);
     
+    /**
+     * Página de la bandeja de un usuario con paginación por cursor (keyset) sobre
+     * (fechaCreacion, id), proyectada directamente al DTO: no carga la entidad ni el usuario.
+     * Usa el índice idx_notificaciones_usuario_fecha_id.
+     * 
+     * @param idUsuario ID del usuario
+     * @param fecha Fecha de creación del último elemento de la página anterior
+     * @param id ID del último elemento de la página anterior
+     * @param limite Cantidad máxima de filas
+     * @return Notificaciones anteriores al cursor, de la más nueva a la más vieja
+     */
+    @Query("""
+            SELECT new com.campito.backend.dto.NotificacionDTOResponse(
+                n.id, n.tipo, n.mensaje, n.leida, n.fechaCreacion, n.fechaLeida)
+            FROM Notificacion n
+            WHERE n.usuario.id = :idUsuario
+              AND (n.fechaCreacion < :fecha OR (n.fechaCreacion = :fecha AND n.id < :id))
+            ORDER BY n.fechaCreacion DESC, n.id DESC
+            """)
+    List<NotificacionDTOResponse> buscarBandeja(UUID idUsuario, LocalDateTime fecha, Long id, Limit limite);
+    
+    /**
+     * Igual que {@link #buscarBandeja} pero solo no leídas.
+     * Usa el índice parcial idx_notificaciones_no_leidas.
+     * 
+     * @param idUsuario ID del usuario
+     * @param fecha Fecha de creación del último elemento de la página anterior
+     * @param id ID del último elemento de la página anterior
+     * @param limite Cantidad máxima de filas
+     * @return Notificaciones no leídas anteriores al cursor, de la más nueva a la más vieja
+     */
+    @Query("""
+            SELECT new com.campito.backend.dto.NotificacionDTOResponse(
+                n.id, n.tipo, n.mensaje, n.leida, n.fechaCreacion, n.fechaLeida)
+            FROM Notificacion n
+            WHERE n.usuario.id = :idUsuario
+              AND n.leida = false
+              AND (n.fechaCreacion < :fecha OR (n.fechaCreacion = :fecha AND n.id < :id))
+            ORDER BY n.fechaCreacion DESC, n.id DESC
+            """)
+    List<NotificacionDTOResponse> buscarBandejaNoLeidas(UUID idUsuario, LocalDateTime fecha, Long id, Limit limite);
+    
+    /**
+     * Obtiene las notificaciones de un usuario posteriores a una secuencia, en orden ascendente.
+     * Se usa para reenviar por SSE los eventos perdidos durante una reconexión
+     * cuando ya no están en el buffer en memoria.
+     * Usa el índice idx_notificaciones_usuario_secuencia.
+     * 
+     * @param idUsuario ID del usuario
+     * @param secuencia Última secuencia recibida por el cliente
+     * @return Hasta 50 notificaciones posteriores, de la más vieja a la más nueva
+     */
+    List<Notificacion> findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(UUID idUsuario, Long secuencia);
+    
+    /**
+     * Última secuencia confirmada de un usuario: punto de partida de una conexión SSE nueva.
+     * Usa el índice idx_notificaciones_usuario_secuencia.
+     * 
+     * @param idUsuario ID del usuario
+     * @return Última secuencia, o null si el usuario no tiene notificaciones
+     */
+    @Query("SELECT MAX(n.secuencia) FROM Notificacion n WHERE n.usuario.id = :idUsuario")
+    Long findUltimaSecuencia(UUID idUsuario);
+    
+    /**
+     * Reserva {@code cantidad} secuencias consecutivas para un usuario. El UPSERT bloquea
+     * la fila del usuario hasta el fin de la transacción, así las secuencias de un usuario
+     * se confirman en orden. Debe ejecutarse en la transacción que inserta las notificaciones.
+     * 
+     * @param idUsuario ID del usuario
+     * @param cantidad Cantidad de secuencias a reservar
+     * @return Última secuencia reservada (las reservadas son {@code ultima - cantidad + 1 .. ultima})
+     */
+    @Query(value = """
+            INSERT INTO notificaciones_secuencia_usuario (id_usuario, ultima)
+            VALUES (:idUsuario, :cantidad)
+            ON CONFLICT (id_usuario)
+            DO UPDATE SET ultima = notificaciones_secuencia_usuario.ultima + EXCLUDED.ultima
+            RETURNING ultima
+            """, nativeQuery = true)
+    Long reservarSecuencias(UUID idUsuario, int cantidad);
+    
     /**
      * Cuenta las notificaciones no leídas de un usuario.
      * 
@@ -70,4 +155,8 @@ public interface NotificacionRepository extends JpaRepository<Notificacion, Long
     @Modifying
     @Query("DELETE FROM Notificacion n WHERE n.leida = false AND n.fechaCreacion < :fechaLimite")
     int eliminarNotificacionesNoLeidasAntiguas(LocalDateTime fechaLimite);
+
+    // Proyección del usuario destinatario para validar ownership sin cargar la entidad
+    @Query("SELECT n.usuario.id FROM Notificacion n WHERE n.id = :id")
+    Optional<UUID> findIdUsuarioById(Long id);
 }
@@ -1,9 +1,11 @@
 package com.campito.backend.dao;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.campito.backend.model.SolicitudPendienteEspacioTrabajo;
@@ -21,4 +23,8 @@ public interface SolicitudPendienteEspacioTrabajoRepository extends JpaRepositor
      * @return true si ya existe una solicitud pendiente, false en caso contrario
      */
     boolean existsByEspacioTrabajo_IdAndUsuarioInvitado_Id(UUID idEspacioTrabajo, UUID idUsuarioInvitado);
+
+    // Proyección del usuario invitado para validar ownership sin cargar la entidad
+    @Query("SELECT s.usuarioInvitado.id FROM SolicitudPendienteEspacioTrabajo s WHERE s.id = :id")
+    Optional<UUID> findIdUsuarioInvitadoById(Long id);
 }
@@ -5,6 +5,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.campito.backend.model.Tarjeta;
@@ -23,4 +24,8 @@ public interface TarjetaRepository extends JpaRepository<Tarjeta, Long> {
 
     // Método para obtener tarjetas que cierran en un día específico
     List<Tarjeta> findByDiaCierre(Integer diaCierre);
+
+    // Proyección del espacio de trabajo para validar ownership sin cargar la entidad
+    @Query("SELECT t.espacioTrabajo.id FROM Tarjeta t WHERE t.id = :id")
+    Optional<UUID> findIdEspacioTrabajoById(Long id);
 }
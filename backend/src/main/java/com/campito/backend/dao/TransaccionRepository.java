@@ -1,7 +1,11 @@
 package com.campito.backend.dao;
 
+import java.util.Optional;
+import java.util.UUID;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.campito.backend.model.Transaccion;
@@ -9,4 +13,7 @@ import com.campito.backend.model.Transaccion;
 @Repository
 public interface TransaccionRepository extends JpaRepository<Transaccion, Long>, JpaSpecificationExecutor<Transaccion> {
 
+    // Proyección del espacio de trabajo para validar ownership sin cargar la entidad
+    @Query("SELECT t.espacioTrabajo.id FROM Transaccion t WHERE t.id = :id")
+    Optional<UUID> findIdEspacioTrabajoById(Long id);
 }
@@ -0,0 +1,15 @@
+package com.campito.backend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección: cuotas impagas de una tarjeta, con su total y el vencimiento más próximo (yyyy-MM-dd).
+ */
+public interface CuotasPendientesTarjetaDTO {
+    String getEntidad();
+    String getRed();
+    String getNumero();
+    Long getCuotas();
+    BigDecimal getTotal();
+    String getVencimiento();
+}
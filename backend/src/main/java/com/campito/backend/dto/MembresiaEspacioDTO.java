@@ -0,0 +1,13 @@
+package com.campito.backend.dto;
+
+import java.util.UUID;
+
+/**
+ * Proyección de la pertenencia de un usuario a un espacio de trabajo.
+ * Se usa para cargar el índice de membresías sin materializar entidades.
+ */
+public record MembresiaEspacioDTO(
+    UUID idEspacioTrabajo,
+    UUID idUsuarioAdmin
+) {
+}
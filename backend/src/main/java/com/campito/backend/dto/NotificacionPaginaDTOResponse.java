@@ -0,0 +1,22 @@
+package com.campito.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página de la bandeja de notificaciones con paginación por cursor.
+ * 
+ * A diferencia de {@link PaginatedResponse}, no informa totales ni número de página:
+ * la siguiente página se pide con {@code siguienteCursor}, y el costo de cada página
+ * no crece con la profundidad.
+ * 
+ * @param content Notificaciones de la página, de la más nueva a la más vieja
+ * @param siguienteCursor Cursor opaco para la página siguiente (null si no hay más)
+ * @param hasNext Indica si hay una página siguiente
+ */
+public record NotificacionPaginaDTOResponse(
+    List<NotificacionDTOResponse> content,
+    String siguienteCursor,
+    boolean hasNext
+) {
+
+}
@@ -0,0 +1,12 @@
+package com.campito.backend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección: saldo actual de una cuenta bancaria.
+ */
+public interface SaldoCuentaDTO {
+    String getNombre();
+    String getEntidad();
+    BigDecimal getSaldo();
+}
@@ -0,0 +1,12 @@
+package com.campito.backend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección: total gastado con un contacto o comercio (transacciones y compras con crédito).
+ */
+public interface TopComercioDTO {
+    String getNombre();
+    BigDecimal getTotal();
+    Long getCantidad();
+}
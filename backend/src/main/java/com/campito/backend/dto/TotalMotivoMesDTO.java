@@ -0,0 +1,15 @@
+package com.campito.backend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección: total y cantidad de movimientos de un motivo en un mes.
+ * tipo: GASTO, INGRESO o CREDITO (compras con tarjeta, por fecha de compra).
+ */
+public interface TotalMotivoMesDTO {
+    String getMes();
+    String getMotivo();
+    String getTipo();
+    BigDecimal getTotal();
+    Long getCantidad();
+}
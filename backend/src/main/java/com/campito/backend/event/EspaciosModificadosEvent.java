@@ -0,0 +1,16 @@
+package com.campito.backend.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Espacios de trabajo cuyos datos cambiaron en una transacción confirmada en este nodo.
+ *
+ * Lo publica {@code VersionDatosEspacioService} después del commit, una vez por
+ * transacción. Con {@code notificaciones.cluster.broadcaster=postgres} se reenvía a los
+ * demás nodos para que invaliden sus cachés derivadas.
+ *
+ * @param idsEspacioTrabajo IDs de los espacios modificados
+ */
+public record EspaciosModificadosEvent(Set<UUID> idsEspacioTrabajo) {
+}
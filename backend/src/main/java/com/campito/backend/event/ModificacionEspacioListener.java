@@ -0,0 +1,67 @@
+package com.campito.backend.event;
+
+import com.campito.backend.model.CompraCredito;
+import com.campito.backend.model.ContactoTransferencia;
+import com.campito.backend.model.CuentaBancaria;
+import com.campito.backend.model.CuotaCredito;
+import com.campito.backend.model.Descuento;
+import com.campito.backend.model.EspacioTrabajo;
+import com.campito.backend.model.GastosIngresosMensuales;
+import com.campito.backend.model.MotivoTransaccion;
+import com.campito.backend.model.Resumen;
+import com.campito.backend.model.Tarjeta;
+import com.campito.backend.model.Transaccion;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Entity listener JPA que registra cada escritura sobre los datos financieros de un
+ * espacio de trabajo en {@link VersionDatosEspacioService}.
+ *
+ * Se declara con {@code @EntityListeners} en las entidades del espacio; Hibernate lo
+ * obtiene del contexto de Spring, por eso puede recibir dependencias por constructor.
+ * Cubre todos los caminos de escritura (servicios y schedulers) sin tocar cada método.
+ */
+@Component
+@RequiredArgsConstructor
+public class ModificacionEspacioListener {
+
+    private final VersionDatosEspacioService versionDatosEspacioService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void registrarModificacion(Object entidad) {
+        versionDatosEspacioService.registrarModificacion(idEspacioTrabajo(entidad));
+    }
+
+    private static UUID idEspacioTrabajo(Object entidad) {
+        return switch (entidad) {
+            case EspacioTrabajo espacio -> espacio.getId();
+            case Transaccion transaccion -> id(transaccion.getEspacioTrabajo());
+            case CompraCredito compra -> id(compra.getEspacioTrabajo());
+            case CuentaBancaria cuenta -> id(cuenta.getEspacioTrabajo());
+            case Tarjeta tarjeta -> id(tarjeta.getEspacioTrabajo());
+            case ContactoTransferencia contacto -> id(contacto.getEspacioTrabajo());
+            case MotivoTransaccion motivo -> id(motivo.getEspacioTrabajo());
+            case Descuento descuento -> id(descuento.getEspacioTrabajo());
+            case GastosIngresosMensuales gastosIngresos -> id(gastosIngresos.getEspacioTrabajo());
+            case CuotaCredito cuota -> cuota.getCompraCredito() != null
+                    ? id(cuota.getCompraCredito().getEspacioTrabajo()) : null;
+            case Resumen resumen -> resumen.getTarjeta() != null
+                    ? id(resumen.getTarjeta().getEspacioTrabajo()) : null;
+            default -> null;
+        };
+    }
+
+    private static UUID id(EspacioTrabajo espacioTrabajo) {
+        return espacioTrabajo != null ? espacioTrabajo.getId() : null;
+    }
+}
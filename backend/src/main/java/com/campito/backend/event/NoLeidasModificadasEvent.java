@@ -0,0 +1,18 @@
+package com.campito.backend.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cambio confirmado en este nodo sobre las notificaciones no leídas que no llega a los demás
+ * nodos por la señal de notificaciones nuevas: lecturas, eliminaciones y limpiezas en bloque.
+ *
+ * Lo publica {@code ContadorNoLeidasService} después del commit. Con
+ * {@code notificaciones.cluster.broadcaster=postgres} se reenvía a los demás nodos, que
+ * descartan sus contadores en memoria.
+ *
+ * @param idsUsuario Usuarios cuyo contador cambió (vacío si {@code todos})
+ * @param todos Si es true, cambiaron contadores de usuarios no identificados (limpieza en bloque)
+ */
+public record NoLeidasModificadasEvent(Set<UUID> idsUsuario, boolean todos) {
+}
@@ -0,0 +1,65 @@
+package com.campito.backend.event;
+
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.NotificacionOutbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Persiste lotes de notificaciones a partir de filas del outbox.
+ *
+ * Los usuarios se resuelven con {@code getReferenceById} (proxy sin SELECT) y las filas
+ * se insertan con {@code saveAll}; junto con el id por secuencia y
+ * {@code hibernate.jdbc.batch_size} esto se traduce en un único INSERT batcheado por lote.
+ *
+ * Cada notificación recibe la siguiente secuencia de su usuario (una reserva por usuario
+ * y lote). Los usuarios se reservan en orden de id para que dos lotes concurrentes que
+ * comparten usuarios tomen los locks en el mismo orden y no se bloqueen mutuamente.
+ *
+ * Se ejecuta dentro de la transacción del {@link NotificacionOutboxRelay}, de modo que
+ * las notificaciones y el cambio de estado de las filas del outbox se confirman juntos.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificacionBatchWriter {
+
+    private final NotificacionRepository notificacionRepository;
+    private final UsuarioRepository usuarioRepository;
+
+    /**
+     * Inserta un lote de filas del outbox como notificaciones.
+     *
+     * @param filas Filas del outbox a entregar
+     * @return Notificaciones persistidas (con id asignado), en el mismo orden
+     */
+    @Transactional
+    public List<Notificacion> persistirLote(List<NotificacionOutbox> filas) {
+        Map<UUID, Integer> porUsuario = new TreeMap<>();
+        filas.forEach(fila -> porUsuario.merge(fila.getIdUsuario(), 1, Integer::sum));
+        // Primera secuencia libre de cada usuario
+        Map<UUID, Long> siguiente = new TreeMap<>();
+        porUsuario.forEach((idUsuario, cantidad) ->
+                siguiente.put(idUsuario, notificacionRepository.reservarSecuencias(idUsuario, cantidad) - cantidad + 1));
+
+        List<Notificacion> notificaciones = new ArrayList<>(filas.size());
+        for (NotificacionOutbox fila : filas) {
+            Notificacion notificacion = new Notificacion();
+            notificacion.setUsuario(usuarioRepository.getReferenceById(fila.getIdUsuario()));
+            notificacion.setSecuencia(siguiente.merge(fila.getIdUsuario(), 1L, Long::sum) - 1);
+            notificacion.setTipo(fila.getTipo());
+            notificacion.setMensaje(fila.getMensaje());
+            notificaciones.add(notificacion);
+        }
+        return notificacionRepository.saveAll(notificaciones);
+    }
+}
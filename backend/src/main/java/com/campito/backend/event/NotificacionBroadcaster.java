@@ -0,0 +1,25 @@
+package com.campito.backend.event;
+
+import com.campito.backend.model.Notificacion;
+
+import java.util.List;
+
+/**
+ * Difunde las notificaciones recién persistidas a las conexiones SSE, estén en
+ * este nodo o en otro.
+ *
+ * Implementaciones (según {@code notificaciones.cluster.broadcaster}):
+ * - {@code local}: un solo nodo; entrega a los emitters locales después del commit.
+ * - {@code postgres}: además señaliza con {@code pg_notify} a los demás nodos, que
+ *   entregan a sus propios emitters.
+ */
+public interface NotificacionBroadcaster {
+
+    /**
+     * Se invoca dentro de la transacción que persiste las notificaciones.
+     * La entrega ocurre recién después del commit.
+     *
+     * @param notificaciones Notificaciones persistidas en la transacción en curso
+     */
+    void difundir(List<Notificacion> notificaciones);
+}
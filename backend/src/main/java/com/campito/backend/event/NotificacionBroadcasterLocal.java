@@ -0,0 +1,64 @@
+package com.campito.backend.event;
+
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.service.ContadorNoLeidasService;
+import com.campito.backend.service.SseEmitterService;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Broadcaster para un solo nodo (y tests): entrega a los emitters SSE de esta JVM
+ * después del commit de la transacción en curso y actualiza el contador de no leídas.
+ */
+@Component
+@ConditionalOnProperty(name = "notificaciones.cluster.broadcaster", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+public class NotificacionBroadcasterLocal implements NotificacionBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionBroadcasterLocal.class);
+
+    private final SseEmitterService sseEmitterService;
+    private final ContadorNoLeidasService contadorNoLeidasService;
+
+    @Override
+    public void difundir(List<Notificacion> notificaciones) {
+        if (notificaciones.isEmpty()) {
+            return;
+        }
+        // Registrado dentro de la transacción: el contador se refresca después del commit
+        notificaciones.stream()
+                .map(n -> n.getUsuario().getId())
+                .distinct()
+                .forEach(contadorNoLeidasService::refrescar);
+
+        List<Notificacion> copia = List.copyOf(notificaciones);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entregar(copia);
+                }
+            });
+        } else {
+            entregar(copia);
+        }
+    }
+
+    private void entregar(List<Notificacion> notificaciones) {
+        for (Notificacion notificacion : notificaciones) {
+            try {
+                sseEmitterService.enviarNotificacion(notificacion.getUsuario().getId(), notificacion);
+            } catch (Exception e) {
+                logger.error("Error al enviar notificación {} via SSE: {}", notificacion.getId(), e.getMessage());
+            }
+        }
+    }
+}
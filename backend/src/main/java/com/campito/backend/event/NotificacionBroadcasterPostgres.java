@@ -0,0 +1,343 @@
+package com.campito.backend.event;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.service.ContadorNoLeidasService;
+import com.campito.backend.service.SseEmitterService;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Broadcaster para varios nodos basado en LISTEN/NOTIFY de PostgreSQL.
+ *
+ * - El nodo que persiste un lote entrega a sus emitters locales después del commit y,
+ *   dentro de la misma transacción, ejecuta {@code pg_notify}. PostgreSQL solo entrega
+ *   la señal si la transacción se confirma.
+ * - Payload: {@code <nodo>;<tipo>;<datos>}, sin contenido, para mantenerse muy por debajo
+ *   del límite de 8000 bytes:
+ *   <ul>
+ *     <li>{@code n;<idUsuario>:<idNotificacion>,...}: notificaciones nuevas.</li>
+ *     <li>{@code e;<idEspacio>,...}: espacios de trabajo modificados
+ *         ({@link EspaciosModificadosEvent}); los demás nodos cambian su versión de datos.</li>
+ *     <li>{@code c;<idUsuario>,...} o {@code c;*}: contadores de no leídas cambiados por
+ *         lecturas o eliminaciones ({@link NoLeidasModificadasEvent}); los demás nodos los
+ *         refrescan o, con {@code *}, descartan todos.</li>
+ *   </ul>
+ * - Cada nodo mantiene una única conexión JDBC propia (fuera del pool de Hikari) en LISTEN.
+ *   Al recibir una señal de notificaciones de otro nodo, carga solo las de usuarios que
+ *   tienen conexiones SSE en este nodo y las entrega en orden de secuencia. Las señales de
+ *   distintos nodos pueden llegar desordenadas respecto de las entregas locales: cada
+ *   conexión SSE completa los huecos desde la base (ver {@code SseEmitterServiceImpl}).
+ * - Las señales emitidas mientras la conexión LISTEN está caída se pierden: al reconectar,
+ *   el nodo descarta sus versiones de datos y sus contadores de no leídas para no servir
+ *   valores viejos.
+ */
+@Component
+@ConditionalOnProperty(name = "notificaciones.cluster.broadcaster", havingValue = "postgres")
+public class NotificacionBroadcasterPostgres implements NotificacionBroadcaster, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionBroadcasterPostgres.class);
+    private static final int MAX_POR_SENIAL = 100;
+    private static final String TIPO_NOTIFICACIONES = "n";
+    private static final String TIPO_ESPACIOS = "e";
+    private static final String TIPO_NO_LEIDAS = "c";
+    private static final String TODOS = "*";
+
+    private final String nodo = UUID.randomUUID().toString();
+
+    private final NotificacionBroadcasterLocal entregaLocal;
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificacionRepository notificacionRepository;
+    private final SseEmitterService sseEmitterService;
+    private final ContadorNoLeidasService contadorNoLeidasService;
+    private final VersionDatosEspacioService versionDatosEspacioService;
+    private final TransactionTemplate transaccionPropia;
+    private final MeterRegistry meterRegistry;
+
+    private final String canal;
+    private final ConexionListen conexionListen;
+    private final long reconexionMs;
+
+    private volatile boolean running = false;
+    private Thread listener;
+
+    /**
+     * Abre la conexión dedicada al LISTEN.
+     */
+    @FunctionalInterface
+    interface ConexionListen {
+        Connection abrir() throws SQLException;
+    }
+
+    @Autowired
+    public NotificacionBroadcasterPostgres(JdbcTemplate jdbcTemplate,
+                                           NotificacionRepository notificacionRepository,
+                                           SseEmitterService sseEmitterService,
+                                           ContadorNoLeidasService contadorNoLeidasService,
+                                           VersionDatosEspacioService versionDatosEspacioService,
+                                           PlatformTransactionManager transactionManager,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${notificaciones.cluster.canal:notificaciones_sse}") String canal,
+                                           @Value("${notificaciones.cluster.reconexion-ms:5000}") long reconexionMs,
+                                           @Value("${spring.datasource.url}") String url,
+                                           @Value("${spring.datasource.username}") String usuario,
+                                           @Value("${spring.datasource.password}") String password) {
+        this(jdbcTemplate, notificacionRepository, sseEmitterService, contadorNoLeidasService,
+                versionDatosEspacioService, transactionManager, meterRegistry, canal, reconexionMs,
+                () -> DriverManager.getConnection(url, usuario, password));
+    }
+
+    /**
+     * Constructor con la conexión LISTEN configurable (tests del procesamiento de señales y
+     * de la reconexión sin PostgreSQL).
+     */
+    NotificacionBroadcasterPostgres(JdbcTemplate jdbcTemplate,
+                                    NotificacionRepository notificacionRepository,
+                                    SseEmitterService sseEmitterService,
+                                    ContadorNoLeidasService contadorNoLeidasService,
+                                    VersionDatosEspacioService versionDatosEspacioService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    String canal,
+                                    long reconexionMs,
+                                    ConexionListen conexionListen) {
+        if (!canal.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Nombre de canal LISTEN/NOTIFY inválido: " + canal);
+        }
+        this.entregaLocal = new NotificacionBroadcasterLocal(sseEmitterService, contadorNoLeidasService);
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificacionRepository = notificacionRepository;
+        this.sseEmitterService = sseEmitterService;
+        this.contadorNoLeidasService = contadorNoLeidasService;
+        this.versionDatosEspacioService = versionDatosEspacioService;
+        // Los avisos de espacios y no leídas llegan después del commit: pg_notify necesita una transacción propia
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.canal = canal;
+        this.reconexionMs = reconexionMs;
+        this.conexionListen = conexionListen;
+    }
+
+    @Override
+    public void difundir(List<Notificacion> notificaciones) {
+        if (notificaciones.isEmpty()) {
+            return;
+        }
+        entregaLocal.difundir(notificaciones);
+        senializar(TIPO_NOTIFICACIONES, notificaciones.stream()
+                .map(n -> n.getUsuario().getId() + ":" + n.getId())
+                .toList());
+    }
+
+    /**
+     * Reenvía a los demás nodos los espacios modificados en una transacción ya confirmada.
+     */
+    @EventListener
+    public void difundirModificaciones(EspaciosModificadosEvent evento) {
+        senializarDespuesDelCommit(TIPO_ESPACIOS, evento.idsEspacioTrabajo().stream().map(UUID::toString).toList());
+    }
+
+    /**
+     * Reenvía a los demás nodos los contadores de no leídas cambiados por lecturas,
+     * eliminaciones o limpiezas ya confirmadas.
+     */
+    @EventListener
+    public void difundirNoLeidas(NoLeidasModificadasEvent evento) {
+        senializarDespuesDelCommit(TIPO_NO_LEIDAS, evento.todos()
+                ? List.of(TODOS)
+                : evento.idsUsuario().stream().map(UUID::toString).toList());
+    }
+
+    private void senializarDespuesDelCommit(String tipo, List<String> entradas) {
+        if (entradas.isEmpty()) {
+            return;
+        }
+        try {
+            transaccionPropia.executeWithoutResult(estado -> senializar(tipo, entradas));
+        } catch (Exception e) {
+            // El cambio ya está confirmado: los otros nodos quedan acotados por el TTL de sus cachés
+            logger.warn("No se pudo señalizar {} cambios de tipo '{}': {}", entradas.size(), tipo, e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecuta {@code pg_notify} en la transacción en curso, en lotes de {@value #MAX_POR_SENIAL} entradas.
+     */
+    private void senializar(String tipo, List<String> entradas) {
+        for (int i = 0; i < entradas.size(); i += MAX_POR_SENIAL) {
+            String payload = nodo + ";" + tipo + ";"
+                    + String.join(",", entradas.subList(i, Math.min(i + MAX_POR_SENIAL, entradas.size())));
+            jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                ps.setString(1, canal);
+                ps.setString(2, payload);
+                return ps.execute();
+            });
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = Thread.ofVirtual().name("notificaciones-listen").start(this::escuchar);
+        logger.info("Broadcaster PostgreSQL iniciado: nodo={}, canal={}", nodo, canal);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(reconexionMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Mantiene la conexión en LISTEN y reconecta ante cualquier error.
+     */
+    private void escuchar() {
+        boolean reconexion = false;
+        while (running) {
+            try (Connection conexion = conexionListen.abrir()) {
+                try (Statement statement = conexion.createStatement()) {
+                    statement.execute("LISTEN " + canal);
+                }
+                PGConnection pgConexion = conexion.unwrap(PGConnection.class);
+                logger.info("Escuchando señales de notificaciones en el canal {}", canal);
+                if (reconexion) {
+                    // Sin conexión se pudieron perder modificaciones de otros nodos
+                    versionDatosEspacioService.descartarVersiones();
+                    contadorNoLeidasService.descartarTodos();
+                }
+                reconexion = true;
+
+                while (running) {
+                    PGNotification[] seniales = pgConexion.getNotifications(1000);
+                    if (seniales != null) {
+                        for (PGNotification senial : seniales) {
+                            procesarSenial(senial.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Conexión LISTEN perdida ({}), reintentando en {} ms", e.getMessage(), reconexionMs);
+                try {
+                    Thread.sleep(reconexionMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void procesarSenial(String payload) {
+        try {
+            String[] partes = payload.split(";", 3);
+            if (partes.length < 3 || partes[0].equals(nodo)) {
+                return;
+            }
+            switch (partes[1]) {
+                case TIPO_NOTIFICACIONES -> procesarNotificaciones(partes[2]);
+                case TIPO_ESPACIOS -> procesarEspacios(partes[2]);
+                case TIPO_NO_LEIDAS -> procesarNoLeidas(partes[2]);
+                default -> logger.warn("Señal de tipo desconocido '{}' ignorada", partes[1]);
+            }
+        } catch (Exception e) {
+            logger.error("Error al procesar señal '{}': {}", payload, e.getMessage());
+        }
+    }
+
+    private void procesarEspacios(String datos) {
+        for (String id : datos.split(",")) {
+            versionDatosEspacioService.registrarModificacionRemota(UUID.fromString(id));
+        }
+    }
+
+    private void procesarNoLeidas(String datos) {
+        if (TODOS.equals(datos)) {
+            contadorNoLeidasService.descartarTodos();
+            return;
+        }
+        for (String id : datos.split(",")) {
+            contadorNoLeidasService.refrescar(UUID.fromString(id));
+        }
+    }
+
+    /**
+     * Entrega a los emitters locales las notificaciones señalizadas por otro nodo
+     * y actualiza los contadores de no leídas de este nodo.
+     */
+    private void procesarNotificaciones(String datos) {
+        Map<Long, UUID> usuarioPorNotificacion = new HashMap<>();
+        Set<UUID> usuarios = new HashSet<>();
+        for (String entrada : datos.split(",")) {
+            int dosPuntos = entrada.indexOf(':');
+            UUID idUsuario = UUID.fromString(entrada.substring(0, dosPuntos));
+            usuarios.add(idUsuario);
+            if (sseEmitterService.tieneConexiones(idUsuario)) {
+                usuarioPorNotificacion.put(Long.valueOf(entrada.substring(dosPuntos + 1)), idUsuario);
+            }
+        }
+        // El contador de este nodo también debe reflejar lo persistido por otros
+        usuarios.forEach(contadorNoLeidasService::refrescar);
+        if (usuarioPorNotificacion.isEmpty()) {
+            return;
+        }
+
+        // findAllById no garantiza orden: se entregan por secuencia para no abrir huecos en las conexiones
+        List<Notificacion> notificaciones = new ArrayList<>(notificacionRepository.findAllById(usuarioPorNotificacion.keySet()));
+        notificaciones.sort(Comparator.comparing(Notificacion::getSecuencia));
+        for (Notificacion notificacion : notificaciones) {
+            sseEmitterService.enviarNotificacion(usuarioPorNotificacion.get(notificacion.getId()), notificacion);
+        }
+
+        // 📊 MÉTRICA: Notificaciones de otros nodos entregadas a conexiones locales
+        Counter.builder(MetricsConfig.MetricNames.NOTIFICACIONES_CLUSTER_RECIBIDAS)
+                .description("Notificaciones señalizadas por otros nodos y entregadas a emitters locales")
+                .register(meterRegistry)
+                .increment(usuarioPorNotificacion.size());
+    }
+}
@@ -0,0 +1,337 @@
+package com.campito.backend.event;
+
+import com.campito.backend.config.AsyncConfig;
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionOutboxRepository;
+import com.campito.backend.model.EstadoOutbox;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.NotificacionOutbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relay del outbox de notificaciones.
+ *
+ * Toma lotes de filas pendientes con {@code FOR UPDATE SKIP LOCKED}, persiste las
+ * notificaciones con {@link NotificacionBatchWriter} y marca las filas como procesadas
+ * en la misma transacción. La entrega via SSE (local o a otros nodos) la hace el
+ * {@link NotificacionBroadcaster} después del commit.
+ *
+ * Disparadores:
+ * - Después del commit de cada transacción que escribió filas en el outbox
+ *   ({@link #solicitarEntrega()}, invocado por {@link NotificacionEventListener}): un único
+ *   aviso por transacción, en el executor de eventos, cuando las filas ya son visibles.
+ * - Polling periódico ({@code notificaciones.outbox.poll-ms}) como red de seguridad
+ *   para reintentos y filas que quedaron pendientes tras un reinicio.
+ *
+ * Si un lote falla se reintenta fila por fila; la fila que vuelve a fallar queda
+ * pendiente con backoff exponencial y pasa a FALLIDO al agotar los reintentos.
+ */
+@Component
+@ConditionalOnProperty(name = "notificaciones.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificacionOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionOutboxRelay.class);
+
+    private final NotificacionOutboxRepository outboxRepository;
+    private final NotificacionBatchWriter batchWriter;
+    private final NotificacionBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+
+    private final int maxLote;
+    private final int maxIntentos;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    private final AtomicBoolean ejecutando = new AtomicBoolean(false);
+    private final AtomicBoolean solicitado = new AtomicBoolean(false);
+    private final AtomicLong pendientes = new AtomicLong(0);
+    private final AtomicLong antiguedadSegundos = new AtomicLong(0);
+    private final Timer lagTimer;
+    private final DistributionSummary tamanioLote;
+
+    public NotificacionOutboxRelay(NotificacionOutboxRepository outboxRepository,
+                                   NotificacionBatchWriter batchWriter,
+                                   NotificacionBroadcaster broadcaster,
+                                   MeterRegistry meterRegistry,
+                                   PlatformTransactionManager transactionManager,
+                                   @Qualifier(AsyncConfig.EVENTOS_EXECUTOR) Executor executor,
+                                   @Value("${notificaciones.outbox.max-lote:50}") int maxLote,
+                                   @Value("${notificaciones.outbox.max-intentos:5}") int maxIntentos,
+                                   @Value("${notificaciones.outbox.backoff-base-ms:2000}") long backoffBaseMs,
+                                   @Value("${notificaciones.outbox.backoff-max-ms:300000}") long backoffMaxMs) {
+        this.outboxRepository = outboxRepository;
+        this.batchWriter = batchWriter;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.maxLote = maxLote;
+        this.maxIntentos = maxIntentos;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+
+        // 📊 MÉTRICA: Lag (creación en outbox → entrega), tamaño de lote, pendientes y antigüedad del más viejo
+        this.lagTimer = Timer.builder(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_LAG)
+                .description("Tiempo entre la escritura en el outbox y la entrega de la notificación")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.tamanioLote = DistributionSummary.builder(MetricsConfig.MetricNames.NOTIFICACIONES_LOTE_TAMANIO)
+                .description("Cantidad de notificaciones persistidas por lote")
+                .register(meterRegistry);
+        meterRegistry.gauge(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_PENDIENTES, pendientes);
+        meterRegistry.gauge(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_ANTIGUEDAD, antiguedadSegundos);
+    }
+
+    /**
+     * Entrega inmediata: pide una vuelta del relay después del commit de la transacción
+     * actual, que es la que escribió la fila del outbox. Varias notificaciones de una misma
+     * transacción comparten un único aviso. Sin transacción activa se pide de inmediato.
+     */
+    public void solicitarEntrega() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            despertar();
+            return;
+        }
+        boolean registrado = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(sincronizacion -> sincronizacion instanceof AvisoEntrega aviso && aviso.relay() == this);
+        if (!registrado) {
+            TransactionSynchronizationManager.registerSynchronization(new AvisoEntrega(this));
+        }
+    }
+
+    /**
+     * Polling periódico: reintentos vencidos, filas huérfanas tras un reinicio y métricas de lag.
+     */
+    @Scheduled(fixedDelayString = "${notificaciones.outbox.poll-ms:5000}",
+               initialDelayString = "${notificaciones.outbox.poll-ms:5000}")
+    public void sondear() {
+        procesarPendientes();
+        try {
+            pendientes.set(outboxRepository.countByEstado(EstadoOutbox.PENDIENTE));
+            LocalDateTime masAntigua = outboxRepository.fechaPendienteMasAntigua();
+            antiguedadSegundos.set(masAntigua == null ? 0
+                    : Math.max(0, Duration.between(masAntigua, LocalDateTime.now()).toSeconds()));
+        } catch (Exception e) {
+            logger.warn("No se pudieron actualizar las métricas del outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina filas procesadas con más de 1 día todos los días a las 3:30 AM.
+     */
+    @Scheduled(cron = "0 30 3 * * *", zone = "America/Argentina/Buenos_Aires")
+    public void limpiarProcesados() {
+        try {
+            Integer eliminadas = transactionTemplate.execute(status ->
+                    outboxRepository.eliminarProcesadosAntiguos(LocalDateTime.now().minusDays(1)));
+            logger.info("Limpieza de outbox de notificaciones: {} filas eliminadas", eliminadas);
+        } catch (Exception e) {
+            logger.error("Error al limpiar el outbox de notificaciones: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Procesa lotes hasta vaciar los pendientes. Si ya hay una ejecución en curso,
+     * se le pide una vuelta más en lugar de competir por las mismas filas.
+     */
+    public void procesarPendientes() {
+        if (!ejecutando.compareAndSet(false, true)) {
+            solicitado.set(true);
+            return;
+        }
+        try {
+            do {
+                solicitado.set(false);
+                int procesadas;
+                do {
+                    procesadas = procesarLote();
+                } while (procesadas >= maxLote);
+            } while (solicitado.get());
+        } catch (Exception e) {
+            logger.error("Error al procesar el outbox de notificaciones: {}", e.getMessage(), e);
+        } finally {
+            ejecutando.set(false);
+        }
+    }
+
+    /**
+     * Encola una vuelta del relay. Si el executor está saturado, el polling la cubre.
+     */
+    private void despertar() {
+        try {
+            executor.execute(this::procesarPendientes);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Executor de eventos saturado; el outbox se entregará en el próximo sondeo");
+        }
+    }
+
+    /**
+     * Procesa un lote en una transacción.
+     *
+     * @return Cantidad de filas tomadas del outbox
+     */
+    private int procesarLote() {
+        List<Long> ids = new ArrayList<>();
+        List<LocalDateTime> creaciones = new ArrayList<>();
+        List<Notificacion> persistidas;
+        try {
+            persistidas = transactionTemplate.execute(status -> {
+                List<NotificacionOutbox> filas = outboxRepository.bloquearPendientes(LocalDateTime.now(), maxLote);
+                filas.forEach(fila -> {
+                    ids.add(fila.getId());
+                    creaciones.add(fila.getFechaCreacion());
+                });
+                return entregar(filas);
+            });
+        } catch (Exception e) {
+            if (ids.isEmpty()) {
+                throw e;
+            }
+            logger.warn("Error al entregar lote de {} notificaciones, reintentando individualmente: {}",
+                    ids.size(), e.getMessage());
+            ids.forEach(this::procesarIndividual);
+            return ids.size();
+        }
+        confirmarEntrega(persistidas, creaciones);
+        return ids.size();
+    }
+
+    /**
+     * Reintenta una fila puntual para aislar la que hace fallar el lote.
+     */
+    private void procesarIndividual(Long id) {
+        List<LocalDateTime> creaciones = new ArrayList<>(1);
+        try {
+            List<Notificacion> persistidas = transactionTemplate.execute(status ->
+                    outboxRepository.bloquearPendientePorId(id)
+                            .map(fila -> {
+                                creaciones.add(fila.getFechaCreacion());
+                                return entregar(List.of(fila));
+                            })
+                            .orElse(List.of()));
+            confirmarEntrega(persistidas, creaciones);
+        } catch (Exception e) {
+            registrarFallo(id, e);
+        }
+    }
+
+    /**
+     * Persiste las notificaciones, marca las filas como procesadas y las difunde
+     * (dentro de la transacción; la entrega ocurre después del commit).
+     */
+    private List<Notificacion> entregar(List<NotificacionOutbox> filas) {
+        if (filas.isEmpty()) {
+            return List.of();
+        }
+        List<Notificacion> persistidas = batchWriter.persistirLote(filas);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (NotificacionOutbox fila : filas) {
+            fila.setEstado(EstadoOutbox.PROCESADO);
+            fila.setFechaProcesado(ahora);
+            fila.setIntentos(fila.getIntentos() + 1);
+        }
+        broadcaster.difundir(persistidas);
+        return persistidas;
+    }
+
+    /**
+     * Después del commit: métricas de entrega.
+     */
+    private void confirmarEntrega(List<Notificacion> persistidas, List<LocalDateTime> creaciones) {
+        if (persistidas == null || persistidas.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        creaciones.forEach(creacion -> lagTimer.record(Duration.between(creacion, ahora)));
+        tamanioLote.record(persistidas.size());
+
+        for (Notificacion notificacion : persistidas) {
+            // 📊 MÉTRICA: Incrementar contador de notificaciones enviadas
+            Counter.builder(MetricsConfig.MetricNames.NOTIFICACIONES_ENVIADAS)
+                    .description("Total de notificaciones enviadas exitosamente")
+                    .tag(MetricsConfig.TagNames.TIPO_NOTIFICACION, notificacion.getTipo().name())
+                    .register(meterRegistry)
+                    .increment();
+        }
+        logger.debug("Lote de {} notificaciones entregado desde el outbox", persistidas.size());
+    }
+
+    /**
+     * Registra un intento fallido: backoff exponencial o FALLIDO si se agotaron los reintentos.
+     */
+    private void registrarFallo(Long id, Exception error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(id).ifPresent(fila -> {
+                int intentos = fila.getIntentos() + 1;
+                fila.setIntentos(intentos);
+                fila.setUltimoError(truncar(error.getMessage()));
+
+                String resultado;
+                if (intentos >= maxIntentos) {
+                    fila.setEstado(EstadoOutbox.FALLIDO);
+                    resultado = "fallido";
+                    logger.error("Notificación del outbox {} descartada tras {} intentos: {}",
+                            id, intentos, error.getMessage());
+                } else {
+                    long espera = Math.min(backoffMaxMs, backoffBaseMs * (1L << Math.min(intentos - 1, 20)));
+                    fila.setProximoIntento(LocalDateTime.now().plusNanos(espera * 1_000_000L));
+                    resultado = "reintento";
+                    logger.warn("Notificación del outbox {} falló (intento {}), próximo intento en {} ms",
+                            id, intentos, espera);
+                }
+
+                // 📊 MÉTRICA: Reintentos y descartes del outbox
+                Counter.builder(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_ERRORES)
+                        .description("Entregas fallidas del outbox de notificaciones")
+                        .tag(MetricsConfig.TagNames.RESULTADO, resultado)
+                        .register(meterRegistry)
+                        .increment();
+            }));
+        } catch (Exception e) {
+            logger.error("No se pudo registrar el fallo de la fila {} del outbox: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Aviso de entrega registrado una vez por transacción.
+     */
+    private record AvisoEntrega(NotificacionOutboxRelay relay) implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            relay.despertar();
+        }
+    }
+
+    private static String truncar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() <= 500 ? mensaje : mensaje.substring(0, 500);
+    }
+}
@@ -0,0 +1,13 @@
+package com.campito.backend.exception;
+
+/**
+ * Excepción lanzada cuando el nodo no admite más llamadas concurrentes al LLM
+ * (cola de espera llena o tiempo máximo de espera agotado).
+ * Se mapea a HTTP 503 (Service Unavailable) con Retry-After.
+ */
+public class AgenteSaturadoException extends RuntimeException {
+    
+    public AgenteSaturadoException(String message) {
+        super(message);
+    }
+}
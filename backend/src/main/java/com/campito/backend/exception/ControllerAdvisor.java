@@ -2,6 +2,7 @@ package com.campito.backend.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +11,7 @@ import org.springframework.web.context.request.WebRequest;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class ControllerAdvisor {
@@ -88,6 +90,17 @@ public class ControllerAdvisor {
         return new ResponseEntity<>(exceptionInfo, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ExceptionInfo> handleTypeMismatchException(MethodArgumentTypeMismatchException ex, WebRequest request) {
+        ExceptionInfo exceptionInfo = new ExceptionInfo(
+                "Parámetro inválido: " + ex.getName(),
+                request.getDescription(false),
+                String.valueOf(System.currentTimeMillis()),
+                HttpStatus.BAD_REQUEST.value()
+        );
+        return new ResponseEntity<>(exceptionInfo, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<ExceptionInfo> handleIllegalStateException(IllegalStateException ex, WebRequest request) {
         ExceptionInfo exceptionInfo = new ExceptionInfo(
@@ -155,16 +168,18 @@ public class ControllerAdvisor {
         return new ResponseEntity<>(exceptionInfo, HttpStatus.FORBIDDEN);
     }
 
-    @ExceptionHandler(RateLimitExceededException.class)
-    public ResponseEntity<ExceptionInfo> handleRateLimitExceededException(RateLimitExceededException ex, WebRequest request) {
-        logger.warn("Rate limit excedido: {} - Request: {}", ex.getMessage(), request.getDescription(false));
+    @ExceptionHandler(AgenteSaturadoException.class)
+    public ResponseEntity<ExceptionInfo> handleAgenteSaturadoException(AgenteSaturadoException ex, WebRequest request) {
+        logger.warn("Agente IA saturado: {} - Request: {}", ex.getMessage(), request.getDescription(false));
         ExceptionInfo exceptionInfo = new ExceptionInfo(
                 ex.getMessage(),
                 request.getDescription(false),
                 String.valueOf(System.currentTimeMillis()),
-                HttpStatus.TOO_MANY_REQUESTS.value()
+                HttpStatus.SERVICE_UNAVAILABLE.value()
         );
-        return new ResponseEntity<>(exceptionInfo, HttpStatus.TOO_MANY_REQUESTS);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(exceptionInfo);
     }
 }
 
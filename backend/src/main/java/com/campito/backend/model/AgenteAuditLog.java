@@ -22,8 +22,13 @@ import java.util.UUID;
 @AllArgsConstructor
 public class AgenteAuditLog {
     
+    /**
+     * Id por secuencia (no IDENTITY) para que Hibernate pueda batchear los INSERT.
+     * allocationSize debe coincidir con el INCREMENT BY de la secuencia (V23).
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agente_audit_log_seq")
+    @SequenceGenerator(name = "agente_audit_log_seq", sequenceName = "agente_audit_log_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -1,5 +1,7 @@
 package com.campito.backend.model;
 
+import com.campito.backend.event.ModificacionEspacioListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
@@ -22,7 +24,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "cuentas_bancarias")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ModificacionEspacioListener.class})
 @Data // Genera equals, hashCode, toString y getters/setters para todos los campos
 @NoArgsConstructor  // Genera constructor sin argumentos (requerido por JPA)
 @AllArgsConstructor  // Genera constructor con todos los argumentos
@@ -1,5 +1,7 @@
 package com.campito.backend.model;
 
+import com.campito.backend.event.ModificacionEspacioListener;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
@@ -11,6 +13,7 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "cuotas_credito")
+@EntityListeners(ModificacionEspacioListener.class)
 @Data // Genera equals, hashCode, toString y getters/setters para todos los campos
 @NoArgsConstructor  // Genera constructor sin argumentos (requerido por JPA)
 @AllArgsConstructor  // Genera constructor con todos los argumentos
@@ -1,5 +1,7 @@
 package com.campito.backend.model;
 
+import com.campito.backend.event.ModificacionEspacioListener;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,6 +10,7 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "descuentos")
+@EntityListeners(ModificacionEspacioListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
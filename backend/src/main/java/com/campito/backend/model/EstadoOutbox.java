@@ -0,0 +1,22 @@
+package com.campito.backend.model;
+
+/**
+ * Estados de un registro del outbox de notificaciones.
+ */
+public enum EstadoOutbox {
+
+    /**
+     * Pendiente de entrega (o esperando un reintento).
+     */
+    PENDIENTE,
+
+    /**
+     * Entregado: la notificación fue persistida y enviada.
+     */
+    PROCESADO,
+
+    /**
+     * Se agotaron los reintentos. Queda para diagnóstico.
+     */
+    FALLIDO
+}
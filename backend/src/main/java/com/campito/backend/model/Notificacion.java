@@ -24,10 +24,26 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Notificacion {
     
+    /**
+     * Id por secuencia (no IDENTITY) para que Hibernate pueda batchear los INSERT.
+     * allocationSize debe coincidir con el INCREMENT BY de la secuencia (V19).
+     *
+     * Cada nodo reserva bloques de 50 ids, así que el id no sigue el orden de creación
+     * entre nodos: no sirve como cursor de "lo que vino después" (reenvío SSE, paginación).
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificaciones_seq")
+    @SequenceGenerator(name = "notificaciones_seq", sequenceName = "notificaciones_id_seq", allocationSize = 50)
     private Long id;
     
+    /**
+     * Número correlativo por usuario, asignado en la transacción que inserta la notificación
+     * bajo el lock de la fila del usuario en notificaciones_secuencia_usuario (V21): crece en
+     * orden de commit. Es el id de evento SSE y el cursor del reenvío por Last-Event-ID.
+     */
+    @Column(nullable = false, updatable = false)
+    private Long secuencia;
+    
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "id_usuario", nullable = false)
     private Usuario usuario;
@@ -0,0 +1,63 @@
+package com.campito.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Registro del outbox transaccional de notificaciones.
+ *
+ * Se inserta en la misma transacción que el cambio de negocio que origina la
+ * notificación: si esa transacción se revierte, la notificación nunca existe.
+ * El relay ({@code NotificacionOutboxRelay}) lo lee con FOR UPDATE SKIP LOCKED,
+ * crea la {@link Notificacion}, la envía via SSE y lo marca como procesado.
+ */
+@Entity
+@Table(name = "notificaciones_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacionOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificaciones_outbox_seq")
+    @SequenceGenerator(name = "notificaciones_outbox_seq", sequenceName = "notificaciones_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private UUID idUsuario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private TipoNotificacion tipo;
+
+    @Column(nullable = false, length = 200)
+    private String mensaje;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EstadoOutbox estado = EstadoOutbox.PENDIENTE;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer intentos = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column
+    private LocalDateTime fechaProcesado;
+
+    @Column(length = 500)
+    private String ultimoError;
+}
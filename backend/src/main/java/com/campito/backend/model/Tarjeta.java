@@ -1,6 +1,8 @@
 package com.campito.backend.model;
 
 
+import com.campito.backend.event.ModificacionEspacioListener;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +16,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "tarjetas")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ModificacionEspacioListener.class})
 @Data // Genera equals, hashCode, toString y getters/setters para todos los campos
 @NoArgsConstructor  // Genera constructor sin argumentos (requerido por JPA)
 @AllArgsConstructor  // Genera constructor con todos los argumentos
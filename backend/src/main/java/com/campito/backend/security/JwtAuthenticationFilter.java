@@ -1,6 +1,5 @@
 package com.campito.backend.security;
 
-import com.campito.backend.dao.UsuarioRepository;
 import com.campito.backend.model.CustomOAuth2User;
 import com.campito.backend.model.Usuario;
 import jakarta.servlet.FilterChain;
@@ -20,6 +19,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -35,7 +35,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UsuarioRepository usuarioRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -44,11 +44,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                UUID userId = jwtTokenProvider.getUserIdFromToken(jwt);
+            // Una sola verificación por petición (firma, expiración y claims)
+            Optional<JwtTokenProvider.TokenVerificado> token = StringUtils.hasText(jwt)
+                    ? jwtTokenProvider.verificar(jwt)
+                    : Optional.empty();
+
+            if (token.isPresent()) {
+                UUID userId = token.get().idUsuario();
                 
-                // Buscar el usuario en la base de datos
-                Usuario usuario = usuarioRepository.findById(userId).orElse(null);
+                // Datos del usuario desde la caché de principales (la base solo ante un miss)
+                Usuario usuario = principalCache.obtener(userId)
+                        .map(PrincipalCache.PrincipalCacheado::aUsuario)
+                        .orElse(null);
                 
                 if (usuario != null && Boolean.TRUE.equals(usuario.getActivo())) {
                     // Crear un principal personalizado con nuestro objeto Usuario
@@ -1,45 +1,104 @@
 package com.campito.backend.security;
 
+import com.campito.backend.config.MetricsConfig;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Proveedor de tokens JWT para autenticación sin estado.
  * Genera y valida tokens JWT para usuarios autenticados.
+ *
+ * La clave HMAC y el parser se construyen una sola vez (ambos son inmutables y
+ * thread-safe). Los tokens ya verificados se guardan en una caché acotada indexada
+ * por el SHA-256 del token, y cada entrada expira en el {@code exp} del propio token:
+ * una petición repetida con el mismo token no vuelve a decodificar ni verificar la firma.
  */
 @Component
 public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    /**
+     * Datos extraídos de un token con firma y expiración válidas.
+     *
+     * @param idUsuario UUID del usuario (subject)
+     * @param email Email del usuario
+     * @param expiracion Instante de expiración del token
+     */
+    public record TokenVerificado(UUID idUsuario, String email, Instant expiracion) {
+    }
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final long jwtExpirationMs;
+    private final Clock reloj;
+    private final Cache<String, TokenVerificado> verificados;
 
-    @Value("${jwt.expiration}")
-    private long jwtExpirationMs;
+    @Autowired
+    public JwtTokenProvider(MeterRegistry meterRegistry,
+                            @Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpirationMs,
+                            @Value("${jwt.cache.max-tokens:10000}") long maxTokens) {
+        this(meterRegistry, jwtSecret, jwtExpirationMs, maxTokens, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor con reloj configurable (tests de expiración). El mismo reloj se usa para
+     * emitir tokens, verificar su {@code exp} y expirar las entradas de la caché.
+     */
+    JwtTokenProvider(MeterRegistry meterRegistry, String jwtSecret, long jwtExpirationMs,
+                     long maxTokens, Clock reloj) {
+        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.reloj = reloj;
+        this.parser = Jwts.parser().verifyWith(key).clock(() -> Date.from(reloj.instant())).build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.verificados = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(Expiry.creating((String digest, TokenVerificado token) ->
+                        Duration.between(reloj.instant(), token.expiracion())))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(reloj.millis()))
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones de la caché de tokens verificados
+        CaffeineCacheMetrics.monitor(meterRegistry, verificados, MetricsConfig.MetricNames.CACHE_JWT);
+    }
 
     /**
      * Genera un token JWT para un usuario identificado por su UUID
-     * 
+     *
      * @param userId UUID del usuario
      * @param email Email del usuario
      * @return Token JWT firmado
      */
     public String generateToken(UUID userId, String email) {
-        Date now = new Date();
+        Date now = Date.from(reloj.instant());
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
         return Jwts.builder()
                 .subject(userId.toString())
                 .claim("email", email)
@@ -49,66 +108,103 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Verifica un token y extrae sus datos en una sola pasada.
+     * Es el punto de entrada para cada petición autenticada.
+     *
+     * @param token Token JWT
+     * @return Datos del token, o vacío si el token es inválido o expiró
+     */
+    public Optional<TokenVerificado> verificar(String token) {
+        String digest = digest(token);
+        TokenVerificado cacheado = verificados.getIfPresent(digest);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+
+        try {
+            Claims claims = parseToken(token);
+            if (claims.getExpiration() == null) {
+                logger.error("Token JWT sin fecha de expiración");
+                return Optional.empty();
+            }
+            TokenVerificado verificado = new TokenVerificado(
+                    UUID.fromString(claims.getSubject()),
+                    claims.get("email", String.class),
+                    claims.getExpiration().toInstant());
+            verificados.put(digest, verificado);
+            return Optional.of(verificado);
+        } catch (SecurityException | MalformedJwtException ex) {
+            logger.error("Token JWT inválido: firma incorrecta");
+        } catch (ExpiredJwtException ex) {
+            logger.error("Token JWT expirado");
+        } catch (UnsupportedJwtException ex) {
+            logger.error("Token JWT no soportado");
+        } catch (IllegalArgumentException ex) {
+            logger.error("Token JWT vacío o con subject inválido");
+        } catch (Exception ex) {
+            logger.error("Error al validar token JWT", ex);
+        }
+        return Optional.empty();
+    }
+
     /**
      * Extrae el ID de usuario del token JWT
-     * 
+     *
      * @param token Token JWT
      * @return UUID del usuario
+     * @throws JwtException si el token es inválido
      */
     public UUID getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return UUID.fromString(claims.getSubject());
+        return verificar(token)
+                .orElseThrow(() -> new JwtException("Token JWT inválido"))
+                .idUsuario();
     }
 
     /**
      * Extrae el email del usuario del token JWT
-     * 
+     *
      * @param token Token JWT
      * @return Email del usuario
+     * @throws JwtException si el token es inválido
      */
     public String getEmailFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("email", String.class);
+        return verificar(token)
+                .orElseThrow(() -> new JwtException("Token JWT inválido"))
+                .email();
     }
 
     /**
      * Valida un token JWT
-     * 
+     *
      * @param token Token JWT a validar
      * @return true si el token es válido, false en caso contrario
      */
     public boolean validateToken(String token) {
-        try {
-            parseToken(token);
-            return true;
-        } catch (SecurityException | MalformedJwtException ex) {
-            logger.error("Token JWT inválido: firma incorrecta");
-        } catch (ExpiredJwtException ex) {
-            logger.error("Token JWT expirado");
-        } catch (UnsupportedJwtException ex) {
-            logger.error("Token JWT no soportado");
-        } catch (IllegalArgumentException ex) {
-            logger.error("Token JWT vacío");
-        } catch (Exception ex) {
-            logger.error("Error al validar token JWT", ex);
-        }
-        return false;
+        return verificar(token).isPresent();
     }
 
     /**
-     * Parsea y verifica un token JWT
-     * 
+     * Parsea y verifica un token JWT con el parser compartido
+     *
      * @param token Token JWT
      * @return Claims del token
      * @throws JwtException si el token es inválido
      */
     private Claims parseToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Clave de la caché: SHA-256 del token, para no retener tokens completos en memoria.
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,131 @@
+package com.campito.backend.security;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.Usuario;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Caché acotada (tamaño máximo y TTL) de los datos del usuario que necesita
+ * {@link JwtAuthenticationFilter} para armar el principal de cada petición.
+ *
+ * - Evita un {@code findById} por request (incluidas las reconexiones SSE).
+ * - Solo guarda una copia inmutable de los campos usados por el principal, nunca la entidad.
+ * - Se invalida al modificar o desactivar un usuario; el TTL acota la ventana ante
+ *   cambios hechos por fuera de la aplicación (por ejemplo, directamente en la base).
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    /**
+     * Copia de los campos del usuario necesarios para autenticar y para el principal.
+     */
+    public record PrincipalCacheado(UUID id, String nombre, String email, String fotoPerfil,
+                                    String rol, boolean activo) {
+
+        static PrincipalCacheado desde(Usuario usuario) {
+            return new PrincipalCacheado(usuario.getId(), usuario.getNombre(), usuario.getEmail(),
+                    usuario.getFotoPerfil(), usuario.getRol(), Boolean.TRUE.equals(usuario.getActivo()));
+        }
+
+        /**
+         * Reconstruye un {@link Usuario} desacoplado de JPA para el principal.
+         */
+        public Usuario aUsuario() {
+            return Usuario.builder()
+                    .id(id)
+                    .nombre(nombre)
+                    .email(email)
+                    .fotoPerfil(fotoPerfil)
+                    .rol(rol)
+                    .activo(activo)
+                    .build();
+        }
+    }
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<UUID, PrincipalCacheado> principales;
+
+    @Autowired
+    public PrincipalCache(UsuarioRepository usuarioRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${seguridad.principal.cache.max-usuarios:10000}") long maxUsuarios,
+                          @Value("${seguridad.principal.cache.ttl-segundos:60}") long ttlSegundos) {
+        this(usuarioRepository, meterRegistry, maxUsuarios, ttlSegundos, Ticker.systemTicker());
+    }
+
+    /**
+     * Constructor con reloj de la caché configurable (tests del TTL).
+     */
+    PrincipalCache(UsuarioRepository usuarioRepository, MeterRegistry meterRegistry,
+                   long maxUsuarios, long ttlSegundos, Ticker ticker) {
+        this.usuarioRepository = usuarioRepository;
+        this.principales = Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hit rate de la caché de principales (cache_gets{result=hit|miss})
+        CaffeineCacheMetrics.monitor(meterRegistry, principales, MetricsConfig.MetricNames.CACHE_PRINCIPALES);
+    }
+
+    /**
+     * Obtiene los datos del usuario, cargándolos de la base si no están en caché.
+     *
+     * @param idUsuario ID del usuario
+     * @return Datos del usuario, o vacío si no existe
+     */
+    public Optional<PrincipalCacheado> obtener(UUID idUsuario) {
+        return Optional.ofNullable(principales.get(idUsuario, this::cargar));
+    }
+
+    /**
+     * Descarta los datos cacheados de un usuario. Si se invoca dentro de una transacción,
+     * se descarta también después del commit, para que una petición concurrente no
+     * vuelva a cachear la versión anterior a la modificación.
+     *
+     * @param idUsuario ID del usuario modificado o desactivado
+     */
+    public void invalidar(UUID idUsuario) {
+        if (idUsuario == null) {
+            return;
+        }
+        principales.invalidate(idUsuario);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principales.invalidate(idUsuario);
+                }
+            });
+        }
+        logger.debug("Principal invalidado para usuario: {}", idUsuario);
+    }
+
+    private PrincipalCacheado cargar(UUID idUsuario) {
+        // Caffeine no guarda valores null: un usuario inexistente se vuelve a consultar
+        return usuarioRepository.findById(idUsuario)
+                .map(PrincipalCacheado::desde)
+                .orElse(null);
+    }
+}
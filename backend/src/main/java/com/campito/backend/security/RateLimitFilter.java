@@ -0,0 +1,144 @@
+package com.campito.backend.security;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.ExceptionInfo;
+import com.campito.backend.model.CustomOAuth2User;
+import com.campito.backend.security.RateLimitService.NivelRateLimit;
+import com.campito.backend.security.RateLimitService.ResultadoRateLimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Filtro de rate limiting para todas las rutas {@code /api/**}.
+ *
+ * Se ejecuta después de {@link JwtAuthenticationFilter}: las requests autenticadas se
+ * limitan por usuario y las anónimas por IP. Las rutas costosas (dashboard, búsquedas)
+ * y el agente IA usan niveles más estrictos.
+ *
+ * Todas las respuestas incluyen {@code X-RateLimit-Limit}, {@code X-RateLimit-Remaining}
+ * y {@code X-RateLimit-Reset} para que el cliente pueda frenar antes de recibir un 429;
+ * el 429 incluye además {@code Retry-After}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitService rateLimitService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<String> rutasCostosas;
+    private final List<String> rutasAgente;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimitService rateLimitService,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.costoso.rutas:/api/dashboard/**,/api/transaccion/buscar,/api/comprascredito/buscar/**}") List<String> rutasCostosas,
+                           @Value("${rate-limit.agente.rutas:/api/agente/chat/**}") List<String> rutasAgente) {
+        this.rateLimitService = rateLimitService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.rutasCostosas = rutasCostosas;
+        this.rutasAgente = rutasAgente;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String ruta = request.getRequestURI();
+        NivelRateLimit nivel = nivel(ruta);
+        ResultadoRateLimit resultado = rateLimitService.consumir(nivel, cliente(request));
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(resultado.limite()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(resultado.restantes()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(resultado.segundosParaReinicio()));
+
+        if (!resultado.permitido()) {
+            // 📊 MÉTRICA: Requests rechazadas por rate limit, por nivel
+            Counter.builder(MetricsConfig.MetricNames.RATE_LIMIT_RECHAZOS)
+                    .description("Requests rechazadas con 429 por rate limit")
+                    .tag("nivel", nivel.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+
+            rechazar(request, response, resultado);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private NivelRateLimit nivel(String ruta) {
+        if (coincide(rutasAgente, ruta)) {
+            return NivelRateLimit.AGENTE;
+        }
+        if (coincide(rutasCostosas, ruta)) {
+            return NivelRateLimit.COSTOSO;
+        }
+        return NivelRateLimit.GENERAL;
+    }
+
+    private boolean coincide(List<String> patrones, String ruta) {
+        for (String patron : patrones) {
+            if (matcher.match(patron.trim(), ruta)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Usuario autenticado (lo establece el filtro JWT) o, si no hay, la IP remota.
+     */
+    private String cliente(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof CustomOAuth2User usuario) {
+            return RateLimitService.clienteUsuario(usuario.getUsuario().getId());
+        }
+        return RateLimitService.clienteIp(request.getRemoteAddr());
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response,
+                          ResultadoRateLimit resultado) throws IOException {
+        logger.warn("Request rechazada por rate limit: {} {}", request.getMethod(), request.getRequestURI());
+
+        ExceptionInfo exceptionInfo = new ExceptionInfo(
+                "Has excedido el límite de solicitudes. Por favor, espera un momento antes de continuar.",
+                "uri=" + request.getRequestURI(),
+                String.valueOf(System.currentTimeMillis()),
+                HttpStatus.TOO_MANY_REQUESTS.value()
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, resultado.segundosParaReintentar())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(), exceptionInfo);
+    }
+}
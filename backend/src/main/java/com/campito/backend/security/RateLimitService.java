@@ -0,0 +1,178 @@
+package com.campito.backend.security;
+
+import com.campito.backend.config.MetricsConfig;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Almacén de token buckets (Bucket4j) para el rate limiting de la API.
+ *
+ * - Un bucket por nivel y cliente (usuario autenticado o IP).
+ * - Los buckets viven en una caché Caffeine acotada que expira por inactividad: un cliente
+ *   que deja de hacer requests libera su bucket. La expiración es mayor que el tiempo de
+ *   recarga completa, así que descartar un bucket nunca regala tokens.
+ * - Refill greedy: los tokens se reponen de a uno (p. ej. 60/min → 1 por segundo), sin
+ *   esperar al final del intervalo.
+ */
+@Component
+@Slf4j
+public class RateLimitService {
+
+    /**
+     * Niveles de límite. Los endpoints costosos y el agente IA tienen límites más estrictos.
+     */
+    public enum NivelRateLimit {
+        GENERAL,
+        COSTOSO,
+        AGENTE
+    }
+
+    /**
+     * Resultado de consumir un token.
+     *
+     * @param permitido Si la request puede continuar
+     * @param limite Capacidad del bucket
+     * @param restantes Tokens que quedan luego de consumir
+     * @param segundosParaReintentar Segundos hasta que haya un token disponible (0 si permitido)
+     * @param segundosParaReinicio Segundos hasta que el bucket vuelva a estar lleno
+     */
+    public record ResultadoRateLimit(boolean permitido, long limite, long restantes,
+                                     long segundosParaReintentar, long segundosParaReinicio) {
+    }
+
+    private final Map<NivelRateLimit, Bandwidth> limites = new EnumMap<>(NivelRateLimit.class);
+    private final Cache<String, Bucket> buckets;
+
+    @Autowired
+    public RateLimitService(MeterRegistry meterRegistry,
+                            @Value("${rate-limit.general.requests-per-minute:300}") long generalPorMinuto,
+                            @Value("${rate-limit.general.burst-capacity:60}") long generalRafaga,
+                            @Value("${rate-limit.costoso.requests-per-minute:30}") long costosoPorMinuto,
+                            @Value("${rate-limit.costoso.burst-capacity:10}") long costosoRafaga,
+                            @Value("${agente.rate-limit.requests-per-minute:60}") long agentePorMinuto,
+                            @Value("${agente.rate-limit.burst-capacity:10}") long agenteRafaga,
+                            @Value("${rate-limit.buckets.max-clientes:50000}") long maxClientes,
+                            @Value("${rate-limit.buckets.expiracion-minutos:10}") long expiracionMinutos) {
+        this(meterRegistry, generalPorMinuto, generalRafaga, costosoPorMinuto, costosoRafaga,
+                agentePorMinuto, agenteRafaga, maxClientes, expiracionMinutos, Ticker.systemTicker());
+    }
+
+    /**
+     * Constructor con reloj de la caché configurable (tests de expiración).
+     */
+    RateLimitService(MeterRegistry meterRegistry, long generalPorMinuto, long generalRafaga,
+                     long costosoPorMinuto, long costosoRafaga, long agentePorMinuto, long agenteRafaga,
+                     long maxClientes, long expiracionMinutos, Ticker ticker) {
+        limites.put(NivelRateLimit.GENERAL, limite(generalRafaga, generalPorMinuto));
+        limites.put(NivelRateLimit.COSTOSO, limite(costosoRafaga, costosoPorMinuto));
+        limites.put(NivelRateLimit.AGENTE, limite(agenteRafaga, agentePorMinuto));
+
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClientes)
+                .expireAfterAccess(Duration.ofMinutes(expiracionMinutos))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Cantidad de buckets vivos (size), evicciones y hits/misses
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, MetricsConfig.MetricNames.CACHE_RATE_LIMIT);
+    }
+
+    /**
+     * Consume un token del bucket del cliente para el nivel indicado.
+     *
+     * @param nivel Nivel de límite del endpoint
+     * @param cliente Identificador del cliente (usuario o IP)
+     * @return Resultado con los datos necesarios para los headers de rate limit
+     */
+    public ResultadoRateLimit consumir(NivelRateLimit nivel, String cliente) {
+        Bandwidth limite = limites.get(nivel);
+        Bucket bucket = buckets.get(nivel + ":" + cliente, clave -> Bucket.builder().addLimit(limite).build());
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+
+        if (!probe.isConsumed()) {
+            log.warn("Rate limit excedido para {} en nivel {} (límite: {} tokens)", cliente, nivel, limite.getCapacity());
+        }
+
+        return new ResultadoRateLimit(
+                probe.isConsumed(),
+                limite.getCapacity(),
+                probe.getRemainingTokens(),
+                segundos(probe.getNanosToWaitForRefill()),
+                segundos(probe.getNanosToWaitForReset()));
+    }
+
+    /**
+     * Tokens disponibles de un cliente sin consumir (un cliente sin bucket tiene la capacidad completa).
+     *
+     * @param nivel Nivel de límite
+     * @param cliente Identificador del cliente (usuario o IP)
+     * @return Cantidad de tokens disponibles
+     */
+    public long disponibles(NivelRateLimit nivel, String cliente) {
+        Bucket bucket = buckets.getIfPresent(nivel + ":" + cliente);
+        if (bucket == null) {
+            return limites.get(nivel).getCapacity();
+        }
+        return bucket.getAvailableTokens();
+    }
+
+    /**
+     * Identificador de cliente para un usuario autenticado.
+     *
+     * @param idUsuario ID del usuario
+     * @return Clave del cliente en el almacén de buckets
+     */
+    public static String clienteUsuario(UUID idUsuario) {
+        return "usuario:" + idUsuario;
+    }
+
+    /**
+     * Identificador de cliente para una request anónima.
+     *
+     * @param ip Dirección IP remota
+     * @return Clave del cliente en el almacén de buckets
+     */
+    public static String clienteIp(String ip) {
+        return "ip:" + ip;
+    }
+
+    /**
+     * Resetea los buckets de un cliente (útil para testing o admin).
+     *
+     * @param cliente Identificador del cliente (usuario o IP)
+     */
+    public void resetear(String cliente) {
+        log.info("Reseteando rate limit para cliente: {}", cliente);
+        for (NivelRateLimit nivel : NivelRateLimit.values()) {
+            buckets.invalidate(nivel + ":" + cliente);
+        }
+    }
+
+    private static Bandwidth limite(long capacidad, long porMinuto) {
+        return Bandwidth.builder()
+                .capacity(capacidad)
+                .refillGreedy(porMinuto, Duration.ofMinutes(1))
+                .build();
+    }
+
+    private static long segundos(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
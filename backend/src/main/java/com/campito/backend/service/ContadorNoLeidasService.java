@@ -0,0 +1,18 @@
+package com.campito.backend.service;
+
+import java.util.UUID;
+
+/**
+ * Contador en memoria de notificaciones no leídas por usuario.
+ *
+ * Evita ejecutar {@code COUNT(*)} sobre la tabla de notificaciones en cada consulta:
+ * el valor se carga una vez desde la base y se descarta con cada cambio. A los usuarios
+ * con conexiones SSE se les envía el valor actualizado para que no tengan que consultar.
+ */
+public interface ContadorNoLeidasService {
+    public long obtener(UUID idUsuario);
+    public void refrescar(UUID idUsuario);
+    public void registrarCambio(UUID idUsuario);
+    public void reconciliar();
+    public void descartarTodos();
+}
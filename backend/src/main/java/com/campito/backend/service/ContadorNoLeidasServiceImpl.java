@@ -0,0 +1,181 @@
+package com.campito.backend.service;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.event.NoLeidasModificadasEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementación del contador de notificaciones no leídas sobre una caché Caffeine
+ * acotada (tamaño máximo y TTL).
+ *
+ * - Cada cambio descarta el contador del usuario en lugar de sumarle o restarle: un delta
+ *   aplicado sobre un valor que ya lo incluía (cargado justo después del commit) lo
+ *   contaría dos veces. Si el usuario tiene conexiones SSE en este nodo, se recuenta de la
+ *   base (índice parcial de no leídas) y se le envía el valor.
+ * - Cada cambio también cambia la versión del usuario. Una carga guarda su resultado solo
+ *   si la versión no cambió mientras contaba (compare-and-set): un conteo hecho antes del
+ *   commit de un cambio nunca queda en caché.
+ * - Los cambios que no son notificaciones nuevas (lecturas, eliminaciones, limpiezas) se
+ *   publican con {@link NoLeidasModificadasEvent} para que los demás nodos descarten el
+ *   suyo; las notificaciones nuevas ya les llegan por la señal de notificaciones.
+ * - El TTL acota la deriva ante cambios que no pasan por este servicio (eliminación en
+ *   cascada de un usuario, señales perdidas entre nodos, etc.).
+ * - Si se invoca dentro de una transacción, el cambio se aplica después del commit:
+ *   un rollback nunca deja el contador desfasado.
+ */
+@Service
+public class ContadorNoLeidasServiceImpl implements ContadorNoLeidasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorNoLeidasServiceImpl.class);
+
+    private final NotificacionRepository notificacionRepository;
+    private final SseEmitterService sseEmitterService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<UUID, Long> contadores;
+    // Versiones de una secuencia global: una versión descartada y recreada nunca repite valor
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Cache<UUID, Long> versiones;
+
+    public ContadorNoLeidasServiceImpl(NotificacionRepository notificacionRepository,
+                                       SseEmitterService sseEmitterService,
+                                       ApplicationEventPublisher eventPublisher,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${notificaciones.no-leidas.cache.max-usuarios:10000}") long maxUsuarios,
+                                       @Value("${notificaciones.no-leidas.cache.ttl-minutos:30}") long ttlMinutos) {
+        this.notificacionRepository = notificacionRepository;
+        this.sseEmitterService = sseEmitterService;
+        this.eventPublisher = eventPublisher;
+        this.contadores = Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+        this.versiones = Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutos))
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones de la caché de no leídas
+        CaffeineCacheMetrics.monitor(meterRegistry, contadores, MetricsConfig.MetricNames.CACHE_NO_LEIDAS);
+    }
+
+    /**
+     * Devuelve la cantidad de no leídas, cargándola de la base si no está en caché.
+     *
+     * @param idUsuario ID del usuario
+     * @return Cantidad de notificaciones no leídas
+     */
+    @Override
+    public long obtener(UUID idUsuario) {
+        Long cantidad = contadores.getIfPresent(idUsuario);
+        if (cantidad != null) {
+            return cantidad;
+        }
+        long version = versiones.get(idUsuario, id -> secuencia.incrementAndGet());
+        long contadas = notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario);
+        // Compare-and-set: atómico respecto de nuevaVersion, que toma el mismo lock de la clave
+        versiones.asMap().computeIfPresent(idUsuario, (id, actual) -> {
+            if (actual == version) {
+                contadores.put(idUsuario, contadas);
+            }
+            return actual;
+        });
+        return contadas;
+    }
+
+    /**
+     * Descarta el contador del usuario y, si tiene conexiones SSE en este nodo, le envía
+     * el valor recontado. Se usa para notificaciones nuevas (de este nodo o de otro) y
+     * para cambios señalizados por otros nodos.
+     *
+     * @param idUsuario ID del usuario
+     */
+    @Override
+    public void refrescar(UUID idUsuario) {
+        despuesDelCommit(() -> aplicarCambio(idUsuario));
+    }
+
+    /**
+     * Registra una lectura o eliminación hecha en este nodo: refresca el contador local
+     * y avisa a los demás nodos.
+     *
+     * @param idUsuario ID del usuario
+     */
+    @Override
+    public void registrarCambio(UUID idUsuario) {
+        despuesDelCommit(() -> {
+            aplicarCambio(idUsuario);
+            eventPublisher.publishEvent(new NoLeidasModificadasEvent(Set.of(idUsuario), false));
+        });
+    }
+
+    /**
+     * Descarta todos los contadores, en este nodo y en los demás, para que se vuelvan a
+     * cargar desde la base. Lo invoca la limpieza programada, que elimina notificaciones en bloque.
+     */
+    @Override
+    public void reconciliar() {
+        despuesDelCommit(() -> {
+            descartarTodos();
+            eventPublisher.publishEvent(new NoLeidasModificadasEvent(Set.of(), true));
+        });
+    }
+
+    /**
+     * Descarta todos los contadores de este nodo (limpieza en otro nodo o señales perdidas).
+     */
+    @Override
+    public void descartarTodos() {
+        long cantidad = contadores.estimatedSize();
+        // Primero las versiones: una carga en curso ya no puede guardar su resultado
+        versiones.invalidateAll();
+        contadores.invalidateAll();
+        logger.info("Contadores de no leídas reconciliados ({} usuarios descartados de la caché)", cantidad);
+    }
+
+    private void aplicarCambio(UUID idUsuario) {
+        versiones.put(idUsuario, secuencia.incrementAndGet());
+        contadores.invalidate(idUsuario);
+        if (sseEmitterService.tieneConexiones(idUsuario)) {
+            publicar(idUsuario, obtener(idUsuario));
+        }
+    }
+
+    private void publicar(UUID idUsuario, long cantidad) {
+        try {
+            sseEmitterService.enviarContadorNoLeidas(idUsuario, cantidad);
+        } catch (Exception e) {
+            logger.warn("No se pudo enviar el contador de no leídas al usuario {}: {}", idUsuario, e.getMessage());
+        }
+    }
+
+    private static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.campito.backend.dao.UsuarioRepository;
 import com.campito.backend.model.CustomOAuth2User;
 import com.campito.backend.model.ProveedorAutenticacion;
 import com.campito.backend.model.Usuario;
+import com.campito.backend.security.PrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class CustomOidcUserService extends OidcUserService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     @Transactional
     public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
@@ -51,6 +55,8 @@ public class CustomOidcUserService extends OidcUserService {
             ZoneId buenosAiresZone = ZoneId.of("America/Argentina/Buenos_Aires");
             usuario.setFechaUltimoAcceso(LocalDateTime.now(buenosAiresZone));
             Usuario usuarioGuardado = usuarioRepository.save(usuario);
+            // Nombre, foto o estado pueden haber cambiado: el filtro JWT debe releerlos
+            principalCache.invalidar(usuarioGuardado.getId());
 
             // Devolvemos un principal personalizado que contiene nuestro objeto Usuario
             CustomOAuth2User customUser = new CustomOAuth2User(oidcUser, usuarioGuardado);
@@ -52,6 +52,7 @@ public class EspacioTrabajoServiceImpl implements EspacioTrabajoService {
     private final UsuarioMapper usuarioMapper;
     private final SolicitudPendienteEspacioTrabajoMapper solicitudPendienteEspacioTrabajoMapper;
     private final ApplicationEventPublisher eventPublisher;
+    private final MembresiaEspacioService membresiaEspacioService;
 
     /**
      * Registra un nuevo espacio de trabajo.
@@ -92,6 +93,8 @@ public class EspacioTrabajoServiceImpl implements EspacioTrabajoService {
         espacioTrabajo.setUsuariosParticipantes(new ArrayList<>());
         espacioTrabajo.getUsuariosParticipantes().add(usuario);
         espacioRepository.save(espacioTrabajo);
+        membresiaEspacioService.registrarMembresia(usuario.getId(), espacioTrabajo.getId(),
+                MembresiaEspacioService.RolEspacio.ADMIN);
         logger.info("Espacio de trabajo '{}' registrado exitosamente.", espacioTrabajo.getNombre());
     }
 
@@ -193,6 +196,7 @@ public class EspacioTrabajoServiceImpl implements EspacioTrabajoService {
      * @throws EntityNotFoundException si la solicitud pendiente no se encuentra en la base de datos.
      */
     @Override
+    @Transactional
     public void respuestaSolicitudCompartirEspacioTrabajo(Long idSolicitud, Boolean aceptada) {
         // Implementación pendiente
         if (idSolicitud == null || aceptada == null) {
@@ -213,6 +217,8 @@ public class EspacioTrabajoServiceImpl implements EspacioTrabajoService {
 
             espacioTrabajo.getUsuariosParticipantes().add(usuario);
             espacioRepository.save(espacioTrabajo);
+            membresiaEspacioService.registrarMembresia(usuario.getId(), espacioTrabajo.getId(),
+                    MembresiaEspacioService.RolEspacio.MIEMBRO);
             logger.info("Solicitud de compartir espacio ID: {} aceptada. Usuario {} agregado al espacio ID: {}.", 
                         idSolicitud, usuario.getEmail(), espacioTrabajo.getId());
             
@@ -0,0 +1,29 @@
+package com.campito.backend.service;
+
+import java.util.UUID;
+
+/**
+ * Índice en memoria de membresías: usuario → espacios de trabajo en los que participa,
+ * con su rol en cada uno.
+ *
+ * Permite responder las validaciones de acceso y de administrador de
+ * {@link SecurityService} sin consultar la tabla {@code espacios_trabajo_usuarios}
+ * en cada petición. El índice de cada usuario se carga una sola vez (con una consulta)
+ * y se actualiza al crear espacios o aceptar invitaciones. Un acceso negado siempre se
+ * confirma contra la base.
+ */
+public interface MembresiaEspacioService {
+
+    /**
+     * Rol de un usuario dentro de un espacio de trabajo.
+     */
+    enum RolEspacio {
+        ADMIN,
+        MIEMBRO
+    }
+
+    public boolean esMiembro(UUID idUsuario, UUID idEspacioTrabajo);
+    public boolean esAdmin(UUID idUsuario, UUID idEspacioTrabajo);
+    public void registrarMembresia(UUID idUsuario, UUID idEspacioTrabajo, RolEspacio rol);
+    public void invalidar(UUID idUsuario);
+}
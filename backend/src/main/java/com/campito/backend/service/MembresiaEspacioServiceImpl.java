@@ -0,0 +1,154 @@
+package com.campito.backend.service;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.EspacioTrabajoRepository;
+import com.campito.backend.dto.MembresiaEspacioDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementación del índice de membresías sobre una caché Caffeine acotada (tamaño máximo y TTL).
+ *
+ * - Cada entrada es un mapa inmutable espacio → rol; las modificaciones lo reemplazan
+ *   completo, por lo que las lecturas nunca ven un estado intermedio.
+ * - Solo se actualizan usuarios ya cargados: si el usuario no está en caché, la próxima
+ *   validación lo carga de la base (ya con el cambio).
+ * - Si se invoca dentro de una transacción, el cambio se aplica después del commit.
+ * - Solo se cachean resultados positivos: si el espacio no figura en el índice del usuario,
+ *   se recarga de la base antes de negar el acceso. Una membresía agregada en otro nodo
+ *   se ve en la siguiente validación, sin esperar el TTL.
+ * - El TTL acota la deriva ante membresías quitadas en otro nodo o fuera de este servicio.
+ */
+@Service
+public class MembresiaEspacioServiceImpl implements MembresiaEspacioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MembresiaEspacioServiceImpl.class);
+
+    private final EspacioTrabajoRepository espacioTrabajoRepository;
+    private final Cache<UUID, Map<UUID, RolEspacio>> membresias;
+
+    public MembresiaEspacioServiceImpl(EspacioTrabajoRepository espacioTrabajoRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${seguridad.membresias.cache.max-usuarios:10000}") long maxUsuarios,
+                                       @Value("${seguridad.membresias.cache.ttl-minutos:10}") long ttlMinutos) {
+        this.espacioTrabajoRepository = espacioTrabajoRepository;
+        this.membresias = Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones del índice de membresías
+        CaffeineCacheMetrics.monitor(meterRegistry, membresias, MetricsConfig.MetricNames.CACHE_MEMBRESIAS);
+    }
+
+    /**
+     * Indica si el usuario participa en el espacio de trabajo (como admin o miembro).
+     *
+     * @param idUsuario ID del usuario
+     * @param idEspacioTrabajo ID del espacio de trabajo
+     * @return true si el usuario es participante
+     */
+    @Override
+    public boolean esMiembro(UUID idUsuario, UUID idEspacioTrabajo) {
+        return rol(idUsuario, idEspacioTrabajo) != null;
+    }
+
+    /**
+     * Indica si el usuario es el administrador del espacio de trabajo.
+     *
+     * @param idUsuario ID del usuario
+     * @param idEspacioTrabajo ID del espacio de trabajo
+     * @return true si el usuario es administrador
+     */
+    @Override
+    public boolean esAdmin(UUID idUsuario, UUID idEspacioTrabajo) {
+        return rol(idUsuario, idEspacioTrabajo) == RolEspacio.ADMIN;
+    }
+
+    /**
+     * Agrega una membresía al índice del usuario (espacio creado o invitación aceptada).
+     *
+     * @param idUsuario ID del usuario
+     * @param idEspacioTrabajo ID del espacio de trabajo
+     * @param rol Rol del usuario en el espacio
+     */
+    @Override
+    public void registrarMembresia(UUID idUsuario, UUID idEspacioTrabajo, RolEspacio rol) {
+        if (idUsuario == null || idEspacioTrabajo == null) {
+            return;
+        }
+        despuesDelCommit(() -> {
+            membresias.asMap().computeIfPresent(idUsuario, (id, actuales) -> {
+                Map<UUID, RolEspacio> nuevas = new HashMap<>(actuales);
+                nuevas.put(idEspacioTrabajo, rol);
+                return Map.copyOf(nuevas);
+            });
+            logger.debug("Membresía registrada en índice: usuario {} → espacio {} ({})", idUsuario, idEspacioTrabajo, rol);
+        });
+    }
+
+    /**
+     * Descarta el índice de un usuario para que se vuelva a cargar desde la base.
+     *
+     * @param idUsuario ID del usuario
+     */
+    @Override
+    public void invalidar(UUID idUsuario) {
+        if (idUsuario == null) {
+            return;
+        }
+        despuesDelCommit(() -> membresias.invalidate(idUsuario));
+    }
+
+    /**
+     * Rol del usuario en el espacio, o null si no participa. Un resultado negativo nunca
+     * sale de la caché: sin el espacio en el índice, la base decide y el índice se reemplaza.
+     */
+    private RolEspacio rol(UUID idUsuario, UUID idEspacioTrabajo) {
+        Map<UUID, RolEspacio> actuales = membresias.getIfPresent(idUsuario);
+        if (actuales != null && actuales.containsKey(idEspacioTrabajo)) {
+            return actuales.get(idEspacioTrabajo);
+        }
+        Map<UUID, RolEspacio> cargadas = cargar(idUsuario);
+        membresias.put(idUsuario, cargadas);
+        return cargadas.get(idEspacioTrabajo);
+    }
+
+    private Map<UUID, RolEspacio> cargar(UUID idUsuario) {
+        Map<UUID, RolEspacio> roles = new HashMap<>();
+        for (MembresiaEspacioDTO membresia : espacioTrabajoRepository.buscarMembresias(idUsuario)) {
+            roles.put(membresia.idEspacioTrabajo(),
+                    idUsuario.equals(membresia.idUsuarioAdmin()) ? RolEspacio.ADMIN : RolEspacio.MIEMBRO);
+        }
+        logger.debug("Índice de membresías cargado para usuario {}: {} espacios", idUsuario, roles.size());
+        return Map.copyOf(roles);
+    }
+
+    private static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.campito.backend.service;
 
 import com.campito.backend.dto.NotificacionDTOResponse;
+import com.campito.backend.dto.NotificacionPaginaDTOResponse;
 import com.campito.backend.model.TipoNotificacion;
 
 import java.util.List;
@@ -22,6 +23,17 @@ public interface NotificacionService {
      */
     List<NotificacionDTOResponse> obtenerNotificacionesUsuario(UUID idUsuario);
     
+    /**
+     * Obtiene una página de la bandeja de un usuario con paginación por cursor.
+     * 
+     * @param idUsuario ID del usuario
+     * @param cursor Cursor devuelto por la página anterior (null para la primera)
+     * @param size Tamaño de página (1 a 100)
+     * @param soloNoLeidas Si es true, solo devuelve notificaciones no leídas
+     * @return Página de notificaciones y cursor de la siguiente
+     */
+    NotificacionPaginaDTOResponse obtenerBandeja(UUID idUsuario, String cursor, Integer size, Boolean soloNoLeidas);
+    
     /**
      * Cuenta las notificaciones no leídas de un usuario.
      * 
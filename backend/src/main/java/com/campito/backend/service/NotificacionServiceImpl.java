@@ -2,8 +2,8 @@ package com.campito.backend.service;
 
 import com.campito.backend.dao.NotificacionRepository;
 import com.campito.backend.dto.NotificacionDTOResponse;
+import com.campito.backend.dto.NotificacionPaginaDTOResponse;
 import com.campito.backend.event.NotificacionEvent;
-import com.campito.backend.mapper.NotificacionMapper;
 import com.campito.backend.model.Notificacion;
 import com.campito.backend.model.TipoNotificacion;
 
@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +20,10 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import com.campito.backend.config.MetricsConfig;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,8 +39,23 @@ public class NotificacionServiceImpl implements NotificacionService {
     
     private static final Logger logger = LoggerFactory.getLogger(NotificacionServiceImpl.class);
     
+    private static final int LIMITE_LISTADO = 50;
+    private static final int TAMANIO_PAGINA_DEFECTO = 20;
+    private static final int TAMANIO_PAGINA_MAXIMO = 100;
+    // Cursor inicial: posterior a cualquier notificación existente
+    private static final LocalDateTime FECHA_CURSOR_INICIAL = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    // Un cursor fuera de este rango no salió de una página: la base lo rechazaría con un error
+    private static final LocalDateTime FECHA_CURSOR_MINIMA = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    /**
+     * Posición de la paginación: fecha de creación e id del último elemento entregado.
+     * El id desempata notificaciones creadas en el mismo instante.
+     */
+    private record Cursor(LocalDateTime fecha, long id) {
+    }
+    
     private final NotificacionRepository notificacionRepository;
-    private final NotificacionMapper notificacionMapper;
+    private final ContadorNoLeidasService contadorNoLeidasService;
     private final ApplicationEventPublisher eventPublisher;
     private final MeterRegistry meterRegistry;  // Para métricas de Prometheus/Grafana
     
@@ -50,9 +69,74 @@ public class NotificacionServiceImpl implements NotificacionService {
     @Transactional(readOnly = true)
     public List<NotificacionDTOResponse> obtenerNotificacionesUsuario(UUID idUsuario) {
         logger.info("Obteniendo notificaciones para usuario: {}", idUsuario);
-        List<Notificacion> notificaciones = notificacionRepository
-                .findTop50ByUsuarioIdOrderByFechaCreacionDesc(idUsuario);
-        return notificacionMapper.toResponseList(notificaciones);
+        // Proyección directa al DTO: no se materializan entidades
+        return notificacionRepository.buscarBandeja(
+                idUsuario, FECHA_CURSOR_INICIAL, Long.MAX_VALUE, Limit.of(LIMITE_LISTADO));
+    }
+    
+    /**
+     * Obtiene una página de la bandeja con paginación por cursor sobre (fechaCreacion, id).
+     * Se pide un elemento extra para saber si existe una página siguiente sin contar.
+     * 
+     * @param idUsuario ID del usuario
+     * @param cursor Cursor devuelto por la página anterior (null para la primera)
+     * @param size Tamaño de página (1 a 100, por defecto 20)
+     * @param soloNoLeidas Si es true, solo devuelve notificaciones no leídas
+     * @return Página de notificaciones y cursor de la siguiente
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public NotificacionPaginaDTOResponse obtenerBandeja(UUID idUsuario, String cursor, Integer size, Boolean soloNoLeidas) {
+        int tamanio = size == null ? TAMANIO_PAGINA_DEFECTO : size;
+        if (tamanio < 1 || tamanio > TAMANIO_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMANIO_PAGINA_MAXIMO);
+        }
+
+        Cursor desde = cursor == null || cursor.isBlank()
+                ? new Cursor(FECHA_CURSOR_INICIAL, Long.MAX_VALUE)
+                : decodificarCursor(cursor);
+
+        Limit limite = Limit.of(tamanio + 1);
+        List<NotificacionDTOResponse> filas = Boolean.TRUE.equals(soloNoLeidas)
+                ? notificacionRepository.buscarBandejaNoLeidas(idUsuario, desde.fecha(), desde.id(), limite)
+                : notificacionRepository.buscarBandeja(idUsuario, desde.fecha(), desde.id(), limite);
+
+        boolean hasNext = filas.size() > tamanio;
+        List<NotificacionDTOResponse> pagina = hasNext ? filas.subList(0, tamanio) : filas;
+        String siguienteCursor = null;
+        if (hasNext) {
+            NotificacionDTOResponse ultima = pagina.get(pagina.size() - 1);
+            siguienteCursor = codificarCursor(ultima.fechaCreacion(), ultima.id());
+        }
+        return new NotificacionPaginaDTOResponse(pagina, siguienteCursor, hasNext);
+    }
+    
+    private static String codificarCursor(LocalDateTime fecha, Long id) {
+        String valor = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @throws IllegalArgumentException (400) si el cursor está mal formado o fue alterado
+     */
+    private static Cursor decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", -1);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            LocalDateTime fecha = LocalDateTime.parse(partes[0]);
+            long id = Long.parseLong(partes[1]);
+            if (fecha.isBefore(FECHA_CURSOR_MINIMA) || fecha.isAfter(FECHA_CURSOR_INICIAL) || id < 0) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            return new Cursor(fecha, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.warn("Cursor de paginación inválido: {}", cursor);
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
     }
     
     /**
@@ -62,10 +146,10 @@ public class NotificacionServiceImpl implements NotificacionService {
      * @return Cantidad de notificaciones no leídas
      */
     @Override
-    @Transactional(readOnly = true)
     public Long contarNoLeidas(UUID idUsuario) {
-        logger.info("Contando notificaciones no leídas para usuario: {}", idUsuario);
-        return notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario);
+        // Sin @Transactional: en caso de hit en caché no se toma conexión del pool
+        logger.debug("Contando notificaciones no leídas para usuario: {}", idUsuario);
+        return contadorNoLeidasService.obtener(idUsuario);
     }
     
     /**
@@ -90,6 +174,7 @@ public class NotificacionServiceImpl implements NotificacionService {
             notificacion.setLeida(true);
             notificacion.setFechaLeida(LocalDateTime.now());
             notificacionRepository.save(notificacion);
+            contadorNoLeidasService.registrarCambio(notificacion.getUsuario().getId());
             logger.info("Notificación {} marcada como leída", idNotificacion);
             
             // 📊 MÉTRICA: Incrementar contador de notificaciones leídas
@@ -114,6 +199,7 @@ public class NotificacionServiceImpl implements NotificacionService {
                 .marcarTodasComoLeidas(idUsuario, LocalDateTime.now());
         logger.info("Marcadas {} notificaciones como leídas para usuario {}", 
                    actualizadas, idUsuario);
+        contadorNoLeidasService.registrarCambio(idUsuario);
     }
     
     /**
@@ -135,6 +221,9 @@ public class NotificacionServiceImpl implements NotificacionService {
                 });
         
         notificacionRepository.delete(notificacion);
+        if (!notificacion.getLeida()) {
+            contadorNoLeidasService.registrarCambio(notificacion.getUsuario().getId());
+        }
         logger.info("Notificación {} eliminada exitosamente", idNotificacion);
     }
     
@@ -164,6 +253,8 @@ public class NotificacionServiceImpl implements NotificacionService {
         LocalDateTime fechaLimite = LocalDateTime.now().minusDays(15);
         int eliminadas = notificacionRepository.eliminarNotificacionesNoLeidasAntiguas(fechaLimite);
         logger.info("Eliminadas {} notificaciones no leídas antiguas (>15 días)", eliminadas);
+        // Se eliminaron no leídas en bloque: los contadores en caché quedan desfasados
+        contadorNoLeidasService.reconciliar();
     }
     
     /**
@@ -18,15 +18,7 @@ import com.campito.backend.dao.TarjetaRepository;
 import com.campito.backend.dao.TransaccionRepository;
 import com.campito.backend.exception.ForbiddenException;
 import com.campito.backend.exception.UnauthorizedException;
-import com.campito.backend.model.CompraCredito;
-import com.campito.backend.model.CuentaBancaria;
 import com.campito.backend.model.CustomOAuth2User;
-import com.campito.backend.model.Descuento;
-import com.campito.backend.model.EspacioTrabajo;
-import com.campito.backend.model.Notificacion;
-import com.campito.backend.model.SolicitudPendienteEspacioTrabajo;
-import com.campito.backend.model.Tarjeta;
-import com.campito.backend.model.Transaccion;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -51,6 +43,7 @@ public class SecurityServiceImpl implements SecurityService {
     private final NotificacionRepository notificacionRepository;
     private final SolicitudPendienteEspacioTrabajoRepository solicitudPendienteRepository;
     private final DescuentoRepository descuentoRepository;
+    private final MembresiaEspacioService membresiaEspacioService;
 
     /**
      * Obtiene el ID del usuario actualmente autenticado desde el contexto de seguridad de Spring.
@@ -100,8 +93,8 @@ public class SecurityServiceImpl implements SecurityService {
         
         UUID userId = getAuthenticatedUserId();
         
-        boolean hasAccess = espacioTrabajoRepository
-            .existsByIdAndUsuariosParticipantes_Id(workspaceId, userId);
+        // Respondido desde el índice de membresías en memoria
+        boolean hasAccess = membresiaEspacioService.esMiembro(userId, workspaceId);
         
         if (!hasAccess) {
             logger.warn("Usuario {} intenta acceder al espacio de trabajo {} sin permisos", userId, workspaceId);
@@ -128,13 +121,12 @@ public class SecurityServiceImpl implements SecurityService {
         
         UUID userId = getAuthenticatedUserId();
         
-        EspacioTrabajo workspace = espacioTrabajoRepository.findById(workspaceId)
-            .orElseThrow(() -> {
+        if (!membresiaEspacioService.esAdmin(userId, workspaceId)) {
+            // Solo ante una denegación se consulta la base, para distinguir un espacio inexistente
+            if (!espacioTrabajoRepository.existsById(workspaceId)) {
                 logger.warn("Espacio de trabajo {} no encontrado", workspaceId);
-                return new EntityNotFoundException("Espacio de trabajo no encontrado");
-            });
-        
-        if (!workspace.getUsuarioAdmin().getId().equals(userId)) {
+                throw new EntityNotFoundException("Espacio de trabajo no encontrado");
+            }
             logger.warn("Usuario {} intenta realizar acción de admin en espacio {} sin ser administrador", 
                 userId, workspaceId);
             throw new ForbiddenException("Solo el administrador del espacio de trabajo puede realizar esta acción");
@@ -159,13 +151,12 @@ public class SecurityServiceImpl implements SecurityService {
             throw new IllegalArgumentException("El ID de la transacción no puede ser nulo");
         }
         
-        Transaccion transaccion = transaccionRepository.findById(transactionId)
+        // Solo el id del espacio: la entidad completa la carga después el servicio
+        UUID workspaceId = transaccionRepository.findIdEspacioTrabajoById(transactionId)
             .orElseThrow(() -> {
                 logger.warn("Transacción {} no encontrada", transactionId);
                 return new EntityNotFoundException("Transacción no encontrada");
             });
-        
-        UUID workspaceId = transaccion.getEspacioTrabajo().getId();
         validateWorkspaceAccess(workspaceId);
         
         logger.debug("Ownership validado: Usuario tiene acceso a transacción {}", transactionId);
@@ -187,13 +178,11 @@ public class SecurityServiceImpl implements SecurityService {
             throw new IllegalArgumentException("El ID de la compra a crédito no puede ser nulo");
         }
         
-        CompraCredito compra = compraCreditoRepository.findById(compraCreditoId)
+        UUID workspaceId = compraCreditoRepository.findIdEspacioTrabajoById(compraCreditoId)
             .orElseThrow(() -> {
                 logger.warn("Compra a crédito {} no encontrada", compraCreditoId);
                 return new EntityNotFoundException("Compra a crédito no encontrada");
             });
-        
-        UUID workspaceId = compra.getEspacioTrabajo().getId();
         validateWorkspaceAccess(workspaceId);
         
         logger.debug("Ownership validado: Usuario tiene acceso a compra a crédito {}", compraCreditoId);
@@ -215,13 +204,11 @@ public class SecurityServiceImpl implements SecurityService {
             throw new IllegalArgumentException("El ID de la cuenta bancaria no puede ser nulo");
         }
         
-        CuentaBancaria cuenta = cuentaBancariaRepository.findById(cuentaBancariaId)
+        UUID workspaceId = cuentaBancariaRepository.findIdEspacioTrabajoById(cuentaBancariaId)
             .orElseThrow(() -> {
                 logger.warn("Cuenta bancaria {} no encontrada", cuentaBancariaId);
                 return new EntityNotFoundException("Cuenta bancaria no encontrada");
             });
-        
-        UUID workspaceId = cuenta.getEspacioTrabajo().getId();
         validateWorkspaceAccess(workspaceId);
         
         logger.debug("Ownership validado: Usuario tiene acceso a cuenta bancaria {}", cuentaBancariaId);
@@ -243,13 +230,11 @@ public class SecurityServiceImpl implements SecurityService {
             throw new IllegalArgumentException("El ID de la tarjeta no puede ser nulo");
         }
         
-        Tarjeta tarjeta = tarjetaRepository.findById(tarjetaId)
+        UUID workspaceId = tarjetaRepository.findIdEspacioTrabajoById(tarjetaId)
             .orElseThrow(() -> {
                 logger.warn("Tarjeta {} no encontrada", tarjetaId);
                 return new EntityNotFoundException("Tarjeta no encontrada");
             });
-        
-        UUID workspaceId = tarjeta.getEspacioTrabajo().getId();
         validateWorkspaceAccess(workspaceId);
         
         logger.debug("Ownership validado: Usuario tiene acceso a tarjeta {}", tarjetaId);
@@ -273,13 +258,13 @@ public class SecurityServiceImpl implements SecurityService {
         
         UUID userId = getAuthenticatedUserId();
         
-        Notificacion notificacion = notificacionRepository.findById(notificacionId)
+        UUID idDestinatario = notificacionRepository.findIdUsuarioById(notificacionId)
             .orElseThrow(() -> {
                 logger.warn("Notificación {} no encontrada", notificacionId);
                 return new EntityNotFoundException("Notificación no encontrada");
             });
         
-        if (!notificacion.getUsuario().getId().equals(userId)) {
+        if (!idDestinatario.equals(userId)) {
             logger.warn("Usuario {} intenta acceder a notificación {} que no le pertenece", 
                 userId, notificacionId);
             throw new ForbiddenException("No tienes acceso a esta notificación");
@@ -297,13 +282,13 @@ public class SecurityServiceImpl implements SecurityService {
 
         UUID userId = getAuthenticatedUserId();
 
-        SolicitudPendienteEspacioTrabajo solicitud = solicitudPendienteRepository.findById(idSolicitud)
+        UUID idInvitado = solicitudPendienteRepository.findIdUsuarioInvitadoById(idSolicitud)
             .orElseThrow(() -> {
                 logger.warn("Solicitud pendiente {} no encontrada", idSolicitud);
                 return new EntityNotFoundException("Solicitud pendiente no encontrada");
             });
         
-        if (!solicitud.getUsuarioInvitado().getId().equals(userId)) {
+        if (!idInvitado.equals(userId)) {
             logger.warn("Usuario {} intenta acceder a solicitud pendiente {} que no le pertenece", 
                 userId, idSolicitud);
             throw new ForbiddenException("No tienes acceso a esta solicitud pendiente");
@@ -321,14 +306,13 @@ public class SecurityServiceImpl implements SecurityService {
 
         UUID userId = getAuthenticatedUserId();
 
-        Descuento descuento = descuentoRepository.findById(idDescuento)
+        UUID workspaceId = descuentoRepository.findIdEspacioTrabajoById(idDescuento)
             .orElseThrow(() -> {
                 logger.warn("Descuento {} no encontrado", idDescuento);
                 return new EntityNotFoundException("Descuento no encontrado");
             });
 
-        if (!descuento.getEspacioTrabajo().getUsuariosParticipantes().stream()
-                .anyMatch(u -> u.getId().equals(userId))) {
+        if (!membresiaEspacioService.esMiembro(userId, workspaceId)) {
             logger.warn("Usuario {} intenta acceder a descuento {} que no le pertenece", 
                 userId, idDescuento);
             throw new ForbiddenException("No tienes acceso a este descuento");
@@ -353,8 +337,7 @@ public class SecurityServiceImpl implements SecurityService {
         
         try {
             UUID userId = getAuthenticatedUserId();
-            boolean hasAccess = espacioTrabajoRepository
-                .existsByIdAndUsuariosParticipantes_Id(workspaceId, userId);
+            boolean hasAccess = membresiaEspacioService.esMiembro(userId, workspaceId);
             
             logger.debug("Verificación de acceso: Usuario {} {} acceso al espacio {}", 
                 userId, hasAccess ? "tiene" : "no tiene", workspaceId);
@@ -383,15 +366,7 @@ public class SecurityServiceImpl implements SecurityService {
         try {
             UUID userId = getAuthenticatedUserId();
             
-            EspacioTrabajo workspace = espacioTrabajoRepository.findById(workspaceId)
-                .orElse(null);
-            
-            if (workspace == null) {
-                logger.debug("Espacio de trabajo {} no encontrado al verificar admin", workspaceId);
-                return false;
-            }
-            
-            boolean isAdmin = workspace.getUsuarioAdmin().getId().equals(userId);
+            boolean isAdmin = membresiaEspacioService.esAdmin(userId, workspaceId);
             
             logger.debug("Verificación de admin: Usuario {} {} admin del espacio {}", 
                 userId, isAdmin ? "es" : "no es", workspaceId);
@@ -7,7 +7,9 @@ import java.util.UUID;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface SseEmitterService {
-    public SseEmitter crearEmitter(UUID idUsuario);
+    public SseEmitter crearEmitter(UUID idUsuario, Long ultimaSecuenciaRecibida);
     public void enviarNotificacion(UUID idUsuario, Notificacion notificacion);
+    public void enviarContadorNoLeidas(UUID idUsuario, long cantidad);
+    public boolean tieneConexiones(UUID idUsuario);
     public int getActiveConnections();
 }
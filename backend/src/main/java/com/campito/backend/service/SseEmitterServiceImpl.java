@@ -1,130 +1,622 @@
 package com.campito.backend.service;
 
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionRepository;
 import com.campito.backend.dto.NotificacionDTOResponse;
 import com.campito.backend.mapper.NotificacionMapper;
 import com.campito.backend.model.Notificacion;
-import lombok.RequiredArgsConstructor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Servicio para gestionar conexiones Server-Sent Events (SSE).
- * 
+ *
  * Permite enviar notificaciones en tiempo real a los usuarios conectados
  * mediante una conexión HTTP persistente unidireccional (servidor → cliente).
- * 
+ *
  * Ventajas de SSE sobre WebSocket:
  * - Más simple de implementar (HTTP estándar)
  * - Reconexión automática del navegador
  * - Menor consumo de recursos
  * - Suficiente para notificaciones (no necesitamos bidireccionalidad)
+ *
+ * Modelo de envío:
+ * - Un usuario puede tener varias conexiones (pestañas, celular), hasta
+ *   {@code sse.max-conexiones-por-usuario}; al superar el límite se cierra la más antigua.
+ * - Cada conexión tiene una cola acotada que drena su propio virtual thread, así un
+ *   cliente lento nunca frena al thread que publica ni a las demás conexiones.
+ * - Si la cola de una conexión se llena, el cliente se considera trabado y se cierra
+ *   la conexión (el navegador reconecta solo).
+ * - Un heartbeat periódico detecta conexiones muertas antes de que venza el timeout.
+ *
+ * Reenvío en reconexiones:
+ * - Cada notificación se envía con su secuencia por usuario como id de evento SSE. No se usa
+ *   el id de la notificación: se reserva en bloques por nodo y no sigue el orden de creación.
+ *   La secuencia crece en orden de commit: si existe la N, todas las anteriores ya están en la base.
+ * - Se guardan los últimos {@code sse.replay.eventos-por-usuario} eventos de cada usuario
+ *   en un buffer ordenado por secuencia (caché Caffeine acotada con TTL).
+ * - Al reconectar con {@code Last-Event-ID} se reenvían solo los eventos posteriores. Si el
+ *   buffer no los tiene todos (se recortó, o falta una secuencia que todavía no llegó desde
+ *   otro nodo), se consultan en la base de datos por rango de secuencia.
+ * - El agregado al buffer y el encolado en las conexiones ocurren bajo el lock del buffer del
+ *   usuario, así el reenvío y los eventos en vivo no se intercalan fuera de orden.
+ *
+ * Orden entre nodos:
+ * - Cada conexión envía las secuencias en orden estricto y recuerda la última enviada (el
+ *   Last-Event-ID del cliente). Con varios nodos los eventos en vivo pueden llegar desordenados:
+ *   la notificación local se entrega al confirmar y la de otro nodo cuando llega su señal.
+ * - Si llega una secuencia posterior a un hueco, el thread de la conexión completa el hueco
+ *   desde la base antes de enviarla (todas las anteriores ya están confirmadas). Las que
+ *   llegan tarde, ya enviadas, se descartan. Así el Last-Event-ID nunca pasa por encima de
+ *   una notificación que el cliente no recibió.
+ * - Una conexión sin Last-Event-ID arranca desde la última secuencia confirmada del usuario.
+ * - Las consultas para completar huecos se limitan a {@code sse.huecos.max-concurrentes} en todo
+ *   el nodo (tras una reconexión del LISTEN pueden tener hueco todas las conexiones a la vez y
+ *   agotar el pool). Si no hay permiso en {@code sse.huecos.espera-ms}, se cierra la conexión
+ *   y el cliente reconecta con su Last-Event-ID.
  */
 @Service
-@RequiredArgsConstructor
 public class SseEmitterServiceImpl implements SseEmitterService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(SseEmitterService.class);
     private static final Long TIMEOUT = 60 * 60 * 1000L; // 1 hora
-    
+
     /**
-     * Mapa concurrente para almacenar las conexiones SSE activas por usuario.
+     * Conexiones SSE activas por usuario (una entrada por pestaña/dispositivo).
      */
-    private final Map<UUID, SseEmitter> emitters = new ConcurrentHashMap<>();
-    
+    private final Map<UUID, Set<ConexionSse>> conexiones = new ConcurrentHashMap<>();
+    private final AtomicLong secuenciaConexiones = new AtomicLong();
+    private final AtomicInteger totalConexiones = new AtomicInteger();
+
+    /**
+     * Últimos eventos enviados a cada usuario, para reenviar tras una reconexión.
+     */
+    private final Cache<UUID, BufferReenvio> buffersReenvio;
+
     private final NotificacionMapper notificacionMapper;
+    private final NotificacionRepository notificacionRepository;
     private final AtomicInteger sseConexionesActivasGauge;  // Gauge inyectado desde MetricsConfig
-    
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary profundidadCola;
+
+    private final int capacidadCola;
+    private final int maxConexionesPorUsuario;
+    private final int eventosPorUsuario;
+
     /**
-     * Crea un nuevo emitter SSE para un usuario.
-     * 
+     * Permisos para consultar la base al completar un hueco, compartidos por todas las conexiones.
+     */
+    private final Semaphore permisosHueco;
+    private final long esperaHuecoMs;
+
+    public SseEmitterServiceImpl(NotificacionMapper notificacionMapper,
+                                 NotificacionRepository notificacionRepository,
+                                 AtomicInteger sseConexionesActivasGauge,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${sse.cola-por-conexion:64}") int capacidadCola,
+                                 @Value("${sse.max-conexiones-por-usuario:5}") int maxConexionesPorUsuario,
+                                 @Value("${sse.replay.eventos-por-usuario:50}") int eventosPorUsuario,
+                                 @Value("${sse.replay.max-usuarios:10000}") long maxUsuariosReenvio,
+                                 @Value("${sse.replay.ttl-minutos:60}") long ttlReenvioMinutos,
+                                 @Value("${sse.huecos.max-concurrentes:2}") int maxHuecosConcurrentes,
+                                 @Value("${sse.huecos.espera-ms:500}") long esperaHuecoMs) {
+        this.notificacionMapper = notificacionMapper;
+        this.notificacionRepository = notificacionRepository;
+        this.sseConexionesActivasGauge = sseConexionesActivasGauge;
+        this.meterRegistry = meterRegistry;
+        this.capacidadCola = capacidadCola;
+        this.maxConexionesPorUsuario = maxConexionesPorUsuario;
+        this.eventosPorUsuario = eventosPorUsuario;
+        this.permisosHueco = new Semaphore(maxHuecosConcurrentes);
+        this.esperaHuecoMs = esperaHuecoMs;
+        this.buffersReenvio = Caffeine.newBuilder()
+                .maximumSize(maxUsuariosReenvio)
+                .expireAfterAccess(Duration.ofMinutes(ttlReenvioMinutos))
+                .build();
+
+        // 📊 MÉTRICA: Profundidad de la cola de cada conexión al encolar y total de eventos en cola
+        this.profundidadCola = DistributionSummary.builder(MetricsConfig.MetricNames.SSE_COLA_PROFUNDIDAD)
+                .description("Eventos en la cola de la conexión SSE al momento de encolar")
+                .register(meterRegistry);
+        meterRegistry.gauge(MetricsConfig.MetricNames.SSE_COLA_PENDIENTES, conexiones,
+                mapa -> mapa.values().stream()
+                        .flatMap(Set::stream)
+                        .mapToInt(conexion -> conexion.cola.size())
+                        .sum());
+        meterRegistry.gauge(MetricsConfig.MetricNames.SSE_REENVIO_USUARIOS, buffersReenvio, Cache::estimatedSize);
+    }
+
+    /**
+     * Crea un nuevo emitter SSE para un usuario. Las conexiones previas del
+     * mismo usuario se mantienen abiertas.
+     *
      * @param idUsuario ID del usuario
+     * @param ultimaSecuenciaRecibida Último id de evento (secuencia) que recibió el cliente (null en la primera conexión)
      * @return Emitter configurado con timeout y handlers
      */
     @Override
-    public SseEmitter crearEmitter(UUID idUsuario) {
+    public SseEmitter crearEmitter(UUID idUsuario, Long ultimaSecuenciaRecibida) {
+        // Posición del cliente: lo que informó o, en una conexión nueva, lo ya confirmado
+        long desdeSecuencia = ultimaSecuenciaRecibida != null
+                ? ultimaSecuenciaRecibida
+                : Objects.requireNonNullElse(notificacionRepository.findUltimaSecuencia(idUsuario), 0L);
         SseEmitter emitter = new SseEmitter(TIMEOUT);
-        
+        ConexionSse conexion = new ConexionSse(secuenciaConexiones.incrementAndGet(), idUsuario, emitter,
+                capacidadCola, desdeSecuencia);
+
         // Handler de finalización normal
         emitter.onCompletion(() -> {
-            logger.info("SSE completado para usuario: {}", idUsuario);
-            emitters.remove(idUsuario);
-            sseConexionesActivasGauge.set(emitters.size());  // 📊 MÉTRICA: Actualizar gauge
+            logger.info("SSE completado para usuario: {} (conexión {})", idUsuario, conexion.id);
+            eliminarConexion(conexion);
         });
-        
+
         // Handler de timeout
         emitter.onTimeout(() -> {
-            logger.info("SSE timeout para usuario: {}", idUsuario);
-            emitters.remove(idUsuario);
-            sseConexionesActivasGauge.set(emitters.size());  // 📊 MÉTRICA: Actualizar gauge
+            logger.info("SSE timeout para usuario: {} (conexión {})", idUsuario, conexion.id);
+            eliminarConexion(conexion);
         });
-        
+
         // Handler de error
         emitter.onError((e) -> {
-            logger.error("Error en SSE para usuario {}: {}", idUsuario, e.getMessage());
-            emitters.remove(idUsuario);
-            sseConexionesActivasGauge.set(emitters.size());  // 📊 MÉTRICA: Actualizar gauge
+            logger.error("Error en SSE para usuario {} (conexión {}): {}", idUsuario, conexion.id, e.getMessage());
+            eliminarConexion(conexion);
         });
-        
-        emitters.put(idUsuario, emitter);
-        sseConexionesActivasGauge.set(emitters.size());  // 📊 MÉTRICA: Actualizar gauge
-        logger.info("SSE emitter creado para usuario: {}", idUsuario);
-        
-        // Enviar evento inicial de confirmación de conexión
-        try {
-            emitter.send(SseEmitter.event()
+
+        BufferReenvio buffer = bufferDe(idUsuario);
+
+        // Si hace falta ir a la base, se consulta antes de tomar el lock del buffer
+        List<Notificacion> desdeBase = null;
+        if (ultimaSecuenciaRecibida != null && !buffer.cubre(ultimaSecuenciaRecibida)) {
+            desdeBase = notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(
+                    idUsuario, ultimaSecuenciaRecibida);
+        }
+
+        Set<ConexionSse> delUsuario;
+        synchronized (buffer) {
+            delUsuario = conexiones.computeIfAbsent(idUsuario, id -> ConcurrentHashMap.newKeySet());
+            delUsuario.add(conexion);
+            sseConexionesActivasGauge.set(totalConexiones.incrementAndGet());  // 📊 MÉTRICA: Actualizar gauge
+
+            // Enviar evento inicial de confirmación de conexión
+            encolar(conexion, null, SseEmitter.event()
                     .name("connected")
                     .data("Conexión SSE establecida exitosamente"));
-            logger.info("Evento 'connected' enviado a usuario: {}", idUsuario);
-        } catch (IOException e) {
-            logger.error("Error al enviar evento 'connected' a usuario {}: {}", idUsuario, e.getMessage());
-            emitters.remove(idUsuario);
-            throw new RuntimeException("Error al establecer conexión SSE", e);
+
+            if (ultimaSecuenciaRecibida != null) {
+                reenviar(conexion, buffer, desdeBase, ultimaSecuenciaRecibida);
+            }
+        }
+
+        // Límite de conexiones por usuario: se cierra la más antigua
+        if (delUsuario.size() > maxConexionesPorUsuario) {
+            delUsuario.stream()
+                    .min(Comparator.comparingLong(c -> c.id))
+                    .ifPresent(masAntigua -> {
+                        logger.info("Usuario {} superó {} conexiones SSE, cerrando la conexión {}",
+                                idUsuario, maxConexionesPorUsuario, masAntigua.id);
+                        cerrar(masAntigua);
+                    });
         }
-        
+
+        conexion.iniciar();
+        logger.info("SSE emitter creado para usuario: {} (conexión {})", idUsuario, conexion.id);
+
         return emitter;
     }
-    
+
+    /**
+     * Encola en la conexión los eventos posteriores a {@code ultimaSecuenciaRecibida}.
+     * Se llama con el lock del buffer tomado.
+     */
+    private void reenviar(ConexionSse conexion, BufferReenvio buffer, List<Notificacion> desdeBase, long ultimaSecuenciaRecibida) {
+        long desde = ultimaSecuenciaRecibida;
+        int reenviados = 0;
+        if (desdeBase == null && !buffer.cubre(ultimaSecuenciaRecibida)) {
+            // El buffer se recortó mientras tanto: caso raro, se consulta bajo el lock
+            desdeBase = notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(
+                    conexion.idUsuario, ultimaSecuenciaRecibida);
+        }
+        if (desdeBase != null) {
+            for (Notificacion notificacion : desdeBase) {
+                encolar(conexion, notificacion.getSecuencia(),
+                        eventoNotificacion(notificacion.getSecuencia(), notificacionMapper.toResponse(notificacion)));
+                desde = Math.max(desde, notificacion.getSecuencia());
+                reenviados++;
+            }
+        }
+        for (EventoReenvio evento : buffer.posteriores(desde)) {
+            encolar(conexion, evento.secuencia(), eventoNotificacion(evento.secuencia(), evento.dto()));
+            reenviados++;
+        }
+
+        // 📊 MÉTRICA: Eventos reenviados por reconexión, según origen
+        registrarReenvio(desdeBase != null ? "base_datos" : "buffer", reenviados);
+        logger.info("Reconexión SSE del usuario {} desde el evento {}: {} eventos reenviados",
+                conexion.idUsuario, ultimaSecuenciaRecibida, reenviados);
+    }
+
     /**
-     * Envía una notificación a un usuario via SSE si está conectado.
-     * 
+     * Encola una notificación en todas las conexiones del usuario. No bloquea:
+     * el envío real lo hace el thread de cada conexión.
+     *
      * @param idUsuario ID del usuario destinatario
      * @param notificacion Notificación a enviar
      */
     @Override
     public void enviarNotificacion(UUID idUsuario, Notificacion notificacion) {
-        SseEmitter emitter = emitters.get(idUsuario);
-        
-        if (emitter != null) {
-            try {
-                NotificacionDTOResponse dto = notificacionMapper.toResponse(notificacion);
-                emitter.send(SseEmitter.event()
-                        .name("notification")
-                        .data(dto));
-                logger.info("Notificación enviada via SSE a usuario: {}", idUsuario);
-            } catch (IOException e) {
-                logger.error("Error al enviar notificación via SSE: {}", e.getMessage());
-                emitters.remove(idUsuario);
+        NotificacionDTOResponse dto = notificacionMapper.toResponse(notificacion);
+        BufferReenvio buffer = bufferDe(idUsuario);
+
+        synchronized (buffer) {
+            buffer.agregar(notificacion.getSecuencia(), dto);
+
+            Set<ConexionSse> delUsuario = conexiones.get(idUsuario);
+            if (delUsuario == null || delUsuario.isEmpty()) {
+                logger.debug("Usuario {} no tiene conexión SSE activa", idUsuario);
+                return;
             }
-        } else {
-            logger.debug("Usuario {} no tiene conexión SSE activa", idUsuario);
+            for (ConexionSse conexion : delUsuario) {
+                encolar(conexion, notificacion.getSecuencia(), eventoNotificacion(notificacion.getSecuencia(), dto));
+            }
+            logger.debug("Notificación encolada para {} conexiones SSE del usuario: {}", delUsuario.size(), idUsuario);
+        }
+    }
+
+    /**
+     * Envía el contador de no leídas a todas las conexiones del usuario.
+     * Es un evento sin id: no entra al buffer de reenvío (el próximo valor lo reemplaza).
+     *
+     * @param idUsuario ID del usuario
+     * @param cantidad Cantidad actual de notificaciones no leídas
+     */
+    @Override
+    public void enviarContadorNoLeidas(UUID idUsuario, long cantidad) {
+        Set<ConexionSse> delUsuario = conexiones.get(idUsuario);
+        if (delUsuario == null) {
+            return;
+        }
+        for (ConexionSse conexion : delUsuario) {
+            encolar(conexion, null, SseEmitter.event()
+                    .name("unread-count")
+                    .data(Map.of("count", cantidad)));
         }
     }
-    
+
+    private BufferReenvio bufferDe(UUID idUsuario) {
+        return buffersReenvio.get(idUsuario, id -> new BufferReenvio(eventosPorUsuario));
+    }
+
+    private static SseEmitter.SseEventBuilder eventoNotificacion(long secuencia, NotificacionDTOResponse dto) {
+        return SseEmitter.event()
+                .id(String.valueOf(secuencia))
+                .name("notification")
+                .data(dto);
+    }
+
+    /**
+     * Envía un comentario SSE a todas las conexiones. Mantiene vivas las conexiones
+     * detrás de proxies que cortan streams inactivos y detecta clientes desconectados
+     * (el envío falla y la conexión se elimina).
+     */
+    @Scheduled(fixedRateString = "${sse.heartbeat-ms:25000}", initialDelayString = "${sse.heartbeat-ms:25000}")
+    public void enviarHeartbeat() {
+        conexiones.values().forEach(delUsuario ->
+                delUsuario.forEach(conexion -> encolar(conexion, null, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * Indica si el usuario tiene al menos una conexión SSE abierta en este nodo.
+     *
+     * @param idUsuario ID del usuario
+     * @return true si hay conexiones locales
+     */
+    @Override
+    public boolean tieneConexiones(UUID idUsuario) {
+        Set<ConexionSse> delUsuario = conexiones.get(idUsuario);
+        return delUsuario != null && !delUsuario.isEmpty();
+    }
+
     /**
      * Obtiene la cantidad de conexiones SSE activas.
-     * 
-     * @return Cantidad de usuarios conectados via SSE
+     *
+     * @return Cantidad de conexiones abiertas (puede haber varias por usuario)
      */
     @Override
     public int getActiveConnections() {
-        return emitters.size();
+        return totalConexiones.get();
+    }
+
+    /**
+     * Cierra todas las conexiones al apagar la aplicación.
+     */
+    @PreDestroy
+    public void cerrarTodas() {
+        conexiones.values().forEach(delUsuario -> delUsuario.forEach(this::cerrar));
+    }
+
+    private void encolar(ConexionSse conexion, Long secuencia, SseEmitter.SseEventBuilder evento) {
+        if (!conexion.activa.get()) {
+            return;
+        }
+        profundidadCola.record(conexion.cola.size());
+        if (!conexion.cola.offer(new EventoEnCola(secuencia, evento))) {
+            // 📊 MÉTRICA: Cliente trabado, se descarta el evento y se cierra la conexión
+            registrarDescarte("cola_llena");
+            logger.warn("Cola SSE llena para usuario {} (conexión {}), cerrando conexión", conexion.idUsuario, conexion.id);
+            cerrar(conexion);
+        }
+    }
+
+    private void cerrar(ConexionSse conexion) {
+        eliminarConexion(conexion);
+        try {
+            conexion.emitter.complete();
+        } catch (Exception e) {
+            logger.debug("Error al completar emitter SSE {}: {}", conexion.id, e.getMessage());
+        }
+    }
+
+    private void eliminarConexion(ConexionSse conexion) {
+        if (!conexion.detener()) {
+            return;
+        }
+        conexiones.computeIfPresent(conexion.idUsuario, (id, delUsuario) -> {
+            delUsuario.remove(conexion);
+            return delUsuario.isEmpty() ? null : delUsuario;
+        });
+        sseConexionesActivasGauge.set(totalConexiones.decrementAndGet());  // 📊 MÉTRICA: Actualizar gauge
+        int descartados = conexion.cola.size();
+        if (descartados > 0) {
+            registrarDescarte("conexion_cerrada", descartados);
+        }
+    }
+
+    private void registrarReenvio(String origen, int cantidad) {
+        Counter.builder(MetricsConfig.MetricNames.SSE_EVENTOS_REENVIADOS)
+                .description("Eventos SSE reenviados a clientes que reconectaron con Last-Event-ID")
+                .tag("origen", origen)
+                .register(meterRegistry)
+                .increment(cantidad);
+    }
+
+    private void registrarDescarte(String motivo) {
+        registrarDescarte(motivo, 1);
+    }
+
+    private void registrarDescarte(String motivo, int cantidad) {
+        Counter.builder(MetricsConfig.MetricNames.SSE_EVENTOS_DESCARTADOS)
+                .description("Eventos SSE descartados sin enviar")
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment(cantidad);
+    }
+
+    /**
+     * Evento pendiente de envío. {@code secuencia} es null para eventos sin id
+     * (confirmación de conexión, heartbeat).
+     */
+    private record EventoEnCola(Long secuencia, SseEmitter.SseEventBuilder evento) {
+    }
+
+    /**
+     * Evento guardado en el buffer de reenvío.
+     */
+    private record EventoReenvio(long secuencia, NotificacionDTOResponse dto) {
+    }
+
+    /**
+     * Últimos eventos de un usuario ordenados por secuencia, acotados a {@code capacidad}
+     * (se descarta la menor). Los eventos llegados de distintos nodos pueden entrar
+     * desordenados, así que se insertan en su lugar.
+     * Se accede siempre con su propio lock tomado (ver {@code synchronized (buffer)}).
+     */
+    private static final class BufferReenvio {
+
+        private final int capacidad;
+        private final NavigableMap<Long, EventoReenvio> eventos = new TreeMap<>();
+
+        private BufferReenvio(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        private synchronized void agregar(long secuencia, NotificacionDTOResponse dto) {
+            eventos.put(secuencia, new EventoReenvio(secuencia, dto));
+            if (eventos.size() > capacidad) {
+                eventos.pollFirstEntry();
+            }
+        }
+
+        /**
+         * El buffer cubre al cliente si tiene todas las secuencias posteriores a la última que
+         * recibió, sin huecos: desde la siguiente (o una anterior) hasta la mayor conocida. Un
+         * hueco es una notificación ya confirmada que todavía no llegó a este nodo.
+         */
+        private synchronized boolean cubre(long ultimaSecuenciaRecibida) {
+            if (eventos.isEmpty() || eventos.firstKey() > ultimaSecuenciaRecibida + 1) {
+                return false;
+            }
+            long esperada = ultimaSecuenciaRecibida + 1;
+            for (long secuencia : eventos.tailMap(ultimaSecuenciaRecibida, false).keySet()) {
+                if (secuencia != esperada) {
+                    return false;
+                }
+                esperada++;
+            }
+            return true;
+        }
+
+        private synchronized List<EventoReenvio> posteriores(long secuencia) {
+            return List.copyOf(eventos.tailMap(secuencia, false).values());
+        }
+    }
+
+    /**
+     * Conexión SSE individual: emitter, cola acotada y virtual thread que la drena.
+     * El único que llama a {@code emitter.send} es ese thread, por lo que los envíos
+     * de una conexión nunca se solapan. Envía las secuencias en orden estricto: omite las ya
+     * enviadas (duplicados entre el reenvío y los eventos en vivo, o llegadas tarde desde otro
+     * nodo) y completa desde la base los huecos antes de enviar una posterior.
+     */
+    private final class ConexionSse {
+
+        private final long id;
+        private final UUID idUsuario;
+        private final SseEmitter emitter;
+        private final BlockingQueue<EventoEnCola> cola;
+        // Solo la usa el thread de la conexión
+        private long ultimaEnviada;
+        private final AtomicBoolean activa = new AtomicBoolean(true);
+        private volatile Thread sender;
+
+        private ConexionSse(long id, UUID idUsuario, SseEmitter emitter, int capacidad, long ultimaEnviada) {
+            this.id = id;
+            this.idUsuario = idUsuario;
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+            this.ultimaEnviada = ultimaEnviada;
+        }
+
+        private void iniciar() {
+            sender = Thread.ofVirtual().name("sse-" + id).start(this::drenar);
+        }
+
+        /**
+         * @return true si esta llamada fue la que desactivó la conexión
+         */
+        private boolean detener() {
+            if (!activa.compareAndSet(true, false)) {
+                return false;
+            }
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+            return true;
+        }
+
+        private void drenar() {
+            try {
+                while (activa.get()) {
+                    EventoEnCola evento = cola.take();
+                    if (evento.secuencia() != null) {
+                        long secuencia = evento.secuencia();
+                        if (secuencia <= ultimaEnviada) {
+                            registrarDescarte("duplicado");
+                            continue;
+                        }
+                        if (secuencia > ultimaEnviada + 1 && !completarHueco(secuencia)) {
+                            // 📊 MÉTRICA: Sin permiso para consultar la base, el cliente reconecta con su Last-Event-ID
+                            registrarDescarte("hueco_saturado");
+                            logger.info("Conexión SSE {} del usuario {} cerrada: demasiados huecos completándose a la vez",
+                                    id, idUsuario);
+                            cerrar(this);
+                            return;
+                        }
+                        ultimaEnviada = secuencia;
+                    }
+                    emitter.send(evento.evento());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                logger.info("Conexión SSE {} del usuario {} cerrada por el cliente: {}", id, idUsuario, e.getMessage());
+                eliminarConexion(this);
+            } catch (RuntimeException e) {
+                // No se pudo completar un hueco: el cliente reconecta con su Last-Event-ID
+                logger.warn("Conexión SSE {} del usuario {} cerrada al completar un hueco: {}", id, idUsuario, e.getMessage());
+                cerrar(this);
+            }
+        }
+
+        /**
+         * Envía desde la base las secuencias entre la última enviada y {@code hasta} (exclusive).
+         * Si ya no existen (el usuario las eliminó, limpieza programada) no hay nada que completar.
+         * El permiso se toma solo durante cada consulta, no mientras se envía al cliente.
+         *
+         * @return false si no se obtuvo permiso para consultar la base a tiempo
+         */
+        private boolean completarHueco(long hasta) throws IOException, InterruptedException {
+            int completados = 0;
+            boolean hayMas = true;
+            while (hayMas) {
+                List<Notificacion> faltantes = consultarFaltantes();
+                if (faltantes == null) {
+                    return false;
+                }
+                // Página completa: puede haber más antes de "hasta"
+                hayMas = faltantes.size() == 50;
+                for (Notificacion notificacion : faltantes) {
+                    if (notificacion.getSecuencia() >= hasta) {
+                        hayMas = false;
+                        break;
+                    }
+                    emitter.send(eventoNotificacion(notificacion.getSecuencia(),
+                            notificacionMapper.toResponse(notificacion)));
+                    ultimaEnviada = notificacion.getSecuencia();
+                    completados++;
+                }
+            }
+
+            // 📊 MÉTRICA: Eventos enviados desde la base para completar un hueco entre nodos
+            registrarReenvio("hueco", completados);
+            logger.debug("Conexión SSE {} del usuario {}: {} eventos completados antes de la secuencia {}",
+                    id, idUsuario, completados, hasta);
+            return true;
+        }
+
+        /**
+         * @return la siguiente página posterior a la última enviada, o null si no hubo permiso a tiempo
+         */
+        private List<Notificacion> consultarFaltantes() throws InterruptedException {
+            if (!permisosHueco.tryAcquire(esperaHuecoMs, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+            try {
+                return notificacionRepository
+                        .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, ultimaEnviada);
+            } finally {
+                permisosHueco.release();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
     }
 }
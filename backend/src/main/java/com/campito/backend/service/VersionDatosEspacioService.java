@@ -0,0 +1,18 @@
+package com.campito.backend.service;
+
+import java.util.UUID;
+
+/**
+ * Versión de los datos de cada espacio de trabajo: cambia con cada escritura que
+ * se confirma sobre el espacio (transacciones, compras, cuentas, tarjetas, etc.).
+ *
+ * Las cachés de resultados derivados incluyen la versión en su clave, de modo que
+ * cualquier modificación las invalida sin tener que conocer qué entradas afecta.
+ */
+public interface VersionDatosEspacioService {
+
+    public long versionActual(UUID idEspacioTrabajo);
+    public void registrarModificacion(UUID idEspacioTrabajo);
+    public void registrarModificacionRemota(UUID idEspacioTrabajo);
+    public void descartarVersiones();
+}
@@ -0,0 +1,130 @@
+package com.campito.backend.service;
+
+import com.campito.backend.event.EspaciosModificadosEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementación en memoria de las versiones por espacio de trabajo.
+ *
+ * - Las versiones salen de una secuencia global creciente: un espacio que se descarta
+ *   de la caché recibe al volver una versión nueva, nunca una ya usada, así que las
+ *   entradas derivadas de antes nunca se reutilizan.
+ * - Una modificación cambia la versión al registrarse y otra vez después del commit,
+ *   para que una lectura concurrente no deje en caché datos previos bajo la versión nueva.
+ * - Después del commit se publica un {@link EspaciosModificadosEvent} por transacción con
+ *   los espacios modificados. Con el broadcaster de PostgreSQL llega a los demás nodos, que
+ *   cambian su versión con {@link #registrarModificacionRemota(UUID)}.
+ * - La señal entre nodos llega milisegundos después del commit y se puede perder mientras
+ *   la conexión LISTEN de un nodo se reconecta; al reconectar el nodo descarta todas sus
+ *   versiones ({@link #descartarVersiones()}). El TTL de cada caché derivada queda como
+ *   último límite.
+ */
+@Service
+public class VersionDatosEspacioServiceImpl implements VersionDatosEspacioService {
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Cache<UUID, Long> versiones;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public VersionDatosEspacioServiceImpl(
+            ApplicationEventPublisher eventPublisher,
+            @Value("${espacios.version-datos.max-espacios:10000}") long maxEspacios,
+            @Value("${espacios.version-datos.inactividad-minutos:60}") long inactividadMinutos) {
+        this.eventPublisher = eventPublisher;
+        this.versiones = Caffeine.newBuilder()
+                .maximumSize(maxEspacios)
+                .expireAfterAccess(Duration.ofMinutes(inactividadMinutos))
+                .build();
+    }
+
+    /**
+     * Versión vigente de los datos del espacio de trabajo.
+     *
+     * @param idEspacioTrabajo ID del espacio de trabajo
+     * @return Versión actual (cambia con cada modificación confirmada)
+     */
+    @Override
+    public long versionActual(UUID idEspacioTrabajo) {
+        return versiones.get(idEspacioTrabajo, id -> secuencia.incrementAndGet());
+    }
+
+    /**
+     * Registra una escritura sobre el espacio de trabajo.
+     *
+     * @param idEspacioTrabajo ID del espacio de trabajo modificado
+     */
+    @Override
+    public void registrarModificacion(UUID idEspacioTrabajo) {
+        if (idEspacioTrabajo == null) {
+            return;
+        }
+        nuevaVersion(idEspacioTrabajo);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new EspaciosModificadosEvent(Set.of(idEspacioTrabajo)));
+            return;
+        }
+        // Un solo aviso por transacción, con todos los espacios que tocó
+        AvisoModificaciones aviso = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(AvisoModificaciones.class::isInstance)
+                .map(AvisoModificaciones.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    AvisoModificaciones nuevo = new AvisoModificaciones();
+                    TransactionSynchronizationManager.registerSynchronization(nuevo);
+                    return nuevo;
+                });
+        aviso.modificados.add(idEspacioTrabajo);
+    }
+
+    /**
+     * Registra una escritura confirmada en otro nodo.
+     *
+     * @param idEspacioTrabajo ID del espacio de trabajo modificado
+     */
+    @Override
+    public void registrarModificacionRemota(UUID idEspacioTrabajo) {
+        // Solo si este nodo lo conoce: uno que no está en caché recibe una versión nueva al volver
+        versiones.asMap().computeIfPresent(idEspacioTrabajo, (id, version) -> secuencia.incrementAndGet());
+    }
+
+    /**
+     * Descarta todas las versiones: cada espacio recibe una nueva en su próximo acceso.
+     * Se usa cuando este nodo pudo perder señales de modificación de otros nodos.
+     */
+    @Override
+    public void descartarVersiones() {
+        versiones.invalidateAll();
+    }
+
+    private void nuevaVersion(UUID idEspacioTrabajo) {
+        versiones.put(idEspacioTrabajo, secuencia.incrementAndGet());
+    }
+
+    /**
+     * Espacios modificados en la transacción en curso: después del commit cambia otra vez
+     * su versión local y publica un único {@link EspaciosModificadosEvent}.
+     */
+    private final class AvisoModificaciones implements TransactionSynchronization {
+
+        private final Set<UUID> modificados = new HashSet<>();
+
+        @Override
+        public void afterCommit() {
+            modificados.forEach(VersionDatosEspacioServiceImpl.this::nuevaVersion);
+            eventPublisher.publishEvent(new EspaciosModificadosEvent(Set.copyOf(modificados)));
+        }
+    }
+}
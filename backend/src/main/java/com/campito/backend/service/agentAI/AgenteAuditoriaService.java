@@ -0,0 +1,223 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.AgenteAuditLogRepository;
+import com.campito.backend.model.AgenteAuditLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffer write-behind de la auditoría del agente IA.
+ *
+ * {@link #registrar(AgenteAuditLog)} nunca bloquea ni toma una conexión: encola la fila en
+ * memoria y un worker la persiste junto con las demás en lotes de hasta
+ * {@code agente.auditoria.max-lote} filas (o lo acumulado durante {@code ventana-ms}),
+ * con un único {@code saveAll} por lote.
+ *
+ * Con el buffer lleno se aplica {@code agente.auditoria.politica-desborde}: descartar la
+ * fila nueva o la más antigua. Los descartes se cuentan; la auditoría no debe frenar ni
+ * hacer fallar la respuesta al usuario.
+ *
+ * Ciclo de vida: se detiene después del servidor web (ya no entran requests) y antes de
+ * que se cierre el DataSource; al detenerse drena el buffer por completo. Las filas que
+ * lleguen después se persisten de forma sincrónica.
+ */
+@Service
+@Slf4j
+public class AgenteAuditoriaService implements SmartLifecycle {
+
+    /**
+     * Qué fila se descarta cuando el buffer está lleno.
+     */
+    public enum PoliticaDesborde {
+        DESCARTAR_NUEVO,
+        DESCARTAR_ANTIGUO
+    }
+
+    private final AgenteAuditLogRepository auditLogRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<AgenteAuditLog> buffer;
+    private final int maxLote;
+    private final long ventanaMs;
+    private final PoliticaDesborde politicaDesborde;
+    private final DistributionSummary tamanioLote;
+
+    private volatile boolean running = false;
+    private volatile boolean cerrado = false;
+    private Thread worker;
+
+    public AgenteAuditoriaService(AgenteAuditLogRepository auditLogRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${agente.auditoria.capacidad:1000}") int capacidad,
+                                  @Value("${agente.auditoria.max-lote:50}") int maxLote,
+                                  @Value("${agente.auditoria.ventana-ms:500}") long ventanaMs,
+                                  @Value("${agente.auditoria.politica-desborde:DESCARTAR_NUEVO}") PoliticaDesborde politicaDesborde) {
+        this.auditLogRepository = auditLogRepository;
+        this.meterRegistry = meterRegistry;
+        this.buffer = new ArrayBlockingQueue<>(capacidad);
+        this.maxLote = maxLote;
+        this.ventanaMs = ventanaMs;
+        this.politicaDesborde = politicaDesborde;
+
+        // 📊 MÉTRICA: Tamaño de cada lote persistido y filas pendientes en el buffer
+        this.tamanioLote = DistributionSummary.builder(MetricsConfig.MetricNames.AGENTE_AUDITORIA_LOTE_TAMANIO)
+                .description("Cantidad de filas de auditoría del agente persistidas por lote")
+                .register(meterRegistry);
+        meterRegistry.gauge(MetricsConfig.MetricNames.AGENTE_AUDITORIA_PENDIENTES, buffer, BlockingQueue::size);
+    }
+
+    /**
+     * Encola una fila de auditoría sin bloquear. Si el buffer está lleno aplica la
+     * política de desborde.
+     *
+     * @param registro Fila de auditoría a persistir
+     */
+    public void registrar(AgenteAuditLog registro) {
+        if (cerrado) {
+            persistirLote(List.of(registro));
+            return;
+        }
+        if (buffer.offer(registro)) {
+            return;
+        }
+        if (politicaDesborde == PoliticaDesborde.DESCARTAR_ANTIGUO) {
+            if (buffer.poll() != null) {
+                descartada("cola_llena");
+            }
+            // Otro productor pudo ocupar el lugar liberado: en ese caso se descarta también la nueva
+            if (buffer.offer(registro)) {
+                return;
+            }
+        }
+        descartada("cola_llena");
+        log.warn("Buffer de auditoría del agente lleno. Fila descartada (workspace {})", registro.getWorkspaceId());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofVirtual().name("agente-auditoria").start(this::loop);
+        log.info("Auditoría del agente iniciada: max-lote={}, ventana={}ms, política={}",
+                maxLote, ventanaMs, politicaDesborde);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        cerrado = true;
+        if (worker != null) {
+            // Sin interrupt(): un virtual thread interrumpido cierra el socket JDBC en saveAll y se
+            // pierde el último lote. El worker ve running=false en a lo sumo una ventana y sale solo
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Drenar lo que haya quedado en el buffer antes de cerrar el contexto
+        List<AgenteAuditLog> restantes = new ArrayList<>();
+        buffer.drainTo(restantes);
+        for (int i = 0; i < restantes.size(); i += maxLote) {
+            persistirLote(restantes.subList(i, Math.min(i + maxLote, restantes.size())));
+        }
+        log.info("Auditoría del agente detenida ({} filas drenadas al cierre)", restantes.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Se detiene después del servidor web (graceful shutdown en {@code DEFAULT_PHASE - 1024}
+     * y stop en {@code - 2048}) para drenar también las filas de los últimos requests.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Bucle del worker: espera la primera fila, completa el lote durante la ventana y lo persiste.
+     */
+    private void loop() {
+        List<AgenteAuditLog> lote = new ArrayList<>(maxLote);
+        boolean interrumpido = false;
+        while (running && !interrumpido) {
+            try {
+                // Espera acotada para revisar running periódicamente (stop() no interrumpe)
+                AgenteAuditLog primera = buffer.poll(ventanaMs, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+                while (lote.size() < maxLote) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        break;
+                    }
+                    AgenteAuditLog siguiente = buffer.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                // Interrupción externa (no la usa stop()): se persiste lo acumulado antes de
+                // restaurar el flag, para que el JDBC no falle con "Closed by interrupt"
+                interrumpido = true;
+            }
+            if (!lote.isEmpty()) {
+                persistirLote(List.copyOf(lote));
+                lote.clear();
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Persiste el lote en una transacción. Si falla se reintenta fila por fila para
+     * aislar la fila inválida (p. ej. un espacio ya eliminado) sin perder el resto.
+     */
+    private void persistirLote(List<AgenteAuditLog> lote) {
+        try {
+            auditLogRepository.saveAll(lote);
+            tamanioLote.record(lote.size());
+        } catch (Exception e) {
+            if (lote.size() == 1) {
+                descartada("error");
+                log.error("No se pudo guardar la auditoría del agente para workspace {}: {}",
+                        lote.get(0).getWorkspaceId(), e.getMessage());
+                return;
+            }
+            log.warn("Error al guardar lote de {} filas de auditoría, reintentando individualmente: {}",
+                    lote.size(), e.getMessage());
+            lote.forEach(registro -> persistirLote(List.of(registro)));
+        }
+    }
+
+    private void descartada(String motivo) {
+        // 📊 MÉTRICA: Filas de auditoría perdidas, por motivo
+        Counter.builder(MetricsConfig.MetricNames.AGENTE_AUDITORIA_DESCARTADAS)
+                .description("Filas de auditoría del agente descartadas por buffer lleno o error al persistir")
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,7 +1,6 @@
 package com.campito.backend.service.agentAI;
 
 import com.campito.backend.config.MetricsConfig;
-import com.campito.backend.dao.AgenteAuditLogRepository;
 import com.campito.backend.dto.AgenteChatRequestDTO;
 import com.campito.backend.dto.AgenteChatResponseDTO;
 import com.campito.backend.model.AgenteAuditLog;
@@ -18,20 +17,21 @@ import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -45,10 +45,27 @@ import java.util.UUID;
 @ConditionalOnProperty(name = "agente.ia.enabled", havingValue = "true", matchIfMissing = false)
 public class AgenteIAServiceImpl implements AgenteIAService {
     
-    private final ChatClient.Builder chatClientBuilder;
+    // Instancia compartida (AgenteAIConfig): se arma una sola vez sobre el pool de conexiones del LLM
+    private final ChatClient chatClient;
     private final SecurityService securityService;
-    private final AgenteAuditLogRepository auditLogRepository;
     private final MeterRegistry meterRegistry;
+    private final ClasificadorIntencion clasificadorIntencion;
+    private final AgenteAuditoriaService agenteAuditoriaService;
+    private final CompactadorHistorial compactadorHistorial;
+    private final AgenteToolsService agenteToolsService;
+    private final AgenteToolExecutor agenteToolExecutor;
+    private final CacheRespuestasAgente cacheRespuestasAgente;
+    private final GobernadorConcurrenciaLlm gobernadorLlm;
+    private final DespachadorTools despachadorTools;
+    
+    /**
+     * Si está activo, el resumen financiero precalculado se envía como preámbulo del prompt
+     * en lugar de ofrecerse como tool: ahorra la ronda de function calling a costa de
+     * enviarlo aunque el LLM no lo necesite.
+     */
+    @Value("${agente.snapshot.preambulo:false}")
+    private boolean preambuloSnapshot;
+    
     private static final String SYSTEM_PROMPT = """
     # IDENTIDAD Y ROL
     Eres 'Finanzas Copilot', un consultor financiero senior y estratega de datos integrado en la "Finanzas App" (una aplicación de gestión de gastos personales). No eres un simple buscador de datos; eres un asesor que transforma números en estrategias accionables para mejorar la salud económica del usuario.
@@ -120,39 +137,74 @@ public class AgenteIAServiceImpl implements AgenteIAService {
     5. **Sin perogrulladas**: Prohibido decir "es importante ahorrar", "manejá tus finanzas responsablemente", "considerá crear un presupuesto" sin datos que la justifiquen. Cada consejo debe ser una conclusión derivada de los datos reales del usuario.
     6. **Con proyección temporal**: Cuando sea posible, indicá en cuántos meses se liquida una deuda al ritmo actual, o cuánto se acumularía en X meses si se mantiene el patrón.
     """;
+    private static final int TOKENS_SYSTEM_PROMPT = EstimadorTokens.estimarMensaje(SYSTEM_PROMPT);
+    
+    private static final String TOOL_RESUMEN_FINANCIERO = "obtenerResumenFinanciero";
     
+    /**
+     * Prompt listo para enviar y funciones que se ofrecen al LLM.
+     */
+    private record PromptPreparado(Prompt prompt, String[] functions) {
+    }
+    
+    /**
+     * Sin {@code @Transactional}: la llamada al LLM dura segundos y no debe retener una
+     * conexión del pool. Las tools usan sus propias transacciones y la auditoría se
+     * persiste en lotes desde {@link AgenteAuditoriaService}. Requiere
+     * {@code spring.jpa.open-in-view=false}: con OSIV, la validación de acceso del controller
+     * retendría su conexión hasta el final del request.
+     */
     @Override
-    @Transactional
     public AgenteChatResponseDTO chat(AgenteChatRequestDTO request) {
         log.info("Procesando chat del agente para workspace: {}", request.workspaceId());
         
         UUID userId = securityService.getAuthenticatedUserId();
         
-        // Construir historial de mensajes
-        var messages = buildMessageHistory(request);
-        var prompt = new Prompt(messages);
+        // Pregunta repetida sobre los mismos datos: se responde sin llamar al LLM
+        String[] functions = clasificadorIntencion.seleccionarFunciones(request.message());
+        CacheRespuestasAgente.ClaveRespuesta clave = cacheRespuestasAgente.clave(request, functions);
+        String cacheada = cacheRespuestasAgente.buscar(clave);
+        if (cacheada != null) {
+            registrarRespuestaCacheada(userId, request, cacheada, "chat");
+            return new AgenteChatResponseDTO(cacheada, List.of(), 0);
+        }
+        
+        // Construir el prompt (historial compactado)
+        PromptPreparado preparado = prepararPrompt(request, functions);
+        
+        // Lugar en el gobernador de concurrencia del nodo (AgenteSaturadoException → 503)
+        GobernadorConcurrenciaLlm.Permiso permiso = gobernadorLlm.adquirirBloqueante();
         
         // 📊 MÉTRICA: Medir latencia de respuesta del LLM
         var timerSample = Timer.start(meterRegistry);
         
         try {
-            // Crear chat client con funciones habilitadas
-            ChatClient chatClient = chatClientBuilder.build();
-            
             // Llamar al LLM con selección dinámica de funciones
-            String[] functions = selectFunctions(request.message());
-            log.info("Funciones seleccionadas para chat: {}", Arrays.toString(functions));
-            ChatResponse response = chatClient.prompt(prompt)
-                .functions(functions)
+            log.info("Funciones seleccionadas para chat: {}", Arrays.toString(preparado.functions()));
+            RegistroToolsInvocadas toolsInvocadas = new RegistroToolsInvocadas();
+            Map<String, Object> contextoTools = AgenteToolExecutor.contextoHerramientas(toolsInvocadas);
+            List<Message> conversacion = new ArrayList<>(preparado.prompt().getInstructions());
+            ChatResponse response = pedido(conversacion, preparado.functions())
                 .call()
                 .chatResponse();
+            // El modelo devuelve las tool calls sin ejecutarlas: las de un mismo turno corren
+            // en paralelo y sus resultados vuelven al modelo en la siguiente ronda
+            for (int ronda = 1; DespachadorTools.pideTools(response); ronda++) {
+                AssistantMessage asistente = response.getResult().getOutput();
+                conversacion.add(asistente);
+                conversacion.add(despachadorTools.ejecutarYEsperar(asistente, contextoTools, ronda));
+                response = pedido(conversacion, preparado.functions())
+                    .call()
+                    .chatResponse();
+            }
+            permiso.liberar(GobernadorConcurrenciaLlm.Resultado.EXITO);
             
             String content = response.getResult().getOutput().getContent();
-            List<String> functionsCalled = extractFunctionsCalled(response);
+            List<String> functionsCalled = toolsInvocadas.nombres();
             Integer tokensUsed = extractTokensUsed(response);
             
-            // Auditar la interacción exitosa
-            auditLogRepository.save(AgenteAuditLog.builder()
+            // Auditar la interacción exitosa (no bloquea: se persiste en el próximo lote)
+            agenteAuditoriaService.registrar(AgenteAuditLog.builder()
                 .userId(userId)
                 .workspaceId(request.workspaceId())
                 .userMessage(request.message())
@@ -164,6 +216,7 @@ public class AgenteIAServiceImpl implements AgenteIAService {
                 .build());
             
             log.info("Chat completado. Tokens: {}, Funciones: {}", tokensUsed, functionsCalled);
+            cacheRespuestasAgente.guardar(clave, content);
             
             // 📊 MÉTRICA: Registrar latencia de la llamada exitosa al LLM
             timerSample.stop(Timer.builder(MetricsConfig.MetricNames.AGENTE_LATENCIA)
@@ -192,6 +245,9 @@ public class AgenteIAServiceImpl implements AgenteIAService {
             
         } catch (Exception e) {
             log.error("Error procesando chat del agente", e);
+            permiso.liberar(GobernadorConcurrenciaLlm.esLimiteDeTasa(e)
+                ? GobernadorConcurrenciaLlm.Resultado.LIMITE_TASA
+                : GobernadorConcurrenciaLlm.Resultado.ERROR);
             
             // 📊 MÉTRICA: Registrar latencia incluso en error
             timerSample.stop(Timer.builder(MetricsConfig.MetricNames.AGENTE_LATENCIA)
@@ -208,7 +264,7 @@ public class AgenteIAServiceImpl implements AgenteIAService {
                     .increment();
             
             // Auditar el error
-            auditLogRepository.save(AgenteAuditLog.builder()
+            agenteAuditoriaService.registrar(AgenteAuditLog.builder()
                 .userId(userId)
                 .workspaceId(request.workspaceId())
                 .userMessage(request.message())
@@ -225,11 +281,21 @@ public class AgenteIAServiceImpl implements AgenteIAService {
     public Flux<String> chatStream(AgenteChatRequestDTO request) {
         log.info("Iniciando stream de chat para workspace: {}", request.workspaceId());
         
-        // Construir historial de mensajes
-        var messages = buildMessageHistory(request);
-        var prompt = new Prompt(messages);
+        UUID userId = securityService.getAuthenticatedUserId();
+        
+        // Pregunta repetida sobre los mismos datos: se reproduce la respuesta sin llamar al LLM
+        String[] functions = clasificadorIntencion.seleccionarFunciones(request.message());
+        CacheRespuestasAgente.ClaveRespuesta clave = cacheRespuestasAgente.clave(request, functions);
+        String cacheada = cacheRespuestasAgente.buscar(clave);
+        if (cacheada != null) {
+            registrarRespuestaCacheada(userId, request, cacheada, "stream");
+            return CacheRespuestasAgente.comoStream(cacheada);
+        }
+        
+        // Construir el prompt (historial compactado)
+        PromptPreparado preparado = prepararPrompt(request, functions);
         
-        // 📊 MÉTRICA: Contador de requests de tipo stream (no bloqueante, sin timer)
+        // 📊 MÉTRICA: Contador de streams iniciados (el resultado lo registra ObservadorStreamAgente)
         Counter.builder(MetricsConfig.MetricNames.AGENTE_REQUESTS)
                 .description("Total de requests al agente IA")
                 .tag("tipo", "stream")
@@ -238,24 +304,37 @@ public class AgenteIAServiceImpl implements AgenteIAService {
                 .increment();
         
         try {
-            // Crear chat client con funciones habilitadas
-            ChatClient chatClient = chatClientBuilder.build();
-            
             // Stream la respuesta con selección dinámica de funciones
-            String[] functions = selectFunctions(request.message());
-            log.info("Funciones seleccionadas para stream: {}", Arrays.toString(functions));
-            return chatClient.prompt(prompt)
-                .functions(functions)
-                .stream()
-                .content()
-                // Retry automático: hasta 2 intentos con backoff exponencial (2s, 4s)
-                // para absorber el 429 transitorio de Groq (límite TPM/RPM)
-                .retryWhen(Retry.backoff(2, Duration.ofSeconds(2))
-                    .filter(e -> e instanceof WebClientResponseException.TooManyRequests)
-                    .doBeforeRetry(rs -> log.warn("Groq 429 – reintento {} de 2 en {}s...",
-                        rs.totalRetries() + 1, (int) Math.pow(2, rs.totalRetries() + 1))))
+            log.info("Funciones seleccionadas para stream: {}", Arrays.toString(preparado.functions()));
+            RegistroToolsInvocadas toolsInvocadas = new RegistroToolsInvocadas();
+            // TTFT, intervalos entre tokens, tokens y auditoría al completar o cancelar
+            ObservadorStreamAgente observador = new ObservadorStreamAgente(
+                meterRegistry, agenteAuditoriaService, userId, request, toolsInvocadas);
+            // Solo un stream completo se guarda en la caché de respuestas
+            StringBuilder respuestaCompleta = new StringBuilder();
+            // El contexto de seguridad se captura acá (hilo del request): las tools del
+            // stream se ejecutan en los hilos de DespachadorTools
+            Map<String, Object> contextoTools = AgenteToolExecutor.contextoHerramientas(toolsInvocadas);
+            // El lugar en el gobernador se pide sin bloquear el hilo del request y se conserva
+            // durante los reintentos; si no hay lugar, el error llega al cliente como evento SSE
+            return gobernadorLlm.adquirirReactivo()
+                .flatMapMany(permiso -> rondaStream(preparado.prompt().getInstructions(),
+                        preparado.functions(), contextoTools, permiso, 1)
+                    .doOnComplete(() -> permiso.liberar(GobernadorConcurrenciaLlm.Resultado.EXITO))
+                    .doOnError(e -> permiso.liberar(GobernadorConcurrenciaLlm.esLimiteDeTasa(e)
+                        ? GobernadorConcurrenciaLlm.Resultado.LIMITE_TASA
+                        : GobernadorConcurrenciaLlm.Resultado.ERROR))
+                    .doOnCancel(() -> permiso.liberar(GobernadorConcurrenciaLlm.Resultado.CANCELADO)))
                 .onErrorMap(WebClientResponseException.TooManyRequests.class,
-                    e -> new RuntimeException("Límite de tasa de Groq alcanzado. Intentá en unos segundos.", e));
+                    e -> new RuntimeException("Límite de tasa de Groq alcanzado. Intentá en unos segundos.", e))
+                .doOnSubscribe(s -> observador.alSuscribirse())
+                .doOnNext(observador::alRecibir)
+                .doOnError(observador::alFallar)
+                .doFinally(observador::alFinalizar)
+                .mapNotNull(ObservadorStreamAgente::contenido)
+                .filter(StringUtils::hasLength)
+                .doOnNext(respuestaCompleta::append)
+                .doOnComplete(() -> cacheRespuestasAgente.guardar(clave, respuestaCompleta.toString()));
                 
         } catch (Exception e) {
             log.error("Error en streaming del agente", e);
@@ -263,28 +342,91 @@ public class AgenteIAServiceImpl implements AgenteIAService {
         }
     }
     
+    /**
+     * Pedido al LLM con las funciones seleccionadas. Las tool calls las ejecuta
+     * {@link DespachadorTools}, no Spring AI.
+     */
+    private ChatClient.ChatClientRequestSpec pedido(List<Message> conversacion, String[] functions) {
+        return chatClient.prompt(new Prompt(conversacion, DespachadorTools.opciones()))
+            .functions(functions);
+    }
+    
+    /**
+     * Una ronda del stream. Si el modelo pide tools, se ejecutan en paralelo sin bloquear el
+     * hilo del stream y se continúa con otra ronda que incluye los resultados.
+     */
+    private Flux<ChatResponse> rondaStream(List<Message> conversacion, String[] functions,
+                                           Map<String, Object> contextoTools,
+                                           GobernadorConcurrenciaLlm.Permiso permiso, int ronda) {
+        return pedido(conversacion, functions)
+            .stream()
+            .chatResponse()
+            .doOnNext(r -> permiso.primeraRespuesta())
+            // Retry automático: hasta 2 intentos con backoff exponencial (2s, 4s)
+            // para absorber el 429 transitorio de Groq (límite TPM/RPM)
+            .retryWhen(Retry.backoff(2, Duration.ofSeconds(2))
+                .filter(e -> e instanceof WebClientResponseException.TooManyRequests)
+                .doBeforeRetry(rs -> {
+                    permiso.limiteDeTasa();
+                    log.warn("Groq 429 – reintento {} de 2 en {}s...",
+                        rs.totalRetries() + 1, (int) Math.pow(2, rs.totalRetries() + 1));
+                }))
+            .concatMap(respuesta -> {
+                if (!DespachadorTools.pideTools(respuesta)) {
+                    return Flux.just(respuesta);
+                }
+                AssistantMessage asistente = respuesta.getResult().getOutput();
+                return Mono.fromFuture(() -> despachadorTools.ejecutar(asistente, contextoTools, ronda))
+                    .flatMapMany(resultados -> {
+                        List<Message> siguiente = new ArrayList<>(conversacion);
+                        siguiente.add(asistente);
+                        siguiente.add(resultados);
+                        return rondaStream(siguiente, functions, contextoTools, permiso, ronda + 1);
+                    });
+            });
+    }
+    
+    /**
+     * Arma el prompt para las funciones seleccionadas. Con {@code agente.snapshot.preambulo=true}
+     * y el resumen financiero entre las funciones seleccionadas, el resumen viaja en el
+     * prompt y la tool se quita de la lista.
+     *
+     * El resumen se arma en el executor de tools, como cuando lo pide el LLM: sus consultas
+     * quedan acotadas por ese executor y por el timeout de la tool, y no corren en el hilo
+     * del request.
+     */
+    private PromptPreparado prepararPrompt(AgenteChatRequestDTO request, String[] functions) {
+        String snapshot = null;
+        if (preambuloSnapshot && Arrays.asList(functions).contains(TOOL_RESUMEN_FINANCIERO)) {
+            // Misma validación de acceso y caché por versión de datos que la tool
+            String workspaceId = request.workspaceId().toString();
+            snapshot = agenteToolExecutor.ejecutar(TOOL_RESUMEN_FINANCIERO, null,
+                () -> agenteToolsService.obtenerResumenFinanciero(workspaceId));
+            functions = Arrays.stream(functions)
+                .filter(f -> !TOOL_RESUMEN_FINANCIERO.equals(f))
+                .toArray(String[]::new);
+        }
+        return new PromptPreparado(new Prompt(buildMessageHistory(request, snapshot)), functions);
+    }
+    
     /**
      * Construye el historial de mensajes para el prompt.
-     * Incluye: System Prompt + Historial de conversación + Mensaje actual con contexto.
+     * Incluye: System Prompt + Resumen financiero (opcional) + Historial de conversación
+     * compactado + Mensaje actual con contexto.
      */
-    private List<Message> buildMessageHistory(AgenteChatRequestDTO request) {
+    private List<Message> buildMessageHistory(AgenteChatRequestDTO request, String snapshot) {
         var messages = new ArrayList<Message>();
         
         // System prompt con instrucciones del agente
         messages.add(new SystemMessage(SYSTEM_PROMPT));
+        int tokensFijos = TOKENS_SYSTEM_PROMPT;
         
-        // Agregar historial de conversación si existe
-        if (request.conversationHistory() != null && !request.conversationHistory().isEmpty()) {
-            request.conversationHistory().forEach(msg -> {
-                if ("user".equals(msg.role())) {
-                    messages.add(new UserMessage(msg.content()));
-                } else if ("assistant".equals(msg.role())) {
-                    messages.add(new AssistantMessage(msg.content()));
-                }
-            });
+        if (snapshot != null) {
+            messages.add(new SystemMessage(snapshot));
+            tokensFijos += EstimadorTokens.estimarMensaje(snapshot);
         }
         
-        // Agregar mensaje actual con contexto del workspace
+        // Mensaje actual con contexto del workspace
         // NOTA: El workspace ID se inyecta como metadato de sistema para que el modelo
         // lo use SOLO al invocar tools, nunca para mostrarlo al usuario.
         String enrichedMessage = String.format(
@@ -292,152 +434,43 @@ public class AgenteIAServiceImpl implements AgenteIAService {
             request.message(),
             request.workspaceId()
         );
+        
+        // Historial compactado: últimos turnos textuales y resumen de los anteriores,
+        // dentro del presupuesto de tokens del prompt
+        tokensFijos += EstimadorTokens.estimarMensaje(enrichedMessage);
+        messages.addAll(compactadorHistorial.compactar(
+                request.workspaceId(), request.conversationHistory(), tokensFijos));
+        
         messages.add(new UserMessage(enrichedMessage));
         
         return messages;
     }
     
     /**
-     * Selección dinámica de funciones según el contenido del mensaje.
-     * Reduce drásticamente los tokens enviados a Groq por request al no incluir
-     * los schemas de funciones irrelevantes para la pregunta.
-     *
-     * <p>Estrategia de selección (en orden de evaluación):
-     * <ol>
-     *   <li><b>Early return vacío</b>: saludos, despedidas y mensajes fuera del dominio financiero.</li>
-     *   <li><b>Análisis integral</b>: preguntas comparativas/analíticas (categoría con más gasto,
-     *       comercio más usado, desglose mensual) → carga herramientas de AMBAS fuentes:
-     *       transacciones Y compras con crédito. Sin este bloque el LLM solo analiza una fuente.</li>
-     *   <li><b>Bloques específicos</b>: saldos, tarjetas, cuentas, contactos.</li>
-     *   <li><b>Fallback vacío</b>: si ningún keyword financiero matcheó, probablemente es off-topic.</li>
-     * </ol>
-     */
-    private String[] selectFunctions(String message) {
-        String msg = message.toLowerCase().trim();
-        Set<String> fns = new HashSet<>();
-
-        // ── EARLY RETURN: saludos, despedidas y mensajes sin intención financiera ──
-        // Sin tools el LLM responde solo desde el system prompt, donde la sección
-        // "RESTRICCIÓN ABSOLUTA DE DOMINIO" rechaza amablemente la pregunta.
-        boolean esSaludo = msg.matches(
-            "(hola|buenas|buen[oa]s (d[ií]as?|tardes?|noches?)|hey|hi|hello|dale|ok|okey|gracias|" +
-            "chau|adi[oó]s|hasta luego|nos vemos|c[oó]mo est[aá]s?|qu[eé] tal|qu[eé] onda|" +
-            "c[oó]mo and[aá]s?|todo bien|necesito ayuda|pod[eé]s ayudarme|ayuda|ayud[aá]me)[?!. ]*"
-        );
-        boolean esMuyCorto = msg.length() <= 15 && !msg.matches(".*\\d.*");
-        boolean esOffTopic = msg.matches(
-            ".*(qu[eé] eres|qui[eé]n eres|qu[eé] pod[eé]s hacer|para qu[eé] sirv[eé]s?|" +
-            "c[oó]mo funcionas?|qu[eé] sab[eé]s hacer|qu[eé] funciones? ten[eé]s?).*"
-        );
-
-        if (esSaludo || (esMuyCorto && fns.isEmpty()) || esOffTopic) {
-            log.debug("selectFunctions: mensaje genérico/saludo detectado – sin tools");
-            return new String[0];
-        }
-
-        // ── ANÁLISIS INTEGRAL: consultas que requieren cruzar transacciones Y compras con crédito ──
-        // Cubre preguntas como:
-        //   "¿en qué categoría gasté más este mes?"
-        //   "¿cuál fue el motivo en el que más gasté?"
-        //   "¿qué gastos tuve en marzo?"
-        //   "¿en qué comercio compré más con crédito?"
-        //   "desglose de gastos por categoría"
-        //   "análisis de mis gastos del año"
-        //   "¿cuánto gasté en total el mes pasado?"
-        // Sin este bloque el LLM solo accede a una fuente y el análisis queda incompleto.
-        boolean esAnálisisIntegral =
-            // Preguntas interrogativas sobre dónde/cuánto/cuál en contexto de gasto o compra
-            msg.matches(".*(en qu[eé]|d[oó]nde|cu[aá]l(es)?|qui[eé]n|cuanto|cu[aá]nto)" +
-                        ".*(gast[eéoó]|compr[eéoó]|egres[eéoó]|invert[ií]).*") ||
-            // Keywords de análisis/comparación explícitos
-            msg.matches(".*\\b(an[aá]lis[ií]s|analiz[aá]|desglose|distribuci[oó]n|ranking|" +
-                        "top \\d|principales gastos|mayor gasto|m[aá]s gast[eéoó]|m[aá]s gastado|" +
-                        "m[aá]s ingres[eéoó]|menos gast[eéoó])\\b.*") ||
-            // Listado de gastos acotado a un período
-            msg.matches(".*\\b(gastos|egresos|compras|movimientos|transacciones)" +
-                        "\\b.*(tuve|hice|ten[ií]a|hubo|del mes|este mes|mes pasado|" +
-                        "del a[nñ]o|este a[nñ]o|[úu]ltimo mes|[úu]ltimos? \\d|en \\w+).*") ||
-            // Foco en categoría o motivo de forma comparativa
-            msg.matches(".*(categor[ií]a|motivo).*(m[aá]s|mayor|principal|top|lider).*") ||
-            msg.matches(".*(m[aá]s|mayor|principal).*(categor[ií]a|motivo).*") ||
-            // Foco en comercio / negocio / local
-            msg.matches(".*\\b(comercio|negocio|local|establecimiento|tienda|restaurante|" +
-                        "supermercado|farmacia|combustible)\\b.*");
-
-        if (esAnálisisIntegral) {
-            fns.addAll(List.of(
-                "buscarTransacciones", "listarMotivosTransacciones",
-                "buscarTodasComprasCredito", "listarComprasCreditoPendientes",
-                "listarTarjetasCredito"
-            ));
-        }
-
-        // ── Saldos / situación financiera general ──
-        if (msg.matches(".*\\b(balance|saldo|situaci[oó]n|resumen|general|actual|" +
-                        "cu[aá]nto tengo|cu[aá]nto me queda|overview|dinero|plata|" +
-                        "patrimonio|neto|activos|estado financiero|financiero)\\b.*")) {
-            fns.addAll(List.of("obtenerDashboardFinanciero", "listarCuentasBancarias"));
-        }
-
-        // ── Transacciones / gastos / ingresos ──
-        if (msg.matches(".*\\b(transacci[oó]n|transacciones|gasto|gastos|gast[eé]|gastando|" +
-                        "ingreso|ingresos|ingres[eé]|egreso|egresos|movimiento|movimientos|" +
-                        "pago|pagos|historial|registro|registros|reciente|[úu]ltim[oa]|" +
-                        "mes|a[nñ]o|semana|hoy|ayer|categor[ií]a|cu[aá]nto gast|" +
-                        "cu[aá]nto ingres|invert[ií])\\b.*")) {
-            fns.addAll(List.of("buscarTransacciones", "listarMotivosTransacciones"));
-        }
-
-        // ── Tarjetas de crédito / resúmenes / cuotas / compras con crédito ──
-        if (msg.matches(".*\\b(tarjeta|tarjetas|cr[eé]dito|resumen|resúmenes|cuota|cuotas|" +
-                        "visa|mastercard|cabal|amex|naranja|galicia|santander|bbva|macro|" +
-                        "nacion|icbc|hsbc|debo pagar|vencimiento|pr[oó]ximo vencimiento|" +
-                        "cierre|pr[oó]ximo cierre|deuda|deudas)\\b.*")) {
-            fns.addAll(List.of(
-                "listarTarjetasCredito", "listarResumenesTarjetas",
-                "listarResumenesPorTarjeta", "listarCuotasPorTarjeta",
-                "buscarTodasComprasCredito", "listarComprasCreditoPendientes"
-            ));
-        }
-
-        // ── Cuentas bancarias ──
-        if (msg.matches(".*\\b(cuenta|cuentas|banco|bancaria|bancarias|transferencia|" +
-                        "transferencias|ahorro|ahorros|caja de ahorro|cuenta corriente|" +
-                        "saldo disponible|efectivo)\\b.*")) {
-            fns.add("listarCuentasBancarias");
-        }
-
-        // ── Contactos / personas / comercios ──
-        if (msg.matches(".*\\b(contacto|contactos|emisor|destinatario|persona|personas|" +
-                        "qui[eé]n|a qui[eé]n|pagaste|pagado|enviaste|le pag|cobr[eéoó]|" +
-                        "recib[ií] de|pag[ué] a|compré en)\\b.*")) {
-            fns.add("listarContactosTransaccion");
-        }
-
-        // ── Fallback: sin keywords financieras → off-topic ──
-        // Devolver vacío hace que el LLM responda solo desde el system prompt,
-        // donde la restricción de dominio rechaza amablemente la pregunta.
-        if (fns.isEmpty()) {
-            log.debug("selectFunctions: sin keywords financieras detectadas – sin tools (posible off-topic)");
-            return new String[0];
-        }
-
-        log.debug("selectFunctions: mensaje='{}' → funciones={}", message.substring(0, Math.min(60, message.length())), fns);
-        return fns.toArray(new String[0]);
-    }
-
-    /**
-     * Extrae nombres de funciones llamadas del metadata de la respuesta.
+     * Métricas y auditoría de una respuesta servida desde {@link CacheRespuestasAgente}:
+     * no consume tokens ni invoca tools.
      */
-    private List<String> extractFunctionsCalled(ChatResponse response) {
-        try {
-            // TODO: Implementar extracción real del metadata de Groq cuando tengamos la estructura definida
-            // Por ahora retornamos lista vacía hasta ver la estructura real
-            return List.of();
-        } catch (Exception e) {
-            log.warn("No se pudieron extraer funciones llamadas", e);
-            return List.of();
-        }
+    private void registrarRespuestaCacheada(UUID userId, AgenteChatRequestDTO request, String respuesta, String tipo) {
+        log.info("Respuesta del agente servida desde caché para workspace: {}", request.workspaceId());
+        
+        // 📊 MÉTRICA: Contador de requests resueltos por la caché de respuestas
+        Counter.builder(MetricsConfig.MetricNames.AGENTE_REQUESTS)
+                .description("Total de requests al agente IA")
+                .tag("tipo", tipo)
+                .tag("resultado", "cache")
+                .register(meterRegistry)
+                .increment();
+        
+        agenteAuditoriaService.registrar(AgenteAuditLog.builder()
+            .userId(userId)
+            .workspaceId(request.workspaceId())
+            .userMessage(request.message())
+            .agentResponse(respuesta)
+            .functionsCalled("")
+            .timestamp(LocalDateTime.now())
+            .tokensUsed(0)
+            .success(true)
+            .build());
     }
     
     /**
@@ -0,0 +1,189 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.AsyncConfig;
+import com.campito.backend.config.MetricsConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Capa de ejecución de las tools del agente IA.
+ *
+ * {@link DespachadorTools} invoca las funciones desde un virtual thread por tool call, en
+ * paralelo dentro de un mismo turno. Cada invocación se delega al executor acotado
+ * {@link AsyncConfig#AGENTE_TOOLS_EXECUTOR} (virtual threads) y el hilo llamador queda
+ * bloqueado hasta el resultado, como máximo el timeout de la tool: el executor es el que
+ * acota las consultas concurrentes a la base.
+ *
+ * Que el event loop de Reactor Netty no se bloquee depende de quién llama: en el stream las
+ * tools se despachan desde los virtual threads de {@link DespachadorTools}, nunca desde el
+ * hilo que procesa la respuesta del LLM. Una invocación desde un hilo no bloqueante de
+ * Reactor se rechaza en lugar de bloquearlo.
+ *
+ * El {@link SecurityContext} viaja en el {@link ToolContext} del prompt (ver
+ * {@link #contextoHerramientas(RegistroToolsInvocadas)}), porque el hilo del stream no tiene el del request HTTP.
+ */
+@Component
+@Slf4j
+public class AgenteToolExecutor {
+
+    /**
+     * Clave del {@link ToolContext} con el contexto de seguridad del usuario.
+     */
+    public static final String CONTEXTO_SEGURIDAD = "contextoSeguridad";
+
+    /**
+     * Clave del {@link ToolContext} con el {@link RegistroToolsInvocadas} de la interacción.
+     */
+    public static final String TOOLS_INVOCADAS = "toolsInvocadas";
+
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final long timeoutPorDefectoMs;
+    private final Map<String, Long> timeoutsMs = new ConcurrentHashMap<>();
+
+    public AgenteToolExecutor(@Qualifier(AsyncConfig.AGENTE_TOOLS_EXECUTOR) ExecutorService executor,
+                              MeterRegistry meterRegistry,
+                              Environment environment,
+                              @Value("${agente.tools.timeout-ms:10000}") long timeoutPorDefectoMs) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.timeoutPorDefectoMs = timeoutPorDefectoMs;
+    }
+
+    /**
+     * Contexto para el prompt: se debe crear en el hilo del request HTTP.
+     *
+     * @param toolsInvocadas Registro donde se anotan las tools que invoque el LLM
+     * @return Mapa para {@code ChatClient.prompt().toolContext(...)}
+     */
+    public static Map<String, Object> contextoHerramientas(RegistroToolsInvocadas toolsInvocadas) {
+        // Copia: el filtro de seguridad limpia el contexto del hilo al terminar el request
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        return Map.of(CONTEXTO_SEGURIDAD, contexto, TOOLS_INVOCADAS, toolsInvocadas);
+    }
+
+    /**
+     * Ejecuta una tool en el executor con el contexto de seguridad del usuario y espera
+     * su resultado hasta el timeout configurado para esa tool.
+     *
+     * @param tool Nombre de la tool (para timeouts y métricas)
+     * @param toolContext Contexto recibido de Spring AI (puede ser null en llamadas directas)
+     * @param tarea Invocación de la tool
+     * @return Resultado de la tool
+     * @throws IllegalStateException si el executor está saturado, la tool superó el timeout
+     *         o se invoca desde un hilo no bloqueante (event loop)
+     */
+    public <T> T ejecutar(String tool, ToolContext toolContext, Callable<T> tarea) {
+        if (Schedulers.isInNonBlockingThread()) {
+            fallida(tool, "hilo_no_bloqueante");
+            log.error("Tool {} invocada desde el hilo no bloqueante {}", tool, Thread.currentThread().getName());
+            throw new IllegalStateException("La tool " + tool + " no puede ejecutarse en el event loop");
+        }
+        SecurityContext contexto = contextoSeguridad(toolContext);
+        if (toolContext != null && toolContext.getContext().get(TOOLS_INVOCADAS) instanceof RegistroToolsInvocadas registro) {
+            registro.registrar(tool);
+        }
+        long encolada = System.nanoTime();
+
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                // 📊 MÉTRICA: Espera en cola antes de ejecutar la tool
+                timer(MetricsConfig.MetricNames.AGENTE_TOOLS_ESPERA, "Espera en cola de las tools del agente IA", tool)
+                        .record(inicio - encolada, TimeUnit.NANOSECONDS);
+
+                SecurityContextHolder.setContext(contexto);
+                try {
+                    return tarea.call();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    // 📊 MÉTRICA: Tiempo de ejecución de la tool en el executor
+                    timer(MetricsConfig.MetricNames.AGENTE_TOOLS_EJECUCION, "Ejecución de las tools del agente IA", tool)
+                            .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fallida(tool, "rechazada");
+            log.warn("Executor de tools saturado. Tool {} rechazada", tool);
+            throw new IllegalStateException("El asistente está procesando demasiadas consultas. Intentá de nuevo en unos segundos.", e);
+        }
+
+        long timeoutMs = timeoutMs(tool);
+        try {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            fallida(tool, "timeout");
+            log.warn("Tool {} cancelada por superar el timeout de {} ms", tool, timeoutMs);
+            throw new IllegalStateException("La consulta " + tool + " tardó demasiado y fue cancelada", e);
+        } catch (ExecutionException e) {
+            // Propagar la excepción original de la tool (ForbiddenException, EntityNotFoundException, etc.)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error ejecutando la tool " + tool, e.getCause());
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ejecución de la tool " + tool + " interrumpida", e);
+        }
+    }
+
+    private static SecurityContext contextoSeguridad(ToolContext toolContext) {
+        if (toolContext != null && toolContext.getContext().get(CONTEXTO_SEGURIDAD) instanceof SecurityContext contexto) {
+            return contexto;
+        }
+        // Llamada sin ToolContext: usar el del hilo actual (p. ej. chat bloqueante)
+        return SecurityContextHolder.getContext();
+    }
+
+    /**
+     * Timeout de la tool: {@code agente.tools.timeouts.<tool>} o, si no está, {@code agente.tools.timeout-ms}.
+     */
+    private long timeoutMs(String tool) {
+        return timeoutsMs.computeIfAbsent(tool, nombre ->
+                environment.getProperty("agente.tools.timeouts." + nombre, Long.class, timeoutPorDefectoMs));
+    }
+
+    private Timer timer(String nombre, String descripcion, String tool) {
+        return Timer.builder(nombre)
+                .description(descripcion)
+                .tag("tool", tool)
+                .register(meterRegistry);
+    }
+
+    private void fallida(String tool, String motivo) {
+        // 📊 MÉTRICA: Tools que no terminaron, por motivo
+        Counter.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_FALLIDAS)
+                .description("Tools del agente IA rechazadas (saturación o event loop) o canceladas por timeout")
+                .tag("tool", tool)
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -15,6 +15,9 @@ import java.util.UUID;
  * Cada método público es una función que el LLM puede llamar vía Function Calling.
  * 
  * IMPORTANTE: Todas las herramientas validan permisos multi-tenant usando SecurityService.
+ * 
+ * Las herramientas por espacio de trabajo reutilizan resultados mediante {@link CacheResultadosTools}
+ * mientras los datos del espacio no cambien. La validación de acceso se hace siempre antes.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,6 +29,8 @@ public class AgenteToolsService {
     private final CompraCreditoService compraCreditoService;
     private final CuentaBancariaService cuentaBancariaService;
     private final SecurityService securityService;
+    private final CacheResultadosTools cacheResultadosTools;
+    private final SnapshotFinancieroBuilder snapshotFinancieroBuilder;
     
     /**
      * Obtiene el resumen financiero completo del espacio de trabajo.
@@ -41,16 +46,37 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
         
-        var stats = dashboardService.obtenerDashboardStats(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "obtenerDashboardFinanciero", () -> {
+            var stats = dashboardService.obtenerDashboardStats(workspaceUuid);
+            
+            return Map.<String, Object>of(
+                "saldoTotal", stats.balanceTotal(),
+                "gastosMensuales", stats.gastosMensuales(),
+                "resumenMensual", stats.resumenMensual(),
+                "deudaTotalPendiente", stats.deudaTotalPendiente(),
+                "flujoUltimos12Meses", stats.flujoMensual(),
+                "distribucionGastos", stats.distribucionGastos()
+            );
+        });
+    }
+    
+    /**
+     * Obtiene un resumen financiero compacto y pre-agregado del espacio de trabajo.
+     * Incluye: saldos por cuenta, totales por mes y motivo de los últimos meses,
+     * principales comercios/contactos y cuotas pendientes por tarjeta.
+     * Pensado para resolver preguntas de análisis con una sola herramienta.
+     * 
+     * @param workspaceId ID del espacio de trabajo (UUID como String)
+     * @return Resumen en texto compacto
+     */
+    public String obtenerResumenFinanciero(String workspaceId) {
+        log.info("Agente llamando tool: obtenerResumenFinanciero({})", workspaceId);
         
-        return Map.of(
-            "saldoTotal", stats.balanceTotal(),
-            "gastosMensuales", stats.gastosMensuales(),
-            "resumenMensual", stats.resumenMensual(),
-            "deudaTotalPendiente", stats.deudaTotalPendiente(),
-            "flujoUltimos12Meses", stats.flujoMensual(),
-            "distribucionGastos", stats.distribucionGastos()
-        );
+        UUID workspaceUuid = UUID.fromString(workspaceId);
+        securityService.validateWorkspaceAccess(workspaceUuid);
+        
+        return cacheResultadosTools.obtener(workspaceUuid, "obtenerResumenFinanciero",
+            () -> snapshotFinancieroBuilder.construir(workspaceUuid));
     }
     
     /**
@@ -88,7 +114,9 @@ public class AgenteToolsService {
             20             // size máximo – reducido para control de tokens
         );
         
-        return transaccionService.buscarTransaccion(busqueda).getContent();
+        return cacheResultadosTools.obtener(workspaceUuid, "buscarTransacciones",
+            () -> List.copyOf(transaccionService.buscarTransaccion(busqueda).getContent()),
+            mes, anio, motivo, contacto);
     }
     
     /**
@@ -104,7 +132,8 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
         
-        return compraCreditoService.listarTarjetas(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "listarTarjetasCredito",
+            () -> compraCreditoService.listarTarjetas(workspaceUuid));
     }
     
     /**
@@ -121,7 +150,8 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
         
-        return compraCreditoService.listarResumenesPorEspacioTrabajo(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "listarResumenesTarjetas",
+            () -> compraCreditoService.listarResumenesPorEspacioTrabajo(workspaceUuid));
     }
     
     /**
@@ -137,7 +167,8 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
         
-        return cuentaBancariaService.listarCuentasBancarias(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "listarCuentasBancarias",
+            () -> cuentaBancariaService.listarCuentasBancarias(workspaceUuid));
     }
     
     /**
@@ -153,7 +184,8 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
         
-        return transaccionService.listarMotivos(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "listarMotivosTransacciones",
+            () -> transaccionService.listarMotivos(workspaceUuid));
     }
 
     /**
@@ -170,8 +202,9 @@ public class AgenteToolsService {
         securityService.validateWorkspaceAccess(workspaceUuid);
 
         // Limitado a 20 items para no exceder el TPM de Groq
-        return compraCreditoService.BuscarComprasCredito(workspaceUuid)
-                .stream().limit(20).toList();
+        return cacheResultadosTools.obtener(workspaceUuid, "buscarTodasComprasCredito",
+            () -> compraCreditoService.BuscarComprasCredito(workspaceUuid)
+                .stream().limit(20).toList());
     }
 
     /**
@@ -188,7 +221,8 @@ public class AgenteToolsService {
         securityService.validateWorkspaceAccess(workspaceUuid);
 
         // Limitado a 20 items para no exceder el TPM de Groq
-        return compraCreditoService.listarComprasCreditoDebeCuotas(workspaceUuid, 0, 20).getContent();
+        return cacheResultadosTools.obtener(workspaceUuid, "listarComprasCreditoPendientes",
+            () -> List.copyOf(compraCreditoService.listarComprasCreditoDebeCuotas(workspaceUuid, 0, 20).getContent()));
     }
 
     /**
@@ -240,7 +274,8 @@ public class AgenteToolsService {
         UUID workspaceUuid = UUID.fromString(workspaceId);
         securityService.validateWorkspaceAccess(workspaceUuid);
 
-        return transaccionService.listarContactos(workspaceUuid);
+        return cacheResultadosTools.obtener(workspaceUuid, "listarContactosTransaccion",
+            () -> transaccionService.listarContactos(workspaceUuid));
     }
 
 }
@@ -0,0 +1,157 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dto.AgenteChatRequestDTO;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Caché de respuestas completas del agente IA para preguntas repetidas.
+ *
+ * La clave es (espacio, versión de datos del espacio, fecha, funciones seleccionadas por
+ * {@link ClasificadorIntencion}, mensaje normalizado). La versión hace que cualquier
+ * escritura sobre el espacio deje inalcanzables las respuestas anteriores; la fecha evita
+ * reutilizar respuestas a "este mes" u "hoy" de otro día. Las funciones seleccionadas
+ * separan mensajes que normalizan igual pero tienen distinta intención.
+ *
+ * Solo se cachean preguntas sin historial de conversación: con historial la respuesta
+ * depende de los turnos anteriores ("¿y el mes pasado?"). La respuesta se comparte entre
+ * los miembros del espacio; la validación de acceso se hace siempre antes.
+ *
+ * Con varios nodos, una escritura confirmada en otro nodo cambia la versión local cuando
+ * llega su señal por LISTEN/NOTIFY (milisegundos después del commit). Si la conexión LISTEN
+ * se cae, el nodo descarta sus versiones al reconectar; sin el broadcaster de PostgreSQL no
+ * hay aviso entre nodos y una respuesta vieja puede servirse hasta
+ * {@code agente.respuestas.cache.ttl-minutos}.
+ */
+@Component
+@Slf4j
+public class CacheRespuestasAgente {
+
+    /**
+     * Clave de una respuesta. Se calcula antes de llamar al LLM: si el espacio cambia
+     * mientras tanto, la respuesta queda guardada con la versión vieja y no se sirve.
+     */
+    public record ClaveRespuesta(UUID idEspacioTrabajo, long version, LocalDate fecha,
+                                 String funciones, String mensaje) {
+    }
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}$%]+");
+    // Corta después de cada espacio o salto de línea: concatenar los fragmentos devuelve el texto original
+    private static final Pattern FRAGMENTO = Pattern.compile("(?<=\\s)");
+
+    private final VersionDatosEspacioService versionDatosEspacioService;
+    private final MeterRegistry meterRegistry;
+    private final Cache<ClaveRespuesta, String> respuestas;
+    private final boolean habilitada;
+
+    public CacheRespuestasAgente(VersionDatosEspacioService versionDatosEspacioService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${agente.respuestas.cache.habilitada:true}") boolean habilitada,
+                                 @Value("${agente.respuestas.cache.max-entradas:5000}") long maxEntradas,
+                                 @Value("${agente.respuestas.cache.ttl-minutos:15}") long ttlMinutos) {
+        this.versionDatosEspacioService = versionDatosEspacioService;
+        this.meterRegistry = meterRegistry;
+        this.habilitada = habilitada;
+        this.respuestas = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones de la caché de respuestas (global)
+        CaffeineCacheMetrics.monitor(meterRegistry, respuestas, MetricsConfig.MetricNames.CACHE_AGENTE_RESPUESTAS);
+    }
+
+    /**
+     * @param request Request del chat
+     * @param funciones Funciones seleccionadas para el mensaje
+     * @return Clave de la respuesta, o null si el mensaje no es cacheable
+     */
+    public ClaveRespuesta clave(AgenteChatRequestDTO request, String[] funciones) {
+        if (!habilitada || (request.conversationHistory() != null && !request.conversationHistory().isEmpty())) {
+            return null;
+        }
+        String mensaje = normalizar(request.message());
+        if (mensaje.isEmpty()) {
+            return null;
+        }
+        String[] ordenadas = funciones.clone();
+        Arrays.sort(ordenadas);
+        return new ClaveRespuesta(request.workspaceId(),
+                versionDatosEspacioService.versionActual(request.workspaceId()),
+                LocalDate.now(),
+                String.join(",", ordenadas),
+                mensaje);
+    }
+
+    /**
+     * @param clave Clave calculada con {@link #clave}, puede ser null
+     * @return Respuesta cacheada o null
+     */
+    public String buscar(ClaveRespuesta clave) {
+        if (clave == null) {
+            return null;
+        }
+        String respuesta = respuestas.getIfPresent(clave);
+        if (respuesta != null) {
+            log.debug("Respuesta del agente servida desde caché para espacio {}", clave.idEspacioTrabajo());
+
+            // 📊 MÉTRICA: Tokens de respuesta que no se pidieron al LLM (estimados)
+            Counter.builder(MetricsConfig.MetricNames.AGENTE_RESPUESTAS_CACHE_TOKENS_AHORRADOS)
+                    .description("Tokens de respuesta estimados servidos desde la caché de respuestas del agente")
+                    .register(meterRegistry)
+                    .increment(EstimadorTokens.estimar(respuesta));
+        }
+        return respuesta;
+    }
+
+    /**
+     * Guarda una respuesta completa. Las respuestas vacías no se guardan.
+     *
+     * @param clave Clave calculada con {@link #clave}, puede ser null
+     * @param respuesta Texto completo de la respuesta
+     */
+    public void guardar(ClaveRespuesta clave, String respuesta) {
+        if (clave != null && respuesta != null && !respuesta.isBlank()) {
+            respuestas.put(clave, respuesta);
+        }
+    }
+
+    /**
+     * Reproduce una respuesta cacheada como stream, fragmentada por palabras como la emitiría el LLM.
+     *
+     * @param respuesta Texto completo
+     * @return Fragmentos cuya concatenación es el texto original
+     */
+    public static Flux<String> comoStream(String respuesta) {
+        return Flux.fromArray(FRAGMENTO.split(respuesta));
+    }
+
+    /**
+     * Minúsculas, sin tildes y con la puntuación y los espacios colapsados:
+     * "¿Cuánto gasté este mes?" y "cuanto gaste este mes" comparten entrada.
+     */
+    static String normalizar(String mensaje) {
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(mensaje, Normalizer.Form.NFD))
+                .replaceAll("");
+        return SEPARADORES.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+}
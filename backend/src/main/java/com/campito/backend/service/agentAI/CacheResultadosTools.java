@@ -0,0 +1,141 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caché de resultados de las tools del agente IA.
+ *
+ * Dentro de una conversación (y entre turnos) el LLM suele repetir las mismas llamadas
+ * con los mismos argumentos. La clave es (espacio, versión de datos del espacio, tool,
+ * argumentos normalizados): cualquier escritura sobre el espacio cambia la versión y deja
+ * inalcanzables los resultados anteriores, que luego se descartan por tamaño o TTL.
+ *
+ * La validación de acceso al espacio se hace siempre antes de consultar la caché.
+ */
+@Component
+@Slf4j
+public class CacheResultadosTools {
+
+    private record ClaveTool(UUID idEspacioTrabajo, long version, String tool, List<Object> argumentos) {
+    }
+
+    /**
+     * Resultado junto con lo que tardó en obtenerse, para medir la latencia ahorrada en cada hit.
+     */
+    private record ResultadoCacheado(Object valor, long nanosCarga) {
+    }
+
+    private final VersionDatosEspacioService versionDatosEspacioService;
+    private final MeterRegistry meterRegistry;
+    private final Cache<ClaveTool, ResultadoCacheado> resultados;
+
+    public CacheResultadosTools(VersionDatosEspacioService versionDatosEspacioService,
+                                MeterRegistry meterRegistry,
+                                @Value("${agente.tools.cache.max-resultados:2000}") long maxResultados,
+                                @Value("${agente.tools.cache.ttl-minutos:10}") long ttlMinutos) {
+        this.versionDatosEspacioService = versionDatosEspacioService;
+        this.meterRegistry = meterRegistry;
+        this.resultados = Caffeine.newBuilder()
+                .maximumSize(maxResultados)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones de la caché de tools (global)
+        CaffeineCacheMetrics.monitor(meterRegistry, resultados, MetricsConfig.MetricNames.CACHE_AGENTE_TOOLS);
+    }
+
+    /**
+     * Devuelve el resultado cacheado de la tool o lo obtiene y lo guarda.
+     *
+     * @param idEspacioTrabajo Espacio de trabajo al que pertenecen los datos
+     * @param tool Nombre de la tool
+     * @param cargar Ejecución real de la tool
+     * @param argumentos Argumentos de la llamada (además del espacio)
+     * @return Resultado de la tool
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(UUID idEspacioTrabajo, String tool, Supplier<T> cargar, Object... argumentos) {
+        ClaveTool clave = new ClaveTool(idEspacioTrabajo,
+                versionDatosEspacioService.versionActual(idEspacioTrabajo),
+                tool,
+                Arrays.stream(argumentos).map(CacheResultadosTools::normalizar).toList());
+
+        ResultadoCacheado cacheado = resultados.getIfPresent(clave);
+        if (cacheado != null) {
+            registrarHit(tool, cacheado.nanosCarga());
+            log.debug("Tool {} resuelta desde caché para espacio {}", tool, idEspacioTrabajo);
+            return (T) cacheado.valor();
+        }
+
+        long inicio = System.nanoTime();
+        T valor = cargar.get();
+        long nanosCarga = System.nanoTime() - inicio;
+        registrarMiss(tool, nanosCarga);
+
+        if (valor != null) {
+            resultados.put(clave, new ResultadoCacheado(valor, nanosCarga));
+        }
+        return valor;
+    }
+
+    /**
+     * Normaliza un argumento para la clave. Los filtros de texto de las búsquedas se comparan
+     * en minúsculas y un texto vacío equivale a no filtrar, así que ambos casos comparten entrada.
+     */
+    private static Object normalizar(Object argumento) {
+        if (argumento instanceof String texto) {
+            return texto.isEmpty() ? null : texto.toLowerCase();
+        }
+        return argumento;
+    }
+
+    private void registrarHit(String tool, long nanosAhorrados) {
+        // 📊 MÉTRICA: Invocaciones de tools por resultado de caché (hit ratio por tool)
+        contador(tool, "hit").increment();
+
+        // 📊 MÉTRICA: Latencia ahorrada en cada hit (lo que tardó la ejecución cacheada)
+        Timer.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_CACHE_AHORRO)
+                .description("Latencia ahorrada por resultados de tools servidos desde caché")
+                .tag("tool", tool)
+                .register(meterRegistry)
+                .record(nanosAhorrados, TimeUnit.NANOSECONDS);
+    }
+
+    private void registrarMiss(String tool, long nanosCarga) {
+        contador(tool, "miss").increment();
+
+        // 📊 MÉTRICA: Latencia real de ejecución de cada tool
+        Timer.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_LATENCIA)
+                .description("Latencia de ejecución de las tools del agente IA (sin caché)")
+                .tag("tool", tool)
+                .register(meterRegistry)
+                .record(nanosCarga, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter contador(String tool, String resultado) {
+        return Counter.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_INVOCACIONES)
+                .description("Invocaciones de tools del agente IA por resultado de caché")
+                .tag("tool", tool)
+                .tag("cache", resultado)
+                .register(meterRegistry);
+    }
+}
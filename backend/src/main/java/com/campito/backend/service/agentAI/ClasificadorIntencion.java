@@ -0,0 +1,166 @@
+package com.campito.backend.service.agentAI;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Clasificador de intención de los mensajes al agente IA: decide qué funciones (tools)
+ * se envían al LLM. Reduce los tokens por request al no incluir schemas irrelevantes.
+ *
+ * <p>Estrategia (en orden de evaluación):
+ * <ol>
+ *   <li><b>Sin tools</b>: saludos, despedidas, mensajes muy cortos y preguntas sobre el propio agente.</li>
+ *   <li><b>Reglas</b>: cada {@link Regla} aporta su conjunto de funciones si su patrón coincide.
+ *       El análisis integral carga herramientas de transacciones Y compras con crédito;
+ *       el resto cubre saldos, transacciones, tarjetas, cuentas y contactos. El análisis
+ *       integral y los saldos incluyen además el resumen financiero precalculado, que suele
+ *       alcanzar para responder con una sola herramienta.</li>
+ *   <li><b>Fallback vacío</b>: si ninguna regla coincidió, probablemente es off-topic.</li>
+ * </ol>
+ *
+ * <p>Los patrones se compilan una sola vez. Las reglas se escriben sin el {@code .*} inicial
+ * y final y se evalúan con {@code find()}, lo que equivale al {@code matches(".*X.*")} original
+ * salvo por los saltos de línea ({@code .} no los acepta): un mensaje con varias líneas
+ * nunca coincidía con esas reglas y se conserva ese comportamiento.
+ * No se quitan tildes: los patrones ya aceptan ambas formas y normalizar cambiaría los
+ * límites de palabra ({@code \b} solo considera letras ASCII).
+ */
+@Component
+@Slf4j
+public class ClasificadorIntencion {
+
+    /**
+     * Patrón y funciones que aporta cuando coincide.
+     */
+    private record Regla(String nombre, Pattern patron, List<String> funciones) {
+    }
+
+    private static final Pattern SALUDO = Pattern.compile(
+        "(hola|buenas|buen[oa]s (d[ií]as?|tardes?|noches?)|hey|hi|hello|dale|ok|okey|gracias|" +
+        "chau|adi[oó]s|hasta luego|nos vemos|c[oó]mo est[aá]s?|qu[eé] tal|qu[eé] onda|" +
+        "c[oó]mo and[aá]s?|todo bien|necesito ayuda|pod[eé]s ayudarme|ayuda|ayud[aá]me)[?!. ]*"
+    );
+
+    private static final Pattern DIGITO = Pattern.compile("\\d");
+
+    private static final Pattern SOBRE_EL_AGENTE = Pattern.compile(
+        "(qu[eé] eres|qui[eé]n eres|qu[eé] pod[eé]s hacer|para qu[eé] sirv[eé]s?|" +
+        "c[oó]mo funcionas?|qu[eé] sab[eé]s hacer|qu[eé] funciones? ten[eé]s?)"
+    );
+
+    // Terminadores de línea que no acepta '.' (sin DOTALL ni UNIX_LINES)
+    private static final Pattern SALTO_DE_LINEA = Pattern.compile("[\\n\\r\\u0085\\u2028\\u2029]");
+
+    private static final int LONGITUD_MENSAJE_CORTO = 15;
+
+    private static final List<Regla> REGLAS = List.of(
+        // Consultas que requieren cruzar transacciones Y compras con crédito, como
+        // "¿en qué categoría gasté más este mes?" o "desglose de gastos por categoría".
+        // Sin esta regla el LLM solo accede a una fuente y el análisis queda incompleto.
+        new Regla("analisis-integral", Pattern.compile(
+            // Preguntas interrogativas sobre dónde/cuánto/cuál en contexto de gasto o compra
+            "(en qu[eé]|d[oó]nde|cu[aá]l(es)?|qui[eé]n|cuanto|cu[aá]nto)" +
+            ".*(gast[eéoó]|compr[eéoó]|egres[eéoó]|invert[ií])" +
+            // Keywords de análisis/comparación explícitos
+            "|\\b(an[aá]lis[ií]s|analiz[aá]|desglose|distribuci[oó]n|ranking|" +
+            "top \\d|principales gastos|mayor gasto|m[aá]s gast[eéoó]|m[aá]s gastado|" +
+            "m[aá]s ingres[eéoó]|menos gast[eéoó])\\b" +
+            // Listado de gastos acotado a un período
+            "|\\b(gastos|egresos|compras|movimientos|transacciones)" +
+            "\\b.*(tuve|hice|ten[ií]a|hubo|del mes|este mes|mes pasado|" +
+            "del a[nñ]o|este a[nñ]o|[úu]ltimo mes|[úu]ltimos? \\d|en \\w+)" +
+            // Foco en categoría o motivo de forma comparativa
+            "|(categor[ií]a|motivo).*(m[aá]s|mayor|principal|top|lider)" +
+            "|(m[aá]s|mayor|principal).*(categor[ií]a|motivo)" +
+            // Foco en comercio / negocio / local
+            "|\\b(comercio|negocio|local|establecimiento|tienda|restaurante|" +
+            "supermercado|farmacia|combustible)\\b"),
+            List.of("obtenerResumenFinanciero", "buscarTransacciones", "listarMotivosTransacciones",
+                    "buscarTodasComprasCredito", "listarComprasCreditoPendientes",
+                    "listarTarjetasCredito")),
+
+        new Regla("saldos", Pattern.compile(
+            "\\b(balance|saldo|situaci[oó]n|resumen|general|actual|" +
+            "cu[aá]nto tengo|cu[aá]nto me queda|overview|dinero|plata|" +
+            "patrimonio|neto|activos|estado financiero|financiero)\\b"),
+            List.of("obtenerDashboardFinanciero", "obtenerResumenFinanciero", "listarCuentasBancarias")),
+
+        new Regla("transacciones", Pattern.compile(
+            "\\b(transacci[oó]n|transacciones|gasto|gastos|gast[eé]|gastando|" +
+            "ingreso|ingresos|ingres[eé]|egreso|egresos|movimiento|movimientos|" +
+            "pago|pagos|historial|registro|registros|reciente|[úu]ltim[oa]|" +
+            "mes|a[nñ]o|semana|hoy|ayer|categor[ií]a|cu[aá]nto gast|" +
+            "cu[aá]nto ingres|invert[ií])\\b"),
+            List.of("buscarTransacciones", "listarMotivosTransacciones")),
+
+        new Regla("tarjetas", Pattern.compile(
+            "\\b(tarjeta|tarjetas|cr[eé]dito|resumen|resúmenes|cuota|cuotas|" +
+            "visa|mastercard|cabal|amex|naranja|galicia|santander|bbva|macro|" +
+            "nacion|icbc|hsbc|debo pagar|vencimiento|pr[oó]ximo vencimiento|" +
+            "cierre|pr[oó]ximo cierre|deuda|deudas)\\b"),
+            List.of("listarTarjetasCredito", "listarResumenesTarjetas",
+                    "listarResumenesPorTarjeta", "listarCuotasPorTarjeta",
+                    "buscarTodasComprasCredito", "listarComprasCreditoPendientes")),
+
+        new Regla("cuentas", Pattern.compile(
+            "\\b(cuenta|cuentas|banco|bancaria|bancarias|transferencia|" +
+            "transferencias|ahorro|ahorros|caja de ahorro|cuenta corriente|" +
+            "saldo disponible|efectivo)\\b"),
+            List.of("listarCuentasBancarias")),
+
+        new Regla("contactos", Pattern.compile(
+            "\\b(contacto|contactos|emisor|destinatario|persona|personas|" +
+            "qui[eé]n|a qui[eé]n|pagaste|pagado|enviaste|le pag|cobr[eéoó]|" +
+            "recib[ií] de|pag[ué] a|compré en)\\b"),
+            List.of("listarContactosTransaccion"))
+    );
+
+    /**
+     * Selecciona las funciones a enviar al LLM para un mensaje.
+     *
+     * @param message Mensaje del usuario
+     * @return Nombres de las funciones (vacío si el mensaje no requiere datos)
+     */
+    public String[] seleccionarFunciones(String message) {
+        String msg = message.toLowerCase().trim();
+
+        // Ninguna regla acepta saltos de línea (ver JavaDoc de la clase)
+        if (SALTO_DE_LINEA.matcher(msg).find()) {
+            log.debug("seleccionarFunciones: mensaje con varias líneas – sin tools");
+            return new String[0];
+        }
+
+        // ── Sin tools: saludos, despedidas y mensajes sin intención financiera ──
+        // Sin tools el LLM responde solo desde el system prompt, donde la sección
+        // "RESTRICCIÓN ABSOLUTA DE DOMINIO" rechaza amablemente la pregunta.
+        boolean esSaludo = SALUDO.matcher(msg).matches();
+        boolean esMuyCorto = msg.length() <= LONGITUD_MENSAJE_CORTO && !DIGITO.matcher(msg).find();
+        boolean esSobreElAgente = SOBRE_EL_AGENTE.matcher(msg).find();
+
+        if (esSaludo || esMuyCorto || esSobreElAgente) {
+            log.debug("seleccionarFunciones: mensaje genérico/saludo detectado – sin tools");
+            return new String[0];
+        }
+
+        Set<String> fns = new LinkedHashSet<>();
+        for (Regla regla : REGLAS) {
+            if (regla.patron().matcher(msg).find()) {
+                fns.addAll(regla.funciones());
+            }
+        }
+
+        // ── Fallback: sin keywords financieras → off-topic ──
+        if (fns.isEmpty()) {
+            log.debug("seleccionarFunciones: sin keywords financieras detectadas – sin tools (posible off-topic)");
+            return new String[0];
+        }
+
+        log.debug("seleccionarFunciones: mensaje='{}' → funciones={}", message.substring(0, Math.min(60, message.length())), fns);
+        return fns.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,317 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dto.ChatMessageDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compacta el historial de conversación que envía el frontend antes de armar el prompt.
+ *
+ * <ul>
+ *   <li>Los últimos {@code agente.prompt.turnos-recientes} turnos (pregunta + respuesta) van
+ *       textuales, con las tablas largas recortadas a {@code max-filas-tabla} filas y cada
+ *       mensaje acotado a {@code max-tokens-mensaje}.</li>
+ *   <li>Los turnos anteriores se reemplazan por un resumen extractivo: una línea por mensaje
+ *       (pregunta, primera línea de la respuesta y sus montos), acotado a
+ *       {@code max-tokens-resumen} conservando las líneas más nuevas.</li>
+ *   <li>Si el prompt completo supera {@code presupuesto-tokens}, los turnos textuales más
+ *       viejos pasan al resumen hasta que entre (siempre queda el último turno).</li>
+ * </ul>
+ *
+ * Las líneas del resumen se cachean por mensaje: entre un turno y el siguiente solo se
+ * resumen los mensajes que acaban de salir de la ventana textual. La clave es el espacio de
+ * trabajo más el SHA-256 del contenido: la caché es del proceso y una colisión no puede
+ * poner en el prompt de un espacio la línea (con montos) de otro.
+ */
+@Component
+@Slf4j
+public class CompactadorHistorial {
+
+    private static final String ROL_USUARIO = "user";
+    private static final String ROL_ASISTENTE = "assistant";
+    private static final String ENCABEZADO_RESUMEN = "Resumen de la conversación anterior (solo como contexto, los datos pueden estar desactualizados):";
+    private static final int MIN_MENSAJES_TEXTUALES = 2;
+    private static final int MAX_CARACTERES_LINEA = 160;
+    private static final int MAX_MONTOS_LINEA = 3;
+
+    private static final Pattern FILA_TABLA = Pattern.compile("^\\s*\\|.*\\|\\s*$");
+    private static final Pattern MONTO = Pattern.compile("\\$\\s?\\d[\\d.,]*\\d|\\$\\s?\\d");
+    private static final Pattern MARCAS_MARKDOWN = Pattern.compile("[*_`#>]+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    /**
+     * Mensaje del historial con su contenido recortado y los tokens estimados de ese contenido.
+     */
+    private record Turno(ChatMessageDTO original, String contenido, int tokens) {
+    }
+
+    /**
+     * Clave de caché de la línea de resumen de un mensaje: espacio de trabajo, rol y SHA-256
+     * del contenido (sin retener el contenido completo).
+     */
+    private record ClaveMensaje(UUID espacioTrabajoId, String rol, String sha256) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int presupuestoTokens;
+    private final int mensajesRecientes;
+    private final int maxTokensMensaje;
+    private final int maxFilasTabla;
+    private final int maxTokensResumen;
+    private final Cache<ClaveMensaje, String> lineasResumen;
+    private final Counter tokensAhorrados;
+
+    public CompactadorHistorial(MeterRegistry meterRegistry,
+                                @Value("${agente.prompt.presupuesto-tokens:6000}") int presupuestoTokens,
+                                @Value("${agente.prompt.turnos-recientes:3}") int turnosRecientes,
+                                @Value("${agente.prompt.max-tokens-mensaje:600}") int maxTokensMensaje,
+                                @Value("${agente.prompt.max-filas-tabla:8}") int maxFilasTabla,
+                                @Value("${agente.prompt.max-tokens-resumen:400}") int maxTokensResumen,
+                                @Value("${agente.prompt.resumen.cache.max-entradas:10000}") long maxEntradas,
+                                @Value("${agente.prompt.resumen.cache.ttl-minutos:60}") long ttlMinutos) {
+        this.meterRegistry = meterRegistry;
+        this.presupuestoTokens = presupuestoTokens;
+        this.mensajesRecientes = turnosRecientes * 2;
+        this.maxTokensMensaje = maxTokensMensaje;
+        this.maxFilasTabla = maxFilasTabla;
+        this.maxTokensResumen = maxTokensResumen;
+        this.lineasResumen = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+
+        // 📊 MÉTRICA: Hits, misses, tamaño y evicciones de la caché de líneas de resumen
+        CaffeineCacheMetrics.monitor(meterRegistry, lineasResumen, MetricsConfig.MetricNames.CACHE_AGENTE_RESUMEN);
+        this.tokensAhorrados = Counter.builder(MetricsConfig.MetricNames.AGENTE_PROMPT_TOKENS_AHORRADOS)
+                .description("Tokens de prompt (estimados) ahorrados al compactar el historial")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compacta el historial de la conversación.
+     *
+     * @param espacioTrabajoId Espacio de trabajo de la conversación (alcance de la caché de resúmenes)
+     * @param historial Historial enviado por el frontend (puede ser null)
+     * @param tokensFijos Tokens del resto del prompt (system prompt y mensaje actual)
+     * @return Mensajes a insertar entre el system prompt y el mensaje actual
+     */
+    public List<Message> compactar(UUID espacioTrabajoId, List<ChatMessageDTO> historial, int tokensFijos) {
+        List<ChatMessageDTO> mensajes = historial == null ? List.of() : historial.stream()
+                .filter(m -> m != null && StringUtils.hasText(m.content())
+                        && (ROL_USUARIO.equals(m.role()) || ROL_ASISTENTE.equals(m.role())))
+                .toList();
+        int tokensOriginales = tokensFijos + mensajes.stream()
+                .mapToInt(m -> EstimadorTokens.estimarMensaje(m.content()))
+                .sum();
+
+        int desde = Math.max(0, mensajes.size() - mensajesRecientes);
+        List<ChatMessageDTO> resumidos = new ArrayList<>(mensajes.subList(0, desde));
+        Deque<Turno> textuales = new ArrayDeque<>();
+        int tokensTextuales = 0;
+        for (ChatMessageDTO mensaje : mensajes.subList(desde, mensajes.size())) {
+            String contenido = recortar(mensaje);
+            int tokens = EstimadorTokens.estimarMensaje(contenido);
+            textuales.add(new Turno(mensaje, contenido, tokens));
+            tokensTextuales += tokens;
+        }
+
+        String resumen = resumir(espacioTrabajoId, resumidos);
+        // Fuera de presupuesto: el turno textual más viejo pasa al resumen
+        while (textuales.size() > MIN_MENSAJES_TEXTUALES
+                && tokensFijos + tokensResumen(resumen) + tokensTextuales > presupuestoTokens) {
+            Turno turno = textuales.pollFirst();
+            tokensTextuales -= turno.tokens();
+            resumidos.add(turno.original());
+            resumen = resumir(espacioTrabajoId, resumidos);
+        }
+
+        List<Message> resultado = new ArrayList<>(textuales.size() + 1);
+        int tokensCompactados = tokensFijos + tokensResumen(resumen) + tokensTextuales;
+        if (resumen != null) {
+            resultado.add(new SystemMessage(resumen));
+        }
+        for (Turno turno : textuales) {
+            resultado.add(ROL_USUARIO.equals(turno.original().role())
+                    ? new UserMessage(turno.contenido())
+                    : new AssistantMessage(turno.contenido()));
+        }
+
+        registrarMetricas(tokensOriginales, tokensCompactados);
+        if (!resumidos.isEmpty()) {
+            log.debug("Historial compactado: {} mensajes resumidos, {} textuales, tokens {} -> {}",
+                    resumidos.size(), textuales.size(), tokensOriginales, tokensCompactados);
+        }
+        return resultado;
+    }
+
+    private static int tokensResumen(String resumen) {
+        return resumen == null ? 0 : EstimadorTokens.estimarMensaje(resumen);
+    }
+
+    /**
+     * Recorta las tablas largas (respuestas con datos de tools) y acota el largo del mensaje.
+     */
+    private String recortar(ChatMessageDTO mensaje) {
+        String contenido = ROL_ASISTENTE.equals(mensaje.role())
+                ? recortarTablas(mensaje.content())
+                : mensaje.content();
+        int tokens = EstimadorTokens.estimar(contenido);
+        if (tokens <= maxTokensMensaje) {
+            return contenido;
+        }
+        int caracteres = (int) ((long) contenido.length() * maxTokensMensaje / tokens);
+        return contenido.substring(0, caracteres) + "\n[… mensaje recortado]";
+    }
+
+    /**
+     * Conserva encabezado, separador y las primeras {@code max-filas-tabla} filas de cada tabla markdown.
+     */
+    private String recortarTablas(String contenido) {
+        if (contenido.indexOf('|') < 0) {
+            return contenido;
+        }
+        List<String> salida = new ArrayList<>();
+        int filas = 0;
+        int omitidas = 0;
+        for (String linea : contenido.split("\n", -1)) {
+            if (FILA_TABLA.matcher(linea).matches()) {
+                filas++;
+                if (filas > maxFilasTabla + 2) {
+                    omitidas++;
+                    continue;
+                }
+            } else {
+                agregarOmitidas(salida, omitidas);
+                filas = 0;
+                omitidas = 0;
+            }
+            salida.add(linea);
+        }
+        agregarOmitidas(salida, omitidas);
+        return String.join("\n", salida);
+    }
+
+    private static void agregarOmitidas(List<String> salida, int omitidas) {
+        if (omitidas > 0) {
+            salida.add("| … " + omitidas + " filas omitidas |");
+        }
+    }
+
+    /**
+     * Resumen de los mensajes más viejos, conservando las líneas más nuevas que entren en
+     * {@code max-tokens-resumen}. Null si no hay mensajes para resumir.
+     */
+    private String resumir(UUID espacioTrabajoId, List<ChatMessageDTO> mensajes) {
+        if (mensajes.isEmpty()) {
+            return null;
+        }
+        Deque<String> lineas = new ArrayDeque<>();
+        int tokens = EstimadorTokens.estimar(ENCABEZADO_RESUMEN);
+        for (int i = mensajes.size() - 1; i >= 0; i--) {
+            String linea = lineaResumen(espacioTrabajoId, mensajes.get(i));
+            int tokensLinea = EstimadorTokens.estimar(linea);
+            if (tokens + tokensLinea > maxTokensResumen) {
+                lineas.addFirst("- (" + (i + 1) + " mensajes anteriores omitidos)");
+                break;
+            }
+            lineas.addFirst(linea);
+            tokens += tokensLinea;
+        }
+        lineas.addFirst(ENCABEZADO_RESUMEN);
+        return String.join("\n", lineas);
+    }
+
+    private String lineaResumen(UUID espacioTrabajoId, ChatMessageDTO mensaje) {
+        String contenido = mensaje.content();
+        ClaveMensaje clave = new ClaveMensaje(espacioTrabajoId, mensaje.role(), sha256(contenido));
+        return lineasResumen.get(clave, k -> ROL_USUARIO.equals(mensaje.role())
+                ? "- Usuario: " + fragmento(contenido)
+                : "- Asistente: " + fragmento(primeraLineaDeTexto(contenido)) + montos(contenido));
+    }
+
+    private static String sha256(String contenido) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Primera línea con texto de la respuesta (sin tablas ni separadores).
+     */
+    private static String primeraLineaDeTexto(String contenido) {
+        for (String linea : contenido.split("\n")) {
+            String limpia = MARCAS_MARKDOWN.matcher(linea).replaceAll("").strip();
+            if (!limpia.isEmpty() && !FILA_TABLA.matcher(linea).matches() && !limpia.startsWith("---")) {
+                return limpia;
+            }
+        }
+        return "";
+    }
+
+    private static String montos(String contenido) {
+        Set<String> montos = new LinkedHashSet<>();
+        Matcher matcher = MONTO.matcher(contenido);
+        while (montos.size() < MAX_MONTOS_LINEA && matcher.find()) {
+            montos.add(ESPACIOS.matcher(matcher.group()).replaceAll(""));
+        }
+        return montos.isEmpty() ? "" : " (montos: " + String.join(", ", montos) + ")";
+    }
+
+    private static String fragmento(String texto) {
+        String plano = ESPACIOS.matcher(MARCAS_MARKDOWN.matcher(texto).replaceAll("")).replaceAll(" ").strip();
+        return plano.length() <= MAX_CARACTERES_LINEA ? plano : plano.substring(0, MAX_CARACTERES_LINEA) + "…";
+    }
+
+    private void registrarMetricas(int tokensOriginales, int tokensCompactados) {
+        // 📊 MÉTRICA: Tokens de prompt estimados antes y después de compactar
+        DistributionSummary.builder(MetricsConfig.MetricNames.AGENTE_PROMPT_TOKENS)
+                .description("Tokens de prompt estimados por request al agente IA")
+                .tag("etapa", "original")
+                .register(meterRegistry)
+                .record(tokensOriginales);
+        DistributionSummary.builder(MetricsConfig.MetricNames.AGENTE_PROMPT_TOKENS)
+                .description("Tokens de prompt estimados por request al agente IA")
+                .tag("etapa", "compactado")
+                .register(meterRegistry)
+                .record(tokensCompactados);
+
+        // 📊 MÉTRICA: Tokens ahorrados por la compactación
+        if (tokensOriginales > tokensCompactados) {
+            tokensAhorrados.increment(tokensOriginales - tokensCompactados);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.AsyncConfig;
+import com.campito.backend.config.MetricsConfig;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallbackResolver;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecuta las tools que el LLM pide en un mismo turno.
+ *
+ * Spring AI ejecuta las tool calls de un mensaje del asistente una detrás de otra, así que un
+ * turno que pide tarjetas, resúmenes y cuentas tarda la suma de las tres consultas. Con
+ * {@link #opciones()} el modelo devuelve las tool calls sin ejecutarlas y
+ * {@code AgenteIAServiceImpl} las despacha acá: cada una en su propio virtual thread
+ * ({@link AsyncConfig#AGENTE_TOOLS_FANOUT_EXECUTOR}), que invoca la función registrada en
+ * {@code AgenteAIConfig} y por lo tanto pasa por {@link AgenteToolExecutor}. La concurrencia
+ * contra la base sigue acotada por el executor de tools; el turno tarda lo que la más lenta.
+ *
+ * Los resultados se devuelven en el orden de las tool calls, cada uno con su id, y el
+ * contexto de seguridad viaja en el {@link ToolContext} como antes.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "agente.ia.enabled", havingValue = "true", matchIfMissing = false)
+public class DespachadorTools {
+
+    private final FunctionCallbackResolver functionCallbackResolver;
+    private final ExecutorService fanout;
+    private final MeterRegistry meterRegistry;
+    private final int maxRondas;
+    private final DistributionSummary tamanioTurno;
+
+    public DespachadorTools(FunctionCallbackResolver functionCallbackResolver,
+                            @Qualifier(AsyncConfig.AGENTE_TOOLS_FANOUT_EXECUTOR) ExecutorService fanout,
+                            MeterRegistry meterRegistry,
+                            @Value("${agente.tools.max-rondas:5}") int maxRondas) {
+        this.functionCallbackResolver = functionCallbackResolver;
+        this.fanout = fanout;
+        this.meterRegistry = meterRegistry;
+        this.maxRondas = maxRondas;
+
+        // 📊 MÉTRICA: Cantidad de tools pedidas por turno
+        this.tamanioTurno = DistributionSummary.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_FANOUT)
+                .description("Tools pedidas por el LLM en un mismo turno")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opciones del prompt: el modelo devuelve las tool calls en lugar de ejecutarlas.
+     * Se crea una instancia por llamada porque el ChatClient le agrega las funciones.
+     */
+    public static ChatOptions opciones() {
+        return OpenAiChatOptions.builder()
+                .proxyToolCalls(true)
+                .build();
+    }
+
+    /**
+     * @param respuesta Respuesta (o fragmento) del LLM
+     * @return true si el asistente pide ejecutar tools
+     */
+    public static boolean pideTools(ChatResponse respuesta) {
+        return respuesta != null
+                && respuesta.getResult() != null
+                && respuesta.getResult().getOutput().hasToolCalls();
+    }
+
+    /**
+     * Despacha en paralelo las tool calls del mensaje del asistente.
+     *
+     * @param asistente Mensaje del asistente con las tool calls
+     * @param contextoHerramientas Contexto creado con {@link AgenteToolExecutor#contextoHerramientas}
+     * @param ronda Número de turno de tools de la interacción (desde 1)
+     * @return Resultados en el orden de las tool calls; si alguna falla, el error de la primera que falló
+     * @throws IllegalStateException si se supera {@code agente.tools.max-rondas} o la tool no existe
+     */
+    public CompletableFuture<ToolResponseMessage> ejecutar(AssistantMessage asistente,
+                                                           Map<String, Object> contextoHerramientas,
+                                                           int ronda) {
+        if (ronda > maxRondas) {
+            throw new IllegalStateException("El asistente encadenó demasiadas consultas sin responder. Intentá reformular la pregunta.");
+        }
+        List<AssistantMessage.ToolCall> llamadas = asistente.getToolCalls();
+        ToolContext toolContext = new ToolContext(contextoHerramientas);
+        long inicio = System.nanoTime();
+
+        List<CompletableFuture<ToolResponseMessage.ToolResponse>> resultados = new ArrayList<>(llamadas.size());
+        for (AssistantMessage.ToolCall llamada : llamadas) {
+            FunctionCallback callback = functionCallbackResolver.resolve(llamada.name());
+            if (callback == null) {
+                throw new IllegalStateException("Tool desconocida: " + llamada.name());
+            }
+            resultados.add(CompletableFuture.supplyAsync(
+                    () -> new ToolResponseMessage.ToolResponse(llamada.id(), llamada.name(),
+                            callback.call(llamada.arguments(), toolContext)),
+                    fanout));
+        }
+        log.debug("Turno {} del agente: {} tools despachadas", ronda, llamadas.size());
+
+        return CompletableFuture.allOf(resultados.toArray(CompletableFuture[]::new))
+                .handle((ignorado, error) -> {
+                    // 📊 MÉTRICA: Fan-out y duración del turno (la tool más lenta, no la suma)
+                    tamanioTurno.record(llamadas.size());
+                    Timer.builder(MetricsConfig.MetricNames.AGENTE_TOOLS_TURNO)
+                            .description("Duración de un turno de tools del agente IA")
+                            .tag("modo", llamadas.size() > 1 ? "paralelo" : "serie")
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+                    // join en orden: si alguna falló, se propaga la primera según el orden de las tool calls
+                    return new ToolResponseMessage(resultados.stream().map(CompletableFuture::join).toList());
+                });
+    }
+
+    /**
+     * Versión bloqueante de {@link #ejecutar} para el chat (hilo del request).
+     */
+    public ToolResponseMessage ejecutarYEsperar(AssistantMessage asistente,
+                                                Map<String, Object> contextoHerramientas,
+                                                int ronda) {
+        try {
+            return ejecutar(asistente, contextoHerramientas, ronda).join();
+        } catch (CompletionException e) {
+            // Propagar la excepción original de la tool (ForbiddenException, timeout, etc.)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.campito.backend.service.agentAI;
+
+/**
+ * Estimación local de tokens, sin tokenizer del proveedor.
+ *
+ * Aproxima el comportamiento de los tokenizers BPE (Llama 3, GPT): las palabras aportan
+ * un token cada ~4 letras, los números uno cada ~3 dígitos y cada signo o símbolo cuenta
+ * como uno. Los espacios se funden con la palabra siguiente. No es exacta, pero alcanza
+ * para presupuestos de prompt y métricas.
+ */
+public final class EstimadorTokens {
+
+    /**
+     * Tokens extra por mensaje (rol y separadores del formato de chat).
+     */
+    public static final int TOKENS_POR_MENSAJE = 4;
+
+    private EstimadorTokens() {
+    }
+
+    /**
+     * @param texto Texto a estimar (puede ser null)
+     * @return Tokens estimados
+     */
+    public static int estimar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        int letras = 0;
+        int digitos = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (Character.isLetter(c)) {
+                tokens += cerrar(digitos, 3);
+                digitos = 0;
+                letras++;
+            } else if (Character.isDigit(c)) {
+                tokens += cerrar(letras, 4);
+                letras = 0;
+                digitos++;
+            } else {
+                tokens += cerrar(letras, 4) + cerrar(digitos, 3);
+                letras = 0;
+                digitos = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens + cerrar(letras, 4) + cerrar(digitos, 3);
+    }
+
+    /**
+     * @param texto Contenido de un mensaje de chat
+     * @return Tokens estimados del mensaje, incluyendo el overhead del formato
+     */
+    public static int estimarMensaje(String texto) {
+        return estimar(texto) + TOKENS_POR_MENSAJE;
+    }
+
+    private static int cerrar(int largo, int porToken) {
+        return (largo + porToken - 1) / porToken;
+    }
+}
@@ -0,0 +1,324 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.AgenteSaturadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita las llamadas concurrentes al LLM en este nodo.
+ *
+ * {@link com.campito.backend.security.RateLimitService} limita por usuario, pero un pico de
+ * usuarios distintos puede abrir decenas de streams a Groq a la vez: todos reciben 429 y cada
+ * uno reintenta dos veces, multiplicando la carga. El gobernador admite hasta {@code limite}
+ * llamadas en vuelo y encola el resto en orden de llegada (FIFO), con una espera máxima.
+ *
+ * El límite se ajusta con AIMD: cada respuesta rápida de una llamada que corrió con el nodo
+ * saturado (ocupó el último lugar o esperó en cola) lo sube en {@code 1/limite} (≈ +1 por
+ * ronda completa de llamadas) y cada 429 o latencia por encima del objetivo lo multiplica por
+ * {@code factor-reduccion}, como mucho una vez por período de enfriamiento para que una ráfaga
+ * de 429 simultáneos cuente como una sola señal.
+ *
+ * Con la cola llena o la espera agotada se rechaza con {@link AgenteSaturadoException}:
+ * HTTP 503 en el chat y evento de error en el stream.
+ */
+@Component
+@Slf4j
+public class GobernadorConcurrenciaLlm {
+
+    /**
+     * Cómo terminó una llamada al LLM.
+     */
+    public enum Resultado {
+        EXITO, LIMITE_TASA, ERROR, CANCELADO
+    }
+
+    private static final String MENSAJE_SATURADO =
+            "El asistente está atendiendo muchas consultas en este momento. Intentá de nuevo en unos segundos.";
+
+    private final MeterRegistry meterRegistry;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final int maxCola;
+    private final long maxEsperaMs;
+    private final long latenciaObjetivoNanos;
+    private final double factorReduccion;
+    private final long enfriamientoNanos;
+    private final Timer espera;
+
+    // Estado protegido por 'this'
+    private final ArrayDeque<CompletableFuture<Permiso>> cola = new ArrayDeque<>();
+    private double limite;
+    private int enVuelo;
+    private long ultimaReduccion;
+
+    public GobernadorConcurrenciaLlm(MeterRegistry meterRegistry,
+                                     @Value("${agente.llm.concurrencia.inicial:8}") int limiteInicial,
+                                     @Value("${agente.llm.concurrencia.minimo:1}") int limiteMinimo,
+                                     @Value("${agente.llm.concurrencia.maximo:32}") int limiteMaximo,
+                                     @Value("${agente.llm.concurrencia.max-cola:100}") int maxCola,
+                                     @Value("${agente.llm.concurrencia.max-espera-ms:10000}") long maxEsperaMs,
+                                     @Value("${agente.llm.concurrencia.latencia-objetivo-ms:8000}") long latenciaObjetivoMs,
+                                     @Value("${agente.llm.concurrencia.factor-reduccion:0.5}") double factorReduccion,
+                                     @Value("${agente.llm.concurrencia.enfriamiento-ms:2000}") long enfriamientoMs) {
+        this.meterRegistry = meterRegistry;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.maxCola = maxCola;
+        this.maxEsperaMs = maxEsperaMs;
+        this.latenciaObjetivoNanos = TimeUnit.MILLISECONDS.toNanos(latenciaObjetivoMs);
+        this.factorReduccion = factorReduccion;
+        this.enfriamientoNanos = TimeUnit.MILLISECONDS.toNanos(enfriamientoMs);
+        this.limite = Math.max(limiteMinimo, Math.min(limiteMaximo, limiteInicial));
+        this.ultimaReduccion = System.nanoTime() - enfriamientoNanos;
+
+        // 📊 MÉTRICA: Profundidad de la cola, llamadas en vuelo y límite actual
+        Gauge.builder(MetricsConfig.MetricNames.AGENTE_LLM_COLA, this, GobernadorConcurrenciaLlm::enCola)
+                .description("Llamadas al LLM esperando un lugar en el gobernador de concurrencia")
+                .register(meterRegistry);
+        Gauge.builder(MetricsConfig.MetricNames.AGENTE_LLM_EN_VUELO, this, GobernadorConcurrenciaLlm::enVuelo)
+                .description("Llamadas al LLM en curso en este nodo")
+                .register(meterRegistry);
+        Gauge.builder(MetricsConfig.MetricNames.AGENTE_LLM_LIMITE, this, GobernadorConcurrenciaLlm::limite)
+                .description("Límite adaptativo (AIMD) de llamadas concurrentes al LLM")
+                .register(meterRegistry);
+        this.espera = Timer.builder(MetricsConfig.MetricNames.AGENTE_LLM_ESPERA)
+                .description("Espera en cola antes de llamar al LLM")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pide un lugar para llamar al LLM. El futuro se completa con el permiso cuando hay lugar,
+     * o con {@link AgenteSaturadoException} si la cola está llena o se agota la espera.
+     * Cancelar el futuro abandona la cola.
+     */
+    public CompletableFuture<Permiso> adquirir() {
+        long inicio = System.nanoTime();
+        CompletableFuture<Permiso> turno;
+        synchronized (this) {
+            if (cola.isEmpty() && enVuelo < (int) limite) {
+                enVuelo++;
+                espera.record(0, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(new Permiso(enVuelo >= (int) limite));
+            }
+            if (cola.size() >= maxCola) {
+                rechazar("cola_llena");
+                return CompletableFuture.failedFuture(new AgenteSaturadoException(MENSAJE_SATURADO));
+            }
+            turno = new CompletableFuture<>();
+            cola.addLast(turno);
+        }
+
+        CompletableFuture.delayedExecutor(maxEsperaMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (turno.completeExceptionally(new AgenteSaturadoException(MENSAJE_SATURADO))) {
+                rechazar("timeout");
+            }
+        });
+        turno.whenComplete((permiso, error) -> {
+            if (error == null) {
+                espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            } else {
+                synchronized (this) {
+                    cola.remove(turno);
+                }
+            }
+        });
+        return turno;
+    }
+
+    /**
+     * Versión reactiva de {@link #adquirir()} para el stream. Si el cliente cancela mientras
+     * espera, abandona la cola; si el lugar llegó justo antes de cancelar, se libera.
+     */
+    public Mono<Permiso> adquirirReactivo() {
+        return Mono.create(sink -> {
+            CompletableFuture<Permiso> turno = adquirir();
+            sink.onCancel(() -> {
+                if (!turno.cancel(false)) {
+                    turno.thenAccept(permiso -> permiso.liberar(Resultado.CANCELADO));
+                }
+            });
+            turno.whenComplete((permiso, error) -> {
+                if (error != null) {
+                    sink.error(error);
+                } else {
+                    sink.success(permiso);
+                }
+            });
+        });
+    }
+
+    /**
+     * Versión bloqueante de {@link #adquirir()} para el chat (hilo del request).
+     *
+     * @throws AgenteSaturadoException si no se consigue lugar
+     */
+    public Permiso adquirirBloqueante() {
+        CompletableFuture<Permiso> turno = adquirir();
+        try {
+            return turno.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            turno.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new AgenteSaturadoException(MENSAJE_SATURADO);
+        }
+    }
+
+    /**
+     * @param e Error de una llamada al LLM
+     * @return true si es un 429 del proveedor (directo o envuelto por Spring AI)
+     */
+    public static boolean esLimiteDeTasa(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException.TooManyRequests
+                    || t instanceof HttpClientErrorException.TooManyRequests
+                    || (t.getMessage() != null && t.getMessage().startsWith("429"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lugar ocupado por una llamada al LLM. Se libera una sola vez.
+     */
+    public final class Permiso {
+
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean liberado = new AtomicBoolean();
+        private final boolean saturado;
+        private volatile long latencia = -1;
+
+        private Permiso(boolean saturado) {
+            this.saturado = saturado;
+        }
+
+        /**
+         * Marca la llegada del primer token: en streaming es la latencia que se compara con el objetivo.
+         */
+        public void primeraRespuesta() {
+            if (latencia < 0) {
+                latencia = System.nanoTime() - inicio;
+            }
+        }
+
+        /**
+         * Informa un 429 sin liberar el lugar (la llamada va a reintentar).
+         */
+        public void limiteDeTasa() {
+            reducir("429");
+        }
+
+        public void liberar(Resultado resultado) {
+            if (liberado.compareAndSet(false, true)) {
+                GobernadorConcurrenciaLlm.this.liberar(resultado, saturado,
+                        latencia >= 0 ? latencia : System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    private void liberar(Resultado resultado, boolean saturado, long latenciaNanos) {
+        List<CompletableFuture<Permiso>> admitidos;
+        if (resultado == Resultado.LIMITE_TASA) {
+            reducir("429");
+        } else if (resultado == Resultado.EXITO) {
+            if (latenciaNanos > latenciaObjetivoNanos) {
+                reducir("latencia");
+            } else if (saturado) {
+                // Solo una llamada que ocupó el último lugar prueba que el límite es escaso:
+                // con el nodo ocioso el límite no sube, o dejaría de limitar tras un período tranquilo
+                synchronized (this) {
+                    limite = Math.min(limiteMaximo, limite + 1.0 / limite);
+                }
+            }
+        }
+        synchronized (this) {
+            enVuelo--;
+            admitidos = admitir();
+        }
+        entregar(admitidos);
+    }
+
+    private void reducir(String motivo) {
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            if (ahora - ultimaReduccion < enfriamientoNanos) {
+                return;
+            }
+            ultimaReduccion = ahora;
+            double anterior = limite;
+            limite = Math.max(limiteMinimo, limite * factorReduccion);
+            log.warn("Gobernador LLM: límite {} → {} por {}", (int) anterior, (int) limite, motivo);
+        }
+    }
+
+    /**
+     * Reserva los lugares libres para los primeros de la cola. Se llama con el lock tomado.
+     */
+    private List<CompletableFuture<Permiso>> admitir() {
+        List<CompletableFuture<Permiso>> admitidos = new ArrayList<>();
+        while (enVuelo < (int) limite && !cola.isEmpty()) {
+            admitidos.add(cola.pollFirst());
+            enVuelo++;
+        }
+        return admitidos;
+    }
+
+    /**
+     * Completa los turnos admitidos fuera del lock: quien espera retoma en este hilo.
+     * Un turno vencido o cancelado devuelve su lugar al siguiente de la cola.
+     */
+    private void entregar(List<CompletableFuture<Permiso>> admitidos) {
+        for (CompletableFuture<Permiso> turno : admitidos) {
+            // Quien salió de la cola esperó lugar: la llamada corrió con el nodo saturado
+            if (!turno.complete(new Permiso(true))) {
+                List<CompletableFuture<Permiso>> siguientes;
+                synchronized (this) {
+                    enVuelo--;
+                    siguientes = admitir();
+                }
+                entregar(siguientes);
+            }
+        }
+    }
+
+    private void rechazar(String motivo) {
+        // 📊 MÉTRICA: Llamadas al LLM rechazadas por saturación del nodo
+        Counter.builder(MetricsConfig.MetricNames.AGENTE_LLM_RECHAZADAS)
+                .description("Llamadas al LLM rechazadas por el gobernador de concurrencia")
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private synchronized double enCola() {
+        return cola.size();
+    }
+
+    private synchronized double enVuelo() {
+        return enVuelo;
+    }
+
+    private synchronized double limite() {
+        return (int) limite;
+    }
+}
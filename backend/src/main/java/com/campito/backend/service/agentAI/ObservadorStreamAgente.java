@@ -0,0 +1,190 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dto.AgenteChatRequestDTO;
+import com.campito.backend.model.AgenteAuditLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.SignalType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Observa un stream de respuesta del agente IA: tiempo hasta el primer token, intervalos
+ * entre tokens, duración total, tokens emitidos y tools invocadas.
+ *
+ * Al terminar el stream (completo, con error o cancelado por el cliente) registra las
+ * métricas y una única fila de auditoría, que {@link AgenteAuditoriaService} encola y
+ * persiste en lotes fuera del hilo del stream.
+ *
+ * Los tokens se toman de la metadata de uso del proveedor; si no viene (Groq no la envía
+ * en streaming salvo que se pida), se estiman con {@link EstimadorTokens}.
+ *
+ * Una instancia por stream. Reactor serializa las señales, por lo que el estado no
+ * necesita sincronización salvo el cierre, que puede llegar desde otro hilo al cancelar.
+ */
+@Slf4j
+public class ObservadorStreamAgente {
+
+    private static final int MAX_LARGO_COLUMNA = 500;
+
+    private final MeterRegistry meterRegistry;
+    private final AgenteAuditoriaService agenteAuditoriaService;
+    private final UUID userId;
+    private final AgenteChatRequestDTO request;
+    private final RegistroToolsInvocadas toolsInvocadas;
+    private final Timer entreTokens;
+
+    private final StringBuilder respuesta = new StringBuilder();
+    private final AtomicBoolean finalizado = new AtomicBoolean();
+    private long inicio;
+    private long ultimoToken;
+    private long tokensReportados;
+    private String error;
+
+    public ObservadorStreamAgente(MeterRegistry meterRegistry,
+                                  AgenteAuditoriaService agenteAuditoriaService,
+                                  UUID userId,
+                                  AgenteChatRequestDTO request,
+                                  RegistroToolsInvocadas toolsInvocadas) {
+        this.meterRegistry = meterRegistry;
+        this.agenteAuditoriaService = agenteAuditoriaService;
+        this.userId = userId;
+        this.request = request;
+        this.toolsInvocadas = toolsInvocadas;
+        this.inicio = System.nanoTime();
+        this.entreTokens = Timer.builder(MetricsConfig.MetricNames.AGENTE_STREAM_ENTRE_TOKENS)
+                .description("Intervalo entre tokens consecutivos del stream del LLM")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marca el inicio del stream (suscripción del cliente).
+     */
+    public void alSuscribirse() {
+        inicio = System.nanoTime();
+    }
+
+    /**
+     * Procesa un fragmento de la respuesta del LLM.
+     *
+     * @param fragmento Fragmento recibido del stream
+     */
+    public void alRecibir(ChatResponse fragmento) {
+        Usage uso = fragmento.getMetadata() != null ? fragmento.getMetadata().getUsage() : null;
+        if (uso != null && uso.getTotalTokens() != null && uso.getTotalTokens() > 0) {
+            tokensReportados = Math.max(tokensReportados, uso.getTotalTokens());
+        }
+
+        String contenido = contenido(fragmento);
+        if (contenido == null || contenido.isEmpty()) {
+            return;
+        }
+
+        long ahora = System.nanoTime();
+        if (ultimoToken == 0) {
+            // 📊 MÉTRICA: Tiempo hasta el primer token (TTFT)
+            Timer.builder(MetricsConfig.MetricNames.AGENTE_STREAM_PRIMER_TOKEN)
+                    .description("Tiempo hasta el primer token del stream del LLM")
+                    .register(meterRegistry)
+                    .record(ahora - inicio, TimeUnit.NANOSECONDS);
+        } else {
+            // 📊 MÉTRICA: Intervalo entre tokens
+            entreTokens.record(ahora - ultimoToken, TimeUnit.NANOSECONDS);
+        }
+        ultimoToken = ahora;
+        respuesta.append(contenido);
+    }
+
+    /**
+     * Registra el error que terminó el stream.
+     *
+     * @param e Error recibido
+     */
+    public void alFallar(Throwable e) {
+        error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Cierra la observación: métricas y fila de auditoría. Solo tiene efecto la primera vez.
+     *
+     * @param senal Señal con la que terminó el stream
+     */
+    public void alFinalizar(SignalType senal) {
+        if (!finalizado.compareAndSet(false, true)) {
+            return;
+        }
+
+        String resultado = switch (senal) {
+            case ON_COMPLETE -> "exitoso";
+            case CANCEL -> "cancelado";
+            default -> "error";
+        };
+        long tokens = tokensReportados > 0
+                ? tokensReportados
+                : EstimadorTokens.estimar(respuesta.toString());
+        List<String> functionsCalled = toolsInvocadas.nombres();
+
+        // 📊 MÉTRICA: Duración total del stream
+        Timer.builder(MetricsConfig.MetricNames.AGENTE_LATENCIA)
+                .description("Latencia de respuesta del LLM")
+                .tag("tipo", "stream")
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        // 📊 MÉTRICA: Contador de streams por resultado
+        Counter.builder(MetricsConfig.MetricNames.AGENTE_REQUESTS)
+                .description("Total de requests al agente IA")
+                .tag("tipo", "stream")
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+
+        // 📊 MÉTRICA: Tokens consumidos (reportados por el proveedor o estimados)
+        if (tokens > 0) {
+            Counter.builder(MetricsConfig.MetricNames.AGENTE_TOKENS_CONSUMIDOS)
+                    .description("Total de tokens consumidos en respuestas del LLM")
+                    .tag("tipo", "stream")
+                    .register(meterRegistry)
+                    .increment(tokens);
+        }
+
+        log.info("Stream {} para workspace {}. Tokens: {}{}, Funciones: {}", resultado, request.workspaceId(),
+                tokens, tokensReportados > 0 ? "" : " (estimados)", functionsCalled);
+
+        agenteAuditoriaService.registrar(AgenteAuditLog.builder()
+                .userId(userId)
+                .workspaceId(request.workspaceId())
+                .userMessage(truncar(request.message()))
+                .agentResponse(respuesta.isEmpty() ? null : respuesta.toString())
+                .functionsCalled(truncar(String.join(", ", functionsCalled)))
+                .timestamp(LocalDateTime.now())
+                .tokensUsed((int) tokens)
+                .success(senal == SignalType.ON_COMPLETE)
+                .errorMessage(senal == SignalType.CANCEL ? "Stream cancelado por el cliente" : error)
+                .build());
+    }
+
+    /**
+     * Texto de un fragmento del stream; los fragmentos de tool calls o de cierre vienen sin contenido.
+     */
+    static String contenido(ChatResponse fragmento) {
+        if (fragmento.getResult() == null || fragmento.getResult().getOutput() == null) {
+            return null;
+        }
+        return fragmento.getResult().getOutput().getContent();
+    }
+
+    private static String truncar(String texto) {
+        return texto != null && texto.length() > MAX_LARGO_COLUMNA ? texto.substring(0, MAX_LARGO_COLUMNA) : texto;
+    }
+}
@@ -0,0 +1,27 @@
+package com.campito.backend.service.agentAI;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tools invocadas durante una interacción con el agente, en orden de invocación.
+ *
+ * Viaja en el {@code ToolContext} del prompt y lo completa {@link AgenteToolExecutor};
+ * es seguro para invocaciones concurrentes.
+ */
+public class RegistroToolsInvocadas {
+
+    private final Queue<String> tools = new ConcurrentLinkedQueue<>();
+
+    void registrar(String tool) {
+        tools.add(tool);
+    }
+
+    /**
+     * @return Nombres de las tools invocadas hasta el momento
+     */
+    public List<String> nombres() {
+        return List.copyOf(tools);
+    }
+}
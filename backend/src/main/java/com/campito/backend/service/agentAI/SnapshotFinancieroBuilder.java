@@ -0,0 +1,152 @@
+package com.campito.backend.service.agentAI;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.DashboardRepository;
+import com.campito.backend.dto.CuotasPendientesTarjetaDTO;
+import com.campito.backend.dto.SaldoCuentaDTO;
+import com.campito.backend.dto.TopComercioDTO;
+import com.campito.backend.dto.TotalMotivoMesDTO;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Arma un resumen financiero compacto y pre-agregado de un espacio de trabajo para el agente IA.
+ *
+ * En lugar de que el LLM combine el dashboard con hasta 20 transacciones completas, recibe en
+ * pocas líneas de texto: saldos por cuenta, totales por mes y motivo (gastos, ingresos y compras
+ * con crédito), principales comercios/contactos y cuotas pendientes por tarjeta. Cada bloque
+ * es un único GROUP BY en la base.
+ *
+ * No cachea: {@link AgenteToolsService#obtenerResumenFinanciero(String)} lo guarda en
+ * {@link CacheResultadosTools}, que se invalida con la versión de datos del espacio.
+ */
+@Component
+@Slf4j
+public class SnapshotFinancieroBuilder {
+
+    private static final Locale LOCALE_AR = Locale.forLanguageTag("es-AR");
+
+    private final DashboardRepository dashboardRepository;
+    private final DistributionSummary tokensSnapshot;
+    private final int meses;
+    private final int maxMotivosPorMes;
+    private final int topComercios;
+
+    public SnapshotFinancieroBuilder(DashboardRepository dashboardRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${agente.snapshot.meses:6}") int meses,
+                                     @Value("${agente.snapshot.max-motivos-por-mes:8}") int maxMotivosPorMes,
+                                     @Value("${agente.snapshot.top-comercios:10}") int topComercios) {
+        this.dashboardRepository = dashboardRepository;
+        this.meses = meses;
+        this.maxMotivosPorMes = maxMotivosPorMes;
+        this.topComercios = topComercios;
+
+        // 📊 MÉTRICA: Tamaño (tokens estimados) de cada resumen generado
+        this.tokensSnapshot = DistributionSummary.builder(MetricsConfig.MetricNames.AGENTE_SNAPSHOT_TOKENS)
+                .description("Tokens estimados del resumen financiero precalculado del agente IA")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Construye el resumen del espacio. No valida acceso: lo hace quien lo invoca.
+     *
+     * @param idEspacio ID del espacio de trabajo
+     * @return Resumen en texto compacto (montos en ARS, sin decimales)
+     */
+    @Transactional(readOnly = true)
+    public String construir(UUID idEspacio) {
+        LocalDate fechaLimite = LocalDate.now().withDayOfMonth(1).minusMonths(meses - 1L);
+        DecimalFormat formato = new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(LOCALE_AR));
+        formato.setRoundingMode(RoundingMode.HALF_UP);
+
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("RESUMEN FINANCIERO (montos en ARS; desde ").append(fechaLimite).append(")\n");
+
+        List<SaldoCuentaDTO> saldos = dashboardRepository.findSaldosPorCuenta(idEspacio);
+        sb.append("Saldos por cuenta: ");
+        unir(sb, saldos.stream()
+                .map(c -> c.getNombre() + " (" + c.getEntidad() + ") " + monto(formato, c.getSaldo()))
+                .toList());
+
+        sb.append("Totales por mes y motivo [tipo: motivo total (cantidad)]:\n");
+        agregarTotalesPorMes(sb, formato, dashboardRepository.findTotalesPorMotivoYMes(idEspacio, fechaLimite));
+
+        List<TopComercioDTO> comercios = dashboardRepository.findTopComercios(idEspacio, fechaLimite, topComercios);
+        sb.append("Principales comercios/contactos (gastos): ");
+        unir(sb, comercios.stream()
+                .map(c -> c.getNombre() + " " + monto(formato, c.getTotal()) + " (" + c.getCantidad() + ")")
+                .toList());
+
+        List<CuotasPendientesTarjetaDTO> cuotas = dashboardRepository.findCuotasPendientesPorTarjeta(idEspacio);
+        sb.append("Cuotas pendientes por tarjeta: ");
+        unir(sb, cuotas.stream()
+                .map(c -> c.getRed() + " " + c.getEntidad() + " *" + c.getNumero() + ": " + c.getCuotas()
+                        + " cuotas, " + monto(formato, c.getTotal()) + ", próximo vencimiento " + c.getVencimiento())
+                .toList());
+
+        String snapshot = sb.toString();
+        tokensSnapshot.record(EstimadorTokens.estimar(snapshot));
+        log.debug("Resumen financiero generado para espacio {}: {} caracteres", idEspacio, snapshot.length());
+        return snapshot;
+    }
+
+    /**
+     * Una línea por mes y tipo, con los {@code max-motivos-por-mes} motivos de mayor monto
+     * y el resto agrupado en "otros". Las filas llegan ordenadas por mes, tipo y monto.
+     */
+    private void agregarTotalesPorMes(StringBuilder sb, DecimalFormat formato, List<TotalMotivoMesDTO> totales) {
+        if (totales.isEmpty()) {
+            sb.append("- sin movimientos\n");
+            return;
+        }
+        Map<String, List<TotalMotivoMesDTO>> porMesYTipo = new LinkedHashMap<>();
+        for (TotalMotivoMesDTO total : totales) {
+            porMesYTipo.computeIfAbsent(total.getMes() + " " + total.getTipo(), k -> new ArrayList<>()).add(total);
+        }
+        porMesYTipo.forEach((mesYTipo, filas) -> {
+            BigDecimal suma = BigDecimal.ZERO;
+            BigDecimal otros = BigDecimal.ZERO;
+            List<String> partes = new ArrayList<>();
+            for (int i = 0; i < filas.size(); i++) {
+                TotalMotivoMesDTO fila = filas.get(i);
+                suma = suma.add(fila.getTotal());
+                if (i < maxMotivosPorMes) {
+                    partes.add(fila.getMotivo() + " " + monto(formato, fila.getTotal()) + " (" + fila.getCantidad() + ")");
+                } else {
+                    otros = otros.add(fila.getTotal());
+                }
+            }
+            if (otros.signum() > 0) {
+                partes.add("otros " + monto(formato, otros));
+            }
+            sb.append("- ").append(mesYTipo).append(" total ").append(monto(formato, suma))
+                    .append(": ").append(String.join("; ", partes)).append('\n');
+        });
+    }
+
+    private static void unir(StringBuilder sb, List<String> partes) {
+        sb.append(partes.isEmpty() ? "ninguna" : String.join("; ", partes)).append('\n');
+    }
+
+    private static String monto(DecimalFormat formato, BigDecimal valor) {
+        return "$" + formato.format(valor != null ? valor : BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,9 @@
+-- =====================================================
+-- Migración V19: Secuencia de notificaciones para INSERT batcheados
+-- =====================================================
+-- Descripción: La entidad Notificacion pasa de IDENTITY a SEQUENCE con
+-- allocationSize=50 para que Hibernate agrupe los INSERT en lotes.
+-- El INCREMENT BY debe coincidir con el allocationSize del mapeo.
+-- =====================================================
+
+ALTER SEQUENCE notificaciones_id_seq INCREMENT BY 50;
@@ -0,0 +1,35 @@
+-- =====================================================
+-- Migración V20: Outbox transaccional de notificaciones
+-- =====================================================
+-- Descripción: Los eventos de notificación se escriben en esta tabla dentro
+-- de la transacción de negocio. Un relay la consulta con FOR UPDATE SKIP LOCKED,
+-- persiste la notificación, la envía via SSE y marca la fila como procesada.
+-- =====================================================
+
+CREATE TABLE notificaciones_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    id_usuario UUID NOT NULL,
+    tipo VARCHAR(50) NOT NULL,
+    mensaje VARCHAR(200) NOT NULL,
+    estado VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INTEGER NOT NULL DEFAULT 0,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_procesado TIMESTAMP,
+    ultimo_error VARCHAR(500)
+);
+
+-- El mapeo usa allocationSize=50 para batchear los INSERT
+ALTER SEQUENCE notificaciones_outbox_id_seq INCREMENT BY 50;
+
+-- Índice parcial: el relay solo consulta filas pendientes
+CREATE INDEX idx_outbox_pendientes ON notificaciones_outbox(proximo_intento, id)
+    WHERE estado = 'PENDIENTE';
+
+-- Limpieza de filas procesadas
+CREATE INDEX idx_outbox_fecha_procesado ON notificaciones_outbox(fecha_procesado)
+    WHERE estado = 'PROCESADO';
+
+COMMENT ON TABLE notificaciones_outbox IS 'Outbox transaccional de notificaciones pendientes de entrega';
+COMMENT ON COLUMN notificaciones_outbox.estado IS 'PENDIENTE, PROCESADO o FALLIDO (reintentos agotados)';
+COMMENT ON COLUMN notificaciones_outbox.proximo_intento IS 'No se reintenta antes de esta fecha (backoff exponencial)';
@@ -0,0 +1,39 @@
+-- =====================================================
+-- Migración V21: Secuencia de notificaciones por usuario para el reenvío SSE
+-- =====================================================
+-- Descripción: El id de notificaciones se reserva en bloques de 50 por nodo (V19),
+-- así que no sigue el orden de creación y no sirve como Last-Event-ID. Cada
+-- notificación recibe un número correlativo por usuario, tomado de
+-- notificaciones_secuencia_usuario dentro de la transacción que la inserta.
+-- El UPSERT bloquea la fila del usuario hasta el commit: si un cliente ya vio la
+-- secuencia N, todas las anteriores están confirmadas.
+-- =====================================================
+
+ALTER TABLE notificaciones ADD COLUMN secuencia BIGINT;
+
+-- Numeración de las notificaciones existentes en orden de creación
+UPDATE notificaciones n
+SET secuencia = numeradas.secuencia
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY id_usuario ORDER BY fecha_creacion, id) AS secuencia
+    FROM notificaciones
+) numeradas
+WHERE n.id = numeradas.id;
+
+ALTER TABLE notificaciones ALTER COLUMN secuencia SET NOT NULL;
+
+-- Reenvío por Last-Event-ID: WHERE id_usuario = ? AND secuencia > ? ORDER BY secuencia
+CREATE UNIQUE INDEX idx_notificaciones_usuario_secuencia ON notificaciones(id_usuario, secuencia);
+
+CREATE TABLE notificaciones_secuencia_usuario (
+    id_usuario UUID PRIMARY KEY,
+    ultima BIGINT NOT NULL,
+    CONSTRAINT fk_secuencia_notificacion_usuario FOREIGN KEY (id_usuario)
+        REFERENCES usuarios(id) ON DELETE CASCADE
+);
+
+INSERT INTO notificaciones_secuencia_usuario (id_usuario, ultima)
+SELECT id_usuario, MAX(secuencia) FROM notificaciones GROUP BY id_usuario;
+
+COMMENT ON COLUMN notificaciones.secuencia IS 'Número correlativo por usuario en orden de commit (id de evento SSE)';
+COMMENT ON TABLE notificaciones_secuencia_usuario IS 'Última secuencia de notificación asignada a cada usuario (nunca decrece)';
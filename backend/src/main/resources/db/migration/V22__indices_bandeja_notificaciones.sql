@@ -0,0 +1,16 @@
+-- =====================================================
+-- Migración V22: Índices para la bandeja paginada por cursor
+-- =====================================================
+-- Descripción: La bandeja pagina con keyset sobre (fecha_creacion, id):
+--   WHERE id_usuario = ? AND (fecha_creacion, id) < (?, ?)
+--   ORDER BY fecha_creacion DESC, id DESC LIMIT ?
+-- El índice compuesto permite resolver cada página con un index scan acotado.
+-- El índice parcial cubre el filtro de no leídas (y el conteo de no leídas).
+-- =====================================================
+
+CREATE INDEX idx_notificaciones_usuario_fecha_id
+    ON notificaciones(id_usuario, fecha_creacion DESC, id DESC);
+
+CREATE INDEX idx_notificaciones_no_leidas
+    ON notificaciones(id_usuario, fecha_creacion DESC, id DESC)
+    WHERE leida = false;
@@ -0,0 +1,9 @@
+-- =====================================================
+-- Migración V23: Secuencia de auditoría del agente para INSERT batcheados
+-- =====================================================
+-- Descripción: La entidad AgenteAuditLog pasa de IDENTITY a SEQUENCE con
+-- allocationSize=50 para que Hibernate agrupe en lotes los INSERT del
+-- buffer de auditoría. El INCREMENT BY debe coincidir con el allocationSize.
+-- =====================================================
+
+ALTER SEQUENCE agente_audit_log_id_seq INCREMENT BY 50;
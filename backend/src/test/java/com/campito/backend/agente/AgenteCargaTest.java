@@ -0,0 +1,313 @@
+package com.campito.backend.agente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.campito.backend.dao.EspacioTrabajoRepository;
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.EspacioTrabajo;
+import com.campito.backend.model.ProveedorAutenticacion;
+import com.campito.backend.model.Usuario;
+import com.campito.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prueba de carga del agente IA por HTTP: controller → servicio → cliente OpenAI de Spring AI
+ * → {@link ServidorLlmSimulado}. Lanza chats y streams concurrentes y reporta throughput,
+ * latencia p50/p99, tiempo hasta el primer token (TTFT) y los reintentos ante 429.
+ *
+ * No corre con el build normal: {@code mvn test -Dtest=AgenteCargaTest -Dagente.carga=true}.
+ * La caché de respuestas se desactiva para que cada request llegue al LLM.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "agente.ia.enabled=true",
+        "agente.respuestas.cache.habilitada=false",
+        "agente.rate-limit.requests-per-minute=1000000",
+        "agente.rate-limit.burst-capacity=1000000",
+        "rate-limit.general.requests-per-minute=1000000",
+        "rate-limit.general.burst-capacity=1000000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "agente.carga", matches = "true")
+class AgenteCargaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgenteCargaTest.class);
+
+    private static final int USUARIOS_CONCURRENTES = Integer.getInteger("agente.carga.usuarios", 20);
+    private static final int REQUESTS_POR_USUARIO = Integer.getInteger("agente.carga.requests", 10);
+    private static final String MENSAJE = "¿Cuánto tengo en mis cuentas bancarias?";
+    private static final String RESPUESTA = "# Tus cuentas\n\nTenés **$150.000** distribuidos en tus cuentas. "
+            + "La cuenta con más saldo es la caja de ahorro del Banco Galicia. "
+            + "*Tip: separá un porcentaje fijo de tus ingresos para ahorro.*";
+
+    private static final ServidorLlmSimulado LLM;
+
+    static {
+        try {
+            LLM = new ServidorLlmSimulado();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void urlLlm(DynamicPropertyRegistry registry) {
+        registry.add("spring.ai.openai.base-url", LLM::urlBase);
+    }
+
+    @MockBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EspacioTrabajoRepository espacioTrabajoRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String token;
+    private UUID idEspacio;
+
+    /**
+     * Resultados de un tipo de request (chat o stream).
+     */
+    private static final class Medicion {
+        private final ConcurrentLinkedQueue<Long> latencias = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Long> primerToken = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger errores = new AtomicInteger();
+
+        int exitosos() {
+            return latencias.size();
+        }
+    }
+
+    @BeforeAll
+    void crearUsuarioYEspacio() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nombre("Carga")
+                .email("carga-" + UUID.randomUUID() + "@test.com")
+                .proveedor(ProveedorAutenticacion.MANUAL)
+                .rol("USER")
+                .activo(true)
+                .fechaRegistro(LocalDateTime.now())
+                .build());
+        EspacioTrabajo espacio = espacioTrabajoRepository.save(EspacioTrabajo.builder()
+                .nombre("Carga")
+                .saldo(BigDecimal.ZERO)
+                .usuarioAdmin(usuario)
+                .usuariosParticipantes(new ArrayList<>(List.of(usuario)))
+                .build());
+        token = jwtTokenProvider.generateToken(usuario.getId(), usuario.getEmail());
+        idEspacio = espacio.getId();
+    }
+
+    @AfterAll
+    void detenerLlm() {
+        LLM.close();
+    }
+
+    @BeforeEach
+    void reiniciarLlm() {
+        LLM.reiniciarContadores();
+    }
+
+    @Test
+    void carga_chatYStreamConTool_sinErrores() throws InterruptedException {
+        LLM.configurar(new ServidorLlmSimulado.Guion("listarCuentasBancarias", RESPUESTA,
+                Duration.ofMillis(300), Duration.ofMillis(20)));
+        Medicion chat = new Medicion();
+        Medicion stream = new Medicion();
+
+        long duracion = ejecutar(i -> {
+            if (i % 2 == 0) {
+                chat(chat);
+            } else {
+                stream(stream);
+            }
+        });
+
+        reportar("chat", chat, duracion);
+        reportar("stream", stream, duracion);
+        int total = USUARIOS_CONCURRENTES * REQUESTS_POR_USUARIO;
+        log.info("LLM simulado: {} llamadas, {} pedidos de tool", LLM.requests(), LLM.pedidosDeTools());
+
+        assertEquals(0, chat.errores.get() + stream.errores.get());
+        assertEquals(total, chat.exitosos() + stream.exitosos());
+        // Cada request pide la tool y luego la respuesta: dos llamadas al LLM
+        assertEquals(total, LLM.pedidosDeTools());
+        assertEquals(2L * total, LLM.requests());
+    }
+
+    @Test
+    void carga_streamCon429_reintentaConBackoff() throws InterruptedException {
+        LLM.configurar(new ServidorLlmSimulado.Guion(null, RESPUESTA, Duration.ofMillis(300), Duration.ofMillis(20)));
+        int errores429 = USUARIOS_CONCURRENTES;
+        LLM.inyectar429(errores429);
+        Medicion stream = new Medicion();
+
+        long duracion = ejecutar(i -> stream(stream));
+
+        reportar("stream-429", stream, duracion);
+        int total = USUARIOS_CONCURRENTES * REQUESTS_POR_USUARIO;
+        log.info("LLM simulado: {} llamadas, {} respondidas con 429, {} streams fallidos tras agotar reintentos",
+                LLM.requests(), LLM.respuestas429(), stream.errores.get());
+
+        assertEquals(errores429, LLM.respuestas429());
+        // Retry.backoff(2, 2s): cada stream absorbe hasta dos 429 antes de fallar
+        assertTrue(stream.errores.get() <= errores429 / 3,
+                "Más streams fallidos que los explicables por 3 429 consecutivos: " + stream.errores.get());
+        assertEquals(total, stream.exitosos() + stream.errores.get());
+        assertTrue(percentil(stream.latencias, 99) >= TimeUnit.SECONDS.toNanos(1),
+                "El p99 debería incluir la espera del backoff");
+    }
+
+    private interface Request {
+        void ejecutar(int indice) throws Exception;
+    }
+
+    /**
+     * Lanza {@code USUARIOS_CONCURRENTES} usuarios virtuales que hacen {@code REQUESTS_POR_USUARIO}
+     * requests secuenciales cada uno.
+     *
+     * @return Duración total en nanosegundos
+     */
+    private long ejecutar(Request request) throws InterruptedException {
+        long inicio = System.nanoTime();
+        try (ExecutorService usuarios = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < USUARIOS_CONCURRENTES; u++) {
+                int usuario = u;
+                usuarios.submit(() -> {
+                    for (int r = 0; r < REQUESTS_POR_USUARIO; r++) {
+                        request.ejecutar(usuario + r);
+                    }
+                    return null;
+                });
+            }
+            usuarios.shutdown();
+            assertTrue(usuarios.awaitTermination(5, TimeUnit.MINUTES), "La carga no terminó a tiempo");
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private void chat(Medicion medicion) throws IOException, InterruptedException {
+        String cuerpo = objectMapper.writeValueAsString(Map.of("message", MENSAJE, "workspaceId", idEspacio));
+        long inicio = System.nanoTime();
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(uri("/api/agente/chat"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() == 200) {
+            medicion.latencias.add(System.nanoTime() - inicio);
+        } else {
+            medicion.errores.incrementAndGet();
+        }
+    }
+
+    private void stream(Medicion medicion) throws IOException, InterruptedException {
+        String consulta = "?message=" + URLEncoder.encode(MENSAJE, StandardCharsets.UTF_8) + "&workspaceId=" + idEspacio;
+        long inicio = System.nanoTime();
+        HttpResponse<Stream<String>> respuesta = http.send(HttpRequest.newBuilder(uri("/api/agente/chat/stream" + consulta))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "text/event-stream")
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+
+        String evento = null;
+        boolean primerToken = true;
+        boolean completo = false;
+        try (Stream<String> lineas = respuesta.body()) {
+            for (String linea : (Iterable<String>) lineas::iterator) {
+                if (linea.startsWith("event:")) {
+                    evento = linea.substring("event:".length()).trim();
+                    completo |= "done".equals(evento);
+                } else if (linea.startsWith("data:") && "token".equals(evento) && primerToken) {
+                    medicion.primerToken.add(System.nanoTime() - inicio);
+                    primerToken = false;
+                }
+            }
+        }
+        if (respuesta.statusCode() == 200 && completo) {
+            medicion.latencias.add(System.nanoTime() - inicio);
+        } else {
+            medicion.errores.incrementAndGet();
+        }
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private static void reportar(String tipo, Medicion medicion, long duracionNanos) {
+        double segundos = duracionNanos / 1e9;
+        log.info("[carga:{}] exitosos={} errores={} throughput={} req/s latencia p50={}ms p99={}ms TTFT p50={}ms p99={}ms",
+                tipo, medicion.exitosos(), medicion.errores.get(),
+                String.format("%.1f", medicion.exitosos() / segundos),
+                ms(percentil(medicion.latencias, 50)), ms(percentil(medicion.latencias, 99)),
+                ms(percentil(medicion.primerToken, 50)), ms(percentil(medicion.primerToken, 99)));
+    }
+
+    private static long percentil(Collection<Long> valores, int percentil) {
+        if (valores.isEmpty()) {
+            return 0;
+        }
+        List<Long> ordenados = valores.stream().sorted().toList();
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenados.size()) - 1;
+        return ordenados.get(Math.max(0, indice));
+    }
+
+    private static long ms(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
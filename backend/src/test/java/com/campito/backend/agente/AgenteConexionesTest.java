@@ -0,0 +1,194 @@
+package com.campito.backend.agente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.EspacioTrabajoRepository;
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.EspacioTrabajo;
+import com.campito.backend.model.ProveedorAutenticacion;
+import com.campito.backend.model.Usuario;
+import com.campito.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mientras el agente espera al LLM no debe quedar ninguna conexión del pool tomada: con
+ * Open Session In View, la validación de acceso al espacio (caché de membresías fría)
+ * retenía su conexión hasta el final del request, y en el stream durante toda la respuesta.
+ *
+ * El mensaje selecciona el resumen financiero, que con el preámbulo activo se arma antes de
+ * llamar al LLM: tiene que pasar por el executor de tools y no por el hilo del request.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "agente.ia.enabled=true",
+        "agente.respuestas.cache.habilitada=false",
+        "agente.snapshot.preambulo=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AgenteConexionesTest {
+
+    private static final String MENSAJE = "¿Cuánto tengo en mis cuentas bancarias?";
+
+    private static final ServidorLlmSimulado LLM;
+
+    static {
+        try {
+            LLM = new ServidorLlmSimulado();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void urlLlm(DynamicPropertyRegistry registry) {
+        registry.add("spring.ai.openai.base-url", LLM::urlBase);
+    }
+
+    @MockBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EspacioTrabajoRepository espacioTrabajoRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Máximo de conexiones activas observado mientras el LLM atiende una llamada
+    private final AtomicInteger activasDuranteLlm = new AtomicInteger(-1);
+
+    private String token;
+    private UUID idEspacio;
+    private long snapshotsAntes;
+
+    @BeforeEach
+    void prepararUsuarioYLlm() {
+        // Usuario y espacio nuevos en cada test: la caché de membresías no los conoce
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nombre("Conexiones")
+                .email("conexiones-" + UUID.randomUUID() + "@test.com")
+                .proveedor(ProveedorAutenticacion.MANUAL)
+                .rol("USER")
+                .activo(true)
+                .fechaRegistro(LocalDateTime.now())
+                .build());
+        EspacioTrabajo espacio = espacioTrabajoRepository.save(EspacioTrabajo.builder()
+                .nombre("Conexiones")
+                .saldo(BigDecimal.ZERO)
+                .usuarioAdmin(usuario)
+                .usuariosParticipantes(new ArrayList<>(List.of(usuario)))
+                .build());
+        token = jwtTokenProvider.generateToken(usuario.getId(), usuario.getEmail());
+        idEspacio = espacio.getId();
+
+        snapshotsAntes = snapshotsEnExecutor();
+        LLM.reiniciarContadores();
+        LLM.configurar(new ServidorLlmSimulado.Guion(null, "Tenés **$150.000** en tus cuentas.",
+                Duration.ofMillis(50), Duration.ZERO));
+        HikariDataSource pool = (HikariDataSource) dataSource;
+        activasDuranteLlm.set(-1);
+        LLM.alRecibir(() -> activasDuranteLlm.accumulateAndGet(
+                pool.getHikariPoolMXBean().getActiveConnections(), Math::max));
+    }
+
+    @AfterAll
+    void detenerLlm() {
+        LLM.close();
+    }
+
+    @Test
+    void chat_noRetieneConexionDuranteLaLlamadaAlLlm() throws Exception {
+        String cuerpo = objectMapper.writeValueAsString(Map.of("message", MENSAJE, "workspaceId", idEspacio));
+
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(uri("/api/agente/chat"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, respuesta.statusCode(), respuesta.body());
+        assertEquals(1, LLM.requests());
+        assertEquals(0, activasDuranteLlm.get());
+        assertEquals(snapshotsAntes + 1, snapshotsEnExecutor());
+    }
+
+    @Test
+    void stream_noRetieneConexionDuranteLaLlamadaAlLlm() throws Exception {
+        String consulta = "?message=" + URLEncoder.encode(MENSAJE, StandardCharsets.UTF_8) + "&workspaceId=" + idEspacio;
+
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(uri("/api/agente/chat/stream" + consulta))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "text/event-stream")
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("event:done"), respuesta.body());
+        assertEquals(1, LLM.requests());
+        assertEquals(0, activasDuranteLlm.get());
+        assertEquals(snapshotsAntes + 1, snapshotsEnExecutor());
+    }
+
+    private long snapshotsEnExecutor() {
+        Timer timer = meterRegistry.find(MetricsConfig.MetricNames.AGENTE_TOOLS_EJECUCION)
+                .tag("tool", "obtenerResumenFinanciero").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+}
@@ -0,0 +1,292 @@
+package com.campito.backend.agente;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP embebido que imita {@code POST /v1/chat/completions} de la API compatible
+ * con OpenAI (Groq), para probar el camino completo del agente sin llamar al proveedor.
+ *
+ * Según el {@link Guion} configurado:
+ * <ul>
+ *   <li>Responde 429 a las próximas N llamadas ({@link #inyectar429(int)}), como el límite TPM/RPM de Groq.</li>
+ *   <li>Si el guion indica una tool y la conversación todavía no tiene su resultado, pide
+ *       esa tool con el {@code workspaceId} tomado del {@code [SYS_META:workspace=...]} del mensaje.</li>
+ *   <li>Si no, responde el texto del guion, completo o en stream (SSE) palabra por palabra,
+ *       con la latencia configurada hasta el primer token y entre tokens.</li>
+ * </ul>
+ *
+ * Cada request se atiende en un hilo virtual, así que la latencia simulada no limita la concurrencia.
+ */
+public class ServidorLlmSimulado implements AutoCloseable {
+
+    /**
+     * Comportamiento del LLM simulado.
+     *
+     * @param tool Tool a pedir antes de responder (null = responder directamente)
+     * @param respuesta Texto de la respuesta final
+     * @param primerToken Latencia hasta el primer token (o hasta la respuesta completa)
+     * @param entreTokens Latencia entre tokens del stream
+     */
+    public record Guion(String tool, String respuesta, Duration primerToken, Duration entreTokens) {
+    }
+
+    private static final Pattern WORKSPACE = Pattern.compile("\\[SYS_META:workspace=([0-9a-fA-F-]{36})]");
+    private static final Pattern FRAGMENTO = Pattern.compile("(?<=\\s)");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile Guion guion = new Guion(null, "Respuesta simulada.", Duration.ZERO, Duration.ZERO);
+    private volatile Runnable alRecibir = () -> { };
+    private final AtomicInteger pendientes429 = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong respuestas429 = new AtomicLong();
+    private final AtomicLong pedidosDeTools = new AtomicLong();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public ServidorLlmSimulado() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/v1/chat/completions", this::atender);
+        servidor.setExecutor(executor);
+        servidor.start();
+    }
+
+    /**
+     * @return URL base para {@code spring.ai.openai.base-url}
+     */
+    public String urlBase() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    public void configurar(Guion guion) {
+        this.guion = guion;
+    }
+
+    /**
+     * Acción que se ejecuta en cada llamada recibida, mientras el cliente espera la respuesta.
+     */
+    public void alRecibir(Runnable accion) {
+        this.alRecibir = accion;
+    }
+
+    /**
+     * Las próximas {@code cantidad} llamadas reciben 429 Too Many Requests.
+     */
+    public void inyectar429(int cantidad) {
+        pendientes429.set(cantidad);
+    }
+
+    public void reiniciarContadores() {
+        requests.set(0);
+        respuestas429.set(0);
+        pedidosDeTools.set(0);
+        pendientes429.set(0);
+        alRecibir = () -> { };
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long respuestas429() {
+        return respuestas429.get();
+    }
+
+    public long pedidosDeTools() {
+        return pedidosDeTools.get();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void atender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            alRecibir.run();
+            JsonNode pedido;
+            try (InputStream cuerpo = exchange.getRequestBody()) {
+                pedido = objectMapper.readTree(cuerpo);
+            }
+
+            if (pendientes429.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+                respuestas429.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                enviar(exchange, 429, "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"rate_limit_exceeded\"}}");
+                return;
+            }
+
+            Guion actual = guion;
+            String toolCall = pedirTool(actual, pedido) ? argumentosTool(pedido) : null;
+            if (toolCall != null) {
+                pedidosDeTools.incrementAndGet();
+            }
+            dormir(actual.primerToken());
+
+            if (pedido.path("stream").asBoolean(false)) {
+                stream(exchange, actual, toolCall);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                enviar(exchange, 200, objectMapper.writeValueAsString(completa(actual, toolCall)));
+            }
+        }
+    }
+
+    /**
+     * Se pide la tool solo si el guion la define, el cliente la ofreció y todavía no hay un resultado de tool.
+     */
+    private static boolean pedirTool(Guion guion, JsonNode pedido) {
+        if (guion.tool() == null) {
+            return false;
+        }
+        for (JsonNode mensaje : pedido.path("messages")) {
+            if ("tool".equals(mensaje.path("role").asText())) {
+                return false;
+            }
+        }
+        for (JsonNode tool : pedido.path("tools")) {
+            if (guion.tool().equals(tool.path("function").path("name").asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String argumentosTool(JsonNode pedido) {
+        String workspace = "";
+        for (JsonNode mensaje : pedido.path("messages")) {
+            Matcher matcher = WORKSPACE.matcher(mensaje.path("content").asText(""));
+            if (matcher.find()) {
+                workspace = matcher.group(1);
+            }
+        }
+        return "{\"workspaceId\":\"" + workspace + "\"}";
+    }
+
+    private ObjectNode completa(Guion guion, String toolCall) {
+        ObjectNode respuesta = encabezado("chat.completion");
+        ObjectNode choice = respuesta.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode mensaje = choice.putObject("message");
+        mensaje.put("role", "assistant");
+        if (toolCall != null) {
+            mensaje.putNull("content");
+            agregarToolCall(mensaje.putArray("tool_calls"), guion.tool(), toolCall);
+            choice.put("finish_reason", "tool_calls");
+        } else {
+            mensaje.put("content", guion.respuesta());
+            choice.put("finish_reason", "stop");
+        }
+        ObjectNode uso = respuesta.putObject("usage");
+        uso.put("prompt_tokens", 500);
+        uso.put("completion_tokens", FRAGMENTO.split(guion.respuesta()).length);
+        uso.put("total_tokens", 500 + FRAGMENTO.split(guion.respuesta()).length);
+        return respuesta;
+    }
+
+    private void stream(HttpExchange exchange, Guion guion, String toolCall) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream salida = exchange.getResponseBody();
+
+        if (toolCall != null) {
+            ObjectNode delta = objectMapper.createObjectNode();
+            delta.put("role", "assistant");
+            agregarToolCall(delta.putArray("tool_calls"), guion.tool(), toolCall);
+            evento(salida, fragmento(delta, null));
+            evento(salida, fragmento(objectMapper.createObjectNode(), "tool_calls"));
+        } else {
+            String[] tokens = FRAGMENTO.split(guion.respuesta());
+            for (int i = 0; i < tokens.length; i++) {
+                if (i > 0) {
+                    dormir(guion.entreTokens());
+                }
+                ObjectNode delta = objectMapper.createObjectNode();
+                if (i == 0) {
+                    delta.put("role", "assistant");
+                }
+                delta.put("content", tokens[i]);
+                evento(salida, fragmento(delta, null));
+            }
+            evento(salida, fragmento(objectMapper.createObjectNode(), "stop"));
+        }
+        salida.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        salida.flush();
+    }
+
+    private ObjectNode fragmento(ObjectNode delta, String finishReason) {
+        ObjectNode chunk = encabezado("chat.completion.chunk");
+        ObjectNode choice = chunk.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.set("delta", delta);
+        if (finishReason != null) {
+            choice.put("finish_reason", finishReason);
+        } else {
+            choice.putNull("finish_reason");
+        }
+        return chunk;
+    }
+
+    private ObjectNode encabezado(String objeto) {
+        ObjectNode nodo = objectMapper.createObjectNode();
+        nodo.put("id", "chatcmpl-" + secuencia.incrementAndGet());
+        nodo.put("object", objeto);
+        nodo.put("created", System.currentTimeMillis() / 1000);
+        nodo.put("model", "llm-simulado");
+        return nodo;
+    }
+
+    private void agregarToolCall(ArrayNode toolCalls, String tool, String argumentos) {
+        ObjectNode toolCall = toolCalls.addObject();
+        toolCall.put("index", 0);
+        toolCall.put("id", "call_" + secuencia.incrementAndGet());
+        toolCall.put("type", "function");
+        ObjectNode funcion = toolCall.putObject("function");
+        funcion.put("name", tool);
+        funcion.put("arguments", argumentos);
+    }
+
+    private void evento(OutputStream salida, ObjectNode chunk) throws IOException {
+        salida.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        salida.flush();
+    }
+
+    private static void enviar(HttpExchange exchange, int status, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void dormir(Duration duracion) {
+        if (duracion.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duracion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.campito.backend.benchmark;
+
+import com.campito.backend.service.agentAI.ClasificadorIntencion;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la selección de funciones del agente IA.
+ *
+ * - {@code anterior}: réplica de la implementación previa ({@code String.matches} con
+ *   {@code .*X.*}, que compila cada patrón en cada llamada y recorre el mensaje varias veces).
+ * - {@code actual}: {@link ClasificadorIntencion} con patrones precompilados y {@code find()}.
+ *
+ * Se mide sobre una mezcla de mensajes financieros, saludos y off-topic.
+ * Ejecutar con {@code mvn test-compile} y luego el {@code main} de esta clase
+ * (no forma parte de la suite de tests de surefire).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClasificadorIntencionBenchmark {
+
+    private static final List<String> MENSAJES = List.of(
+            "¿En qué categoría gasté más este mes?",
+            "¿Cuál es mi saldo actual?",
+            "¿Cuánto debo pagar del resumen de la Mastercard?",
+            "Mostrame mis últimas transacciones",
+            "¿Cuánto tengo en la cuenta del Galicia?",
+            "¿A quién le pagué más este año?",
+            "Buenas tardes, ¿cómo estás?",
+            "Dame una receta de empanadas",
+            "hola",
+            "¿Qué podés hacer?"
+    );
+
+    private ClasificadorIntencion clasificador;
+
+    @Setup
+    public void setup() {
+        clasificador = new ClasificadorIntencion();
+    }
+
+    @Benchmark
+    public void anterior(Blackhole blackhole) {
+        for (String mensaje : MENSAJES) {
+            blackhole.consume(seleccionarAnterior(mensaje));
+        }
+    }
+
+    @Benchmark
+    public void actual(Blackhole blackhole) {
+        for (String mensaje : MENSAJES) {
+            blackhole.consume(clasificador.seleccionarFunciones(mensaje));
+        }
+    }
+
+    // Réplica de la implementación previa de AgenteIAServiceImpl.selectFunctions (sin logs)
+    private static String[] seleccionarAnterior(String message) {
+        String msg = message.toLowerCase().trim();
+        Set<String> fns = new HashSet<>();
+
+        boolean esSaludo = msg.matches(
+            "(hola|buenas|buen[oa]s (d[ií]as?|tardes?|noches?)|hey|hi|hello|dale|ok|okey|gracias|" +
+            "chau|adi[oó]s|hasta luego|nos vemos|c[oó]mo est[aá]s?|qu[eé] tal|qu[eé] onda|" +
+            "c[oó]mo and[aá]s?|todo bien|necesito ayuda|pod[eé]s ayudarme|ayuda|ayud[aá]me)[?!. ]*"
+        );
+        boolean esMuyCorto = msg.length() <= 15 && !msg.matches(".*\\d.*");
+        boolean esOffTopic = msg.matches(
+            ".*(qu[eé] eres|qui[eé]n eres|qu[eé] pod[eé]s hacer|para qu[eé] sirv[eé]s?|" +
+            "c[oó]mo funcionas?|qu[eé] sab[eé]s hacer|qu[eé] funciones? ten[eé]s?).*"
+        );
+
+        if (esSaludo || esMuyCorto || esOffTopic) {
+            return new String[0];
+        }
+
+        boolean esAnalisisIntegral =
+            msg.matches(".*(en qu[eé]|d[oó]nde|cu[aá]l(es)?|qui[eé]n|cuanto|cu[aá]nto)" +
+                        ".*(gast[eéoó]|compr[eéoó]|egres[eéoó]|invert[ií]).*") ||
+            msg.matches(".*\\b(an[aá]lis[ií]s|analiz[aá]|desglose|distribuci[oó]n|ranking|" +
+                        "top \\d|principales gastos|mayor gasto|m[aá]s gast[eéoó]|m[aá]s gastado|" +
+                        "m[aá]s ingres[eéoó]|menos gast[eéoó])\\b.*") ||
+            msg.matches(".*\\b(gastos|egresos|compras|movimientos|transacciones)" +
+                        "\\b.*(tuve|hice|ten[ií]a|hubo|del mes|este mes|mes pasado|" +
+                        "del a[nñ]o|este a[nñ]o|[úu]ltimo mes|[úu]ltimos? \\d|en \\w+).*") ||
+            msg.matches(".*(categor[ií]a|motivo).*(m[aá]s|mayor|principal|top|lider).*") ||
+            msg.matches(".*(m[aá]s|mayor|principal).*(categor[ií]a|motivo).*") ||
+            msg.matches(".*\\b(comercio|negocio|local|establecimiento|tienda|restaurante|" +
+                        "supermercado|farmacia|combustible)\\b.*");
+
+        if (esAnalisisIntegral) {
+            fns.addAll(List.of(
+                "buscarTransacciones", "listarMotivosTransacciones",
+                "buscarTodasComprasCredito", "listarComprasCreditoPendientes",
+                "listarTarjetasCredito"
+            ));
+        }
+        if (msg.matches(".*\\b(balance|saldo|situaci[oó]n|resumen|general|actual|" +
+                        "cu[aá]nto tengo|cu[aá]nto me queda|overview|dinero|plata|" +
+                        "patrimonio|neto|activos|estado financiero|financiero)\\b.*")) {
+            fns.addAll(List.of("obtenerDashboardFinanciero", "listarCuentasBancarias"));
+        }
+        if (msg.matches(".*\\b(transacci[oó]n|transacciones|gasto|gastos|gast[eé]|gastando|" +
+                        "ingreso|ingresos|ingres[eé]|egreso|egresos|movimiento|movimientos|" +
+                        "pago|pagos|historial|registro|registros|reciente|[úu]ltim[oa]|" +
+                        "mes|a[nñ]o|semana|hoy|ayer|categor[ií]a|cu[aá]nto gast|" +
+                        "cu[aá]nto ingres|invert[ií])\\b.*")) {
+            fns.addAll(List.of("buscarTransacciones", "listarMotivosTransacciones"));
+        }
+        if (msg.matches(".*\\b(tarjeta|tarjetas|cr[eé]dito|resumen|resúmenes|cuota|cuotas|" +
+                        "visa|mastercard|cabal|amex|naranja|galicia|santander|bbva|macro|" +
+                        "nacion|icbc|hsbc|debo pagar|vencimiento|pr[oó]ximo vencimiento|" +
+                        "cierre|pr[oó]ximo cierre|deuda|deudas)\\b.*")) {
+            fns.addAll(List.of(
+                "listarTarjetasCredito", "listarResumenesTarjetas",
+                "listarResumenesPorTarjeta", "listarCuotasPorTarjeta",
+                "buscarTodasComprasCredito", "listarComprasCreditoPendientes"
+            ));
+        }
+        if (msg.matches(".*\\b(cuenta|cuentas|banco|bancaria|bancarias|transferencia|" +
+                        "transferencias|ahorro|ahorros|caja de ahorro|cuenta corriente|" +
+                        "saldo disponible|efectivo)\\b.*")) {
+            fns.add("listarCuentasBancarias");
+        }
+        if (msg.matches(".*\\b(contacto|contactos|emisor|destinatario|persona|personas|" +
+                        "qui[eé]n|a qui[eé]n|pagaste|pagado|enviaste|le pag|cobr[eéoó]|" +
+                        "recib[ií] de|pag[ué] a|compré en)\\b.*")) {
+            fns.add("listarContactosTransaccion");
+        }
+
+        return fns.toArray(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClasificadorIntencionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
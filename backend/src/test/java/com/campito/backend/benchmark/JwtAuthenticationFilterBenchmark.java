@@ -0,0 +1,145 @@
+package com.campito.backend.benchmark;
+
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.Usuario;
+import com.campito.backend.security.JwtAuthenticationFilter;
+import com.campito.backend.security.JwtTokenProvider;
+import com.campito.backend.security.PrincipalCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH del costo de autenticación JWT por petición.
+ *
+ * - {@code anterior}: comportamiento previo (clave y parser construidos en cada llamada,
+ *   token parseado y verificado dos veces: validateToken + getUserIdFromToken).
+ * - {@code actualSinCache}: clave y parser compartidos, una sola verificación.
+ * - {@code actual}: además, caché de tokens verificados (caso habitual: el mismo token
+ *   se repite en todas las peticiones de una sesión).
+ * - {@code filtroCompleto}: {@link JwtAuthenticationFilter} de punta a punta con un
+ *   repositorio en memoria, para ver el peso de la verificación sobre el filtro.
+ *
+ * Ejecutar con {@code mvn test-compile} y luego el {@code main} de esta clase
+ * (no forma parte de la suite de tests de surefire).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark_jwt_secret_minimo_256_bits_1234567890123456789012345678";
+    private static final long EXPIRACION_MS = 3_600_000L;
+
+    private String token;
+    private JwtTokenProvider proveedor;
+    private JwtTokenProvider proveedorSinCache;
+    private JwtAuthenticationFilter filtro;
+
+    @Setup
+    public void setup() {
+        UUID idUsuario = UUID.randomUUID();
+        Usuario usuario = Usuario.builder()
+                .id(idUsuario)
+                .nombre("Benchmark")
+                .email("benchmark@campito.com")
+                .rol("USER")
+                .activo(true)
+                .build();
+
+        proveedor = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, EXPIRACION_MS, 10_000);
+        proveedorSinCache = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, EXPIRACION_MS, 0);
+        token = proveedor.generateToken(idUsuario, usuario.getEmail());
+        filtro = new JwtAuthenticationFilter(proveedor,
+                new PrincipalCache(repositorioEnMemoria(usuario), new SimpleMeterRegistry(), 10_000, 60));
+    }
+
+    @Benchmark
+    public UUID anterior() {
+        if (!validarAnterior(token)) {
+            return null;
+        }
+        return UUID.fromString(parsearAnterior(token).getSubject());
+    }
+
+    @Benchmark
+    public Optional<JwtTokenProvider.TokenVerificado> actualSinCache() {
+        return proveedorSinCache.verificar(token);
+    }
+
+    @Benchmark
+    public Optional<JwtTokenProvider.TokenVerificado> actual() {
+        return proveedor.verificar(token);
+    }
+
+    @Benchmark
+    public void filtroCompleto(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notificaciones");
+        request.addHeader("Authorization", "Bearer " + token);
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    // Réplica de la implementación previa de JwtTokenProvider
+    private static boolean validarAnterior(String token) {
+        try {
+            parsearAnterior(token);
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    private static Claims parsearAnterior(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    /**
+     * Repositorio que solo responde findById con el usuario dado (sin base ni mocks,
+     * para no sumar el costo de Mockito a la medición).
+     */
+    private static UsuarioRepository repositorioEnMemoria(Usuario usuario) {
+        return (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(),
+                new Class<?>[] { UsuarioRepository.class },
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("findById")) {
+                        return Optional.of(usuario);
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
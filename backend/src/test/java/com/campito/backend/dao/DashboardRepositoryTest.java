@@ -0,0 +1,236 @@
+package com.campito.backend.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import com.campito.backend.config.JpaAuditingConfig;
+import com.campito.backend.dto.CuotasPendientesTarjetaDTO;
+import com.campito.backend.dto.SaldoCuentaDTO;
+import com.campito.backend.dto.TopComercioDTO;
+import com.campito.backend.dto.TotalMotivoMesDTO;
+import com.campito.backend.event.ModificacionEspacioListener;
+import com.campito.backend.model.CompraCredito;
+import com.campito.backend.model.ContactoTransferencia;
+import com.campito.backend.model.CuentaBancaria;
+import com.campito.backend.model.CuotaCredito;
+import com.campito.backend.model.EspacioTrabajo;
+import com.campito.backend.model.MotivoTransaccion;
+import com.campito.backend.model.ProveedorAutenticacion;
+import com.campito.backend.model.Tarjeta;
+import com.campito.backend.model.TipoTransaccion;
+import com.campito.backend.model.Transaccion;
+import com.campito.backend.model.Usuario;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+/**
+ * Consultas nativas del snapshot financiero del agente sobre la base configurada para los
+ * tests (H2 en modo PostgreSQL o PostgreSQL en CI): {@code to_char}, {@code UNION ALL},
+ * el literal {@code 'CREDITO'} y {@code LIMIT :limite}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaAuditingConfig.class, ModificacionEspacioListener.class})
+class DashboardRepositoryTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2026, 2, 1);
+
+    @MockBean
+    private VersionDatosEspacioService versionDatosEspacioService;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private DashboardRepository dashboardRepository;
+
+    private EspacioTrabajo espacio;
+
+    @BeforeEach
+    void setUp() {
+        Usuario usuario = em.persist(Usuario.builder()
+                .nombre("Dashboard")
+                .email("dashboard-" + UUID.randomUUID() + "@test.com")
+                .proveedor(ProveedorAutenticacion.MANUAL)
+                .rol("USER")
+                .activo(true)
+                .fechaRegistro(LocalDateTime.now())
+                .build());
+        espacio = espacio(usuario, "Hogar");
+        MotivoTransaccion alimentos = motivo(espacio, "Alimentos");
+        MotivoTransaccion sueldo = motivo(espacio, "Sueldo");
+        ContactoTransferencia super_ = contacto(espacio, "Super");
+        ContactoTransferencia kiosco = contacto(espacio, "Kiosco");
+
+        transaccion(espacio, TipoTransaccion.GASTO, "100.00", LocalDate.of(2026, 3, 10), alimentos, super_);
+        transaccion(espacio, TipoTransaccion.GASTO, "50.00", LocalDate.of(2026, 3, 12), alimentos, null);
+        transaccion(espacio, TipoTransaccion.INGRESO, "1000.00", LocalDate.of(2026, 3, 1), sueldo, null);
+        transaccion(espacio, TipoTransaccion.GASTO, "40.00", LocalDate.of(2026, 2, 20), alimentos, super_);
+        // Anterior a la fecha límite: no cuenta
+        transaccion(espacio, TipoTransaccion.GASTO, "30.00", LocalDate.of(2026, 1, 5), alimentos, super_);
+
+        Tarjeta visa = em.persist(Tarjeta.builder()
+                .numeroTarjeta("1234")
+                .entidadFinanciera("Galicia")
+                .redDePago("Visa")
+                .diaCierre(25)
+                .diaVencimientoPago(15)
+                .espacioTrabajo(espacio)
+                .build());
+        CompraCredito compra = em.persist(CompraCredito.builder()
+                .fechaCompra(LocalDate.of(2026, 3, 5))
+                .montoTotal(new BigDecimal("300.00"))
+                .cantidadCuotas(3)
+                .cuotasPagadas(1)
+                .nombreCompletoAuditoria("Dashboard")
+                .fechaCreacion(LocalDateTime.now())
+                .espacioTrabajo(espacio)
+                .motivo(alimentos)
+                .comercio(kiosco)
+                .tarjeta(visa)
+                .build());
+        cuota(compra, 1, LocalDate.of(2026, 3, 15), true);
+        cuota(compra, 2, LocalDate.of(2026, 4, 15), false);
+        cuota(compra, 3, LocalDate.of(2026, 5, 15), false);
+
+        cuenta(espacio, "Caja de ahorro", "500.00");
+        cuenta(espacio, "Cuenta corriente", "1500.00");
+
+        // Datos de otro espacio: ninguna consulta los debe incluir
+        EspacioTrabajo otro = espacio(usuario, "Otro");
+        MotivoTransaccion otroMotivo = motivo(otro, "Alimentos");
+        transaccion(otro, TipoTransaccion.GASTO, "999.00", LocalDate.of(2026, 3, 10), otroMotivo,
+                contacto(otro, "Super"));
+        cuenta(otro, "Ajena", "9999.00");
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findTotalesPorMotivoYMes_agrupaTransaccionesYComprasPorMes() {
+        List<TotalMotivoMesDTO> totales = dashboardRepository.findTotalesPorMotivoYMes(espacio.getId(), DESDE);
+
+        assertEquals(4, totales.size());
+        assertTotal(totales.get(0), "2026-03", "Alimentos", "CREDITO", "300.00", 1);
+        assertTotal(totales.get(1), "2026-03", "Alimentos", "GASTO", "150.00", 2);
+        assertTotal(totales.get(2), "2026-03", "Sueldo", "INGRESO", "1000.00", 1);
+        assertTotal(totales.get(3), "2026-02", "Alimentos", "GASTO", "40.00", 1);
+    }
+
+    @Test
+    void findTopComercios_sumaTransaccionesYComprasPorContacto() {
+        List<TopComercioDTO> top = dashboardRepository.findTopComercios(espacio.getId(), DESDE, 5);
+
+        assertEquals(2, top.size());
+        assertEquals("Kiosco", top.get(0).getNombre());
+        assertEquals(0, new BigDecimal("300.00").compareTo(top.get(0).getTotal()));
+        assertEquals(1L, top.get(0).getCantidad());
+        assertEquals("Super", top.get(1).getNombre());
+        assertEquals(0, new BigDecimal("140.00").compareTo(top.get(1).getTotal()));
+        assertEquals(2L, top.get(1).getCantidad());
+    }
+
+    @Test
+    void findTopComercios_respetaElLimite() {
+        List<TopComercioDTO> top = dashboardRepository.findTopComercios(espacio.getId(), DESDE, 1);
+
+        assertEquals(List.of("Kiosco"), top.stream().map(TopComercioDTO::getNombre).toList());
+    }
+
+    @Test
+    void findCuotasPendientesPorTarjeta_soloCuotasImpagas() {
+        List<CuotasPendientesTarjetaDTO> cuotas = dashboardRepository.findCuotasPendientesPorTarjeta(espacio.getId());
+
+        assertEquals(1, cuotas.size());
+        CuotasPendientesTarjetaDTO visa = cuotas.get(0);
+        assertEquals("Galicia", visa.getEntidad());
+        assertEquals("Visa", visa.getRed());
+        assertEquals("1234", visa.getNumero());
+        assertEquals(2L, visa.getCuotas());
+        assertEquals(0, new BigDecimal("200.00").compareTo(visa.getTotal()));
+        assertEquals("2026-04-15", visa.getVencimiento());
+    }
+
+    @Test
+    void findSaldosPorCuenta_ordenaPorSaldoDescendente() {
+        List<SaldoCuentaDTO> saldos = dashboardRepository.findSaldosPorCuenta(espacio.getId());
+
+        assertEquals(List.of("Cuenta corriente", "Caja de ahorro"), saldos.stream().map(SaldoCuentaDTO::getNombre).toList());
+        assertEquals("Banco", saldos.get(0).getEntidad());
+        assertEquals(0, new BigDecimal("1500.00").compareTo(saldos.get(0).getSaldo()));
+    }
+
+    private static void assertTotal(TotalMotivoMesDTO total, String mes, String motivo, String tipo,
+                                    String monto, long cantidad) {
+        assertEquals(mes, total.getMes());
+        assertEquals(motivo, total.getMotivo());
+        assertEquals(tipo, total.getTipo());
+        assertEquals(0, new BigDecimal(monto).compareTo(total.getTotal()), "total de " + mes + " " + tipo);
+        assertEquals(cantidad, total.getCantidad());
+    }
+
+    private EspacioTrabajo espacio(Usuario usuario, String nombre) {
+        return em.persist(EspacioTrabajo.builder()
+                .nombre(nombre)
+                .saldo(BigDecimal.ZERO)
+                .usuarioAdmin(usuario)
+                .usuariosParticipantes(new ArrayList<>(List.of(usuario)))
+                .build());
+    }
+
+    private MotivoTransaccion motivo(EspacioTrabajo espacio, String nombre) {
+        return em.persist(MotivoTransaccion.builder().motivo(nombre).espacioTrabajo(espacio).build());
+    }
+
+    private ContactoTransferencia contacto(EspacioTrabajo espacio, String nombre) {
+        return em.persist(ContactoTransferencia.builder().nombre(nombre).espacioTrabajo(espacio).build());
+    }
+
+    private void transaccion(EspacioTrabajo espacio, TipoTransaccion tipo, String monto, LocalDate fecha,
+                             MotivoTransaccion motivo, ContactoTransferencia contacto) {
+        em.persist(Transaccion.builder()
+                .tipo(tipo)
+                .monto(new BigDecimal(monto))
+                .fecha(fecha)
+                .nombreCompletoAuditoria("Dashboard")
+                .fechaCreacion(LocalDateTime.now())
+                .espacioTrabajo(espacio)
+                .motivo(motivo)
+                .contacto(contacto)
+                .build());
+    }
+
+    private void cuota(CompraCredito compra, int numero, LocalDate vencimiento, boolean pagada) {
+        em.persist(CuotaCredito.builder()
+                .numeroCuota(numero)
+                .fechaVencimiento(vencimiento)
+                .montoCuota(new BigDecimal("100.00"))
+                .pagada(pagada)
+                .compraCredito(compra)
+                .build());
+    }
+
+    private void cuenta(EspacioTrabajo espacio, String nombre, String saldo) {
+        em.persist(CuentaBancaria.builder()
+                .nombre(nombre)
+                .entidadFinanciera("Banco")
+                .saldoActual(new BigDecimal(saldo))
+                .espacioTrabajo(espacio)
+                .build());
+    }
+}
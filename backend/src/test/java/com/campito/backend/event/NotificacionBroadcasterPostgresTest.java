@@ -0,0 +1,256 @@
+package com.campito.backend.event;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.Usuario;
+import com.campito.backend.service.ContadorNoLeidasService;
+import com.campito.backend.service.SseEmitterService;
+import com.campito.backend.service.VersionDatosEspacioService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Señales LISTEN/NOTIFY de otros nodos: notificaciones ({@code n}) entregadas por secuencia
+ * solo a usuarios con conexiones locales, espacios modificados ({@code e}) y contadores de no
+ * leídas ({@code c}). Al reconectar se descartan versiones y contadores.
+ */
+class NotificacionBroadcasterPostgresTest {
+
+    private static final String OTRO_NODO = UUID.randomUUID().toString();
+
+    private JdbcTemplate jdbcTemplate;
+    private NotificacionRepository notificacionRepository;
+    private SseEmitterService sseEmitterService;
+    private ContadorNoLeidasService contadorNoLeidasService;
+    private VersionDatosEspacioService versionDatosEspacioService;
+    private NotificacionBroadcasterPostgres broadcaster;
+
+    /**
+     * Señales que devuelve la conexión LISTEN simulada; un {@link SQLException} en la cola
+     * corta la conexión.
+     */
+    private final BlockingQueue<Object> seniales = new LinkedBlockingQueue<>();
+    private final AtomicInteger conexionesAbiertas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        notificacionRepository = mock(NotificacionRepository.class);
+        sseEmitterService = mock(SseEmitterService.class);
+        contadorNoLeidasService = mock(ContadorNoLeidasService.class);
+        versionDatosEspacioService = mock(VersionDatosEspacioService.class);
+        broadcaster = new NotificacionBroadcasterPostgres(jdbcTemplate, notificacionRepository,
+                sseEmitterService, contadorNoLeidasService, versionDatosEspacioService,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                "notificaciones_sse", 10, this::abrirConexion);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void notificaciones_seEntreganPorSecuenciaSoloAUsuariosConectados() {
+        UUID conectado = UUID.randomUUID();
+        UUID desconectado = UUID.randomUUID();
+        when(sseEmitterService.tieneConexiones(conectado)).thenReturn(true);
+        Notificacion primera = notificacion(21L, 1, conectado);
+        Notificacion segunda = notificacion(10L, 2, conectado);
+        // findAllById no garantiza orden
+        when(notificacionRepository.findAllById(any())).thenReturn(List.of(segunda, primera));
+        broadcaster.start();
+
+        senial("n;" + conectado + ":10," + conectado + ":21," + desconectado + ":30");
+
+        verify(sseEmitterService, timeout(2_000).times(2)).enviarNotificacion(eq(conectado), any());
+        InOrder orden = inOrder(sseEmitterService);
+        orden.verify(sseEmitterService).enviarNotificacion(conectado, primera);
+        orden.verify(sseEmitterService).enviarNotificacion(conectado, segunda);
+        verify(notificacionRepository).findAllById(Set.of(10L, 21L));
+        verify(contadorNoLeidasService).refrescar(conectado);
+        verify(contadorNoLeidasService).refrescar(desconectado);
+    }
+
+    @Test
+    void notificaciones_sinUsuariosConectados_noConsultaLaBase() {
+        UUID usuario = UUID.randomUUID();
+        broadcaster.start();
+
+        senial("n;" + usuario + ":10");
+
+        verify(contadorNoLeidasService, timeout(2_000)).refrescar(usuario);
+        verifyNoInteractions(notificacionRepository);
+        verify(sseEmitterService, never()).enviarNotificacion(any(), any());
+    }
+
+    @Test
+    void espacios_registranLaModificacionRemota() {
+        UUID espacio1 = UUID.randomUUID();
+        UUID espacio2 = UUID.randomUUID();
+        broadcaster.start();
+
+        senial("e;" + espacio1 + "," + espacio2);
+
+        verify(versionDatosEspacioService, timeout(2_000)).registrarModificacionRemota(espacio1);
+        verify(versionDatosEspacioService, timeout(2_000)).registrarModificacionRemota(espacio2);
+        verify(versionDatosEspacioService, never()).registrarModificacion(any());
+    }
+
+    @Test
+    void noLeidas_refrescaLosUsuariosODescartaTodos() {
+        UUID usuario = UUID.randomUUID();
+        broadcaster.start();
+
+        senial("c;" + usuario);
+        verify(contadorNoLeidasService, timeout(2_000)).refrescar(usuario);
+        verify(contadorNoLeidasService, never()).descartarTodos();
+
+        senial("c;*");
+        verify(contadorNoLeidasService, timeout(2_000)).descartarTodos();
+    }
+
+    @Test
+    void seniales_propiasOInvalidas_seIgnoranSinCortarLaEscucha() throws Exception {
+        UUID usuario = UUID.randomUUID();
+        Notificacion notificacion = notificacion(10L, 1, usuario);
+        broadcaster.difundir(List.of(notificacion));
+        String propia = payloadEnviado();
+        clearInvocations(contadorNoLeidasService, sseEmitterService);
+        broadcaster.start();
+
+        seniales.add(propia);
+        senial("x;algo");
+        senial("n;no-es-un-uuid:10");
+        seniales.add("sin separadores");
+        UUID otro = UUID.randomUUID();
+        senial("c;" + otro);
+
+        verify(contadorNoLeidasService, timeout(2_000)).refrescar(otro);
+        verify(contadorNoLeidasService, never()).refrescar(usuario);
+        verify(sseEmitterService, never()).tieneConexiones(any());
+    }
+
+    @Test
+    void difundir_senializaUsuarioEIdDeCadaNotificacion() throws Exception {
+        UUID usuario1 = UUID.randomUUID();
+        UUID usuario2 = UUID.randomUUID();
+
+        broadcaster.difundir(List.of(notificacion(10L, 1, usuario1), notificacion(11L, 1, usuario2)));
+
+        String payload = payloadEnviado();
+        assertTrue(payload.endsWith(";n;" + usuario1 + ":10," + usuario2 + ":11"), payload);
+        assertFalse(payload.startsWith(OTRO_NODO));
+    }
+
+    @Test
+    void primeraConexion_noDescartaVersionesNiContadores() {
+        broadcaster.start();
+        UUID usuario = UUID.randomUUID();
+
+        senial("c;" + usuario);
+
+        verify(contadorNoLeidasService, timeout(2_000)).refrescar(usuario);
+        assertEquals(1, conexionesAbiertas.get());
+        verify(versionDatosEspacioService, never()).descartarVersiones();
+        verify(contadorNoLeidasService, never()).descartarTodos();
+    }
+
+    @Test
+    void reconexion_descartaVersionesYContadores() {
+        broadcaster.start();
+
+        seniales.add(new SQLException("conexión perdida"));
+
+        verify(versionDatosEspacioService, timeout(2_000)).descartarVersiones();
+        verify(contadorNoLeidasService, timeout(2_000)).descartarTodos();
+        assertEquals(2, conexionesAbiertas.get());
+
+        // La nueva conexión sigue procesando señales
+        UUID espacio = UUID.randomUUID();
+        senial("e;" + espacio);
+        verify(versionDatosEspacioService, timeout(2_000)).registrarModificacionRemota(espacio);
+    }
+
+    private void senial(String tipoYDatos) {
+        seniales.add(OTRO_NODO + ";" + tipoYDatos);
+    }
+
+    /**
+     * Conexión LISTEN simulada: cada espera de señales toma el siguiente elemento de la cola.
+     */
+    private Connection abrirConexion() throws SQLException {
+        conexionesAbiertas.incrementAndGet();
+        Connection conexion = mock(Connection.class);
+        when(conexion.createStatement()).thenReturn(mock(Statement.class));
+        PGConnection pgConexion = mock(PGConnection.class);
+        when(conexion.unwrap(PGConnection.class)).thenReturn(pgConexion);
+        when(pgConexion.getNotifications(anyInt())).thenAnswer(inv -> {
+            Object siguiente = seniales.poll(50, TimeUnit.MILLISECONDS);
+            if (siguiente == null) {
+                return null;
+            }
+            if (siguiente instanceof SQLException e) {
+                throw e;
+            }
+            PGNotification senial = mock(PGNotification.class);
+            when(senial.getParameter()).thenReturn((String) siguiente);
+            return new PGNotification[]{senial};
+        });
+        return conexion;
+    }
+
+    /**
+     * Ejecuta el {@code pg_notify} registrado en el JdbcTemplate y devuelve su payload.
+     */
+    @SuppressWarnings("unchecked")
+    private String payloadEnviado() throws Exception {
+        ArgumentCaptor<PreparedStatementCallback<Boolean>> callback = ArgumentCaptor.forClass(PreparedStatementCallback.class);
+        verify(jdbcTemplate).execute(anyString(), callback.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        callback.getValue().doInPreparedStatement(ps);
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(ps).setString(eq(2), payload.capture());
+        return payload.getValue();
+    }
+
+    private static Notificacion notificacion(long id, long secuencia, UUID idUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setId(idUsuario);
+        Notificacion notificacion = new Notificacion();
+        notificacion.setId(id);
+        notificacion.setSecuencia(secuencia);
+        notificacion.setUsuario(usuario);
+        return notificacion;
+    }
+}
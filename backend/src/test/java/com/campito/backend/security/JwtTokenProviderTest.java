@@ -0,0 +1,166 @@
+package com.campito.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.config.MetricsConfig;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verificación de tokens con la caché de tokens verificados: un hit devuelve el mismo
+ * principal, un token inválido nunca entra a la caché y una entrada vence en el {@code exp}
+ * del token.
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test_jwt_secret_para_unit_tests_minimo_256_bits_1234567890123456789012";
+    private static final String OTRO_SECRET = "otro_jwt_secret_para_unit_tests_minimo_256_bits_1234567890123456789012";
+    private static final long EXPIRACION_MS = Duration.ofMinutes(30).toMillis();
+
+    /**
+     * Reloj que solo avanza cuando el test lo pide.
+     */
+    private static final class RelojManual extends Clock {
+        private Instant ahora = Instant.parse("2026-03-01T12:00:00Z");
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private RelojManual reloj;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        reloj = new RelojManual();
+        meterRegistry = new SimpleMeterRegistry();
+        jwtTokenProvider = new JwtTokenProvider(meterRegistry, SECRET, EXPIRACION_MS, 1_000, reloj);
+    }
+
+    @Test
+    void verificar_tokenValido_extraeLosDatos() {
+        UUID idUsuario = UUID.randomUUID();
+
+        Optional<JwtTokenProvider.TokenVerificado> verificado =
+                jwtTokenProvider.verificar(jwtTokenProvider.generateToken(idUsuario, "ana@test.com"));
+
+        assertTrue(verificado.isPresent());
+        assertEquals(idUsuario, verificado.get().idUsuario());
+        assertEquals("ana@test.com", verificado.get().email());
+        assertEquals(reloj.instant().plusMillis(EXPIRACION_MS), verificado.get().expiracion());
+    }
+
+    @Test
+    void verificar_mismoToken_devuelveElPrincipalCacheado() {
+        String token = jwtTokenProvider.generateToken(UUID.randomUUID(), "ana@test.com");
+
+        JwtTokenProvider.TokenVerificado primero = jwtTokenProvider.verificar(token).orElseThrow();
+        JwtTokenProvider.TokenVerificado segundo = jwtTokenProvider.verificar(token).orElseThrow();
+
+        assertSame(primero, segundo);
+        assertEquals(1.0, aciertos("hit"));
+        assertEquals(1.0, aciertos("miss"));
+    }
+
+    @Test
+    void verificar_firmaDeOtraClave_esVacio() {
+        String ajeno = Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .expiration(Date.from(reloj.instant().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(OTRO_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertTrue(jwtTokenProvider.verificar(ajeno).isEmpty());
+    }
+
+    @Test
+    void verificar_payloadAlterado_esVacio() {
+        String[] original = jwtTokenProvider.generateToken(UUID.randomUUID(), "ana@test.com").split("\\.");
+        String[] otro = jwtTokenProvider.generateToken(UUID.randomUUID(), "eva@test.com").split("\\.");
+        String alterado = original[0] + "." + otro[1] + "." + original[2];
+
+        assertTrue(jwtTokenProvider.verificar(alterado).isEmpty());
+    }
+
+    @Test
+    void verificar_tokenMalformado_esVacio() {
+        assertTrue(jwtTokenProvider.verificar("no-es-un-jwt").isEmpty());
+        assertTrue(jwtTokenProvider.verificar("abc.def.ghi").isEmpty());
+    }
+
+    @Test
+    void verificar_tokenExpirado_esVacio() {
+        String token = jwtTokenProvider.generateToken(UUID.randomUUID(), "ana@test.com");
+        reloj.avanzar(Duration.ofMillis(EXPIRACION_MS).plusSeconds(1));
+
+        assertTrue(jwtTokenProvider.verificar(token).isEmpty());
+    }
+
+    @Test
+    void verificar_tokenSinExp_seRechazaYNoSeCachea() {
+        String sinExp = Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .claim("email", "ana@test.com")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertTrue(jwtTokenProvider.verificar(sinExp).isEmpty());
+        assertTrue(jwtTokenProvider.verificar(sinExp).isEmpty());
+        assertEquals(0.0, aciertos("hit"));
+    }
+
+    @Test
+    void verificar_entradaCacheada_venceEnElExpDelToken() {
+        String token = jwtTokenProvider.generateToken(UUID.randomUUID(), "ana@test.com");
+        assertTrue(jwtTokenProvider.verificar(token).isPresent());
+
+        // Un instante antes del exp todavía se sirve desde la caché
+        reloj.avanzar(Duration.ofMillis(EXPIRACION_MS).minusSeconds(1));
+        assertTrue(jwtTokenProvider.verificar(token).isPresent());
+        assertEquals(1.0, aciertos("hit"));
+
+        // Vencido el exp, la caché no lo devuelve y la verificación lo rechaza
+        reloj.avanzar(Duration.ofSeconds(2));
+        assertTrue(jwtTokenProvider.verificar(token).isEmpty());
+        assertEquals(1.0, aciertos("hit"));
+    }
+
+    private double aciertos(String resultado) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", MetricsConfig.MetricNames.CACHE_JWT)
+                .tag("result", resultado)
+                .functionCounter().count();
+    }
+}
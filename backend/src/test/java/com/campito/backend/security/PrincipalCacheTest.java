@@ -0,0 +1,158 @@
+package com.campito.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.model.Usuario;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La caché de principales carga de la base solo ante un miss, vence a los 60 s y se
+ * invalida en el momento y otra vez después del commit (actualización en el login).
+ */
+class PrincipalCacheTest {
+
+    private static final long TTL_SEGUNDOS = 60;
+
+    private final AtomicLong reloj = new AtomicLong();
+    private UsuarioRepository usuarioRepository;
+    private PrincipalCache principalCache;
+    private UUID idUsuario;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = mock(UsuarioRepository.class);
+        principalCache = new PrincipalCache(usuarioRepository, new SimpleMeterRegistry(), 1_000,
+                TTL_SEGUNDOS, reloj::get);
+        idUsuario = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void obtener_miss_cargaDeLaBaseYCopiaLosCampos() {
+        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario("Ana", true)));
+
+        PrincipalCache.PrincipalCacheado principal = principalCache.obtener(idUsuario).orElseThrow();
+
+        assertEquals(idUsuario, principal.id());
+        assertEquals("Ana", principal.nombre());
+        assertEquals("ana@test.com", principal.email());
+        assertEquals("USER", principal.rol());
+        assertTrue(principal.activo());
+        Usuario reconstruido = principal.aUsuario();
+        assertEquals(idUsuario, reconstruido.getId());
+        assertEquals(Boolean.TRUE, reconstruido.getActivo());
+    }
+
+    @Test
+    void obtener_hit_noConsultaLaBase() {
+        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario("Ana", true)));
+
+        PrincipalCache.PrincipalCacheado primero = principalCache.obtener(idUsuario).orElseThrow();
+        PrincipalCache.PrincipalCacheado segundo = principalCache.obtener(idUsuario).orElseThrow();
+
+        assertSame(primero, segundo);
+        verify(usuarioRepository, times(1)).findById(any());
+    }
+
+    @Test
+    void obtener_usuarioInexistente_noSeCachea() {
+        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+
+        assertTrue(principalCache.obtener(idUsuario).isEmpty());
+        assertTrue(principalCache.obtener(idUsuario).isEmpty());
+
+        verify(usuarioRepository, times(2)).findById(idUsuario);
+    }
+
+    @Test
+    void obtener_venceAlCumplirseElTtl() {
+        when(usuarioRepository.findById(idUsuario))
+                .thenReturn(Optional.of(usuario("Ana", true)))
+                .thenReturn(Optional.of(usuario("Ana", false)));
+        principalCache.obtener(idUsuario);
+
+        avanzar(Duration.ofSeconds(TTL_SEGUNDOS - 1));
+        assertTrue(principalCache.obtener(idUsuario).orElseThrow().activo());
+
+        avanzar(Duration.ofSeconds(1));
+        assertFalse(principalCache.obtener(idUsuario).orElseThrow().activo());
+        verify(usuarioRepository, times(2)).findById(idUsuario);
+    }
+
+    @Test
+    void invalidar_sinTransaccion_descartaEnElMomento() {
+        when(usuarioRepository.findById(idUsuario))
+                .thenReturn(Optional.of(usuario("Ana", true)))
+                .thenReturn(Optional.of(usuario("Ana María", true)));
+        principalCache.obtener(idUsuario);
+
+        principalCache.invalidar(idUsuario);
+
+        assertEquals("Ana María", principalCache.obtener(idUsuario).orElseThrow().nombre());
+    }
+
+    @Test
+    void invalidar_enTransaccion_descartaTambienDespuesDelCommit() {
+        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario("Ana", true)));
+        principalCache.obtener(idUsuario);
+        TransactionSynchronizationManager.initSynchronization();
+
+        principalCache.invalidar(idUsuario);
+
+        // Descartado en el momento
+        principalCache.obtener(idUsuario);
+        verify(usuarioRepository, times(2)).findById(idUsuario);
+
+        // Una petición concurrente leyó la fila sin confirmar y volvió a cachear el nombre viejo;
+        // el commit lo descarta de nuevo
+        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario("Ana María", true)));
+        assertEquals("Ana", principalCache.obtener(idUsuario).orElseThrow().nombre());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals("Ana María", principalCache.obtener(idUsuario).orElseThrow().nombre());
+    }
+
+    @Test
+    void invalidar_idNulo_noHaceNada() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        principalCache.invalidar(null);
+
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    private Usuario usuario(String nombre, boolean activo) {
+        return Usuario.builder()
+                .id(idUsuario)
+                .nombre(nombre)
+                .email("ana@test.com")
+                .rol("USER")
+                .activo(activo)
+                .build();
+    }
+
+    private void avanzar(Duration duracion) {
+        reloj.addAndGet(duracion.toNanos());
+    }
+}
@@ -0,0 +1,180 @@
+package com.campito.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.ExceptionInfo;
+import com.campito.backend.model.CustomOAuth2User;
+import com.campito.backend.model.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Nivel según la ruta, clave por usuario autenticado o por IP, headers X-RateLimit-* y
+ * el 429 con Retry-After y cuerpo JSON.
+ */
+class RateLimitFilterTest {
+
+    private static final long RAFAGA_GENERAL = 3;
+    private static final long RAFAGA_COSTOSO = 2;
+    private static final long RAFAGA_AGENTE = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filtro;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 1 token por minuto: durante el test los buckets no se recargan
+        RateLimitService rateLimitService = new RateLimitService(meterRegistry, 1, RAFAGA_GENERAL,
+                1, RAFAGA_COSTOSO, 1, RAFAGA_AGENTE, 1_000, 10, System::nanoTime);
+        filtro = new RateLimitFilter(rateLimitService, objectMapper, meterRegistry,
+                List.of("/api/dashboard/**", "/api/transaccion/buscar", "/api/comprascredito/buscar/**"),
+                List.of("/api/agente/chat/**"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rutaGeneral_usaElNivelGeneral() throws Exception {
+        MockHttpServletResponse respuesta = ejecutar(request("/api/transaccion/registrar", "10.0.0.1")).respuesta();
+
+        assertEquals(String.valueOf(RAFAGA_GENERAL), respuesta.getHeader("X-RateLimit-Limit"));
+    }
+
+    @Test
+    void rutaCostosa_usaElNivelCostoso() throws Exception {
+        assertEquals(String.valueOf(RAFAGA_COSTOSO),
+                ejecutar(request("/api/dashboard/stats/" + UUID.randomUUID(), "10.0.0.1")).respuesta()
+                        .getHeader("X-RateLimit-Limit"));
+        assertEquals(String.valueOf(RAFAGA_COSTOSO),
+                ejecutar(request("/api/transaccion/buscar", "10.0.0.2")).respuesta().getHeader("X-RateLimit-Limit"));
+    }
+
+    @Test
+    void rutaDelAgente_usaElNivelAgente() throws Exception {
+        assertEquals(String.valueOf(RAFAGA_AGENTE),
+                ejecutar(request("/api/agente/chat", "10.0.0.1")).respuesta().getHeader("X-RateLimit-Limit"));
+        assertEquals(String.valueOf(RAFAGA_AGENTE),
+                ejecutar(request("/api/agente/chat/stream", "10.0.0.2")).respuesta().getHeader("X-RateLimit-Limit"));
+    }
+
+    @Test
+    void rutaFueraDeApi_noSeLimita() throws Exception {
+        Resultado resultado = ejecutar(request("/actuator/health", "10.0.0.1"));
+
+        assertTrue(resultado.continuo());
+        assertNull(resultado.respuesta().getHeader("X-RateLimit-Limit"));
+    }
+
+    @Test
+    void headers_informanRestantesYReinicio() throws Exception {
+        MockHttpServletResponse primera = ejecutar(request("/api/transaccion/registrar", "10.0.0.1")).respuesta();
+        MockHttpServletResponse segunda = ejecutar(request("/api/transaccion/registrar", "10.0.0.1")).respuesta();
+
+        assertEquals(String.valueOf(RAFAGA_GENERAL - 1), primera.getHeader("X-RateLimit-Remaining"));
+        assertEquals(String.valueOf(RAFAGA_GENERAL - 2), segunda.getHeader("X-RateLimit-Remaining"));
+        assertTrue(Long.parseLong(segunda.getHeader("X-RateLimit-Reset")) > 0);
+        assertNull(segunda.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void limiteAgotado_responde429ConRetryAfterYCuerpoJson() throws Exception {
+        String ruta = "/api/agente/chat";
+        assertTrue(ejecutar(request(ruta, "10.0.0.1")).continuo());
+
+        Resultado rechazada = ejecutar(request(ruta, "10.0.0.1"));
+
+        MockHttpServletResponse respuesta = rechazada.respuesta();
+        assertFalse(rechazada.continuo());
+        assertEquals(429, respuesta.getStatus());
+        assertEquals("0", respuesta.getHeader("X-RateLimit-Remaining"));
+        long retryAfter = Long.parseLong(respuesta.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60, "Retry-After: " + retryAfter);
+        assertTrue(respuesta.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        ExceptionInfo cuerpo = objectMapper.readValue(respuesta.getContentAsString(), ExceptionInfo.class);
+        assertEquals(429, cuerpo.status());
+        assertEquals("uri=" + ruta, cuerpo.path());
+        assertNotNull(cuerpo.message());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.RATE_LIMIT_RECHAZOS)
+                .tag("nivel", "agente").counter().count());
+    }
+
+    @Test
+    void limiteDeUnNivelAgotado_noAfectaALosDemas() throws Exception {
+        ejecutar(request("/api/agente/chat", "10.0.0.1"));
+
+        assertEquals(429, ejecutar(request("/api/agente/chat", "10.0.0.1")).respuesta().getStatus());
+        assertTrue(ejecutar(request("/api/transaccion/registrar", "10.0.0.1")).continuo());
+    }
+
+    @Test
+    void anonimo_seLimitaPorIp() throws Exception {
+        ejecutar(request("/api/agente/chat", "10.0.0.1"));
+
+        assertFalse(ejecutar(request("/api/agente/chat", "10.0.0.1")).continuo());
+        assertTrue(ejecutar(request("/api/agente/chat", "10.0.0.2")).continuo());
+    }
+
+    @Test
+    void autenticado_seLimitaPorUsuarioSinImportarLaIp() throws Exception {
+        UUID usuario = UUID.randomUUID();
+        autenticar(usuario);
+        ejecutar(request("/api/agente/chat", "10.0.0.1"));
+
+        // Mismo usuario desde otra IP: comparte el bucket
+        assertFalse(ejecutar(request("/api/agente/chat", "10.0.0.2")).continuo());
+
+        // Otro usuario desde la misma IP: bucket propio
+        autenticar(UUID.randomUUID());
+        assertTrue(ejecutar(request("/api/agente/chat", "10.0.0.1")).continuo());
+
+        // Anónimo desde la misma IP: tampoco comparte con los usuarios
+        SecurityContextHolder.clearContext();
+        assertTrue(ejecutar(request("/api/agente/chat", "10.0.0.1")).continuo());
+    }
+
+    private record Resultado(MockHttpServletResponse respuesta, boolean continuo) {
+    }
+
+    private Resultado ejecutar(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        MockFilterChain cadena = new MockFilterChain();
+        filtro.doFilter(request, respuesta, cadena);
+        return new Resultado(respuesta, cadena.getRequest() != null);
+    }
+
+    private static MockHttpServletRequest request(String ruta, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private static void autenticar(UUID idUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setId(idUsuario);
+        CustomOAuth2User principal = new CustomOAuth2User(Collections.emptyMap(), "sub", usuario);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}
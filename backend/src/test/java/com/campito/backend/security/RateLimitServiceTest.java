@@ -0,0 +1,106 @@
+package com.campito.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.security.RateLimitService.NivelRateLimit;
+import com.campito.backend.security.RateLimitService.ResultadoRateLimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Un bucket por nivel y cliente, en una caché que lo descarta tras la inactividad configurada.
+ */
+class RateLimitServiceTest {
+
+    private static final long EXPIRACION_MINUTOS = 10;
+
+    private final AtomicLong reloj = new AtomicLong();
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        // 1 token por minuto: durante el test los buckets no se recargan
+        rateLimitService = new RateLimitService(new SimpleMeterRegistry(), 1, 3, 1, 2, 1, 1,
+                1_000, EXPIRACION_MINUTOS, reloj::get);
+    }
+
+    @Test
+    void consumir_agotaLaRafagaYRechaza() {
+        String cliente = RateLimitService.clienteIp("10.0.0.1");
+
+        for (int i = 2; i >= 0; i--) {
+            ResultadoRateLimit resultado = rateLimitService.consumir(NivelRateLimit.GENERAL, cliente);
+            assertTrue(resultado.permitido());
+            assertEquals(3, resultado.limite());
+            assertEquals(i, resultado.restantes());
+            assertEquals(0, resultado.segundosParaReintentar());
+        }
+
+        ResultadoRateLimit rechazado = rateLimitService.consumir(NivelRateLimit.GENERAL, cliente);
+        assertFalse(rechazado.permitido());
+        assertEquals(0, rechazado.restantes());
+        // 1 token por minuto
+        assertTrue(rechazado.segundosParaReintentar() > 0 && rechazado.segundosParaReintentar() <= 60);
+        assertTrue(rechazado.segundosParaReinicio() >= rechazado.segundosParaReintentar());
+    }
+
+    @Test
+    void consumir_nivelesYClientesIndependientes() {
+        String cliente = RateLimitService.clienteUsuario(UUID.randomUUID());
+        rateLimitService.consumir(NivelRateLimit.AGENTE, cliente);
+
+        assertFalse(rateLimitService.consumir(NivelRateLimit.AGENTE, cliente).permitido());
+        assertTrue(rateLimitService.consumir(NivelRateLimit.GENERAL, cliente).permitido());
+        assertTrue(rateLimitService.consumir(NivelRateLimit.AGENTE, RateLimitService.clienteIp("10.0.0.1")).permitido());
+    }
+
+    @Test
+    void bucketInactivo_seDescartaYVuelveConCapacidadCompleta() {
+        String cliente = RateLimitService.clienteIp("10.0.0.1");
+        rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente);
+        rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente);
+        assertEquals(0, rateLimitService.disponibles(NivelRateLimit.COSTOSO, cliente));
+
+        avanzar(Duration.ofMinutes(EXPIRACION_MINUTOS).plusSeconds(1));
+
+        assertEquals(2, rateLimitService.disponibles(NivelRateLimit.COSTOSO, cliente));
+        assertTrue(rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente).permitido());
+    }
+
+    @Test
+    void bucketEnUso_noSeDescarta() {
+        String cliente = RateLimitService.clienteIp("10.0.0.1");
+        rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente);
+        rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente);
+
+        // Cada acceso renueva la expiración
+        avanzar(Duration.ofMinutes(EXPIRACION_MINUTOS - 1));
+        assertFalse(rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente).permitido());
+        avanzar(Duration.ofMinutes(EXPIRACION_MINUTOS - 1));
+
+        assertFalse(rateLimitService.consumir(NivelRateLimit.COSTOSO, cliente).permitido());
+    }
+
+    @Test
+    void resetear_descartaLosBucketsDeTodosLosNiveles() {
+        String cliente = RateLimitService.clienteIp("10.0.0.1");
+        rateLimitService.consumir(NivelRateLimit.AGENTE, cliente);
+        rateLimitService.consumir(NivelRateLimit.GENERAL, cliente);
+
+        rateLimitService.resetear(cliente);
+
+        assertEquals(1, rateLimitService.disponibles(NivelRateLimit.AGENTE, cliente));
+        assertEquals(3, rateLimitService.disponibles(NivelRateLimit.GENERAL, cliente));
+    }
+
+    private void avanzar(Duration duracion) {
+        reloj.addAndGet(duracion.toNanos());
+    }
+}
@@ -0,0 +1,160 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.AgenteAuditLogRepository;
+import com.campito.backend.model.AgenteAuditLog;
+import com.campito.backend.service.agentAI.AgenteAuditoriaService;
+import com.campito.backend.service.agentAI.AgenteAuditoriaService.PoliticaDesborde;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La auditoría del agente se encola sin bloquear, se persiste en lotes y se drena
+ * completa al detener el contexto.
+ */
+class AgenteAuditoriaServiceTest {
+
+    private AgenteAuditLogRepository auditLogRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(AgenteAuditLogRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void registrar_variasFilas_sePersistenTodasAlDetener() {
+        AgenteAuditoriaService servicio = servicio(10, PoliticaDesborde.DESCARTAR_NUEVO);
+        servicio.start();
+
+        servicio.registrar(fila("uno"));
+        servicio.registrar(fila("dos"));
+        servicio.registrar(fila("tres"));
+        servicio.stop();
+
+        assertEquals(List.of("uno", "dos", "tres"), mensajesGuardados());
+        assertFalse(servicio.isRunning());
+    }
+
+    @Test
+    void stop_conLoteEnCurso_noInterrumpeLaEscritura() throws Exception {
+        CountDownLatch escribiendo = new CountDownLatch(1);
+        AtomicBoolean interrumpido = new AtomicBoolean();
+        when(auditLogRepository.saveAll(any())).thenAnswer(inv -> {
+            escribiendo.countDown();
+            try {
+                // Simula el I/O del JDBC: con el hilo interrumpido fallaría con "Closed by interrupt"
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                interrumpido.set(true);
+            }
+            return List.of();
+        });
+        AgenteAuditoriaService servicio = servicio(10, PoliticaDesborde.DESCARTAR_NUEVO);
+        servicio.start();
+
+        servicio.registrar(fila("uno"));
+        assertTrue(escribiendo.await(1, TimeUnit.SECONDS));
+        servicio.stop();
+
+        assertFalse(interrumpido.get());
+        assertEquals(List.of("uno"), mensajesGuardados());
+    }
+
+    @Test
+    void registrar_bufferLleno_descartaLaFilaNueva() {
+        AgenteAuditoriaService servicio = servicio(2, PoliticaDesborde.DESCARTAR_NUEVO);
+
+        servicio.registrar(fila("uno"));
+        servicio.registrar(fila("dos"));
+        servicio.registrar(fila("tres"));
+        servicio.stop();
+
+        assertEquals(List.of("uno", "dos"), mensajesGuardados());
+        assertEquals(1.0, descartadas("cola_llena"));
+    }
+
+    @Test
+    void registrar_bufferLleno_descartaLaFilaMasAntigua() {
+        AgenteAuditoriaService servicio = servicio(2, PoliticaDesborde.DESCARTAR_ANTIGUO);
+
+        servicio.registrar(fila("uno"));
+        servicio.registrar(fila("dos"));
+        servicio.registrar(fila("tres"));
+        servicio.stop();
+
+        assertEquals(List.of("dos", "tres"), mensajesGuardados());
+        assertEquals(1.0, descartadas("cola_llena"));
+    }
+
+    @Test
+    void registrar_loteFallido_reintentaFilaPorFila() {
+        when(auditLogRepository.saveAll(any()))
+                .thenThrow(new RuntimeException("violación de FK"))
+                .thenReturn(List.of())
+                .thenThrow(new RuntimeException("violación de FK"));
+        AgenteAuditoriaService servicio = servicio(10, PoliticaDesborde.DESCARTAR_NUEVO);
+
+        servicio.registrar(fila("uno"));
+        servicio.registrar(fila("dos"));
+        servicio.stop();
+
+        verify(auditLogRepository, times(3)).saveAll(any());
+        assertEquals(1.0, descartadas("error"));
+    }
+
+    @Test
+    void registrar_despuesDeDetener_persisteDeFormaSincronica() {
+        AgenteAuditoriaService servicio = servicio(10, PoliticaDesborde.DESCARTAR_NUEVO);
+        servicio.stop();
+
+        servicio.registrar(fila("tarde"));
+
+        assertEquals(List.of("tarde"), mensajesGuardados());
+    }
+
+    private AgenteAuditoriaService servicio(int capacidad, PoliticaDesborde politica) {
+        return new AgenteAuditoriaService(auditLogRepository, meterRegistry, capacidad, 50, 20, politica);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> mensajesGuardados() {
+        ArgumentCaptor<Iterable<AgenteAuditLog>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(auditLogRepository, atLeastOnce()).saveAll(captor.capture());
+        List<String> mensajes = new ArrayList<>();
+        captor.getAllValues().forEach(lote -> lote.forEach(fila -> mensajes.add(fila.getUserMessage())));
+        return mensajes;
+    }
+
+    private double descartadas(String motivo) {
+        return meterRegistry.get(MetricsConfig.MetricNames.AGENTE_AUDITORIA_DESCARTADAS)
+                .tag("motivo", motivo)
+                .counter()
+                .count();
+    }
+
+    private static AgenteAuditLog fila(String mensaje) {
+        return AgenteAuditLog.builder()
+                .userId(UUID.randomUUID())
+                .workspaceId(UUID.randomUUID())
+                .userMessage(mensaje)
+                .success(true)
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.scheduler.NonBlocking;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.ForbiddenException;
+import com.campito.backend.service.agentAI.AgenteToolExecutor;
+import com.campito.backend.service.agentAI.RegistroToolsInvocadas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Las tools se ejecutan fuera del hilo llamador, con el contexto de seguridad del
+ * usuario y un timeout por tool.
+ */
+class AgenteToolExecutorTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private AgenteToolExecutor toolExecutor;
+    private Authentication autenticacion;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                Thread.ofVirtual().factory());
+        meterRegistry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("agente.tools.timeouts.lenta", "50");
+        toolExecutor = new AgenteToolExecutor(executor, meterRegistry, environment, 1000);
+
+        autenticacion = new UsernamePasswordAuthenticationToken(UUID.randomUUID(), null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void ejecutar_propagaContextoDeSeguridadYRegistraLaTool() {
+        RegistroToolsInvocadas toolsInvocadas = new RegistroToolsInvocadas();
+        ToolContext toolContext = new ToolContext(AgenteToolExecutor.contextoHerramientas(toolsInvocadas));
+        // El hilo que invoca la tool (p. ej. el del stream) no tiene contexto propio
+        SecurityContextHolder.clearContext();
+
+        Authentication enLaTool = toolExecutor.ejecutar("listarTarjetasCredito", toolContext,
+                () -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertSame(autenticacion, enLaTool);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(List.of("listarTarjetasCredito"), toolsInvocadas.nombres());
+    }
+
+    @Test
+    void ejecutar_sinToolContext_usaContextoDelHiloActual() {
+        Authentication enLaTool = toolExecutor.ejecutar("listarTarjetasCredito", null,
+                () -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertSame(autenticacion, enLaTool);
+    }
+
+    @Test
+    void ejecutar_noCorreEnElHiloLlamador() {
+        Thread llamador = Thread.currentThread();
+
+        Thread ejecutor = toolExecutor.ejecutar("listarTarjetasCredito", null, Thread::currentThread);
+
+        assertNotSame(llamador, ejecutor);
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_EJECUCION)
+                .tag("tool", "listarTarjetasCredito").timer().count());
+    }
+
+    @Test
+    void ejecutar_superaTimeoutDeLaTool_cancelaYLanzaExcepcion() {
+        assertThrows(IllegalStateException.class, () -> toolExecutor.ejecutar("lenta", null, () -> {
+            Thread.sleep(5_000);
+            return "sin respuesta";
+        }));
+
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_FALLIDAS)
+                .tag("tool", "lenta").tag("motivo", "timeout").counter().count());
+    }
+
+    @Test
+    void ejecutar_propagaExcepcionOriginalDeLaTool() {
+        assertThrows(ForbiddenException.class, () -> toolExecutor.ejecutar("listarTarjetasCredito", null, () -> {
+            throw new ForbiddenException("Sin acceso");
+        }));
+    }
+
+    @Test
+    void ejecutar_desdeHiloNoBloqueante_rechazaSinBloquear() throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread eventLoop = new HiloNoBloqueante(() -> {
+            try {
+                toolExecutor.ejecutar("listarTarjetasCredito", null, () -> Map.of());
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        eventLoop.start();
+        eventLoop.join(1_000);
+
+        assertInstanceOf(IllegalStateException.class, error.get());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_FALLIDAS)
+                .tag("tool", "listarTarjetasCredito").tag("motivo", "hilo_no_bloqueante").counter().count());
+    }
+
+    @Test
+    void ejecutar_executorSaturado_rechazaSinEsperar() throws InterruptedException {
+        CountDownLatch liberar = new CountDownLatch(1);
+        // Ocupa el único hilo y el único lugar en cola
+        executor.submit(() -> { liberar.await(); return null; });
+        executor.submit(() -> { liberar.await(); return null; });
+
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> toolExecutor.ejecutar("listarTarjetasCredito", null, () -> Map.of()));
+            assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_FALLIDAS)
+                    .tag("tool", "listarTarjetasCredito").tag("motivo", "rechazada").counter().count());
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    /**
+     * Hilo marcado como no bloqueante, como los del event loop de Reactor Netty.
+     */
+    private static final class HiloNoBloqueante extends Thread implements NonBlocking {
+        HiloNoBloqueante(Runnable tarea) {
+            super(tarea);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.campito.backend.dto.AgenteChatRequestDTO;
+import com.campito.backend.dto.ChatMessageDTO;
+import com.campito.backend.event.EspaciosModificadosEvent;
+import com.campito.backend.service.agentAI.CacheRespuestasAgente;
+import com.campito.backend.service.agentAI.CacheRespuestasAgente.ClaveRespuesta;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La caché de respuestas reutiliza la respuesta de preguntas equivalentes sobre los mismos
+ * datos y deja de hacerlo ante cualquier escritura sobre el espacio de trabajo.
+ */
+class CacheRespuestasAgenteTest {
+
+    private static final String[] FUNCIONES = {"listarMotivosTransacciones", "buscarTransacciones"};
+
+    private List<Object> eventos;
+    private VersionDatosEspacioService versionDatosEspacioService;
+    private CacheRespuestasAgente cache;
+    private UUID idEspacioTrabajo;
+
+    @BeforeEach
+    void setUp() {
+        eventos = new ArrayList<>();
+        versionDatosEspacioService = new VersionDatosEspacioServiceImpl(eventos::add, 100, 60);
+        cache = new CacheRespuestasAgente(versionDatosEspacioService, new SimpleMeterRegistry(), true, 100, 15);
+        idEspacioTrabajo = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    }
+
+    @Test
+    void buscar_preguntaEquivalente_devuelveLaRespuestaGuardada() {
+        cache.guardar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES), "Gastaste **$1.000**.");
+
+        ClaveRespuesta clave = cache.clave(request("cuanto gaste  este mes"),
+                new String[] {"buscarTransacciones", "listarMotivosTransacciones"});
+
+        assertEquals("Gastaste **$1.000**.", cache.buscar(clave));
+    }
+
+    @Test
+    void buscar_otrasFunciones_noCompartenRespuesta() {
+        cache.guardar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES), "Gastaste **$1.000**.");
+
+        assertNull(cache.buscar(cache.clave(request("¿Cuánto gasté este mes?"), new String[0])));
+    }
+
+    @Test
+    void buscar_trasModificarElEspacio_noDevuelveLaRespuestaAnterior() {
+        cache.guardar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES), "Gastaste **$1.000**.");
+
+        versionDatosEspacioService.registrarModificacion(idEspacioTrabajo);
+
+        assertNull(cache.buscar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES)));
+    }
+
+    @Test
+    void buscar_trasModificacionEnOtroNodo_noDevuelveLaRespuestaAnterior() {
+        cache.guardar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES), "Gastaste **$1.000**.");
+
+        versionDatosEspacioService.registrarModificacionRemota(idEspacioTrabajo);
+
+        assertNull(cache.buscar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES)));
+    }
+
+    @Test
+    void buscar_trasDescartarVersiones_noDevuelveLaRespuestaAnterior() {
+        cache.guardar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES), "Gastaste **$1.000**.");
+
+        versionDatosEspacioService.descartarVersiones();
+
+        assertNull(cache.buscar(cache.clave(request("¿Cuánto gasté este mes?"), FUNCIONES)));
+    }
+
+    @Test
+    void registrarModificacion_enTransaccion_avisaUnaVezDespuesDelCommit() {
+        UUID otroEspacio = UUID.randomUUID();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versionDatosEspacioService.registrarModificacion(idEspacioTrabajo);
+            versionDatosEspacioService.registrarModificacion(idEspacioTrabajo);
+            versionDatosEspacioService.registrarModificacion(otroEspacio);
+            assertTrue(eventos.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(new EspaciosModificadosEvent(Set.of(idEspacioTrabajo, otroEspacio))), eventos);
+    }
+
+    @Test
+    void clave_conHistorial_noEsCacheable() {
+        AgenteChatRequestDTO conHistorial = new AgenteChatRequestDTO("¿Y el mes pasado?", idEspacioTrabajo,
+                List.of(new ChatMessageDTO("user", "¿Cuánto gasté este mes?")));
+
+        assertNull(cache.clave(conHistorial, FUNCIONES));
+    }
+
+    @Test
+    void comoStream_fragmentosReconstruyenLaRespuesta() {
+        String respuesta = "# Gastos\n\nGastaste **$1.000** en total.";
+
+        List<String> fragmentos = CacheRespuestasAgente.comoStream(respuesta).collectList().block();
+
+        assertTrue(fragmentos.size() > 1);
+        assertEquals(respuesta, String.join("", fragmentos));
+    }
+
+    private AgenteChatRequestDTO request(String mensaje) {
+        return new AgenteChatRequestDTO(mensaje, idEspacioTrabajo, null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.event.ModificacionEspacioListener;
+import com.campito.backend.model.EspacioTrabajo;
+import com.campito.backend.model.Transaccion;
+import com.campito.backend.service.agentAI.CacheResultadosTools;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La caché de tools debe reutilizar resultados para llamadas equivalentes y dejar de
+ * hacerlo ante cualquier escritura sobre el espacio de trabajo.
+ */
+class CacheResultadosToolsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VersionDatosEspacioService versionDatosEspacioService;
+    private CacheResultadosTools cacheResultadosTools;
+
+    private UUID idEspacioTrabajo;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        versionDatosEspacioService = new VersionDatosEspacioServiceImpl(evento -> { }, 100, 60);
+        cacheResultadosTools = new CacheResultadosTools(versionDatosEspacioService, meterRegistry, 100, 10);
+
+        idEspacioTrabajo = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        ejecuciones = new AtomicInteger();
+    }
+
+    @Test
+    void obtener_mismosArgumentos_ejecutaLaToolUnaSolaVez() {
+        List<String> primero = cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), 3, 2025, null, null);
+        List<String> segundo = cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), 3, 2025, null, null);
+
+        assertEquals(1, ejecuciones.get());
+        assertSame(primero, segundo);
+        assertEquals(1.0, contador("buscarTransacciones", "hit"));
+        assertEquals(1.0, contador("buscarTransacciones", "miss"));
+    }
+
+    @Test
+    void obtener_argumentosDistintos_noCompartenResultado() {
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), 3, 2025, null, null);
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), 4, 2025, null, null);
+
+        assertEquals(2, ejecuciones.get());
+    }
+
+    @Test
+    void obtener_textosEquivalentes_compartenResultado() {
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), null, null, "Supermercado", "");
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), null, null, "supermercado", null);
+
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void obtener_otroEspacio_noCompartenResultado() {
+        cacheResultadosTools.obtener(idEspacioTrabajo, "listarTarjetasCredito", tool());
+        cacheResultadosTools.obtener(UUID.randomUUID(), "listarTarjetasCredito", tool());
+
+        assertEquals(2, ejecuciones.get());
+    }
+
+    @Test
+    void obtener_trasModificacionDelEspacio_vuelveAEjecutarLaTool() {
+        cacheResultadosTools.obtener(idEspacioTrabajo, "obtenerDashboardFinanciero", tool());
+        versionDatosEspacioService.registrarModificacion(idEspacioTrabajo);
+        cacheResultadosTools.obtener(idEspacioTrabajo, "obtenerDashboardFinanciero", tool());
+
+        assertEquals(2, ejecuciones.get());
+    }
+
+    @Test
+    void obtener_trasEscribirUnaEntidadDelEspacio_vuelveAEjecutarLaTool() {
+        EspacioTrabajo espacio = new EspacioTrabajo();
+        espacio.setId(idEspacioTrabajo);
+        Transaccion transaccion = new Transaccion();
+        transaccion.setEspacioTrabajo(espacio);
+
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), null, null, null, null);
+        new ModificacionEspacioListener(versionDatosEspacioService).registrarModificacion(transaccion);
+        cacheResultadosTools.obtener(idEspacioTrabajo, "buscarTransacciones", tool(), null, null, null, null);
+
+        assertEquals(2, ejecuciones.get());
+    }
+
+    private Supplier<List<String>> tool() {
+        return () -> List.of("resultado-" + ejecuciones.incrementAndGet());
+    }
+
+    private double contador(String tool, String resultado) {
+        return meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_INVOCACIONES)
+                .tag("tool", tool)
+                .tag("cache", resultado)
+                .counter()
+                .count();
+    }
+}
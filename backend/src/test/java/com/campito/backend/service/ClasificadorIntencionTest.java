@@ -0,0 +1,91 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.service.agentAI.ClasificadorIntencion;
+
+/**
+ * El clasificador debe enrutar exactamente igual que la implementación previa basada en
+ * {@code String.matches}. El corpus de {@code agente/corpus-intenciones.tsv} se generó con
+ * esa implementación sobre prompts reales: cualquier diferencia cambia las tools que ve el LLM.
+ * La única diferencia intencional es {@code obtenerResumenFinanciero}, agregado luego a las
+ * reglas de análisis integral y saldos.
+ */
+class ClasificadorIntencionTest {
+
+    private static final String CORPUS = "/agente/corpus-intenciones.tsv";
+
+    private final ClasificadorIntencion clasificador = new ClasificadorIntencion();
+
+    private record Caso(String mensaje, Set<String> esperadas) {
+    }
+
+    @Test
+    void seleccionarFunciones_corpusDorado_mismoRoutingQueImplementacionPrevia() throws IOException {
+        List<Caso> casos = leerCorpus();
+        assertFalse(casos.isEmpty(), "El corpus no puede estar vacío");
+
+        List<String> diferencias = new ArrayList<>();
+        for (Caso caso : casos) {
+            Set<String> obtenidas = new TreeSet<>(Arrays.asList(clasificador.seleccionarFunciones(caso.mensaje())));
+            if (!obtenidas.equals(caso.esperadas())) {
+                diferencias.add("'" + caso.mensaje() + "': esperadas=" + caso.esperadas() + " obtenidas=" + obtenidas);
+            }
+        }
+
+        assertTrue(diferencias.isEmpty(), "Routing distinto al esperado:\n" + String.join("\n", diferencias));
+    }
+
+    @Test
+    void seleccionarFunciones_saludo_sinTools() {
+        assertEquals(0, clasificador.seleccionarFunciones("Buenas tardes!").length);
+    }
+
+    @Test
+    void seleccionarFunciones_variasLineas_sinTools() {
+        assertEquals(0, clasificador.seleccionarFunciones("hola\n¿cuánto gasté este mes?").length);
+    }
+
+    @Test
+    void seleccionarFunciones_sinDuplicados() {
+        String[] funciones = clasificador.seleccionarFunciones("¿En qué categoría gasté más con la tarjeta Visa?");
+
+        assertEquals(new TreeSet<>(Arrays.asList(funciones)).size(), funciones.length);
+        assertTrue(Arrays.asList(funciones).contains("listarResumenesTarjetas"));
+    }
+
+    private static List<Caso> leerCorpus() throws IOException {
+        List<Caso> casos = new ArrayList<>();
+        try (InputStream in = ClasificadorIntencionTest.class.getResourceAsStream(CORPUS)) {
+            assertNotNull(in, "No se encontró " + CORPUS);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank() || linea.startsWith("#")) {
+                    continue;
+                }
+                String[] partes = linea.split("\t", 2);
+                String mensaje = partes[0].replace("\\n", "\n");
+                Set<String> esperadas = new TreeSet<>();
+                if (!partes[1].equals("-")) {
+                    esperadas.addAll(Arrays.asList(partes[1].split(",")));
+                }
+                casos.add(new Caso(mensaje, esperadas));
+            }
+        }
+        return casos;
+    }
+}
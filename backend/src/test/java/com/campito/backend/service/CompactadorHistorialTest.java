@@ -0,0 +1,146 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dto.ChatMessageDTO;
+import com.campito.backend.service.agentAI.CompactadorHistorial;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El historial se envía textual mientras es corto; los turnos viejos se resumen, las
+ * tablas largas se recortan y el prompt respeta el presupuesto de tokens.
+ */
+class CompactadorHistorialTest {
+
+    private static final int TOKENS_FIJOS = 1000;
+    private static final UUID ESPACIO = UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompactadorHistorial compactador;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        compactador = compactador(6000);
+    }
+
+    @Test
+    void compactar_historialCorto_loEnviaTextual() {
+        List<Message> mensajes = compactador.compactar(ESPACIO, List.of(
+                new ChatMessageDTO("user", "¿Cuál es mi saldo?"),
+                new ChatMessageDTO("assistant", "Tu saldo es **$150.000**.")), TOKENS_FIJOS);
+
+        assertEquals(2, mensajes.size());
+        assertInstanceOf(UserMessage.class, mensajes.get(0));
+        assertInstanceOf(AssistantMessage.class, mensajes.get(1));
+        assertEquals("Tu saldo es **$150.000**.", mensajes.get(1).getContent());
+    }
+
+    @Test
+    void compactar_sinHistorial_noAgregaMensajes() {
+        assertTrue(compactador.compactar(ESPACIO, null, TOKENS_FIJOS).isEmpty());
+    }
+
+    @Test
+    void compactar_historialLargo_resumeLosTurnosViejos() {
+        List<Message> mensajes = compactador.compactar(ESPACIO, conversacion(6), TOKENS_FIJOS);
+
+        // Resumen + últimos 2 turnos textuales
+        assertEquals(5, mensajes.size());
+        assertInstanceOf(SystemMessage.class, mensajes.get(0));
+        String resumen = mensajes.get(0).getContent();
+        assertTrue(resumen.contains("- Usuario: ¿Cuánto gasté en el mes 1?"));
+        assertTrue(resumen.contains("(montos: $1.000)"));
+        assertFalse(resumen.contains("mes 5"));
+        assertEquals("¿Cuánto gasté en el mes 5?", mensajes.get(1).getContent());
+
+        assertTrue(meterRegistry.get(MetricsConfig.MetricNames.AGENTE_PROMPT_TOKENS_AHORRADOS).counter().count() > 0);
+    }
+
+    @Test
+    void compactar_tablaLarga_recortaLasFilasSobrantes() {
+        StringBuilder tabla = new StringBuilder("Tus movimientos:\n\n| Fecha | Monto |\n| :--- | ---: |\n");
+        for (int i = 1; i <= 20; i++) {
+            tabla.append("| 2025-01-").append(i).append(" | $").append(i * 100).append(" |\n");
+        }
+        tabla.append("\nTotal: **$21.000**");
+
+        List<Message> mensajes = compactador.compactar(ESPACIO, List.of(
+                new ChatMessageDTO("user", "Mostrame mis movimientos"),
+                new ChatMessageDTO("assistant", tabla.toString())), TOKENS_FIJOS);
+
+        String respuesta = mensajes.get(1).getContent();
+        assertTrue(respuesta.contains("| 2025-01-8 | $800 |"));
+        assertFalse(respuesta.contains("| 2025-01-9 | $900 |"));
+        assertTrue(respuesta.contains("12 filas omitidas"));
+        assertTrue(respuesta.endsWith("Total: **$21.000**"));
+    }
+
+    @Test
+    void compactar_presupuestoAjustado_conservaSoloElUltimoTurno() {
+        compactador = compactador(TOKENS_FIJOS + 120);
+
+        List<Message> mensajes = compactador.compactar(ESPACIO, conversacion(3), TOKENS_FIJOS);
+
+        assertEquals(3, mensajes.size());
+        assertInstanceOf(SystemMessage.class, mensajes.get(0));
+        assertTrue(mensajes.get(0).getContent().contains("mes 2"));
+        assertEquals("¿Cuánto gasté en el mes 3?", mensajes.get(1).getContent());
+    }
+
+    @Test
+    void compactar_mensajesConMismoHash_noCompartenLineaDeResumen() {
+        // "Aa" y "BB" tienen el mismo String.hashCode() y el mismo largo
+        List<Message> primero = compactador.compactar(ESPACIO, conHistorialViejo("Pagué $100 en Aa"), TOKENS_FIJOS);
+        List<Message> segundo = compactador.compactar(ESPACIO, conHistorialViejo("Pagué $900 en BB"), TOKENS_FIJOS);
+
+        assertTrue(primero.get(0).getContent().contains("Pagué $100 en Aa"));
+        assertTrue(segundo.get(0).getContent().contains("Pagué $900 en BB"));
+        assertFalse(segundo.get(0).getContent().contains("Aa"));
+    }
+
+    @Test
+    void compactar_otroEspacio_noReutilizaLineasCacheadas() {
+        compactador.compactar(ESPACIO, conversacion(3), TOKENS_FIJOS);
+        compactador.compactar(UUID.randomUUID(), conversacion(3), TOKENS_FIJOS);
+
+        // Mismo contenido en dos espacios: dos entradas por mensaje resumido
+        assertEquals(4.0, meterRegistry.get("cache.size")
+                .tag("cache", MetricsConfig.MetricNames.CACHE_AGENTE_RESUMEN).gauge().value());
+    }
+
+    private static List<ChatMessageDTO> conHistorialViejo(String preguntaVieja) {
+        List<ChatMessageDTO> historial = new ArrayList<>();
+        historial.add(new ChatMessageDTO("user", preguntaVieja));
+        historial.addAll(conversacion(2));
+        return historial;
+    }
+
+    private CompactadorHistorial compactador(int presupuesto) {
+        return new CompactadorHistorial(meterRegistry, presupuesto, 2, 600, 8, 400, 100, 60);
+    }
+
+    private static List<ChatMessageDTO> conversacion(int turnos) {
+        List<ChatMessageDTO> historial = new ArrayList<>();
+        for (int mes = 1; mes <= turnos; mes++) {
+            historial.add(new ChatMessageDTO("user", "¿Cuánto gasté en el mes " + mes + "?"));
+            historial.add(new ChatMessageDTO("assistant", "# Gastos del mes " + mes + "\n\nGastaste **$" + mes
+                    + ".000** en total, principalmente en supermercado y transporte. "
+                    + "*Tip: revisá tus suscripciones para reducir gastos fijos.*"));
+        }
+        return historial;
+    }
+}
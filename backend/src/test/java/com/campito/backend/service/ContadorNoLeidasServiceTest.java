@@ -0,0 +1,130 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.event.NoLeidasModificadasEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El contador de no leídas se carga una vez, se descarta con cada cambio confirmado, avisa
+ * a los demás nodos de lecturas y limpiezas, y nunca guarda un conteo hecho antes de un cambio.
+ */
+class ContadorNoLeidasServiceTest {
+
+    private NotificacionRepository notificacionRepository;
+    private SseEmitterService sseEmitterService;
+    private List<Object> eventos;
+    private ContadorNoLeidasService contador;
+    private UUID idUsuario;
+
+    @BeforeEach
+    void setUp() {
+        notificacionRepository = mock(NotificacionRepository.class);
+        sseEmitterService = mock(SseEmitterService.class);
+        eventos = new ArrayList<>();
+        contador = new ContadorNoLeidasServiceImpl(notificacionRepository, sseEmitterService, eventos::add,
+                new SimpleMeterRegistry(), 100, 30);
+        idUsuario = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void obtener_segundaLectura_noConsultaLaBase() {
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario)).thenReturn(3L);
+
+        assertEquals(3, contador.obtener(idUsuario));
+        assertEquals(3, contador.obtener(idUsuario));
+
+        verify(notificacionRepository, times(1)).countByUsuarioIdAndLeidaFalse(idUsuario);
+    }
+
+    @Test
+    void obtener_cambioMientrasCuenta_noGuardaElConteo() {
+        // El commit de una lectura (y su afterCommit) ocurre mientras se ejecuta el COUNT
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario))
+                .thenAnswer(inv -> {
+                    contador.registrarCambio(idUsuario);
+                    return 3L;
+                })
+                .thenReturn(2L);
+
+        assertEquals(3, contador.obtener(idUsuario));
+        assertEquals(2, contador.obtener(idUsuario));
+        assertEquals(2, contador.obtener(idUsuario));
+
+        verify(notificacionRepository, times(2)).countByUsuarioIdAndLeidaFalse(idUsuario);
+    }
+
+    @Test
+    void registrarCambio_despuesDelCommit_descartaYAvisaAOtrosNodos() {
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario)).thenReturn(3L, 2L);
+        contador.obtener(idUsuario);
+
+        TransactionSynchronizationManager.initSynchronization();
+        contador.registrarCambio(idUsuario);
+        assertEquals(3, contador.obtener(idUsuario));
+        assertTrue(eventos.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(2, contador.obtener(idUsuario));
+        assertEquals(List.of(new NoLeidasModificadasEvent(Set.of(idUsuario), false)), eventos);
+    }
+
+    @Test
+    void refrescar_usuarioConectado_leEnviaElValorRecontado() {
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario)).thenReturn(1L, 4L);
+        when(sseEmitterService.tieneConexiones(idUsuario)).thenReturn(true);
+        contador.obtener(idUsuario);
+
+        contador.refrescar(idUsuario);
+
+        verify(sseEmitterService).enviarContadorNoLeidas(idUsuario, 4L);
+        // Las notificaciones nuevas llegan a otros nodos por su propia señal
+        assertTrue(eventos.isEmpty());
+    }
+
+    @Test
+    void refrescar_usuarioSinConexiones_soloDescarta() {
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario)).thenReturn(1L, 4L);
+        contador.obtener(idUsuario);
+
+        contador.refrescar(idUsuario);
+
+        verify(notificacionRepository, times(1)).countByUsuarioIdAndLeidaFalse(idUsuario);
+        verify(sseEmitterService, never()).enviarContadorNoLeidas(any(), anyLong());
+        assertEquals(4, contador.obtener(idUsuario));
+    }
+
+    @Test
+    void reconciliar_descartaTodosYAvisaAOtrosNodos() {
+        when(notificacionRepository.countByUsuarioIdAndLeidaFalse(idUsuario)).thenReturn(5L, 0L);
+        contador.obtener(idUsuario);
+
+        contador.reconciliar();
+
+        assertEquals(0, contador.obtener(idUsuario));
+        assertEquals(List.of(new NoLeidasModificadasEvent(Set.of(), true)), eventos);
+    }
+}
@@ -0,0 +1,156 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallbackResolver;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.ForbiddenException;
+import com.campito.backend.service.agentAI.AgenteToolExecutor;
+import com.campito.backend.service.agentAI.DespachadorTools;
+import com.campito.backend.service.agentAI.RegistroToolsInvocadas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Las tools de un mismo turno corren en paralelo, dentro del executor acotado de tools,
+ * y sus resultados vuelven en el orden de las tool calls.
+ */
+class DespachadorToolsTest {
+
+    private ExecutorService toolsExecutor;
+    private ExecutorService fanout;
+    private SimpleMeterRegistry meterRegistry;
+    private AgenteToolExecutor toolExecutor;
+    private FunctionCallbackResolver resolver;
+    private DespachadorTools despachador;
+    private Authentication autenticacion;
+    private Map<String, Object> contexto;
+
+    @BeforeEach
+    void setUp() {
+        toolsExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(10),
+                Thread.ofVirtual().factory());
+        fanout = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        toolExecutor = new AgenteToolExecutor(toolsExecutor, meterRegistry, new MockEnvironment(), 1000);
+        resolver = mock(FunctionCallbackResolver.class);
+        despachador = new DespachadorTools(resolver, fanout, meterRegistry, 2);
+
+        autenticacion = new UsernamePasswordAuthenticationToken(UUID.randomUUID(), null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+        contexto = AgenteToolExecutor.contextoHerramientas(new RegistroToolsInvocadas());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        toolsExecutor.shutdownNow();
+        fanout.shutdownNow();
+    }
+
+    @Test
+    void ejecutar_toolsDelMismoTurno_correnEnParalelo() {
+        // Cada tool espera a que la otra haya empezado: en serie, la primera vencería el await
+        CountDownLatch ambasIniciadas = new CountDownLatch(2);
+        registrar("listarTarjetasCredito", () -> {
+            ambasIniciadas.countDown();
+            return ambasIniciadas.await(1, TimeUnit.SECONDS) ? "tarjetas" : "en serie";
+        });
+        registrar("listarCuentasBancarias", () -> {
+            ambasIniciadas.countDown();
+            return ambasIniciadas.await(1, TimeUnit.SECONDS) ? "cuentas" : "en serie";
+        });
+
+        ToolResponseMessage resultados = despachador.ejecutarYEsperar(
+                asistente("listarTarjetasCredito", "listarCuentasBancarias"), contexto, 1);
+
+        assertEquals(List.of("tarjetas", "cuentas"),
+                resultados.getResponses().stream().map(ToolResponseMessage.ToolResponse::responseData).toList());
+        assertEquals(1, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_TURNO)
+                .tag("modo", "paralelo").timer().count());
+        assertEquals(2.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOOLS_FANOUT).summary().totalAmount());
+    }
+
+    @Test
+    void ejecutar_conservaOrdenIdsYContextoDeSeguridad() {
+        registrar("listarResumenesTarjetas", () -> {
+            Thread.sleep(50);
+            return SecurityContextHolder.getContext().getAuthentication().getName();
+        });
+        registrar("listarCuentasBancarias", () -> "cuentas");
+        // El hilo del stream no tiene contexto propio
+        SecurityContextHolder.clearContext();
+
+        ToolResponseMessage resultados = despachador.ejecutarYEsperar(
+                asistente("listarResumenesTarjetas", "listarCuentasBancarias"), contexto, 1);
+
+        List<ToolResponseMessage.ToolResponse> respuestas = resultados.getResponses();
+        assertEquals("call_listarResumenesTarjetas", respuestas.get(0).id());
+        assertEquals(autenticacion.getName(), respuestas.get(0).responseData());
+        assertEquals("call_listarCuentasBancarias", respuestas.get(1).id());
+        assertEquals("cuentas", respuestas.get(1).responseData());
+    }
+
+    @Test
+    void ejecutar_toolFallida_propagaLaExcepcionOriginal() {
+        registrar("listarTarjetasCredito", () -> {
+            throw new ForbiddenException("Sin acceso al espacio de trabajo");
+        });
+        registrar("listarCuentasBancarias", () -> "cuentas");
+
+        assertThrows(ForbiddenException.class, () -> despachador.ejecutarYEsperar(
+                asistente("listarTarjetasCredito", "listarCuentasBancarias"), contexto, 1));
+    }
+
+    @Test
+    void ejecutar_superaMaxRondas_corta() {
+        assertThrows(IllegalStateException.class, () -> despachador.ejecutarYEsperar(
+                asistente("listarTarjetasCredito"), contexto, 3));
+    }
+
+    /**
+     * Simula la función registrada en {@code AgenteAIConfig}: delega en {@link AgenteToolExecutor}.
+     */
+    private void registrar(String tool, Callable<String> tarea) {
+        FunctionCallback callback = mock(FunctionCallback.class);
+        when(callback.call(anyString(), any(ToolContext.class)))
+                .thenAnswer(inv -> toolExecutor.ejecutar(tool, inv.getArgument(1), tarea));
+        when(resolver.resolve(tool)).thenReturn(callback);
+    }
+
+    private static AssistantMessage asistente(String... tools) {
+        List<AssistantMessage.ToolCall> llamadas = Arrays.stream(tools)
+                .map(tool -> new AssistantMessage.ToolCall("call_" + tool, "function", tool, "{\"workspaceId\":\"1\"}"))
+                .toList();
+        return new AssistantMessage("", Map.of(), llamadas);
+    }
+}
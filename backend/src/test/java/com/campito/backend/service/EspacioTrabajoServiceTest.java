@@ -57,6 +57,9 @@ public class EspacioTrabajoServiceTest {
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private MembresiaEspacioService membresiaEspacioService;
+
     @InjectMocks
     private EspacioTrabajoServiceImpl espacioTrabajoService;
 
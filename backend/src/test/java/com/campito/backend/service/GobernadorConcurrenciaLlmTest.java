@@ -0,0 +1,139 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.exception.AgenteSaturadoException;
+import com.campito.backend.service.agentAI.GobernadorConcurrenciaLlm;
+import com.campito.backend.service.agentAI.GobernadorConcurrenciaLlm.Permiso;
+import com.campito.backend.service.agentAI.GobernadorConcurrenciaLlm.Resultado;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El gobernador admite hasta el límite, encola en orden de llegada, rechaza con la cola llena
+ * o la espera agotada y reduce el límite ante un 429.
+ */
+class GobernadorConcurrenciaLlmTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void adquirir_sinLugar_entregaEnOrdenDeLlegada() throws Exception {
+        GobernadorConcurrenciaLlm gobernador = gobernadorFijo(1);
+        Permiso primero = gobernador.adquirirBloqueante();
+
+        CompletableFuture<Permiso> segundo = gobernador.adquirir();
+        CompletableFuture<Permiso> tercero = gobernador.adquirir();
+        assertFalse(segundo.isDone());
+        assertFalse(tercero.isDone());
+
+        primero.liberar(Resultado.EXITO);
+        assertTrue(segundo.isDone());
+        assertFalse(tercero.isDone());
+
+        segundo.get().liberar(Resultado.EXITO);
+        assertTrue(tercero.isDone());
+    }
+
+    @Test
+    void adquirir_colaLlena_rechaza() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(1, 1, 10_000);
+        gobernador.adquirirBloqueante();
+        gobernador.adquirir();
+
+        CompletableFuture<Permiso> rechazado = gobernador.adquirir();
+
+        ExecutionException e = assertThrows(ExecutionException.class, rechazado::get);
+        assertInstanceOf(AgenteSaturadoException.class, e.getCause());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_RECHAZADAS)
+                .tag("motivo", "cola_llena").counter().count());
+    }
+
+    @Test
+    void adquirirBloqueante_esperaAgotada_lanzaAgenteSaturado() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(1, 10, 50);
+        gobernador.adquirirBloqueante();
+
+        assertThrows(AgenteSaturadoException.class, gobernador::adquirirBloqueante);
+    }
+
+    @Test
+    void liberar_turnoVencido_pasaElLugarAlSiguiente() throws Exception {
+        GobernadorConcurrenciaLlm gobernador = gobernadorFijo(1);
+        Permiso primero = gobernador.adquirirBloqueante();
+        CompletableFuture<Permiso> cancelado = gobernador.adquirir();
+        CompletableFuture<Permiso> siguiente = gobernador.adquirir();
+
+        cancelado.cancel(false);
+        primero.liberar(Resultado.EXITO);
+
+        assertNotNull(siguiente.get(1, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_EN_VUELO).gauge().value());
+    }
+
+    @Test
+    void liberar_limiteDeTasa_reduceElLimite() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(8, 10, 10_000);
+
+        gobernador.adquirirBloqueante().liberar(Resultado.LIMITE_TASA);
+
+        assertEquals(4.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_LIMITE).gauge().value());
+    }
+
+    @Test
+    void liberar_esIdempotente() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(2, 10, 10_000);
+        Permiso permiso = gobernador.adquirirBloqueante();
+        gobernador.adquirirBloqueante();
+
+        permiso.liberar(Resultado.ERROR);
+        permiso.liberar(Resultado.ERROR);
+
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_EN_VUELO).gauge().value());
+    }
+
+    @Test
+    void liberar_exitoSinSaturar_noSubeElLimite() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(4, 10, 10_000);
+
+        for (int i = 0; i < 20; i++) {
+            gobernador.adquirirBloqueante().liberar(Resultado.EXITO);
+        }
+
+        assertEquals(4.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_LIMITE).gauge().value());
+    }
+
+    @Test
+    void liberar_exitoSaturado_subeElLimite() {
+        GobernadorConcurrenciaLlm gobernador = gobernador(1, 10, 10_000);
+
+        // Con límite 1 cada llamada ocupa el último lugar: 1 → 2
+        gobernador.adquirirBloqueante().liberar(Resultado.EXITO);
+
+        assertEquals(2.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_LLM_LIMITE).gauge().value());
+    }
+
+    /**
+     * Límite fijo (mínimo = máximo): el AIMD no lo mueve.
+     */
+    private GobernadorConcurrenciaLlm gobernadorFijo(int limite) {
+        return new GobernadorConcurrenciaLlm(meterRegistry, limite, limite, limite, 10, 10_000, 8_000, 0.5, 2_000);
+    }
+
+    private GobernadorConcurrenciaLlm gobernador(int limite, int maxCola, long maxEsperaMs) {
+        return new GobernadorConcurrenciaLlm(meterRegistry, limite, 1, 32, maxCola, maxEsperaMs, 8_000, 0.5, 2_000);
+    }
+}
@@ -0,0 +1,127 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.campito.backend.dao.EspacioTrabajoRepository;
+import com.campito.backend.dto.MembresiaEspacioDTO;
+import com.campito.backend.service.MembresiaEspacioService.RolEspacio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El índice de membresías responde desde memoria los accesos permitidos, confirma contra
+ * la base los negados y se actualiza al agregar o invalidar membresías.
+ */
+class MembresiaEspacioServiceTest {
+
+    private EspacioTrabajoRepository espacioTrabajoRepository;
+    private MembresiaEspacioService membresiaEspacioService;
+    private UUID idUsuario;
+    private UUID idEspacio;
+    private UUID idOtroEspacio;
+
+    @BeforeEach
+    void setUp() {
+        espacioTrabajoRepository = mock(EspacioTrabajoRepository.class);
+        membresiaEspacioService = new MembresiaEspacioServiceImpl(espacioTrabajoRepository,
+                new SimpleMeterRegistry(), 100, 10);
+        idUsuario = UUID.randomUUID();
+        idEspacio = UUID.randomUUID();
+        idOtroEspacio = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void esMiembro_yaCargado_respondeSinConsultarLaBase() {
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, idUsuario)));
+
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+        assertTrue(membresiaEspacioService.esAdmin(idUsuario, idEspacio));
+
+        verify(espacioTrabajoRepository, times(1)).buscarMembresias(idUsuario);
+    }
+
+    @Test
+    void esAdmin_comoMiembro_devuelveFalse() {
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, UUID.randomUUID())));
+
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+        assertFalse(membresiaEspacioService.esAdmin(idUsuario, idEspacio));
+    }
+
+    @Test
+    void esMiembro_negado_noSeCachea() {
+        // Otro nodo agrega la membresía entre las dos validaciones
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, UUID.randomUUID())));
+
+        assertFalse(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+
+        verify(espacioTrabajoRepository, times(2)).buscarMembresias(idUsuario);
+    }
+
+    @Test
+    void registrarMembresia_usuarioCargado_laAgregaDespuesDelCommit() {
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, idUsuario)));
+        membresiaEspacioService.esMiembro(idUsuario, idEspacio);
+
+        TransactionSynchronizationManager.initSynchronization();
+        membresiaEspacioService.registrarMembresia(idUsuario, idOtroEspacio, RolEspacio.MIEMBRO);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idOtroEspacio));
+        assertFalse(membresiaEspacioService.esAdmin(idUsuario, idOtroEspacio));
+        verify(espacioTrabajoRepository, times(1)).buscarMembresias(idUsuario);
+    }
+
+    @Test
+    void registrarMembresia_sinCommit_noModificaElIndice() {
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, idUsuario)));
+        membresiaEspacioService.esMiembro(idUsuario, idEspacio);
+
+        TransactionSynchronizationManager.initSynchronization();
+        membresiaEspacioService.registrarMembresia(idUsuario, idOtroEspacio, RolEspacio.MIEMBRO);
+        // Rollback: las sincronizaciones no reciben afterCommit
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertFalse(membresiaEspacioService.esMiembro(idUsuario, idOtroEspacio));
+    }
+
+    @Test
+    void invalidar_recargaElIndiceDesdeLaBase() {
+        // La membresía se quita: la segunda carga ya no la incluye
+        when(espacioTrabajoRepository.buscarMembresias(idUsuario))
+                .thenReturn(List.of(new MembresiaEspacioDTO(idEspacio, idUsuario)))
+                .thenReturn(List.of());
+        assertTrue(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+
+        membresiaEspacioService.invalidar(idUsuario);
+
+        assertFalse(membresiaEspacioService.esMiembro(idUsuario, idEspacio));
+        assertFalse(membresiaEspacioService.esAdmin(idUsuario, idEspacio));
+    }
+}
@@ -0,0 +1,101 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.dao.UsuarioRepository;
+import com.campito.backend.event.NotificacionBatchWriter;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.NotificacionOutbox;
+import com.campito.backend.model.TipoNotificacion;
+import com.campito.backend.model.Usuario;
+
+/**
+ * Un lote del outbox se persiste con un único saveAll, sin cargar a los usuarios, y cada
+ * notificación recibe la siguiente secuencia de su usuario.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificacionBatchWriterTest {
+
+    @Mock
+    private NotificacionRepository notificacionRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @InjectMocks
+    private NotificacionBatchWriter batchWriter;
+
+    @Captor
+    private ArgumentCaptor<List<Notificacion>> notificacionesCaptor;
+
+    @Test
+    void persistirLote_unSoloSaveAllConReferenciasDeUsuario() {
+        UUID idUsuario1 = UUID.randomUUID();
+        UUID idUsuario2 = UUID.randomUUID();
+        Usuario usuario1 = new Usuario();
+        Usuario usuario2 = new Usuario();
+        when(usuarioRepository.getReferenceById(idUsuario1)).thenReturn(usuario1);
+        when(usuarioRepository.getReferenceById(idUsuario2)).thenReturn(usuario2);
+        when(notificacionRepository.reservarSecuencias(any(), eq(1))).thenReturn(1L);
+        when(notificacionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Notificacion> persistidas = batchWriter.persistirLote(List.of(
+                fila(idUsuario1, "Primera"), fila(idUsuario2, "Segunda")));
+
+        verify(notificacionRepository).saveAll(notificacionesCaptor.capture());
+        verify(notificacionRepository, never()).save(any());
+        verify(usuarioRepository, never()).findById(any());
+        assertEquals(notificacionesCaptor.getValue(), persistidas);
+        assertEquals(List.of("Primera", "Segunda"), persistidas.stream().map(Notificacion::getMensaje).toList());
+        assertSame(usuario1, persistidas.get(0).getUsuario());
+        assertSame(usuario2, persistidas.get(1).getUsuario());
+        assertEquals(TipoNotificacion.values()[0], persistidas.get(0).getTipo());
+    }
+
+    @Test
+    void persistirLote_asignaSecuenciasConsecutivasPorUsuario() {
+        UUID idUsuario1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID idUsuario2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        // El usuario 1 ya tenía 10 notificaciones; el 2 es nuevo
+        when(notificacionRepository.reservarSecuencias(idUsuario1, 2)).thenReturn(12L);
+        when(notificacionRepository.reservarSecuencias(idUsuario2, 1)).thenReturn(1L);
+        when(notificacionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Notificacion> persistidas = batchWriter.persistirLote(List.of(
+                fila(idUsuario2, "A"), fila(idUsuario1, "B"), fila(idUsuario1, "C")));
+
+        assertEquals(List.of(1L, 11L, 12L), persistidas.stream().map(Notificacion::getSecuencia).toList());
+        // Una reserva por usuario, siempre en el mismo orden para no cruzar locks entre lotes
+        var orden = inOrder(notificacionRepository);
+        orden.verify(notificacionRepository).reservarSecuencias(idUsuario1, 2);
+        orden.verify(notificacionRepository).reservarSecuencias(idUsuario2, 1);
+    }
+
+    private static NotificacionOutbox fila(UUID idUsuario, String mensaje) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return NotificacionOutbox.builder()
+                .idUsuario(idUsuario)
+                .tipo(TipoNotificacion.values()[0])
+                .mensaje(mensaje)
+                .fechaCreacion(ahora)
+                .proximoIntento(ahora)
+                .build();
+    }
+}
@@ -0,0 +1,273 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionOutboxRepository;
+import com.campito.backend.event.NotificacionBatchWriter;
+import com.campito.backend.event.NotificacionBroadcaster;
+import com.campito.backend.event.NotificacionOutboxRelay;
+import com.campito.backend.model.EstadoOutbox;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.NotificacionOutbox;
+import com.campito.backend.model.TipoNotificacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El relay toma lotes pendientes del outbox, los entrega y los marca procesados; una fila
+ * que falla vuelve a pendiente con backoff exponencial y pasa a FALLIDO al agotar los intentos.
+ */
+class NotificacionOutboxRelayTest {
+
+    private static final int MAX_LOTE = 2;
+    private static final int MAX_INTENTOS = 3;
+    private static final long BACKOFF_BASE_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 3_000;
+
+    private NotificacionOutboxRepository outboxRepository;
+    private NotificacionBatchWriter batchWriter;
+    private NotificacionBroadcaster broadcaster;
+    private SimpleMeterRegistry meterRegistry;
+    private List<Runnable> tareas;
+    private NotificacionOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(NotificacionOutboxRepository.class);
+        batchWriter = mock(NotificacionBatchWriter.class);
+        broadcaster = mock(NotificacionBroadcaster.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tareas = new ArrayList<>();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+
+        relay = new NotificacionOutboxRelay(outboxRepository, batchWriter, broadcaster, meterRegistry,
+                transactionManager, tareas::add, MAX_LOTE, MAX_INTENTOS, BACKOFF_BASE_MS, BACKOFF_MAX_MS);
+        when(batchWriter.persistirLote(any())).thenAnswer(inv -> notificaciones(inv.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void procesarPendientes_loteEntregado_marcaLasFilasProcesadas() {
+        NotificacionOutbox fila = fila(1L, 0);
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE))).thenReturn(List.of(fila));
+
+        relay.procesarPendientes();
+
+        assertEquals(EstadoOutbox.PROCESADO, fila.getEstado());
+        assertEquals(1, fila.getIntentos());
+        assertNotNull(fila.getFechaProcesado());
+        verify(broadcaster).difundir(argThat(persistidas -> persistidas.size() == 1));
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.NOTIFICACIONES_LOTE_TAMANIO)
+                .summary().count());
+    }
+
+    @Test
+    void procesarPendientes_loteCompleto_tomaOtroLoteHastaVaciar() {
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE)))
+                .thenReturn(List.of(fila(1L, 0), fila(2L, 0)))
+                .thenReturn(List.of(fila(3L, 0)));
+
+        relay.procesarPendientes();
+
+        verify(outboxRepository, times(2)).bloquearPendientes(any(), anyInt());
+        verify(broadcaster, times(2)).difundir(any());
+    }
+
+    @Test
+    void procesarPendientes_loteFalla_reintentaFilaPorFilaYAplicaBackoff() {
+        NotificacionOutbox sana = fila(1L, 0);
+        NotificacionOutbox rota = fila(2L, 0);
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE))).thenReturn(List.of(sana, rota))
+                .thenReturn(List.of());
+        when(outboxRepository.bloquearPendientePorId(1L)).thenReturn(Optional.of(sana));
+        when(outboxRepository.bloquearPendientePorId(2L)).thenReturn(Optional.of(rota));
+        when(outboxRepository.findById(2L)).thenReturn(Optional.of(rota));
+        doThrow(new IllegalStateException("usuario inexistente"))
+                .when(batchWriter).persistirLote(argThat(filas -> filas != null && filas.contains(rota)));
+
+        LocalDateTime antes = LocalDateTime.now();
+        relay.procesarPendientes();
+
+        assertEquals(EstadoOutbox.PROCESADO, sana.getEstado());
+        assertEquals(EstadoOutbox.PENDIENTE, rota.getEstado());
+        assertEquals(1, rota.getIntentos());
+        assertEquals("usuario inexistente", rota.getUltimoError());
+        // Primer fallo: espera la base del backoff
+        assertFalse(rota.getProximoIntento().isBefore(antes.plusNanos(BACKOFF_BASE_MS * 1_000_000L)));
+        assertTrue(rota.getProximoIntento().isBefore(antes.plusNanos(2 * BACKOFF_BASE_MS * 1_000_000L)));
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_ERRORES)
+                .tag(MetricsConfig.TagNames.RESULTADO, "reintento").counter().count());
+    }
+
+    @Test
+    void procesarPendientes_segundoFallo_duplicaLaEspera() {
+        NotificacionOutbox rota = fallarFilaConIntentos(1);
+
+        LocalDateTime antes = LocalDateTime.now();
+        relay.procesarPendientes();
+
+        // Segundo fallo: 2 × base = 2 s, por debajo del máximo
+        assertEquals(EstadoOutbox.PENDIENTE, rota.getEstado());
+        assertEquals(2, rota.getIntentos());
+        assertFalse(rota.getProximoIntento().isBefore(antes.plusSeconds(2)));
+        assertTrue(rota.getProximoIntento().isBefore(antes.plusSeconds(3)));
+    }
+
+    @Test
+    void procesarPendientes_muchosFallos_esperaAcotadaAlMaximo() {
+        relay = relayConMaximoDeIntentos(100);
+        NotificacionOutbox rota = fallarFilaConIntentos(40);
+
+        LocalDateTime antes = LocalDateTime.now();
+        relay.procesarPendientes();
+
+        assertEquals(EstadoOutbox.PENDIENTE, rota.getEstado());
+        assertFalse(rota.getProximoIntento().isBefore(antes.plusNanos(BACKOFF_MAX_MS * 1_000_000L)));
+        assertTrue(rota.getProximoIntento().isBefore(antes.plusNanos((BACKOFF_MAX_MS + 1_000) * 1_000_000L)));
+    }
+
+    @Test
+    void procesarPendientes_agotaLosIntentos_pasaAFallido() {
+        NotificacionOutbox rota = fallarFilaConIntentos(MAX_INTENTOS - 1);
+
+        relay.procesarPendientes();
+
+        assertEquals(EstadoOutbox.FALLIDO, rota.getEstado());
+        assertEquals(MAX_INTENTOS, rota.getIntentos());
+        verify(broadcaster, never()).difundir(any());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.NOTIFICACIONES_OUTBOX_ERRORES)
+                .tag(MetricsConfig.TagNames.RESULTADO, "fallido").counter().count());
+    }
+
+    @Test
+    void procesarPendientes_filaTomadaPorOtroNodo_noRegistraFallo() {
+        NotificacionOutbox fila = fila(1L, 0);
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE))).thenReturn(List.of(fila))
+                .thenReturn(List.of());
+        doThrow(new IllegalStateException("error de lote")).when(batchWriter).persistirLote(any());
+        // SKIP LOCKED: en el reintento individual la fila ya no está disponible
+        when(outboxRepository.bloquearPendientePorId(1L)).thenReturn(Optional.empty());
+
+        relay.procesarPendientes();
+
+        verify(outboxRepository, never()).findById(any());
+        assertEquals(0, fila.getIntentos());
+    }
+
+    @Test
+    void limpiarProcesados_eliminaLosProcesadosDeMasDeUnDia() {
+        LocalDateTime antes = LocalDateTime.now().minusDays(1);
+
+        relay.limpiarProcesados();
+
+        verify(outboxRepository).eliminarProcesadosAntiguos(argThat(limite ->
+                !limite.isBefore(antes) && limite.isBefore(antes.plusMinutes(1))));
+    }
+
+    @Test
+    void solicitarEntrega_enTransaccion_unSoloAvisoDespuesDelCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        relay.solicitarEntrega();
+        relay.solicitarEntrega();
+        relay.solicitarEntrega();
+        assertTrue(tareas.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, tareas.size());
+    }
+
+    @Test
+    void solicitarEntrega_rollback_noAvisa() {
+        TransactionSynchronizationManager.initSynchronization();
+        relay.solicitarEntrega();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(tareas.isEmpty());
+    }
+
+    @Test
+    void solicitarEntrega_sinTransaccion_avisaDeInmediato() {
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE))).thenReturn(List.of());
+
+        relay.solicitarEntrega();
+        assertEquals(1, tareas.size());
+
+        tareas.get(0).run();
+        verify(outboxRepository).bloquearPendientes(any(), eq(MAX_LOTE));
+    }
+
+    /**
+     * Una fila con {@code intentos} previos cuya entrega (en lote e individual) falla.
+     */
+    private NotificacionOutbox fallarFilaConIntentos(int intentos) {
+        NotificacionOutbox rota = fila(1L, intentos);
+        when(outboxRepository.bloquearPendientes(any(), eq(MAX_LOTE))).thenReturn(List.of(rota))
+                .thenReturn(List.of());
+        when(outboxRepository.bloquearPendientePorId(1L)).thenReturn(Optional.of(rota));
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(rota));
+        doThrow(new IllegalStateException("sin conexión")).when(batchWriter).persistirLote(any());
+        return rota;
+    }
+
+    private NotificacionOutboxRelay relayConMaximoDeIntentos(int maxIntentos) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        return new NotificacionOutboxRelay(outboxRepository, batchWriter, broadcaster, new SimpleMeterRegistry(),
+                transactionManager, tareas::add, MAX_LOTE, maxIntentos, BACKOFF_BASE_MS, BACKOFF_MAX_MS);
+    }
+
+    private static NotificacionOutbox fila(Long id, int intentos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return NotificacionOutbox.builder()
+                .id(id)
+                .idUsuario(UUID.randomUUID())
+                .tipo(TipoNotificacion.values()[0])
+                .mensaje("Notificación " + id)
+                .intentos(intentos)
+                .fechaCreacion(ahora)
+                .proximoIntento(ahora)
+                .build();
+    }
+
+    private static List<Notificacion> notificaciones(List<NotificacionOutbox> filas) {
+        List<Notificacion> resultado = new ArrayList<>();
+        for (NotificacionOutbox fila : filas) {
+            Notificacion notificacion = new Notificacion();
+            notificacion.setId(fila.getId());
+            notificacion.setTipo(fila.getTipo());
+            notificacion.setMensaje(fila.getMensaje());
+            resultado.add(notificacion);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,172 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.dto.NotificacionDTOResponse;
+import com.campito.backend.dto.NotificacionPaginaDTOResponse;
+import com.campito.backend.model.TipoNotificacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La bandeja se pagina por cursor sobre (fechaCreacion, id): el cursor de una página lleva
+ * la posición exacta de su último elemento y un cursor mal formado o alterado es un 400.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificacionServiceTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 3, 10, 12, 30, 15, 123_000_000);
+
+    @Mock
+    private NotificacionRepository notificacionRepository;
+
+    @Mock
+    private ContadorNoLeidasService contadorNoLeidasService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private NotificacionService notificacionService;
+    private UUID idUsuario;
+
+    @BeforeEach
+    void setUp() {
+        notificacionService = new NotificacionServiceImpl(notificacionRepository, contadorNoLeidasService,
+                eventPublisher, new SimpleMeterRegistry());
+        idUsuario = UUID.randomUUID();
+    }
+
+    @Test
+    void obtenerBandeja_ultimaPagina_sinCursorSiguiente() {
+        when(notificacionRepository.buscarBandeja(eq(idUsuario), any(), anyLong(), eq(Limit.of(3))))
+                .thenReturn(notificaciones(10, 2, FECHA));
+
+        NotificacionPaginaDTOResponse pagina = notificacionService.obtenerBandeja(idUsuario, null, 2, false);
+
+        assertEquals(2, pagina.content().size());
+        assertFalse(pagina.hasNext());
+        assertNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void obtenerBandeja_conMasFilas_devuelveElTamanioPedidoYCursor() {
+        // Se pide una fila extra: si llega, hay página siguiente
+        when(notificacionRepository.buscarBandeja(eq(idUsuario), any(), anyLong(), eq(Limit.of(3))))
+                .thenReturn(notificaciones(10, 3, FECHA));
+
+        NotificacionPaginaDTOResponse pagina = notificacionService.obtenerBandeja(idUsuario, null, 2, false);
+
+        assertEquals(List.of(10L, 9L), pagina.content().stream().map(NotificacionDTOResponse::id).toList());
+        assertTrue(pagina.hasNext());
+        assertNotNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void obtenerBandeja_cursorDeLaPaginaAnterior_continuaDesdeSuUltimoElemento() {
+        when(notificacionRepository.buscarBandeja(eq(idUsuario), any(), anyLong(), any()))
+                .thenReturn(notificaciones(10, 3, FECHA))
+                .thenReturn(List.of());
+        String cursor = notificacionService.obtenerBandeja(idUsuario, null, 2, false).siguienteCursor();
+
+        notificacionService.obtenerBandeja(idUsuario, cursor, 2, false);
+
+        ArgumentCaptor<LocalDateTime> fecha = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Long> id = ArgumentCaptor.forClass(Long.class);
+        verify(notificacionRepository, times(2)).buscarBandeja(eq(idUsuario), fecha.capture(), id.capture(), any());
+        // Primera página: desde el cursor inicial. Segunda: fecha e id exactos (con nanos) del último entregado
+        assertEquals(Long.MAX_VALUE, id.getAllValues().get(0));
+        assertEquals(FECHA, fecha.getAllValues().get(1));
+        assertEquals(9L, id.getAllValues().get(1));
+    }
+
+    @Test
+    void obtenerBandeja_fechasIguales_elCursorDesempataPorId() {
+        // Tres notificaciones del mismo instante: la página corta entre dos de ellas
+        when(notificacionRepository.buscarBandeja(eq(idUsuario), any(), anyLong(), any()))
+                .thenReturn(notificaciones(7, 3, FECHA))
+                .thenReturn(notificaciones(5, 1, FECHA));
+        String cursor = notificacionService.obtenerBandeja(idUsuario, null, 2, false).siguienteCursor();
+
+        NotificacionPaginaDTOResponse segunda = notificacionService.obtenerBandeja(idUsuario, cursor, 2, false);
+
+        // Con la misma fecha el repositorio filtra por id < 6: la 5 no se saltea ni se repite
+        verify(notificacionRepository).buscarBandeja(idUsuario, FECHA, 6L, Limit.of(3));
+        assertEquals(List.of(5L), segunda.content().stream().map(NotificacionDTOResponse::id).toList());
+        assertFalse(segunda.hasNext());
+    }
+
+    @Test
+    void obtenerBandeja_soloNoLeidas_usaLaConsultaDeNoLeidas() {
+        when(notificacionRepository.buscarBandejaNoLeidas(eq(idUsuario), any(), anyLong(), any()))
+                .thenReturn(List.of());
+
+        notificacionService.obtenerBandeja(idUsuario, null, null, true);
+
+        verify(notificacionRepository).buscarBandejaNoLeidas(eq(idUsuario), any(), eq(Long.MAX_VALUE), eq(Limit.of(21)));
+        verify(notificacionRepository, never()).buscarBandeja(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void obtenerBandeja_cursorMalFormado_lanzaIllegalArgument() {
+        List<String> invalidos = List.of(
+                "no-es-base64!",
+                codificar("sin-separador"),
+                codificar("2025-03-10T12:30|"),
+                codificar("2025-03-10T12:30|9|1"),
+                codificar("no-es-fecha|9"),
+                codificar("2025-03-10T12:30|nueve"),
+                codificar("2025-03-10T12:30|-1"),
+                codificar("+99999-01-01T00:00|9"),
+                codificar("1200-01-01T00:00|9"));
+
+        for (String cursor : invalidos) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> notificacionService.obtenerBandeja(idUsuario, cursor, 20, false), cursor);
+            assertEquals("Cursor de paginación inválido", e.getMessage());
+        }
+        verifyNoInteractions(notificacionRepository);
+    }
+
+    @Test
+    void obtenerBandeja_tamanioFueraDeRango_lanzaIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> notificacionService.obtenerBandeja(idUsuario, null, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> notificacionService.obtenerBandeja(idUsuario, null, 101, false));
+    }
+
+    /**
+     * Notificaciones con ids descendentes desde {@code desde}, todas con la misma fecha.
+     */
+    private static List<NotificacionDTOResponse> notificaciones(long desde, int cantidad, LocalDateTime fecha) {
+        List<NotificacionDTOResponse> resultado = new ArrayList<>();
+        for (long id = desde; id > desde - cantidad; id--) {
+            resultado.add(new NotificacionDTOResponse(id, TipoNotificacion.values()[0], "Notificación " + id,
+                    false, fecha, null));
+        }
+        return resultado;
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dto.AgenteChatRequestDTO;
+import com.campito.backend.model.AgenteAuditLog;
+import com.campito.backend.service.agentAI.AgenteAuditoriaService;
+import com.campito.backend.service.agentAI.EstimadorTokens;
+import com.campito.backend.service.agentAI.ObservadorStreamAgente;
+import com.campito.backend.service.agentAI.RegistroToolsInvocadas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * El observador del stream registra TTFT, intervalos entre tokens y una única fila de
+ * auditoría al terminar, sea cual sea la forma en que termina el stream.
+ */
+class ObservadorStreamAgenteTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AgenteAuditoriaService agenteAuditoriaService;
+    private ObservadorStreamAgente observador;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        agenteAuditoriaService = mock(AgenteAuditoriaService.class);
+        userId = UUID.randomUUID();
+        AgenteChatRequestDTO request = new AgenteChatRequestDTO("¿Cuánto gasté?", UUID.randomUUID(), null);
+        observador = new ObservadorStreamAgente(meterRegistry, agenteAuditoriaService, userId, request,
+                new RegistroToolsInvocadas());
+    }
+
+    @Test
+    void streamCompleto_registraMetricasYUnaFilaDeAuditoria() {
+        Flux.just(fragmento("Gastaste "), fragmento(""), fragmento("**$1.000**"))
+                .doOnSubscribe(s -> observador.alSuscribirse())
+                .doOnNext(observador::alRecibir)
+                .doFinally(observador::alFinalizar)
+                .blockLast();
+
+        AgenteAuditLog registro = registroGuardado();
+        assertTrue(registro.getSuccess());
+        assertEquals(userId, registro.getUserId());
+        assertEquals("Gastaste **$1.000**", registro.getAgentResponse());
+        // Sin metadata de uso: tokens estimados sobre el texto emitido
+        int tokensEstimados = EstimadorTokens.estimar("Gastaste **$1.000**");
+        assertEquals(tokensEstimados, registro.getTokensUsed());
+
+        assertEquals(1, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_STREAM_PRIMER_TOKEN).timer().count());
+        assertEquals(1, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_STREAM_ENTRE_TOKENS).timer().count());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_REQUESTS)
+                .tag("tipo", "stream").tag("resultado", "exitoso").counter().count());
+        assertEquals(tokensEstimados, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_TOKENS_CONSUMIDOS)
+                .tag("tipo", "stream").counter().count());
+    }
+
+    @Test
+    void streamCancelado_auditaRespuestaParcialComoNoExitosa() {
+        Flux.just(fragmento("Gastaste "), fragmento("mucho"))
+                .doOnNext(observador::alRecibir)
+                .doFinally(observador::alFinalizar)
+                .take(1)
+                .blockLast();
+
+        AgenteAuditLog registro = registroGuardado();
+        assertFalse(registro.getSuccess());
+        assertEquals("Gastaste ", registro.getAgentResponse());
+        assertNotNull(registro.getErrorMessage());
+        assertEquals(1.0, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_REQUESTS)
+                .tag("tipo", "stream").tag("resultado", "cancelado").counter().count());
+    }
+
+    @Test
+    void streamConError_guardaElMensajeDeError() {
+        Flux.concat(Flux.just(fragmento("Gastaste ")), Flux.<ChatResponse>error(new RuntimeException("Límite de tasa")))
+                .doOnNext(observador::alRecibir)
+                .doOnError(observador::alFallar)
+                .doFinally(observador::alFinalizar)
+                .onErrorResume(e -> Flux.empty())
+                .blockLast();
+
+        AgenteAuditLog registro = registroGuardado();
+        assertFalse(registro.getSuccess());
+        assertEquals("Límite de tasa", registro.getErrorMessage());
+    }
+
+    @Test
+    void alFinalizar_variasVeces_auditaUnaSolaVez() {
+        observador.alFinalizar(SignalType.ON_COMPLETE);
+        observador.alFinalizar(SignalType.CANCEL);
+
+        verify(agenteAuditoriaService, times(1)).registrar(any());
+    }
+
+    private AgenteAuditLog registroGuardado() {
+        ArgumentCaptor<AgenteAuditLog> captor = ArgumentCaptor.forClass(AgenteAuditLog.class);
+        verify(agenteAuditoriaService, times(1)).registrar(captor.capture());
+        return captor.getValue();
+    }
+
+    private static ChatResponse fragmento(String texto) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(texto))));
+    }
+}
@@ -0,0 +1,216 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.campito.backend.dao.CompraCreditoRepository;
+import com.campito.backend.dao.CuentaBancariaRepository;
+import com.campito.backend.dao.DescuentoRepository;
+import com.campito.backend.dao.EspacioTrabajoRepository;
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.dao.SolicitudPendienteEspacioTrabajoRepository;
+import com.campito.backend.dao.TarjetaRepository;
+import com.campito.backend.dao.TransaccionRepository;
+import com.campito.backend.exception.ForbiddenException;
+import com.campito.backend.model.CustomOAuth2User;
+import com.campito.backend.model.Usuario;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Las validaciones de ownership deben resolverse con la proyección del id del espacio
+ * (o del usuario) y el índice de membresías: nunca con findById de la entidad completa,
+ * que el servicio llamado a continuación vuelve a cargar.
+ */
+@ExtendWith(MockitoExtension.class)
+class SecurityServiceTest {
+
+    @Mock
+    private EspacioTrabajoRepository espacioTrabajoRepository;
+
+    @Mock
+    private TransaccionRepository transaccionRepository;
+
+    @Mock
+    private CompraCreditoRepository compraCreditoRepository;
+
+    @Mock
+    private CuentaBancariaRepository cuentaBancariaRepository;
+
+    @Mock
+    private TarjetaRepository tarjetaRepository;
+
+    @Mock
+    private NotificacionRepository notificacionRepository;
+
+    @Mock
+    private SolicitudPendienteEspacioTrabajoRepository solicitudPendienteRepository;
+
+    @Mock
+    private DescuentoRepository descuentoRepository;
+
+    @Mock
+    private MembresiaEspacioService membresiaEspacioService;
+
+    @InjectMocks
+    private SecurityServiceImpl securityService;
+
+    private UUID idUsuario;
+    private UUID idEspacioTrabajo;
+
+    @BeforeEach
+    void setUp() {
+        idUsuario = UUID.fromString("00000000-0000-0000-0000-000000000010");
+        idEspacioTrabajo = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+        Usuario usuario = new Usuario();
+        usuario.setId(idUsuario);
+        usuario.setEmail("usuario@test.com");
+        usuario.setRol("ROL_USER");
+        usuario.setActivo(true);
+
+        CustomOAuth2User principal = new CustomOAuth2User(Collections.emptyMap(), "sub", usuario);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // =========================================================
+    // Ownership por espacio de trabajo
+    // =========================================================
+
+    @Test
+    void validateTransactionOwnership_usaProyeccionSinCargarEntidad() {
+        when(transaccionRepository.findIdEspacioTrabajoById(1L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(true);
+
+        assertDoesNotThrow(() -> securityService.validateTransactionOwnership(1L));
+
+        verify(transaccionRepository, times(1)).findIdEspacioTrabajoById(1L);
+        verify(transaccionRepository, never()).findById(any());
+        verifyNoInteractions(espacioTrabajoRepository);
+    }
+
+    @Test
+    void validateTransactionOwnership_noEncontrada_lanzaEntityNotFoundException() {
+        when(transaccionRepository.findIdEspacioTrabajoById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> securityService.validateTransactionOwnership(1L));
+
+        verify(membresiaEspacioService, never()).esMiembro(any(), any());
+    }
+
+    @Test
+    void validateTransactionOwnership_sinMembresia_lanzaForbiddenException() {
+        when(transaccionRepository.findIdEspacioTrabajoById(1L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(false);
+
+        assertThrows(ForbiddenException.class, () -> securityService.validateTransactionOwnership(1L));
+    }
+
+    @Test
+    void validateCompraCreditoOwnership_usaProyeccionSinCargarEntidad() {
+        when(compraCreditoRepository.findIdEspacioTrabajoById(2L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(true);
+
+        assertDoesNotThrow(() -> securityService.validateCompraCreditoOwnership(2L));
+
+        verify(compraCreditoRepository, never()).findById(any());
+        verifyNoInteractions(espacioTrabajoRepository);
+    }
+
+    @Test
+    void validateCuentaBancariaOwnership_usaProyeccionSinCargarEntidad() {
+        when(cuentaBancariaRepository.findIdEspacioTrabajoById(3L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(true);
+
+        assertDoesNotThrow(() -> securityService.validateCuentaBancariaOwnership(3L));
+
+        verify(cuentaBancariaRepository, never()).findById(any());
+        verifyNoInteractions(espacioTrabajoRepository);
+    }
+
+    @Test
+    void validateTarjetaOwnership_usaProyeccionSinCargarEntidad() {
+        when(tarjetaRepository.findIdEspacioTrabajoById(4L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(true);
+
+        assertDoesNotThrow(() -> securityService.validateTarjetaOwnership(4L));
+
+        verify(tarjetaRepository, never()).findById(any());
+        verifyNoInteractions(espacioTrabajoRepository);
+    }
+
+    @Test
+    void validateDescuentoOwnership_usaProyeccionSinCargarEntidad() {
+        when(descuentoRepository.findIdEspacioTrabajoById(5L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(true);
+
+        assertDoesNotThrow(() -> securityService.validateDescuentoOwnership(5L));
+
+        verify(descuentoRepository, never()).findById(any());
+    }
+
+    @Test
+    void validateDescuentoOwnership_sinMembresia_lanzaForbiddenException() {
+        when(descuentoRepository.findIdEspacioTrabajoById(5L)).thenReturn(Optional.of(idEspacioTrabajo));
+        when(membresiaEspacioService.esMiembro(idUsuario, idEspacioTrabajo)).thenReturn(false);
+
+        assertThrows(ForbiddenException.class, () -> securityService.validateDescuentoOwnership(5L));
+    }
+
+    // =========================================================
+    // Ownership por usuario
+    // =========================================================
+
+    @Test
+    void validateNotificacionOwnership_usaProyeccionSinCargarEntidad() {
+        when(notificacionRepository.findIdUsuarioById(6L)).thenReturn(Optional.of(idUsuario));
+
+        assertDoesNotThrow(() -> securityService.validateNotificacionOwnership(6L));
+
+        verify(notificacionRepository, never()).findById(any());
+    }
+
+    @Test
+    void validateNotificacionOwnership_deOtroUsuario_lanzaForbiddenException() {
+        when(notificacionRepository.findIdUsuarioById(6L)).thenReturn(Optional.of(UUID.randomUUID()));
+
+        assertThrows(ForbiddenException.class, () -> securityService.validateNotificacionOwnership(6L));
+    }
+
+    @Test
+    void validateSolicitudOwnership_usaProyeccionSinCargarEntidad() {
+        when(solicitudPendienteRepository.findIdUsuarioInvitadoById(7L)).thenReturn(Optional.of(idUsuario));
+
+        assertDoesNotThrow(() -> securityService.validateSolicitudOwnership(7L));
+
+        verify(solicitudPendienteRepository, never()).findById(any());
+    }
+
+    @Test
+    void validateSolicitudOwnership_noEncontrada_lanzaEntityNotFoundException() {
+        when(solicitudPendienteRepository.findIdUsuarioInvitadoById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> securityService.validateSolicitudOwnership(7L));
+    }
+}
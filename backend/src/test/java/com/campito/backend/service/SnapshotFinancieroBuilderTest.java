@@ -0,0 +1,117 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.DashboardRepository;
+import com.campito.backend.dto.CuotasPendientesTarjetaDTO;
+import com.campito.backend.dto.SaldoCuentaDTO;
+import com.campito.backend.dto.TopComercioDTO;
+import com.campito.backend.dto.TotalMotivoMesDTO;
+import com.campito.backend.service.agentAI.SnapshotFinancieroBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El resumen financiero agrupa por mes y tipo, limita los motivos por línea y
+ * formatea los montos en pesos sin decimales.
+ */
+class SnapshotFinancieroBuilderTest {
+
+    private DashboardRepository dashboardRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private SnapshotFinancieroBuilder builder;
+    private UUID idEspacio;
+
+    @BeforeEach
+    void setUp() {
+        dashboardRepository = mock(DashboardRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        builder = new SnapshotFinancieroBuilder(dashboardRepository, meterRegistry, 6, 2, 10);
+        idEspacio = UUID.randomUUID();
+    }
+
+    @Test
+    void construir_conDatos_resumeTodosLosBloques() {
+        SaldoCuentaDTO cuenta = saldo("Sueldo", "Galicia", "150000.50");
+        CuotasPendientesTarjetaDTO cuotas = cuotas("Santander", "VISA", "4321", 3L, "45000", "2025-07-10");
+        TopComercioDTO comercio = comercio("Coto", "80000", 4L);
+        List<TotalMotivoMesDTO> totales = List.of(
+                total("2025-06", "Supermercado", "GASTO", "80000", 4L),
+                total("2025-06", "Transporte", "GASTO", "20000", 10L),
+                total("2025-06", "Salidas", "GASTO", "15000", 2L),
+                total("2025-06", "Farmacia", "GASTO", "5000", 1L),
+                total("2025-06", "Salario", "INGRESO", "900000", 1L));
+        when(dashboardRepository.findSaldosPorCuenta(idEspacio)).thenReturn(List.of(cuenta));
+        when(dashboardRepository.findTotalesPorMotivoYMes(eq(idEspacio), any())).thenReturn(totales);
+        when(dashboardRepository.findTopComercios(eq(idEspacio), any(), eq(10))).thenReturn(List.of(comercio));
+        when(dashboardRepository.findCuotasPendientesPorTarjeta(idEspacio)).thenReturn(List.of(cuotas));
+
+        String snapshot = builder.construir(idEspacio);
+
+        assertTrue(snapshot.contains("Saldos por cuenta: Sueldo (Galicia) $150.001"));
+        assertTrue(snapshot.contains("- 2025-06 GASTO total $120.000: Supermercado $80.000 (4); "
+                + "Transporte $20.000 (10); otros $20.000"));
+        assertTrue(snapshot.contains("- 2025-06 INGRESO total $900.000: Salario $900.000 (1)"));
+        assertTrue(snapshot.contains("Principales comercios/contactos (gastos): Coto $80.000 (4)"));
+        assertTrue(snapshot.contains("VISA Santander *4321: 3 cuotas, $45.000, próximo vencimiento 2025-07-10"));
+
+        assertEquals(1, meterRegistry.get(MetricsConfig.MetricNames.AGENTE_SNAPSHOT_TOKENS).summary().count());
+    }
+
+    @Test
+    void construir_sinDatos_indicaBloquesVacios() {
+        String snapshot = builder.construir(idEspacio);
+
+        assertTrue(snapshot.contains("Saldos por cuenta: ninguna"));
+        assertTrue(snapshot.contains("- sin movimientos"));
+        assertTrue(snapshot.contains("Cuotas pendientes por tarjeta: ninguna"));
+    }
+
+    private static TotalMotivoMesDTO total(String mes, String motivo, String tipo, String total, Long cantidad) {
+        TotalMotivoMesDTO dto = mock(TotalMotivoMesDTO.class);
+        when(dto.getMes()).thenReturn(mes);
+        when(dto.getMotivo()).thenReturn(motivo);
+        when(dto.getTipo()).thenReturn(tipo);
+        when(dto.getTotal()).thenReturn(new BigDecimal(total));
+        when(dto.getCantidad()).thenReturn(cantidad);
+        return dto;
+    }
+
+    private static SaldoCuentaDTO saldo(String nombre, String entidad, String saldo) {
+        SaldoCuentaDTO dto = mock(SaldoCuentaDTO.class);
+        when(dto.getNombre()).thenReturn(nombre);
+        when(dto.getEntidad()).thenReturn(entidad);
+        when(dto.getSaldo()).thenReturn(new BigDecimal(saldo));
+        return dto;
+    }
+
+    private static TopComercioDTO comercio(String nombre, String total, Long cantidad) {
+        TopComercioDTO dto = mock(TopComercioDTO.class);
+        when(dto.getNombre()).thenReturn(nombre);
+        when(dto.getTotal()).thenReturn(new BigDecimal(total));
+        when(dto.getCantidad()).thenReturn(cantidad);
+        return dto;
+    }
+
+    private static CuotasPendientesTarjetaDTO cuotas(String entidad, String red, String numero, Long cantidad,
+                                                     String total, String vencimiento) {
+        CuotasPendientesTarjetaDTO dto = mock(CuotasPendientesTarjetaDTO.class);
+        when(dto.getEntidad()).thenReturn(entidad);
+        when(dto.getRed()).thenReturn(red);
+        when(dto.getNumero()).thenReturn(numero);
+        when(dto.getCuotas()).thenReturn(cantidad);
+        when(dto.getTotal()).thenReturn(new BigDecimal(total));
+        when(dto.getVencimiento()).thenReturn(vencimiento);
+        return dto;
+    }
+}
@@ -0,0 +1,275 @@
+package com.campito.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.campito.backend.config.MetricsConfig;
+import com.campito.backend.dao.NotificacionRepository;
+import com.campito.backend.dto.NotificacionDTOResponse;
+import com.campito.backend.mapper.NotificacionMapper;
+import com.campito.backend.model.Notificacion;
+import com.campito.backend.model.TipoNotificacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El reenvío por Last-Event-ID usa la secuencia por usuario: se responde desde el buffer
+ * solo si tiene todas las secuencias posteriores sin huecos; si no, se va a la base. Cada
+ * conexión envía en orden estricto: completa huecos desde la base y descarta lo ya enviado.
+ * Las consultas de huecos concurrentes están acotadas: sin permiso se cierra la conexión.
+ */
+class SseEmitterServiceTest {
+
+    private static final int EVENTOS_POR_USUARIO = 3;
+    private static final int MAX_HUECOS_CONCURRENTES = 1;
+
+    private NotificacionRepository notificacionRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private SseEmitterServiceImpl sseEmitterService;
+    private UUID idUsuario;
+
+    @BeforeEach
+    void setUp() {
+        notificacionRepository = mock(NotificacionRepository.class);
+        NotificacionMapper notificacionMapper = mock(NotificacionMapper.class);
+        when(notificacionMapper.toResponse(any())).thenAnswer(inv -> {
+            Notificacion notificacion = inv.getArgument(0);
+            return new NotificacionDTOResponse(notificacion.getId(), notificacion.getTipo(),
+                    notificacion.getMensaje(), false, LocalDateTime.now(), null);
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        sseEmitterService = new SseEmitterServiceImpl(notificacionMapper, notificacionRepository,
+                new AtomicInteger(), meterRegistry, 64, 5, EVENTOS_POR_USUARIO, 100, 60,
+                MAX_HUECOS_CONCURRENTES, 100);
+        idUsuario = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sseEmitterService.cerrarTodas();
+    }
+
+    @Test
+    void crearEmitter_bufferSinHuecos_noConsultaLaBase() {
+        enviar(1, 2, 3);
+
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+
+        verifyNoInteractions(notificacionRepository);
+    }
+
+    @Test
+    void crearEmitter_clienteAlDia_noConsultaLaBase() {
+        enviar(1, 2);
+
+        sseEmitterService.crearEmitter(idUsuario, 2L);
+
+        verifyNoInteractions(notificacionRepository);
+    }
+
+    @Test
+    void crearEmitter_llegadaDesordenadaSinHuecos_noConsultaLaBase() {
+        // La 3 llegó desde otro nodo antes que la 2
+        enviar(3, 2);
+
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+
+        verifyNoInteractions(notificacionRepository);
+    }
+
+    @Test
+    void crearEmitter_faltaUnaSecuencia_consultaLaBasePorSecuencia() {
+        // La 2 ya está confirmada (existe la 3) pero todavía no llegó a este nodo
+        enviar(1, 3);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L))
+                .thenReturn(List.of(notificacion(102L, 2), notificacion(103L, 3)));
+
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+
+        verify(notificacionRepository).findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L);
+    }
+
+    @Test
+    void crearEmitter_bufferRecortado_consultaLaBase() {
+        // Con capacidad 3 quedan la 3, la 4 y la 5: la 2 ya no está en memoria
+        enviar(1, 2, 3, 4, 5);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L))
+                .thenReturn(List.of(notificacion(102L, 2), notificacion(103L, 3), notificacion(104L, 4),
+                        notificacion(105L, 5)));
+
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+
+        verify(notificacionRepository).findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L);
+    }
+
+    @Test
+    void crearEmitter_idsDeNotificacionDesordenados_usaLaSecuencia() {
+        // Ids de bloques de distintos nodos: el de la secuencia 2 es menor que el de la 1
+        enviar(notificacion(60L, 1), notificacion(3L, 2));
+
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+
+        verify(notificacionRepository, never())
+                .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(any(), anyLong());
+    }
+
+    @Test
+    void crearEmitter_sinBuffer_consultaLaBase() {
+        sseEmitterService.crearEmitter(idUsuario, 7L);
+
+        verify(notificacionRepository).findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 7L);
+    }
+
+    @Test
+    void enviarNotificacion_huecoEnVivo_loCompletaDesdeLaBaseAntesDeEnviar() {
+        enviar(1);
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L))
+                .thenReturn(List.of(notificacion(40L, 2), notificacion(7L, 3)));
+
+        // La 3 llega (desde otro nodo) antes que la 2
+        enviar(3);
+
+        verify(notificacionRepository, timeout(2_000))
+                .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L);
+        esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_REENVIADOS, "origen", "hueco", 1.0);
+    }
+
+    @Test
+    void enviarNotificacion_llegaTardeLaYaEnviada_seDescarta() {
+        enviar(1);
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L))
+                .thenReturn(List.of(notificacion(40L, 2)));
+        enviar(3);
+        esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_REENVIADOS, "origen", "hueco", 1.0);
+
+        // La 2 ya se envió al completar el hueco
+        enviar(2);
+
+        esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_DESCARTADOS, "motivo", "duplicado", 1.0);
+    }
+
+    @Test
+    void enviarNotificacion_secuenciasConsecutivas_noConsultaLaBase() {
+        sseEmitterService.crearEmitter(idUsuario, null);
+
+        enviar(1, 2, 3);
+
+        verify(notificacionRepository, after(300).never())
+                .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(any(), anyLong());
+    }
+
+    @Test
+    void crearEmitter_sinLastEventId_arrancaDesdeLaUltimaConfirmada() {
+        when(notificacionRepository.findUltimaSecuencia(idUsuario)).thenReturn(5L);
+        sseEmitterService.crearEmitter(idUsuario, null);
+
+        // La 6 se confirmó pero todavía no llegó a este nodo
+        enviar(7);
+
+        verify(notificacionRepository, timeout(2_000))
+                .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 5L);
+    }
+
+    @Test
+    void enviarNotificacion_huecosSinPermiso_cierraLaConexion() throws Exception {
+        UUID otroUsuario = UUID.randomUUID();
+        CountDownLatch consultando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(otroUsuario, 0L))
+                .thenAnswer(inv -> {
+                    consultando.countDown();
+                    liberar.await();
+                    return List.of();
+                });
+        try {
+            // La conexión del otro usuario ocupa el único permiso con una consulta lenta
+            sseEmitterService.crearEmitter(otroUsuario, null);
+            sseEmitterService.enviarNotificacion(otroUsuario, notificacion(200L, 5));
+            assertTrue(consultando.await(2, TimeUnit.SECONDS));
+
+            enviar(1);
+            sseEmitterService.crearEmitter(idUsuario, 1L);
+            enviar(3);
+
+            esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_DESCARTADOS, "motivo", "hueco_saturado", 1.0);
+            assertFalse(sseEmitterService.tieneConexiones(idUsuario));
+            assertTrue(sseEmitterService.tieneConexiones(otroUsuario));
+            verify(notificacionRepository, never())
+                    .findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(eq(idUsuario), eq(1L));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void enviarNotificacion_huecoTerminado_liberaElPermiso() {
+        enviar(1);
+        sseEmitterService.crearEmitter(idUsuario, 1L);
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 1L))
+                .thenReturn(List.of(notificacion(40L, 2)));
+        when(notificacionRepository.findTop50ByUsuarioIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(idUsuario, 3L))
+                .thenReturn(List.of(notificacion(41L, 4)));
+
+        // Dos huecos seguidos con un único permiso
+        enviar(3);
+        esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_REENVIADOS, "origen", "hueco", 1.0);
+        enviar(5);
+
+        esperarContador(MetricsConfig.MetricNames.SSE_EVENTOS_REENVIADOS, "origen", "hueco", 2.0);
+        assertTrue(sseEmitterService.tieneConexiones(idUsuario));
+    }
+
+    /**
+     * Espera a que el thread de la conexión actualice el contador.
+     */
+    private void esperarContador(String nombre, String tag, String valor, double esperado) {
+        long limite = System.currentTimeMillis() + 2_000;
+        double actual = 0;
+        while (System.currentTimeMillis() < limite) {
+            var contador = meterRegistry.find(nombre).tag(tag, valor).counter();
+            actual = contador == null ? 0 : contador.count();
+            if (actual == esperado) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        assertEquals(esperado, actual);
+    }
+
+    private void enviar(long... secuencias) {
+        for (long secuencia : secuencias) {
+            sseEmitterService.enviarNotificacion(idUsuario, notificacion(100 + secuencia, secuencia));
+        }
+    }
+
+    private void enviar(Notificacion... notificaciones) {
+        for (Notificacion notificacion : notificaciones) {
+            sseEmitterService.enviarNotificacion(idUsuario, notificacion);
+        }
+    }
+
+    private static Notificacion notificacion(long id, long secuencia) {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setId(id);
+        notificacion.setSecuencia(secuencia);
+        notificacion.setTipo(TipoNotificacion.values()[0]);
+        notificacion.setMensaje("Notificación " + secuencia);
+        return notificacion;
+    }
+}
@@ -17,6 +17,8 @@ import { devLog, devError } from '@/utils/logger'
  */
 export const useNotificaciones = () => {
   const eventSourceRef = useRef<EventSource | null>(null)
+  // Último id de evento SSE recibido, para reanudar sin perder notificaciones al reconectar
+  const lastEventIdRef = useRef<string | null>(null)
   const isConnectingRef = useRef<boolean>(false)
   
   const {
@@ -86,7 +88,7 @@ export const useNotificaciones = () => {
     isConnectingRef.current = true
     
     try {
-      const eventSource = notificacionService.crearConexionSSE()
+      const eventSource = notificacionService.crearConexionSSE(lastEventIdRef.current)
       eventSourceRef.current = eventSource
 
       // Listener para cuando se abre la conexión
@@ -103,6 +105,9 @@ export const useNotificaciones = () => {
       // Manejar notificaciones (evento con nombre "notification" enviado por el backend)
       eventSource.addEventListener('notification', (event) => {
         devLog('📨 SSE: Notificación recibida:', event.data)
+        if (event.lastEventId) {
+          lastEventIdRef.current = event.lastEventId
+        }
         try {
           const notificacion: NotificacionDTOResponse = JSON.parse(event.data)
           devLog('🔔 SSE: Notificación procesada:', notificacion.tipo, notificacion.mensaje)
@@ -112,6 +117,16 @@ export const useNotificaciones = () => {
         }
       })
 
+      // Contador de no leídas: el backend lo envía en cada cambio, no hace falta consultarlo
+      eventSource.addEventListener('unread-count', (event) => {
+        try {
+          const { count } = JSON.parse(event.data) as { count: number }
+          useAppStore.setState({ unreadCount: count })
+        } catch (error) {
+          devError('❌ SSE: Error al parsear contador de no leídas:', error)
+        }
+      })
+
       // Manejar errores
       eventSource.onerror = (error) => {
         devError('❌ SSE: Error en conexión:', {
@@ -55,7 +55,7 @@ export const notificacionService = {
    * Usa Query Parameter para enviar el token JWT porque es más confiable que headers
    * con EventSource (no requiere polyfill y tiene mejor compatibilidad con navegadores).
    */
-  crearConexionSSE(): EventSource {
+  crearConexionSSE(lastEventId?: string | null): EventSource {
     const baseURL = import.meta.env.VITE_API_URL || 'http://localhost:8080'
     const token = localStorage.getItem('auth_token')
     
@@ -69,7 +69,10 @@ export const notificacionService = {
     
     // Construir URL con token como query parameter
     // Esto es más confiable que usar headers personalizados en SSE
+    // lastEventId: al recrear el EventSource el navegador no envía Last-Event-ID,
+    // así que se informa por query param para recibir solo las notificaciones perdidas
     const url = `${baseURL}/api/notificaciones/stream?token=${encodeURIComponent(token)}`
+      + (lastEventId ? `&lastEventId=${encodeURIComponent(lastEventId)}` : '')
     
     devLog('🔗 SSE: Creando conexión a:', `${baseURL}/api/notificaciones/stream`)
     devLog('🔑 SSE: Token presente:', token.substring(0, 20) + '...')